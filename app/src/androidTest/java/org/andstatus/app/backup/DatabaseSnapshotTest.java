@@ -0,0 +1,53 @@
+package org.andstatus.app.backup;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.MyStorage;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.database.MsgTable;
+import org.andstatus.app.database.UserTable;
+
+import java.io.File;
+import java.io.IOException;
+
+@Travis
+public class DatabaseSnapshotTest extends InstrumentationTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initializeWithData(this);
+    }
+
+    public void testSnapshotOfLiveDatabase() throws IOException {
+        final String method = "testSnapshotOfLiveDatabase";
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        DatabaseSnapshot snapshot = new DatabaseSnapshot(db,
+                MyStorage.getDatabasePath(DatabaseSnapshot.SNAPSHOT_PREFIX + "test.sqlite"));
+        try {
+            File snapshotFile = snapshot.take();
+            assertTrue(snapshotFile.exists());
+            SQLiteDatabase snapshotDb = SQLiteDatabase.openDatabase(snapshotFile.getAbsolutePath(), null,
+                    SQLiteDatabase.OPEN_READONLY);
+            try {
+                assertEquals(db.getVersion(), snapshotDb.getVersion());
+                for (String table : new String[]{MsgTable.TABLE_NAME, UserTable.TABLE_NAME}) {
+                    String sql = "SELECT COUNT(*) FROM " + table;
+                    long count = MyQuery.sqlToLong(db, method, sql);
+                    assertTrue("No rows in " + table, count > 0);
+                    assertEquals(table, count, MyQuery.sqlToLong(snapshotDb, method, sql));
+                }
+                String sql = "SELECT COUNT(*) FROM sqlite_master WHERE type='index'";
+                assertEquals(MyQuery.sqlToLong(db, method, sql), MyQuery.sqlToLong(snapshotDb, method, sql));
+            } finally {
+                snapshotDb.close();
+            }
+        } finally {
+            snapshot.delete();
+        }
+    }
+}
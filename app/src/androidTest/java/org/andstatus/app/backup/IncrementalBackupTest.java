@@ -0,0 +1,88 @@
+package org.andstatus.app.backup;
+
+import android.database.Cursor;
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.database.ChangeLogTable;
+import org.andstatus.app.database.UserTable;
+import org.andstatus.app.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Travis
+public class IncrementalBackupTest extends InstrumentationTestCase {
+    private File backupFolder;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initializeWithData(this);
+        backupFolder = new File(MyContextHolder.get().context().getCacheDir(), "incrementalBackupTest");
+        FileUtils.deleteFilesRecursively(backupFolder);
+        assertTrue(backupFolder.mkdir());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.deleteFilesRecursively(backupFolder);
+        super.tearDown();
+    }
+
+    public void testFullThenIncremental() throws IOException, InterruptedException {
+        MyBackupDescriptor full = backup();
+        assertFalse(full.toString(), full.isIncremental());
+        assertTrue(full.toString(), full.getLastChangeId() > 0);
+
+        MyAccount ma = TestSuite.getMyAccount(TestSuite.GNUSOCIAL_TEST_ACCOUNT_NAME);
+        MyContextHolder.get().getDatabase().execSQL("UPDATE " + UserTable.TABLE_NAME
+                + " SET " + UserTable.UPDATED_DATE + "=" + UserTable.UPDATED_DATE
+                + " WHERE " + UserTable._ID + "=" + ma.getUserId());
+        // Backup folder names are made of the current time in seconds
+        Thread.sleep(1100);
+
+        MyBackupDescriptor incremental = backup();
+        assertTrue(incremental.toString(), incremental.isIncremental());
+        assertEquals(full.getFolderName(), incremental.getBaseBackup());
+        assertEquals(1, incremental.getChainLength());
+        assertTrue(incremental.toString(), incremental.getLastChangeId() > full.getLastChangeId());
+        assertTrue(incremental.toString(), incremental.toString().contains(UserTable.TABLE_NAME + "\":1"));
+    }
+
+    public void testAllBackedUpTablesAreTracked() {
+        List<String> notTracked = new ArrayList<>(Arrays.asList(ChangeLogTable.NOT_BACKED_UP));
+        notTracked.add(ChangeLogTable.TABLE_NAME);
+        List<String> tracked = new ArrayList<>();
+        for (ChangeLogTable.Tracked item : ChangeLogTable.Tracked.values()) {
+            tracked.add(item.tableName);
+        }
+        Cursor cursor = null;
+        try {
+            cursor = MyContextHolder.get().getDatabase().rawQuery("SELECT name FROM sqlite_master WHERE type='table'"
+                    + " AND name NOT LIKE 'sqlite_%' AND name != 'android_metadata'", null);
+            while (cursor.moveToNext()) {
+                String table = cursor.getString(0);
+                assertTrue("Changes of '" + table + "' are not tracked",
+                        tracked.contains(table) || notTracked.contains(table));
+            }
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+    }
+
+    private MyBackupDescriptor backup() throws IOException {
+        MyBackupManager backupManager = new MyBackupManager(null);
+        backupManager.prepareForBackup(backupFolder);
+        backupManager.backup();
+        assertEquals("Databases backed up", 1, backupManager.getBackupAgent().getDatabasesBackedUp());
+        return MyBackupManager.readDescriptor(backupManager.getDataFolder(), ProgressLogger.getEmpty());
+    }
+}
@@ -97,12 +97,22 @@ public class MyBackupAgentTest extends InstrumentationTestCase {
         assertTrue(accountHeader.exists());
         jso = FileUtils.getJSONObject(accountHeader);
         assertTrue(jso.getInt(MyBackupDataOutput.KEY_DATA_SIZE) > 10);
-        assertEquals(jso.getString(MyBackupDataOutput.KEY_FILE_EXTENSION), ".json");
+        assertEquals(jso.getString(MyBackupDataOutput.KEY_FILE_EXTENSION),
+                ".json" + MyBackupDataOutput.COMPRESSED_FILE_EXTENSION);
+        assertTrue(jso.getBoolean(MyBackupDataOutput.KEY_COMPRESSED));
 
-        File accountData = new File(backupManager.getDataFolder(), "account_data.json");
+        File accountData = new File(backupManager.getDataFolder(),
+                "account_data.json" + MyBackupDataOutput.COMPRESSED_FILE_EXTENSION);
         assertTrue(accountData.exists());
-        JSONArray jsa = FileUtils.getJSONArray(accountData);
+        MyBackupDataInput dataInput = new MyBackupDataInput(backupManager.getDataFolder());
+        while (dataInput.readNextHeader() && !PersistentAccounts.KEY_ACCOUNT.equals(dataInput.getKey())) {
+            dataInput.skipEntityData();
+        }
+        File accountDataUnzipped = new File(backupManager.getDataFolder().getParentFile(), "account_data.json");
+        dataInput.readEntityData(accountDataUnzipped);
+        JSONArray jsa = FileUtils.getJSONArray(accountDataUnzipped);
         assertTrue(jsa.length() > 2);
+        assertTrue(accountDataUnzipped.delete());
         
         return backupManager.getDataFolder();
     }
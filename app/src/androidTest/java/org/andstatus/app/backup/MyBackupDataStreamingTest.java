@@ -0,0 +1,107 @@
+package org.andstatus.app.backup;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.util.FileUtils;
+import org.andstatus.app.util.MyLog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+@Travis
+public class MyBackupDataStreamingTest extends InstrumentationTestCase {
+    private static final int FILE_SIZE = 16 * 1024 * 1024 + 12345;
+    private static final String KEY = "streaming_test";
+
+    private File testFolder;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initialize(this);
+        testFolder = new File(MyContextHolder.get().context().getCacheDir(), "streamingTest");
+        FileUtils.deleteFilesRecursively(testFolder);
+        assertTrue(testFolder.mkdir());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtils.deleteFilesRecursively(testFolder);
+        super.tearDown();
+    }
+
+    /** Logs backup and restore throughput in MB/s */
+    public void testBackupAndRestoreLargeFile() throws IOException {
+        final String method = "testBackupAndRestoreLargeFile";
+        File sourceFile = new File(testFolder, "source.db");
+        byte[] sourceBytes = writeRandomFile(sourceFile);
+        File dataFolder = new File(testFolder, "data");
+        assertTrue(dataFolder.mkdir());
+
+        long startedAt = System.nanoTime();
+        MyBackupDataOutput output = new MyBackupDataOutput(dataFolder);
+        output.writeEntityHeader(KEY, FILE_SIZE, MyBackupDataOutput.getDataFileExtension(sourceFile));
+        assertEquals(FILE_SIZE, output.writeEntityData(sourceFile));
+        String backupThroughput = MyBackupAgent.throughput(FILE_SIZE, startedAt);
+
+        File restoredFile = new File(testFolder, "restored.db");
+        startedAt = System.nanoTime();
+        MyBackupDataInput input = new MyBackupDataInput(dataFolder);
+        assertTrue(input.readNextHeader());
+        assertEquals(KEY, input.getKey());
+        assertEquals(FILE_SIZE, input.getDataSize());
+        assertEquals(FILE_SIZE, input.readEntityData(restoredFile));
+        String restoreThroughput = MyBackupAgent.throughput(FILE_SIZE, startedAt);
+        assertFalse(input.readNextHeader());
+
+        assertTrue("Restored file differs", Arrays.equals(sourceBytes, FileUtils.getBytes(restoredFile)));
+        MyLog.i(this, method + "; " + FILE_SIZE + " bytes. Backup" + backupThroughput
+                + ", restore" + restoreThroughput);
+    }
+
+    public void testReadInSmallChunks() throws IOException {
+        File sourceFile = new File(testFolder, "source.dat");
+        byte[] sourceBytes = writeRandomFile(sourceFile);
+        File dataFolder = new File(testFolder, "data");
+        assertTrue(dataFolder.mkdir());
+
+        MyBackupDataOutput output = new MyBackupDataOutput(dataFolder);
+        output.writeEntityHeader(KEY, FILE_SIZE, MyBackupDataOutput.getDataFileExtension(sourceFile));
+        int chunkSize = 100000;
+        for (int offset = 0; offset < FILE_SIZE; offset += chunkSize) {
+            int size = Math.min(chunkSize, FILE_SIZE - offset);
+            output.writeEntityData(Arrays.copyOfRange(sourceBytes, offset, offset + size), size);
+        }
+
+        MyBackupDataInput input = new MyBackupDataInput(dataFolder);
+        assertTrue(input.readNextHeader());
+        byte[] restoredBytes = new byte[FILE_SIZE];
+        int offset = 0;
+        int bytesRead;
+        while ((bytesRead = input.readEntityData(restoredBytes, offset,
+                Math.min(77777, FILE_SIZE - offset))) > 0) {
+            offset += bytesRead;
+        }
+        assertEquals(FILE_SIZE, offset);
+        assertTrue("Restored data differs", Arrays.equals(sourceBytes, restoredBytes));
+    }
+
+    private byte[] writeRandomFile(File file) throws IOException {
+        byte[] bytes = new byte[FILE_SIZE];
+        new Random(FILE_SIZE).nextBytes(bytes);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            DbUtils.closeSilently(out);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,100 @@
+package org.andstatus.app.context;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.data.DbUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+@Travis
+public class DownloadsMoverTest extends InstrumentationTestCase {
+    private static final int FILES_COUNT = 20;
+    private File dirOld;
+    private File dirNew;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initialize(this);
+        File root = new File(MyContextHolder.get().context().getCacheDir(), "downloads_mover_test");
+        dirOld = new File(root, "old");
+        dirNew = new File(root, "new");
+        deleteAll(dirOld);
+        deleteAll(dirNew);
+        assertTrue(dirOld.mkdirs());
+        assertTrue(dirNew.mkdirs());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        deleteAll(dirOld);
+        deleteAll(dirNew);
+        super.tearDown();
+    }
+
+    public void testMoveAndResume() throws IOException {
+        Random random = new Random(1);
+        long[] checksums = new long[FILES_COUNT];
+        final Set<String> referenced = new HashSet<>();
+        for (int i = 0; i < FILES_COUNT; i++) {
+            checksums[i] = DownloadsMover.checksum(newFile(dirOld, "file" + i, 1000 + random.nextInt(100000)));
+            referenced.add("file" + i);
+        }
+        newFile(dirOld, "pruned", 1000);
+        // Leftovers of an interrupted move
+        DownloadsMover.copy(new File(dirOld, "file0"), new File(dirNew, "file0"));
+        newFile(dirNew, "file2" + DownloadsMover.TEMP_FILE_SUFFIX, 10);
+        // Downloaded again after the storage switch
+        long checksumOfNewer = DownloadsMover.checksum(newFile(dirNew, "file1", 10));
+
+        DownloadsMover mover = new DownloadsMover(dirOld, dirNew) {
+            @Override
+            Set<String> getReferencedFilenames() {
+                return referenced;
+            }
+        };
+        assertTrue(mover.move());
+        assertEquals(FILES_COUNT - 1, mover.getFilesMoved());
+        assertEquals(1, mover.getFilesSkipped());
+        assertEquals(1, mover.getFilesPruned());
+        assertEquals(0, mover.getFilesFailed());
+        assertEquals(0, dirOld.listFiles().length);
+        assertEquals("Newer download overwritten", checksumOfNewer,
+                DownloadsMover.checksum(new File(dirNew, "file1")));
+        for (int i = 0; i < FILES_COUNT; i++) {
+            if (i != 1) {
+                assertEquals("file" + i, checksums[i], DownloadsMover.checksum(new File(dirNew, "file" + i)));
+            }
+        }
+        assertFalse(new File(dirNew, "file2" + DownloadsMover.TEMP_FILE_SUFFIX).exists());
+        assertFalse(new File(dirNew, "pruned").exists());
+    }
+
+    private static File newFile(File dir, String name, int size) throws IOException {
+        File file = new File(dir, name);
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            DbUtils.closeSilently(out);
+        }
+        return file;
+    }
+
+    private static void deleteAll(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+}
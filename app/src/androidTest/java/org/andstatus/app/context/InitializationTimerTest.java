@@ -0,0 +1,29 @@
+package org.andstatus.app.context;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.data.DbUtils;
+
+@Travis
+public class InitializationTimerTest extends InstrumentationTestCase {
+
+    public void testStages() {
+        InitializationTimer timer = new InitializationTimer();
+        assertEquals(0, timer.getTotalMillis());
+        long startedAt = timer.start();
+        DbUtils.waitMs("testStages", 20);
+        timer.stop(InitializationTimer.Stage.DATABASE, startedAt);
+        assertTrue(timer.toString(), timer.getMillis(InitializationTimer.Stage.DATABASE) >= 20);
+        assertEquals("Not executed", 0, timer.getMillis(InitializationTimer.Stage.TIMELINES));
+        assertEquals("Not completed", 0, timer.getTotalMillis());
+
+        timer.complete();
+        long totalMillis = timer.getTotalMillis();
+        assertTrue(timer.toString(), totalMillis >= timer.getMillis(InitializationTimer.Stage.DATABASE));
+        startedAt = timer.start();
+        timer.stop(InitializationTimer.Stage.IMAGE_CACHE, startedAt);
+        assertEquals("Background stage after the completion", totalMillis, timer.getTotalMillis());
+        assertTrue(timer.toString(), timer.toString().contains("image_cache"));
+        assertFalse(timer.toString(), timer.toString().contains("timelines"));
+    }
+}
@@ -0,0 +1,56 @@
+package org.andstatus.app.data;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.net.social.MbUser;
+
+import java.util.List;
+import java.util.Set;
+
+@Travis
+public class MentionsExtractorTest extends InstrumentationTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initializeWithData(this);
+    }
+
+    public void testMentionsOfMyAccounts() {
+        MyAccount ma = TestSuite.getMyAccount(TestSuite.GNUSOCIAL_TEST_ACCOUNT_NAME);
+        MyAccount ma2 = TestSuite.getMyAccount(TestSuite.GNUSOCIAL_TEST_ACCOUNT2_NAME);
+        assertTrue(ma.isValid());
+        assertTrue(ma2.isValid());
+        MbUser author = MbUser.fromOriginAndUserOid(ma.getOriginId(), "");
+        String body = "@" + TestSuite.GNUSOCIAL_TEST_ACCOUNT_USERNAME + " Hi! Did you see this, @"
+                + TestSuite.GNUSOCIAL_TEST_ACCOUNT2_USERNAME + "? @"
+                + TestSuite.GNUSOCIAL_TEST_ACCOUNT_USERNAME + "again";
+
+        MentionsExtractor extractor = MentionsExtractor.fromBodyText(author, body);
+        String msgLog = body + " -> " + extractor.getUsers();
+        assertEquals(msgLog, 3, extractor.getUsers().size());
+
+        List<MbUser> replyTo = extractor.getReplyToUsers();
+        assertEquals(msgLog, 1, replyTo.size());
+        assertEquals(msgLog, ma.getUserId(), replyTo.get(0).userId);
+
+        Set<Long> mentioned = extractor.getMentionedAccountUserIds();
+        assertEquals(msgLog, 2, mentioned.size());
+        assertTrue(msgLog, mentioned.contains(ma.getUserId()));
+        assertTrue(msgLog, mentioned.contains(ma2.getUserId()));
+    }
+
+    public void testNotAReply() {
+        MyAccount ma = TestSuite.getMyAccount(TestSuite.GNUSOCIAL_TEST_ACCOUNT_NAME);
+        MbUser author = MbUser.fromOriginAndUserOid(ma.getOriginId(), "");
+        String body = "Thanks to @" + TestSuite.GNUSOCIAL_TEST_ACCOUNT2_USERNAME;
+
+        MentionsExtractor extractor = MentionsExtractor.fromBodyText(author, body);
+        assertEquals(1, extractor.getUsers().size());
+        assertTrue(extractor.getReplyToUsers().isEmpty());
+        assertFalse(extractor.getMentionedAccountUserIds().contains(ma.getUserId()));
+    }
+}
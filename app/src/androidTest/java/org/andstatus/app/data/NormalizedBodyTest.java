@@ -0,0 +1,35 @@
+package org.andstatus.app.data;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+
+@Travis
+public class NormalizedBodyTest extends InstrumentationTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initialize(this);
+    }
+
+    public void testFromBody() {
+        NormalizedBody body1 = NormalizedBody.fromBody("<p>Hello,\n <b>World</b> &amp; everybody</p>");
+        NormalizedBody body2 = NormalizedBody.fromBody("hello, world & everybody");
+        assertEquals("hello, world & everybody", body2.text);
+        assertEquals(body1.text, body2.text);
+        assertEquals(body1.hash, body2.hash);
+        assertTrue(body1.isSameText(body2));
+
+        NormalizedBody body3 = NormalizedBody.fromBody("Hello, World and everybody");
+        assertFalse(body1.isSameText(body3));
+        assertTrue(body1.hash != body3.hash);
+
+        NormalizedBody favorited = NormalizedBody.fromBody("Somebody favorited something by Anybody: hi there");
+        assertEquals("favorited something by anybody: hi there", favorited.text);
+
+        assertEquals(0, NormalizedBody.EMPTY.length());
+        assertTrue(NormalizedBody.EMPTY.hash != 0);
+    }
+}
@@ -0,0 +1,87 @@
+package org.andstatus.app.data;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.database.SearchTermTable;
+import org.andstatus.app.net.social.MbUser;
+import org.andstatus.app.util.MyHtml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+@Travis
+public class SearchTermsTest extends InstrumentationTestCase {
+    private static final String KEY_PREFIX = "zqsearchterm";
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initializeWithData(this);
+        deleteTestTerms();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        deleteTestTerms();
+        super.tearDown();
+    }
+
+    private void deleteTestTerms() {
+        MyContextHolder.get().getDatabase().delete(SearchTermTable.TABLE_NAME,
+                SearchTermTable.TERM_KEY + " LIKE '" + KEY_PREFIX + "%'", null);
+    }
+
+    public void testGetHashtags() {
+        Set<String> hashtags = SearchTerms.getHashtags(MyHtml.fromHtml(
+                "<p>Hi <a href=\"https://example.com/#anchor\">#AndStatus</a> and #Android_7, "
+                + "not a tag: example.com/#fragment, a&#35;b; #AndStatus again</p>"));
+        assertEquals(Arrays.asList("AndStatus", "Android_7"), new ArrayList<>(hashtags));
+        assertTrue(SearchTerms.getHashtags("").isEmpty());
+        hashtags = SearchTerms.getHashtags("#привет, #日本語 and #café; not a tag: ж#ы");
+        assertEquals(Arrays.asList("привет", "日本語", "café"), new ArrayList<>(hashtags));
+    }
+
+    public void testSuggest() {
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        String tag1 = KEY_PREFIX + "Rare";
+        String tag2 = KEY_PREFIX + "Popular";
+        MbUser user = MbUser.fromOriginAndUserOid(TestSuite.getConversationOriginId(), "");
+        user.setUserName(KEY_PREFIX + "user");
+        List<MbUser> users = new ArrayList<>();
+        users.add(user);
+
+        SearchTerms searchTerms = new SearchTerms();
+        searchTerms.onMessageInserted("Hello #" + tag1 + " and #" + tag2, null, users);
+        searchTerms.onMessageInserted("Hello again #" + tag2.toLowerCase(), null, new ArrayList<MbUser>());
+        assertTrue("Nothing is saved before the batch", SearchTerms.suggest(db, KEY_PREFIX, 10).isEmpty());
+        searchTerms.save(db);
+        SearchTerms.onQuery(db, KEY_PREFIX + " query ");
+
+        List<String> terms = SearchTerms.suggest(db, KEY_PREFIX.toUpperCase(), 10);
+        assertEquals(terms.toString(), 4, terms.size());
+        assertEquals("The most used term first", "#" + tag2.toLowerCase(), terms.get(0));
+        assertTrue(terms.toString(), terms.contains("@" + KEY_PREFIX + "user"));
+        assertTrue(terms.toString(), terms.contains("#" + tag1));
+        assertTrue(terms.toString(), terms.contains(KEY_PREFIX + " query"));
+
+        terms = SearchTerms.suggest(db, "#" + KEY_PREFIX, 10);
+        assertEquals(terms.toString(), 2, terms.size());
+        terms = SearchTerms.suggest(db, "@" + KEY_PREFIX, 10);
+        assertEquals(Arrays.asList("@" + KEY_PREFIX + "user"), terms);
+        terms = SearchTerms.suggest(db, KEY_PREFIX + "r", 10);
+        assertEquals(Arrays.asList("#" + tag1), terms);
+        assertEquals(1, SearchTerms.suggest(db, KEY_PREFIX, 1).size());
+        assertTrue(SearchTerms.suggest(db, KEY_PREFIX + "none", 10).isEmpty());
+
+        SearchTerms.clearQueries(db);
+        terms = SearchTerms.suggest(db, KEY_PREFIX, 10);
+        assertEquals(terms.toString(), 3, terms.size());
+        assertFalse(terms.toString(), terms.contains(KEY_PREFIX + " query"));
+    }
+}
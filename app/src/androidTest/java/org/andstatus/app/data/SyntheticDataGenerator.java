@@ -0,0 +1,367 @@
+package org.andstatus.app.data;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.backup.ChangeLog;
+import org.andstatus.app.context.MyContext;
+import org.andstatus.app.database.DownloadTable;
+import org.andstatus.app.database.FriendshipTable;
+import org.andstatus.app.database.MsgOfUserTable;
+import org.andstatus.app.database.MsgTable;
+import org.andstatus.app.database.UserTable;
+import org.andstatus.app.timeline.Timeline;
+import org.andstatus.app.timeline.TimelineType;
+import org.andstatus.app.util.MyLog;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the database with generated users and messages of an account, for benchmarks at realistic sizes.
+ * The data is the same for the same seed and sizes, only dates are relative to the current time.
+ * Popularity of users is skewed: a few users write most messages and are followed by the account.
+ * Messages include reply chains, reblogs, favorites, mentions, direct messages and attachments.
+ * Several accounts may have their generated data at the same time: oids of all generated rows start
+ * with {@link #OID_PREFIX}, followed by the account's user id, see {@link #deleteAll(MyContext)}.
+ * The changes are not logged for backups, and the next backup after generation or deletion is a full one
+ */
+public class SyntheticDataGenerator {
+    private static final String TAG = SyntheticDataGenerator.class.getSimpleName();
+    public static final String OID_PREFIX = "synthetic-";
+    private static final int BATCH_SIZE = 1000;
+    private static final long HISTORY_DAYS = 60;
+    private static final int USER_TIMELINES_COUNT = 20;
+    private static final String[] WORDS = ("the a of to and in is it you that was for on are with as they be at one"
+            + " have this from or had by hot word but what some we can out other were all there when up use your how"
+            + " said an each she which do their time if will way about many then them write would like so these"
+            + " android social network open source federated timeline message conversation reply").split(" ");
+    private static final String[] HASHTAGS = {"#andstatus", "#gnusocial", "#pumpio", "#android", "#foss",
+            "#linux", "#privacy", "#fediverse", "#music", "#news"};
+
+    private final MyContext myContext;
+    private final MyAccount ma;
+    private final Random random;
+    private final String oidPrefix;
+    private final long now = System.currentTimeMillis();
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<String> userNames = new ArrayList<>();
+    private final Set<Long> friendIds = new HashSet<>();
+    private final List<Long> recentMsgIds = new ArrayList<>();
+    private final List<Long> recentAuthorIds = new ArrayList<>();
+    private int messagesCreated = 0;
+    private int downloadsCreated = 0;
+    private int msgOfUserCreated = 0;
+
+    public SyntheticDataGenerator(MyContext myContext, MyAccount ma, long seed) {
+        this.myContext = myContext;
+        this.ma = ma;
+        random = new Random(seed);
+        oidPrefix = OID_PREFIX + ma.getUserId() + "-";
+    }
+
+    public SyntheticDataGenerator generate(int usersCount, int messagesCount) {
+        long startedAt = System.currentTimeMillis();
+        SQLiteDatabase db = myContext.getDatabase();
+        ChangeLog.suspendTracking(db);
+        try {
+            addUsers(db, usersCount);
+            addFriendships(db);
+            addMessages(db, messagesCount);
+            updateLatestMessagesOfUsers(db);
+        } finally {
+            ChangeLog.resumeTracking(db);
+        }
+        addUserTimelines();
+        MyLog.i(TAG, "For " + ma.getAccountName() + " generated " + userIds.size() + " users, " + friendIds.size() + " friends, "
+                + messagesCreated + " messages, " + msgOfUserCreated + " message-user links, "
+                + downloadsCreated + " attachments in " + (System.currentTimeMillis() - startedAt) + " ms");
+        return this;
+    }
+
+    private void addUsers(SQLiteDatabase db, int usersCount) {
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + UserTable.TABLE_NAME + " ("
+                + UserTable.ORIGIN_ID + ", " + UserTable.USER_OID + ", " + UserTable.USERNAME + ", "
+                + UserTable.WEBFINGER_ID + ", " + UserTable.REAL_NAME + ", " + UserTable.CREATED_DATE + ", "
+                + UserTable.INS_DATE + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+        try {
+            for (int batchStart = 0; batchStart < usersCount; batchStart += BATCH_SIZE) {
+                db.beginTransaction();
+                try {
+                    for (int ind = batchStart; ind < Math.min(batchStart + BATCH_SIZE, usersCount); ind++) {
+                        String username = "user" + ind;
+                        insert.bindLong(1, ma.getOriginId());
+                        insert.bindString(2, oidPrefix + "user-" + ind);
+                        insert.bindString(3, username);
+                        insert.bindString(4, username + "@synthetic.example.com");
+                        insert.bindString(5, "User " + ind);
+                        insert.bindLong(6, now - TimeUnit.DAYS.toMillis(365 + random.nextInt(1000)));
+                        insert.bindLong(7, now);
+                        userIds.add(insert.executeInsert());
+                        userNames.add(username);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } finally {
+            DbUtils.closeSilently(insert);
+        }
+    }
+
+    /** The account follows the most popular users and some random ones, and is followed by some */
+    private void addFriendships(SQLiteDatabase db) {
+        int friendsCount = Math.min(1000, userIds.size() / 10 + 1);
+        for (int ind = 0; ind < friendsCount; ind++) {
+            friendIds.add(userIds.get(random.nextInt(4) == 0 ? random.nextInt(userIds.size()) : ind));
+        }
+        SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO " + FriendshipTable.TABLE_NAME + " ("
+                + FriendshipTable.USER_ID + ", " + FriendshipTable.FRIEND_ID + ", " + FriendshipTable.FOLLOWED
+                + ") VALUES (?, ?, 1)");
+        db.beginTransaction();
+        try {
+            for (long friendId : friendIds) {
+                insert.bindLong(1, ma.getUserId());
+                insert.bindLong(2, friendId);
+                insert.executeInsert();
+            }
+            for (int ind = 0; ind < friendsCount / 2; ind++) {
+                insert.bindLong(1, userIds.get(random.nextInt(userIds.size())));
+                insert.bindLong(2, ma.getUserId());
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            DbUtils.closeSilently(insert);
+        }
+    }
+
+    private void addMessages(SQLiteDatabase db, int messagesCount) {
+        SQLiteStatement insertMsg = db.compileStatement("INSERT INTO " + MsgTable.TABLE_NAME + " ("
+                + MsgTable.ORIGIN_ID + ", " + MsgTable.MSG_OID + ", " + MsgTable.MSG_STATUS + ", "
+                + MsgTable.AUTHOR_ID + ", " + MsgTable.SENDER_ID + ", " + MsgTable.RECIPIENT_ID + ", "
+                + MsgTable.BODY + ", " + MsgTable.BODY_NORMALIZED + ", " + MsgTable.BODY_HASH + ", "
+                + MsgTable.VIA + ", " + MsgTable.IN_REPLY_TO_MSG_ID + ", " + MsgTable.IN_REPLY_TO_USER_ID + ", "
+                + MsgTable.CREATED_DATE + ", " + MsgTable.SENT_DATE + ", " + MsgTable.INS_DATE + ", "
+                + MsgTable.PUBLIC + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        SQLiteStatement insertMsgOfUser = db.compileStatement("INSERT OR REPLACE INTO " + MsgOfUserTable.TABLE_NAME
+                + " (" + MsgOfUserTable.USER_ID + ", " + MsgOfUserTable.MSG_ID + ", " + MsgOfUserTable.SUBSCRIBED
+                + ", " + MsgOfUserTable.FAVORITED + ", " + MsgOfUserTable.REBLOGGED + ", "
+                + MsgOfUserTable.REBLOG_OID + ", " + MsgOfUserTable.MENTIONED + ", " + MsgOfUserTable.REPLIED
+                + ", " + MsgOfUserTable.DIRECTED + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        SQLiteStatement insertDownload = db.compileStatement("INSERT INTO " + DownloadTable.TABLE_NAME + " ("
+                + DownloadTable.DOWNLOAD_TYPE + ", " + DownloadTable.MSG_ID + ", " + DownloadTable.CONTENT_TYPE
+                + ", " + DownloadTable.VALID_FROM + ", " + DownloadTable.URI + ", " + DownloadTable.DOWNLOAD_STATUS
+                + ") VALUES (?, ?, ?, ?, ?, ?)");
+        long historyMs = TimeUnit.DAYS.toMillis(HISTORY_DAYS);
+        try {
+            for (int batchStart = 0; batchStart < messagesCount; batchStart += BATCH_SIZE) {
+                db.beginTransaction();
+                try {
+                    for (int ind = batchStart; ind < Math.min(batchStart + BATCH_SIZE, messagesCount); ind++) {
+                        long sentDate = now - historyMs + historyMs * ind / messagesCount;
+                        addMessage(ind, sentDate, insertMsg, insertMsgOfUser, insertDownload);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } finally {
+            DbUtils.closeSilently(insertMsg);
+            DbUtils.closeSilently(insertMsgOfUser);
+            DbUtils.closeSilently(insertDownload);
+        }
+    }
+
+    private void addMessage(int ind, long sentDate, SQLiteStatement insertMsg, SQLiteStatement insertMsgOfUser,
+                            SQLiteStatement insertDownload) {
+        long authorId = popularUserId();
+        int kind = random.nextInt(1000);
+        boolean isReply = kind < 300 && !recentMsgIds.isEmpty();
+        boolean isDirect = kind >= 300 && kind < 305;
+        boolean mentionsAccount = kind >= 305 && kind < 335;
+        long inReplyToMsgId = 0;
+        long inReplyToUserId = 0;
+        if (isReply) {
+            int replyTo = recentMsgIds.size() - 1 - random.nextInt(Math.min(recentMsgIds.size(), 200));
+            inReplyToMsgId = recentMsgIds.get(replyTo);
+            inReplyToUserId = recentAuthorIds.get(replyTo);
+        }
+        String body = newBody(inReplyToUserId, mentionsAccount);
+        NormalizedBody normalizedBody = NormalizedBody.fromBody(body);
+
+        insertMsg.bindLong(1, ma.getOriginId());
+        insertMsg.bindString(2, oidPrefix + "msg-" + ind);
+        insertMsg.bindLong(3, Long.parseLong(DownloadStatus.LOADED.save()));
+        insertMsg.bindLong(4, authorId);
+        insertMsg.bindLong(5, authorId);
+        insertMsg.bindLong(6, isDirect ? ma.getUserId() : 0);
+        insertMsg.bindString(7, body);
+        insertMsg.bindString(8, normalizedBody.text);
+        insertMsg.bindLong(9, normalizedBody.hash);
+        insertMsg.bindString(10, "SyntheticDataGenerator");
+        insertMsg.bindLong(11, inReplyToMsgId);
+        insertMsg.bindLong(12, inReplyToUserId);
+        insertMsg.bindLong(13, sentDate);
+        insertMsg.bindLong(14, sentDate);
+        insertMsg.bindLong(15, sentDate + random.nextInt(60000));
+        insertMsg.bindLong(16, isDirect ? 0 : 1);
+        long msgId = insertMsg.executeInsert();
+        messagesCreated++;
+        recentMsgIds.add(msgId);
+        recentAuthorIds.add(authorId);
+        if (recentMsgIds.size() > 1000) {
+            recentMsgIds.subList(0, 500).clear();
+            recentAuthorIds.subList(0, 500).clear();
+        }
+
+        boolean subscribed = friendIds.contains(authorId);
+        boolean favorited = random.nextInt(100) < 5;
+        boolean replied = inReplyToUserId == ma.getUserId();
+        if (subscribed || favorited || mentionsAccount || replied || isDirect) {
+            addMsgOfUser(insertMsgOfUser, ma.getUserId(), msgId, subscribed, favorited, null,
+                    mentionsAccount, replied, isDirect);
+        }
+        if (random.nextInt(100) < 10) {
+            long rebloggerId = popularUserId();
+            if (rebloggerId != authorId) {
+                addMsgOfUser(insertMsgOfUser, rebloggerId, msgId, false, false,
+                        oidPrefix + "reblog-" + ind, false, false, false);
+            }
+        }
+        if (random.nextInt(100) < 8) {
+            insertDownload.bindLong(1, Long.parseLong(DownloadType.IMAGE.save()));
+            insertDownload.bindLong(2, msgId);
+            insertDownload.bindLong(3, Long.parseLong(MyContentType.IMAGE.save()));
+            insertDownload.bindLong(4, sentDate);
+            insertDownload.bindString(5, "https://synthetic.example.com/media/" + ind + ".jpg");
+            insertDownload.bindLong(6, Long.parseLong(DownloadStatus.ABSENT.save()));
+            insertDownload.executeInsert();
+            downloadsCreated++;
+        }
+    }
+
+    private void addMsgOfUser(SQLiteStatement insert, long userId, long msgId, boolean subscribed, boolean favorited,
+                              String reblogOid, boolean mentioned, boolean replied, boolean directed) {
+        insert.bindLong(1, userId);
+        insert.bindLong(2, msgId);
+        insert.bindLong(3, subscribed ? 1 : 0);
+        insert.bindLong(4, favorited ? 1 : 0);
+        insert.bindLong(5, reblogOid == null ? 0 : 1);
+        if (reblogOid == null) {
+            insert.bindNull(6);
+        } else {
+            insert.bindString(6, reblogOid);
+        }
+        insert.bindLong(7, mentioned ? 1 : 0);
+        insert.bindLong(8, replied ? 1 : 0);
+        insert.bindLong(9, directed ? 1 : 0);
+        insert.executeInsert();
+        msgOfUserCreated++;
+    }
+
+    /** A few users write most messages */
+    private long popularUserId() {
+        double skewed = Math.pow(random.nextDouble(), 3);
+        return userIds.get((int) (skewed * userIds.size()));
+    }
+
+    private String newBody(long inReplyToUserId, boolean mentionsAccount) {
+        StringBuilder builder = new StringBuilder();
+        if (inReplyToUserId != 0) {
+            int userIndex = userIds.indexOf(inReplyToUserId);
+            if (userIndex >= 0) {
+                builder.append("@" + userNames.get(userIndex) + " ");
+            }
+        }
+        if (mentionsAccount) {
+            builder.append("@" + ma.getUsername() + " ");
+        }
+        int wordsCount = 5 + random.nextInt(30);
+        for (int ind = 0; ind < wordsCount; ind++) {
+            if (ind > 0) {
+                builder.append(" ");
+            }
+            builder.append(random.nextInt(15) == 0 ? HASHTAGS[random.nextInt(HASHTAGS.length)]
+                    : WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextInt(10) == 0) {
+            builder.append(" https://synthetic.example.com/link/" + random.nextInt(100000));
+        }
+        return builder.toString();
+    }
+
+    private void updateLatestMessagesOfUsers(SQLiteDatabase db) {
+        String sql = "UPDATE " + UserTable.TABLE_NAME + " SET " + UserTable.USER_MSG_ID + "=(SELECT MAX("
+                + MsgTable._ID + ") FROM " + MsgTable.TABLE_NAME + " WHERE " + MsgTable.AUTHOR_ID + "="
+                + UserTable.TABLE_NAME + "." + UserTable._ID + ")"
+                + " WHERE " + UserTable.USER_OID + " LIKE '" + oidPrefix + "%'"
+                + " AND EXISTS (SELECT 1 FROM " + MsgTable.TABLE_NAME + " WHERE " + MsgTable.AUTHOR_ID + "="
+                + UserTable.TABLE_NAME + "." + UserTable._ID + ")";
+        db.execSQL(sql);
+        sql = "UPDATE " + UserTable.TABLE_NAME + " SET " + UserTable.USER_MSG_DATE + "=(SELECT "
+                + MsgTable.SENT_DATE + " FROM " + MsgTable.TABLE_NAME + " WHERE " + MsgTable._ID + "="
+                + UserTable.TABLE_NAME + "." + UserTable.USER_MSG_ID + ")"
+                + " WHERE " + UserTable.USER_OID + " LIKE '" + oidPrefix + "%' AND "
+                + UserTable.USER_MSG_ID + "<>0";
+        db.execSQL(sql);
+    }
+
+    private void addUserTimelines() {
+        for (int ind = 0; ind < Math.min(USER_TIMELINES_COUNT, userIds.size()); ind++) {
+            Timeline.getTimeline(TimelineType.USER, ma, userIds.get(ind), null).save(myContext);
+        }
+    }
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public long getLastMessageId() {
+        return recentMsgIds.isEmpty() ? 0 : recentMsgIds.get(recentMsgIds.size() - 1);
+    }
+
+    /**
+     * Deletes all generated rows of all accounts, including timelines of the generated users.
+     * Pump.io user oids start with "acct:"
+     */
+    public static void deleteAll(MyContext myContext) {
+        SQLiteDatabase db = myContext.getDatabase();
+        String msgIds = "SELECT " + MsgTable._ID + " FROM " + MsgTable.TABLE_NAME
+                + " WHERE " + MsgTable.MSG_OID + " LIKE '" + OID_PREFIX + "%'";
+        String userWhere = "(" + UserTable.USER_OID + " LIKE '" + OID_PREFIX + "%' OR "
+                + UserTable.USER_OID + " LIKE 'acct:" + OID_PREFIX + "%')";
+        String userIds = "SELECT " + UserTable._ID + " FROM " + UserTable.TABLE_NAME + " WHERE " + userWhere;
+        for (Timeline timeline : new ArrayList<>(myContext.persistentTimelines().values())) {
+            if (timeline.getTimelineType() != TimelineType.USER) {
+                continue;
+            }
+            String userOid = MyQuery.userIdToStringColumnValue(UserTable.USER_OID, timeline.getUserId());
+            if (userOid.startsWith(OID_PREFIX) || userOid.startsWith("acct:" + OID_PREFIX)) {
+                myContext.persistentTimelines().delete(timeline);
+            }
+        }
+        ChangeLog.suspendTracking(db);
+        try {
+            db.execSQL("DELETE FROM " + DownloadTable.TABLE_NAME + " WHERE " + DownloadTable.MSG_ID
+                    + " IN (" + msgIds + ")");
+            db.execSQL("DELETE FROM " + MsgOfUserTable.TABLE_NAME + " WHERE " + MsgOfUserTable.MSG_ID
+                    + " IN (" + msgIds + ")");
+            db.execSQL("DELETE FROM " + FriendshipTable.TABLE_NAME + " WHERE " + FriendshipTable.USER_ID
+                    + " IN (" + userIds + ") OR " + FriendshipTable.FRIEND_ID + " IN (" + userIds + ")");
+            db.execSQL("DELETE FROM " + MsgTable.TABLE_NAME + " WHERE " + MsgTable.MSG_OID
+                    + " LIKE '" + OID_PREFIX + "%'");
+            db.execSQL("DELETE FROM " + UserTable.TABLE_NAME + " WHERE " + userWhere);
+        } finally {
+            ChangeLog.resumeTracking(db);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.andstatus.app.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.util.MyLog;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Travis
+public class DatabaseHolderTest extends InstrumentationTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initializeWithData(this);
+    }
+
+    public void testWriteAheadLogging() {
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        assertTrue(db.isWriteAheadLoggingEnabled());
+        assertEquals("wal", DatabaseHolder.pragma(db, "journal_mode").toLowerCase());
+        MyContextHolder.get().getMyDatabase().checkpoint(true);
+    }
+
+    public void testReadWhileWriting() throws Exception {
+        final SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        db.beginTransaction();
+        try {
+            db.execSQL("UPDATE " + OriginTable.TABLE_NAME + " SET " + OriginTable.ORIGIN_NAME
+                    + "=" + OriginTable.ORIGIN_NAME);
+            FutureTask<Long> reader = new FutureTask<>(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    Cursor cursor = null;
+                    try {
+                        cursor = db.rawQuery("SELECT COUNT(*) FROM " + MsgTable.TABLE_NAME, null);
+                        return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+                    } finally {
+                        DbUtils.closeSilently(cursor);
+                    }
+                }
+            });
+            new Thread(reader).start();
+            assertTrue("Reader is blocked by the writer", reader.get(5, TimeUnit.SECONDS) > 0);
+        } finally {
+            // Rolled back, nothing changed
+            db.endTransaction();
+        }
+    }
+
+    /** Timeline reads shouldn't wait for the writes of a sync, which are done concurrently */
+    public void testTimelineLatencyWhileWriting() throws Exception {
+        final SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!stopped.get()) {
+                    db.beginTransaction();
+                    try {
+                        db.execSQL("UPDATE " + MsgTable.TABLE_NAME + " SET " + MsgTable.BODY
+                                + "=" + MsgTable.BODY);
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        return;
+                    } finally {
+                        // Rolled back, nothing changed
+                        db.endTransaction();
+                    }
+                }
+            }
+        });
+        writer.start();
+        final int count = 50;
+        long[] latencies = new long[count];
+        try {
+            for (int ind = 0; ind < count; ind++) {
+                long startedAt = System.nanoTime();
+                Cursor cursor = null;
+                try {
+                    cursor = db.rawQuery("SELECT " + MsgTable._ID + " FROM " + MsgTable.TABLE_NAME
+                            + " ORDER BY " + MsgTable.SENT_DATE + " DESC LIMIT 200", null);
+                    while (cursor.moveToNext()) {
+                        cursor.getLong(0);
+                    }
+                } finally {
+                    DbUtils.closeSilently(cursor);
+                }
+                latencies[ind] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            }
+        } finally {
+            stopped.set(true);
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        Arrays.sort(latencies);
+        long p95 = latencies[(int) Math.ceil(count * 0.95) - 1];
+        MyLog.i(this, "Timeline query while writing, ms: median=" + latencies[count / 2]
+                + ", p95=" + p95 + ", max=" + latencies[count - 1]);
+        assertTrue("Timeline query p95 " + p95 + "ms, the reader waits for the writer", p95 < 1000);
+    }
+}
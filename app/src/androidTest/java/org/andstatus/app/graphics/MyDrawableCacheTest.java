@@ -0,0 +1,59 @@
+package org.andstatus.app.graphics;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.data.DbUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+@Travis
+public class MyDrawableCacheTest extends InstrumentationTestCase {
+    private File imageFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initialize(this);
+        imageFile = new File(MyContextHolder.get().context().getCacheDir(), "drawable_cache_test.png");
+        Bitmap bitmap = Bitmap.createBitmap(40, 30, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.BLUE);
+        FileOutputStream out = new FileOutputStream(imageFile);
+        try {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } finally {
+            DbUtils.closeSilently(out);
+            bitmap.recycle();
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (imageFile.exists()) {
+            imageFile.delete();
+        }
+        super.tearDown();
+    }
+
+    public void testBitmapsAllocatedOnDemand() {
+        MyDrawableCache cache = new MyDrawableCache(MyContextHolder.get().context(), "Test", 100, 5);
+        assertEquals("Allocated on creation", 0, cache.getAllocatedBitmapsCount());
+        assertNull(cache.getCachedDrawable(this, imageFile.getAbsolutePath()));
+        assertEquals("Allocated on a cache lookup", 0, cache.getAllocatedBitmapsCount());
+
+        Drawable drawable = cache.getDrawable(this, imageFile.getAbsolutePath());
+        assertNotNull(cache.getInfo(), drawable);
+        assertEquals(40, drawable.getIntrinsicWidth());
+        assertEquals(cache.getInfo(), 1, cache.getAllocatedBitmapsCount());
+
+        assertSame(drawable, cache.getDrawable(this, imageFile.getAbsolutePath()));
+        assertEquals("Allocated on a cache hit", 1, cache.getAllocatedBitmapsCount());
+        assertEquals(1, cache.hits.get());
+    }
+}
@@ -0,0 +1,190 @@
+package org.andstatus.app.msg;
+
+import android.database.Cursor;
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.LoadableListActivity;
+import org.andstatus.app.WhichPage;
+import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.backup.ProgressLogger;
+import org.andstatus.app.context.MyContext;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.MyPreferences;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.data.DataPruner;
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.data.MyDataChecker;
+import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.data.SyntheticDataGenerator;
+import org.andstatus.app.data.TimelineSql;
+import org.andstatus.app.database.MsgTable;
+import org.andstatus.app.timeline.Timeline;
+import org.andstatus.app.user.UserListLoader;
+import org.andstatus.app.user.UserListType;
+import org.andstatus.app.util.MyLog;
+import org.andstatus.app.util.SharedPreferencesUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Times queries and maintenance operations on databases of realistic sizes, filled by the {@link SyntheticDataGenerator}.
+ * Data is generated for several accounts: the benchmarked account gets most of the messages.
+ * It runs for long, so it is not run during Travis build. Results are logged
+ * and written to the "database_benchmark.json" file in the log folder.
+ */
+public class DatabaseBenchmarkTest extends InstrumentationTestCase implements LoadableListActivity.ProgressPublisher {
+    private static final String TAG = DatabaseBenchmarkTest.class.getSimpleName();
+    private static final int[] MESSAGES_COUNTS = {10000, 50000, 200000, 500000};
+    /** Each of them gets this share of the messages, and the benchmarked account gets the rest */
+    private static final String[] OTHER_ACCOUNT_NAMES = {TestSuite.TWITTER_TEST_ACCOUNT_NAME,
+            TestSuite.GNUSOCIAL_TEST_ACCOUNT_NAME};
+    private static final int OTHER_ACCOUNT_SHARE_PERCENT = 10;
+    private static final int MAX_USERS_COUNT = 20000;
+    private static final int REPEATS = 5;
+    private static final long SEED = 2016;
+
+    private MyContext myContext;
+    private MyAccount ma;
+    private final StringBuilder results = new StringBuilder();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initializeWithData(this);
+        myContext = MyContextHolder.get();
+        ma = myContext.persistentAccounts().fromAccountName(TestSuite.CONVERSATION_ACCOUNT_NAME);
+        assertTrue(ma.isValid());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        SyntheticDataGenerator.deleteAll(myContext);
+        TestSuite.onDataDeleted();
+        super.tearDown();
+    }
+
+    public void testDatabaseAtSeveralSizes() {
+        for (int messagesCount : MESSAGES_COUNTS) {
+            SyntheticDataGenerator.deleteAll(myContext);
+            long startedAt = System.currentTimeMillis();
+            int otherMessagesCount = messagesCount * OTHER_ACCOUNT_SHARE_PERCENT / 100;
+            for (int ind = 0; ind < OTHER_ACCOUNT_NAMES.length; ind++) {
+                MyAccount otherAccount = myContext.persistentAccounts().fromAccountName(OTHER_ACCOUNT_NAMES[ind]);
+                assertTrue(OTHER_ACCOUNT_NAMES[ind], otherAccount.isValid());
+                generate(otherAccount, SEED + ind + 1, otherMessagesCount);
+            }
+            generate(ma, SEED, messagesCount - otherMessagesCount * OTHER_ACCOUNT_NAMES.length);
+            addResult(messagesCount, "generate", System.currentTimeMillis() - startedAt);
+            benchmarkTimelines(messagesCount);
+            benchmarkConversation(messagesCount);
+            benchmarkUserLists(messagesCount);
+            benchmarkDataChecker(messagesCount);
+            benchmarkPruning(messagesCount);
+        }
+        results.insert(0, "[\n").append("\n]\n");
+        MyLog.writeStringToFile(results.toString(), "database_benchmark.json");
+    }
+
+    private void generate(MyAccount myAccount, long seed, int messagesCount) {
+        new SyntheticDataGenerator(myContext, myAccount, seed)
+                .generate(Math.min(MAX_USERS_COUNT, messagesCount / 10), messagesCount);
+    }
+
+    private void benchmarkTimelines(int messagesCount) {
+        for (Timeline timeline : myContext.persistentTimelines().values()) {
+            if (!timeline.getMyAccount().equals(ma) && !timeline.getTimelineType().isAtOrigin()) {
+                continue;
+            }
+            long[] times = new long[REPEATS];
+            for (int ind = 0; ind < REPEATS; ind++) {
+                TimelineListParameters params = new TimelineListParameters(myContext);
+                params.setTimeline(timeline);
+                params.whichPage = WhichPage.YOUNGEST;
+                params.mProjection = TimelineSql.getTimelineProjection();
+                long startedAt = System.currentTimeMillis();
+                Cursor cursor = params.queryDatabase();
+                try {
+                    assertNotNull(cursor);
+                    cursor.getCount();
+                } finally {
+                    DbUtils.closeSilently(cursor);
+                }
+                times[ind] = System.currentTimeMillis() - startedAt;
+            }
+            addResult(messagesCount, "timeline " + timeline.getTimelineType().save()
+                    + (timeline.getUserId() == 0 ? "" : " of a user"), median(times));
+        }
+    }
+
+    private void benchmarkConversation(int messagesCount) {
+        long msgId = MyQuery.sqlToLong(null, TAG, "SELECT MAX(" + MsgTable._ID + ") FROM " + MsgTable.TABLE_NAME
+                + " WHERE " + MsgTable.ORIGIN_ID + "=" + ma.getOriginId()
+                + " AND " + MsgTable.IN_REPLY_TO_MSG_ID + "<>0 AND " + MsgTable.MSG_OID + " LIKE '"
+                + SyntheticDataGenerator.OID_PREFIX + "%'");
+        assertTrue("No replies generated", msgId != 0);
+        long[] times = new long[REPEATS];
+        for (int ind = 0; ind < REPEATS; ind++) {
+            MessageBodyCache.clear();
+            long startedAt = System.currentTimeMillis();
+            ConversationLoader<ConversationViewItem> loader = new ConversationLoaderFactory<ConversationViewItem>()
+                    .getLoader(ConversationViewItem.class, myContext, ma, msgId);
+            loader.load(this);
+            assertFalse(loader.getList().isEmpty());
+            times[ind] = System.currentTimeMillis() - startedAt;
+        }
+        addResult(messagesCount, "conversation", median(times));
+    }
+
+    private void benchmarkUserLists(int messagesCount) {
+        for (UserListType listType : Arrays.asList(UserListType.FRIENDS, UserListType.FOLLOWERS)) {
+            long[] times = new long[REPEATS];
+            for (int ind = 0; ind < REPEATS; ind++) {
+                long startedAt = System.currentTimeMillis();
+                UserListLoader loader = new UserListLoader(listType, ma, ma.getUserId(), false);
+                loader.load(this);
+                times[ind] = System.currentTimeMillis() - startedAt;
+            }
+            addResult(messagesCount, "user list " + listType, median(times));
+        }
+    }
+
+    private void benchmarkDataChecker(int messagesCount) {
+        long startedAt = System.currentTimeMillis();
+        new MyDataChecker(myContext, ProgressLogger.getEmpty()).fixData();
+        addResult(messagesCount, "fix data", System.currentTimeMillis() - startedAt);
+    }
+
+    /** Runs last for the size, because it deletes most of the generated messages */
+    private void benchmarkPruning(int messagesCount) {
+        SharedPreferencesUtil.putLong(MyPreferences.KEY_DATA_PRUNED_DATE, 0);
+        long startedAt = System.currentTimeMillis();
+        assertTrue("Pruned", new DataPruner(myContext).prune());
+        addResult(messagesCount, "prune", System.currentTimeMillis() - startedAt);
+        TestSuite.onDataDeleted();
+    }
+
+    private void addResult(int messagesCount, String operation, long ms) {
+        MyLog.i(TAG, messagesCount + " messages; " + operation + ": " + ms + " ms");
+        if (results.length() > 0) {
+            results.append(",\n");
+        }
+        results.append("{\"messages\":" + messagesCount + ", \"operation\":\"" + operation + "\", \"ms\":" + ms + "}");
+    }
+
+    private static long median(long[] times) {
+        List<Long> list = new ArrayList<>();
+        for (long time : times) {
+            list.add(time);
+        }
+        Collections.sort(list);
+        return list.get(list.size() / 2);
+    }
+
+    @Override
+    public void publish(String progress) {
+        // Empty
+    }
+}
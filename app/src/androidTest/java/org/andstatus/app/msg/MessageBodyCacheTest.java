@@ -0,0 +1,46 @@
+package org.andstatus.app.msg;
+
+import android.test.InstrumentationTestCase;
+import android.text.Spanned;
+import android.text.style.URLSpan;
+
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.util.MyUrlSpan;
+
+@Travis
+public class MessageBodyCacheTest extends InstrumentationTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initialize(this);
+        MessageBodyCache.clear();
+    }
+
+    public void testGetBody() {
+        TimelineViewItem item = new TimelineViewItem();
+        item.setMsgId(1001);
+        item.body = "Visit <a href=\"http://example.com/page\">this page</a> or http://example.org";
+        Spanned spanned = MessageBodyCache.getBody(item);
+        assertEquals("Visit this page or http://example.org", spanned.toString());
+        URLSpan[] spans = spanned.getSpans(0, spanned.length(), URLSpan.class);
+        assertEquals(1, spans.length);
+        assertTrue(spans[0] instanceof MyUrlSpan);
+        assertSame("Should be cached", spanned, MessageBodyCache.getBody(item));
+
+        item.body = "Edited http://example.org";
+        Spanned edited = MessageBodyCache.getBody(item);
+        assertNotSame(spanned, edited);
+        spans = edited.getSpans(0, edited.length(), URLSpan.class);
+        assertEquals("Linkified", 1, spans.length);
+        assertEquals("http://example.org", spans[0].getURL());
+    }
+
+    public void testGetSource() {
+        assertEquals("", MessageBodyCache.getSource(null));
+        String via = "<a href=\"http://andstatus.org\">AndStatus</a>";
+        assertEquals("AndStatus", MessageBodyCache.getSource(via));
+        assertSame(MessageBodyCache.getSource(via), MessageBodyCache.getSource(via));
+    }
+}
@@ -8,12 +8,22 @@ import org.andstatus.app.account.MyAccount;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.TestSuite;
 import org.andstatus.app.context.Travis;
-import org.andstatus.app.data.OidEnum;
+import org.andstatus.app.data.DataInserter;
+import org.andstatus.app.data.DownloadStatus;
+import org.andstatus.app.data.MessageInserter;
+import org.andstatus.app.data.MsgRow;
 import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.data.OidEnum;
+import org.andstatus.app.database.MsgTable;
 import org.andstatus.app.database.UserTable;
+import org.andstatus.app.net.social.MbMessage;
+import org.andstatus.app.net.social.MbUser;
+import org.andstatus.app.util.MyLog;
 
 @Travis
 public class MessageEditorDataTest extends InstrumentationTestCase {
+    private static final int MESSAGES_TO_INGEST = 20;
+    private static final int MAX_QUERIES_PER_INGESTED_MESSAGE = 30;
 
     @Override
     protected void setUp() throws Exception {
@@ -67,4 +77,58 @@ public class MessageEditorDataTest extends InstrumentationTestCase {
         assertEquals(data.toString() + "; expected name:" + expectedName, isMentioned_in, isMentioned);
     }
 
+    public void testLoadWithOneQuery() {
+        long msgId = MyQuery.oidToId(OidEnum.MSG_OID, TestSuite.getConversationOriginId(),
+                TestSuite.CONVERSATION_MENTIONS_MESSAGE_OID);
+        assertTrue("Message not found", msgId != 0);
+
+        long queriesBefore = MyQuery.getQueriesCount();
+        MessageEditorData data = MessageEditorData.load(msgId);
+        assertEquals("Queries to load " + data + ": one for the message and one for its attachment",
+                2, MyQuery.getQueriesCount() - queriesBefore);
+
+        assertEquals(msgId, data.getMsgId());
+        assertEquals(MyQuery.msgIdToStringColumnValue(MsgTable.BODY, msgId), data.body);
+        assertEquals(MyQuery.msgIdToLongColumnValue(MsgTable.IN_REPLY_TO_MSG_ID, msgId), data.inReplyToId);
+        assertEquals(MyQuery.msgIdToStringColumnValue(MsgTable.BODY, data.inReplyToId), data.inReplyToBody);
+        assertEquals(MyQuery.msgIdToLongColumnValue(MsgTable.RECIPIENT_ID, msgId), data.recipientId);
+    }
+
+    public void testQueriesPerIngestedMessage() {
+        MyAccount ma = MyContextHolder.get().persistentAccounts()
+                .fromAccountName(TestSuite.CONVERSATION_ACCOUNT_NAME);
+        MessageInserter mi = new MessageInserter(ma);
+        MbUser author = mi.buildUserFromOid("queriesCounter" + TestSuite.TESTRUN_UID);
+        DataInserter di = new DataInserter(ma);
+
+        long queriesBefore = MyQuery.getQueriesCount();
+        for (int i = 0; i < MESSAGES_TO_INGEST; i++) {
+            MbMessage message = mi.buildMessage(author, "Counting queries " + i + " " + TestSuite.TESTRUN_UID,
+                    null, null, DownloadStatus.LOADED);
+            assertTrue("Message " + i + " inserted", di.insertOrUpdateMsg(message) != 0);
+        }
+        double perMessage = (MyQuery.getQueriesCount() - queriesBefore) * 1.0 / MESSAGES_TO_INGEST;
+
+        MyLog.i(this, "Single row queries per ingested message: " + perMessage);
+        assertTrue("Single row queries per ingested message: " + perMessage,
+                perMessage > 0 && perMessage < MAX_QUERIES_PER_INGESTED_MESSAGE);
+    }
+
+    public void testMsgRow() {
+        long msgId = MyQuery.oidToId(OidEnum.MSG_OID, TestSuite.getConversationOriginId(),
+                TestSuite.CONVERSATION_MENTIONS_MESSAGE_OID);
+        MsgRow row = MsgRow.fromId(msgId);
+        assertEquals(msgId, row.id);
+        assertEquals(TestSuite.CONVERSATION_MENTIONS_MESSAGE_OID, row.oid);
+        assertEquals(MyQuery.msgIdToLongColumnValue(MsgTable.SENDER_ID, msgId), row.senderId);
+        assertEquals(MyQuery.msgIdToLongColumnValue(MsgTable.SENT_DATE, msgId), row.sentDate);
+        assertEquals(MyQuery.idToOid(OidEnum.MSG_OID, row.inReplyToMsgId, 0), row.inReplyToOid);
+
+        MsgRow row2 = MsgRow.fromOid(row.originId, row.oid);
+        assertEquals(row.id, row2.id);
+        assertEquals(row.status, row2.status);
+
+        assertTrue(MsgRow.fromId(0).isEmpty());
+        assertTrue(MsgRow.fromOid(row.originId, "nonexistent" + row.oid).isEmpty());
+    }
 }
@@ -0,0 +1,72 @@
+package org.andstatus.app.msg;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.WhichPage;
+import org.andstatus.app.context.MyContext;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.timeline.Timeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Travis
+public class TimelineSnapshotTest extends InstrumentationTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initializeWithData(this);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        TimelineSnapshot.delete(MyContextHolder.get());
+        super.tearDown();
+    }
+
+    public void testSaveAndLoad() {
+        MyContext myContext = MyContextHolder.get();
+        TimelineLoader loader = new TimelineLoader(newHomeParams(myContext), 0);
+        loader.load(null);
+        TimelineData data = new TimelineData(null, loader.getPage());
+        List<TimelineViewItem> items = TimelineSnapshot.itemsToSave(data);
+        assertTrue("No items to save", items.size() > 0);
+        Timeline timeline = data.params.getTimeline();
+        TimelineSnapshot.save(myContext, timeline, items);
+
+        TimelinePage page = new TimelinePage(newHomeParams(myContext), new ArrayList<TimelineViewItem>());
+        assertTrue("Snapshot is not loaded", TimelineSnapshot.load(page));
+        assertTrue(page.fromSnapshot);
+        assertEquals(items.size(), page.items.size());
+        for (int i = 0; i < items.size(); i++) {
+            TimelineViewItem expected = items.get(i);
+            TimelineViewItem actual = page.items.get(i);
+            assertEquals(expected.getMsgId(), actual.getMsgId());
+            assertEquals(expected.body, actual.body);
+            assertEquals(expected.authorName, actual.authorName);
+            assertEquals(expected.sentDate, actual.sentDate);
+            assertEquals(expected.rebloggers, actual.rebloggers);
+            assertEquals(expected.avatarFilename, actual.avatarFilename);
+        }
+        assertTrue(page.params.maxSentDateLoaded > 0);
+
+        long visibleItemId = timeline.getVisibleItemId();
+        timeline.setVisibleItemId(visibleItemId + 1);
+        try {
+            page = new TimelinePage(newHomeParams(myContext), new ArrayList<TimelineViewItem>());
+            assertFalse("Snapshot of another list position", TimelineSnapshot.load(page));
+        } finally {
+            timeline.setVisibleItemId(visibleItemId);
+        }
+    }
+
+    private static TimelineListParameters newHomeParams(MyContext myContext) {
+        TimelineListParameters params = new TimelineListParameters(myContext);
+        params.setTimeline(myContext.persistentTimelines().getHome());
+        params.whichPage = WhichPage.YOUNGEST;
+        return params;
+    }
+}
@@ -0,0 +1,56 @@
+package org.andstatus.app.net.http;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.account.AccountName;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.origin.OriginConnectionData;
+import org.andstatus.app.origin.OriginType;
+import org.andstatus.app.util.TriState;
+
+import cz.msebera.android.httpclient.client.HttpClient;
+
+@Travis
+public class HttpClientPoolTest extends InstrumentationTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initialize(this);
+        HttpClientPool.shutdown();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        HttpClientPool.shutdown();
+        super.tearDown();
+    }
+
+    public void testClientIsReused() {
+        HttpConnectionData pumpData = newConnectionData(OriginType.PUMPIO);
+        HttpClient client = HttpClientPool.getHttpClient(pumpData);
+        assertNotNull(client);
+        assertSame(client, HttpClientPool.getHttpClient(pumpData.copy()));
+        assertEquals(1, HttpClientPool.getClientsCount());
+
+        HttpClient gnuSocialClient = HttpClientPool.getHttpClient(newConnectionData(OriginType.GNUSOCIAL));
+        assertNotSame(client, gnuSocialClient);
+        assertEquals(2, HttpClientPool.getClientsCount());
+        assertTrue(HttpClientPool.getTotalStats().getMax() >= 2 * HttpClientPool.MAX_CONNECTIONS_DEFAULT);
+        assertEquals(0, HttpClientPool.getTotalStats().getLeased());
+
+        HttpClientPool.shutdown();
+        assertEquals(0, HttpClientPool.getClientsCount());
+        assertNotSame(client, HttpClientPool.getHttpClient(pumpData));
+    }
+
+    private static HttpConnectionData newConnectionData(OriginType originType) {
+        return HttpConnectionData.fromConnectionData(
+                OriginConnectionData.fromAccountName(
+                        AccountName.fromOriginAndUserName(
+                                MyContextHolder.get().persistentOrigins().firstOfType(originType), ""),
+                        TriState.UNKNOWN));
+    }
+}
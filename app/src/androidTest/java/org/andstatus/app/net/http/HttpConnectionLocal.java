@@ -0,0 +1,38 @@
+package org.andstatus.app.net.http;
+
+import android.text.TextUtils;
+
+/**
+ * Real HTTP connection, which sends requests of all origins to a local server.
+ * The original host becomes the first segment of the path, e.g.
+ * "https://api.twitter.com/1.1/statuses/home_timeline.json" is sent to
+ * "http://127.0.0.1:port/api.twitter.com/1.1/statuses/home_timeline.json"
+ * Use it via {@link org.andstatus.app.context.TestSuite#setHttpConnectionMockClass(Class)}
+ */
+public class HttpConnectionLocal extends HttpConnectionBasic {
+    private static volatile String serverUrl = "";
+
+    /** @param serverUrlIn E.g. "http://127.0.0.1:8080". Empty - send requests to their original hosts */
+    public static void setServerUrl(String serverUrlIn) {
+        serverUrl = serverUrlIn == null ? "" : serverUrlIn;
+    }
+
+    @Override
+    public String pathToUrlString(String path) throws ConnectionException {
+        return toLocalUrl(super.pathToUrlString(path));
+    }
+
+    static String toLocalUrl(String urlString) {
+        String server = serverUrl;
+        int index = TextUtils.isEmpty(urlString) ? -1 : urlString.indexOf("://");
+        if (TextUtils.isEmpty(server) || index < 0 || urlString.startsWith(server)) {
+            return urlString;
+        }
+        return server + "/" + urlString.substring(index + 3);
+    }
+
+    @Override
+    public boolean getCredentialsPresent() {
+        return true;
+    }
+}
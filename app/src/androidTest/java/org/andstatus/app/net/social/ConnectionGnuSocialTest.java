@@ -118,6 +118,24 @@ public class ConnectionGnuSocialTest extends InstrumentationTestCase {
         assertEquals("Updated at", 0, mbMessage.sender.getUpdatedDate());
     }
 
+    public void testGetConversation() throws IOException {
+        String jso = RawResourceUtils.getString(this.getInstrumentation().getContext(),
+                org.andstatus.app.tests.R.raw.quitter_home);
+        connection.getHttpMock().setResponse(jso);
+
+        String conversationOid = "2218650";
+        assertTrue(connection.isApiSupported(ApiRoutineEnum.GET_CONVERSATION));
+        List<MbMessage> messages = connection.getConversation(conversationOid);
+        String url = connection.getHttpMock().getResults().get(0).getUrl();
+        assertTrue(url, url.endsWith("statusnet/conversation/" + conversationOid + ".json"));
+        assertEquals("Number of messages", 3, messages.size());
+        for (MbMessage message : messages) {
+            assertEquals(message.toString(), conversationOid, message.conversationOid);
+            assertTrue(message.toString(), message.isPublic());
+        }
+        assertEquals("Reply to the message id", "2663833", messages.get(1).inReplyToMessage.oid);
+    }
+
     public void testSearch() throws IOException {
         String jso = RawResourceUtils.getString(this.getInstrumentation().getContext(), 
                 org.andstatus.app.tests.R.raw.twitter_home_timeline);
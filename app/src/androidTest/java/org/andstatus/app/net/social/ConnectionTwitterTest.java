@@ -35,7 +35,9 @@ import org.andstatus.app.util.TriState;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -159,5 +161,28 @@ public class ConnectionTwitterTest extends InstrumentationTestCase {
         attachment.setUrl(new URL("https://pbs.twimg.com/media/Bv4a7EsCAAIgigY.jpg"));
         assertNotSame("attachment", attachment, msg.attachments.get(0));
     }
+
+    public void testGetMessages() throws IOException {
+        String jso = RawResourceUtils.getString(this.getInstrumentation().getContext(),
+                org.andstatus.app.tests.R.raw.twitter_home_timeline);
+        httpConnection.setResponse(jso);
+
+        List<MbMessage> messages = connection.getMessages(Arrays.asList("380925803053449216", "17176774678"));
+        String url = httpConnection.getResults().get(0).getUrl();
+        assertTrue("Several messages in one request: " + url, url.contains("statuses/lookup"));
+        assertTrue(url, url.contains("id=380925803053449216%2C17176774678"));
+        assertEquals("Number of messages", 4, messages.size());
+        assertEquals("Oid", "221452291", messages.get(0).sender.oid);
+        assertEquals("Reply to the message id", "17176774678", messages.get(1).inReplyToMessage.oid);
+
+        httpConnection.clearPostedData();
+        httpConnection.setResponse(RawResourceUtils.getString(this.getInstrumentation().getContext(),
+                org.andstatus.app.tests.R.raw.twitter_message_with_media));
+        messages = connection.getMessages(Collections.singletonList("503799441900314624"));
+        url = httpConnection.getResults().get(0).getUrl();
+        assertTrue("One message is requested by its id: " + url, url.contains("statuses/show"));
+        assertEquals("Number of messages", 1, messages.size());
+        assertEquals("Oid", "503799441900314624", messages.get(0).oid);
+    }
     
 }
@@ -0,0 +1,76 @@
+package org.andstatus.app.net.social;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.util.MyLog;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+@Travis
+public class DateParserTest extends InstrumentationTestCase {
+    private static final String TWITTER_DATE = "Fri Oct 24 13:34:38 -0700 2014";
+    private static final String ISO_DATE = "2013-09-12T17:10:44+02:00";
+
+    public void testTwitter() {
+        Date date = TestSuite.utcTime(2014, Calendar.OCTOBER, 24, 20, 34, 38);
+        assertParsed(DateParser.TWITTER, TWITTER_DATE, date);
+        assertParsed(DateParser.TWITTER, "Fri, 24 Oct 2014 13:34:38 -0700", date);
+        assertParsed(DateParser.TWITTER, "Fri Oct 24 22:34:38 GMT+02:00 2014", date);
+        assertParsed(DateParser.TWITTER, "Sat, 4 Oct 2014 20:34:38 +0000",
+                TestSuite.utcTime(2014, Calendar.OCTOBER, 4, 20, 34, 38));
+        assertParsed(DateParser.TWITTER, "Sun Feb 29 12:00:00 +0000 2004",
+                TestSuite.utcTime(2004, Calendar.FEBRUARY, 29, 12, 0, 0));
+        assertEquals(0, DateParser.TWITTER.parse("Wrong Date Format"));
+        assertEquals(0, DateParser.TWITTER.parse(""));
+        assertEquals(0, DateParser.TWITTER.parse(null));
+    }
+
+    public void testIso8601() {
+        assertParsed(DateParser.ISO_8601, "2013-09-12T17:10:44Z",
+                TestSuite.utcTime(2013, Calendar.SEPTEMBER, 12, 17, 10, 44));
+        assertParsed(DateParser.ISO_8601, ISO_DATE,
+                TestSuite.utcTime(2013, Calendar.SEPTEMBER, 12, 15, 10, 44));
+        assertParsed(DateParser.ISO_8601, "2013-09-12T17:10:44+0200",
+                TestSuite.utcTime(2013, Calendar.SEPTEMBER, 12, 15, 10, 44));
+        assertEquals(TestSuite.utcTime(2016, Calendar.MARCH, 16, 14, 44, 31).getTime() + 580,
+                DateParser.ISO_8601.parse("2016-03-16T14:44:31.580Z"));
+        assertEquals(0, DateParser.ISO_8601.parse(TWITTER_DATE));
+        assertEquals(0, DateParser.ISO_8601.parse("2013-09-12T17:10:44"));
+    }
+
+    private void assertParsed(DateParser parser, String stringDate, Date date) {
+        long unixDate = parser.parse(stringDate);
+        assertEquals("Testing the date: " + date + " (string: " + stringDate + ") vs "
+                + new Date(unixDate).toString() + "; ", date.getTime(), unixDate);
+    }
+
+    /** Compares the parser with SimpleDateFormat, which was used before */
+    public void testParsingSpeed() throws ParseException {
+        final String method = "testParsingSpeed";
+        final int count = 20000;
+        long sum1 = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sum1 += DateParser.TWITTER.parse(TWITTER_DATE) + DateParser.ISO_8601.parse(ISO_DATE);
+        }
+        long parserNanos = System.nanoTime() - startTime;
+
+        long sum2 = 0;
+        startTime = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sum2 += new SimpleDateFormat("E MMM d HH:mm:ss Z yyyy", Locale.ENGLISH).parse(TWITTER_DATE).getTime()
+                    + new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.GERMANY)
+                    .parse(ISO_DATE.replaceAll("\\+0([0-9]):00", "+0$100")).getTime();
+        }
+        long formatNanos = System.nanoTime() - startTime;
+        assertEquals(sum2, sum1);
+        MyLog.i(this, method + "; " + count + " pairs of dates parsed in " + parserNanos / 1000000
+                + " ms, with SimpleDateFormat in " + formatNanos / 1000000 + " ms");
+    }
+}
@@ -0,0 +1,714 @@
+package org.andstatus.app.net.social;
+
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.data.SyntheticDataGenerator;
+import org.andstatus.app.net.http.HttpConnectionLocal;
+import org.andstatus.app.util.MyLog;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process HTTP server, which stands in for Twitter, GNU social and Pump.io servers during load tests.
+ * Each timeline (host + path) is a stream of generated messages, which supports paging with
+ * "since_id", "max_id" and "count" parameters (and "since", "before" for Pump.io).
+ * Latency, bandwidth and rates of "429 Too Many Requests" and "503 Service Unavailable" responses are configurable.
+ * Requests are routed here by {@link HttpConnectionLocal}.
+ * Oids of generated messages and users start with {@link SyntheticDataGenerator#OID_PREFIX},
+ * so they may be deleted with {@link SyntheticDataGenerator#deleteAll}
+ */
+public class LocalSocialServer {
+    private static final String TAG = LocalSocialServer.class.getSimpleName();
+    private static final String OID_PREFIX = SyntheticDataGenerator.OID_PREFIX;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int DEFAULT_COUNT = 20;
+    private static final int MAX_COUNT = 200;
+    /** Page size of "friends/ids" and "followers/ids" */
+    private static final int MAX_IDS_COUNT = 5000;
+    private static final int SOCKET_TIMEOUT_MS = 30000;
+    private static final int CHUNK_SIZE = 4096;
+    private static final long ITEM_INTERVAL_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final int REPLIES_PERCENT = 30;
+
+    enum Shape {
+        TWITTER,
+        GNU_SOCIAL,
+        PUMPIO
+    }
+
+    private final long seed;
+    private final Random random;
+    private final long startedAt = System.currentTimeMillis();
+
+    private volatile int itemsPerTimeline = 1000;
+    private volatile int usersCount = 500;
+    private volatile long latencyMs = 0;
+    private volatile long bytesPerSecond = 0;
+    private volatile double rateLimitErrorRate = 0;
+    private volatile double serverErrorRate = 0;
+
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger addedItems = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong itemsServed = new AtomicLong();
+    private final AtomicLong rateLimitErrors = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+
+    private volatile ServerSocket serverSocket = null;
+    private volatile ExecutorService executor = null;
+    private volatile boolean stopped = false;
+
+    private static class Stream {
+        final int index;
+        final String host;
+        final String nickname;
+        volatile int count;
+
+        Stream(int index, String host, String nickname, int count) {
+            this.index = index;
+            this.host = host;
+            this.nickname = nickname;
+            this.count = count;
+        }
+    }
+
+    /** Generated message at the position in a stream. Positions start from 1, the larger - the younger */
+    private static class Item {
+        int position;
+        long date;
+        int userIndex;
+        int inReplyTo;
+        String body;
+    }
+
+    private static class Request {
+        String method = "";
+        String host = "";
+        String path = "";
+        Map<String, String> params = new HashMap<>();
+    }
+
+    private static class Response {
+        final int status;
+        final String reason;
+        final String body;
+        int items = 0;
+
+        Response(int status, String reason, String body) {
+            this.status = status;
+            this.reason = reason;
+            this.body = body;
+        }
+
+        static Response ok(String body, int items) {
+            Response response = new Response(200, "OK", body);
+            response.items = items;
+            return response;
+        }
+
+        static Response error(int status, String reason) {
+            return new Response(status, reason, "{\"error\":\"" + reason + "\"}");
+        }
+    }
+
+    public LocalSocialServer(long seed) {
+        this.seed = seed;
+        random = new Random(seed);
+    }
+
+    public LocalSocialServer setItemsPerTimeline(int itemsPerTimeline) {
+        this.itemsPerTimeline = itemsPerTimeline;
+        return this;
+    }
+
+    public LocalSocialServer setUsersCount(int usersCount) {
+        this.usersCount = usersCount;
+        return this;
+    }
+
+    /** Delay before each response */
+    public LocalSocialServer setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+        return this;
+    }
+
+    /** 0 - unlimited */
+    public LocalSocialServer setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /** Share of requests, which are answered with "429 Too Many Requests", 0.0 - 1.0 */
+    public LocalSocialServer setRateLimitErrorRate(double rateLimitErrorRate) {
+        this.rateLimitErrorRate = rateLimitErrorRate;
+        return this;
+    }
+
+    /** Share of requests, which are answered with "503 Service Unavailable", 0.0 - 1.0 */
+    public LocalSocialServer setServerErrorRate(double serverErrorRate) {
+        this.serverErrorRate = serverErrorRate;
+        return this;
+    }
+
+    /** Starts the server on a free port of the loopback interface and routes {@link HttpConnectionLocal} to it */
+    public LocalSocialServer start() throws IOException {
+        stopped = false;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        executor = Executors.newCachedThreadPool();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                acceptConnections();
+            }
+        });
+        HttpConnectionLocal.setServerUrl(getUrl());
+        MyLog.i(TAG, "Started at " + getUrl());
+        return this;
+    }
+
+    public String getUrl() {
+        ServerSocket socket = serverSocket;
+        return socket == null ? "" : "http://127.0.0.1:" + socket.getLocalPort();
+    }
+
+    public void stop() {
+        stopped = true;
+        HttpConnectionLocal.setServerUrl("");
+        DbUtils.closeSilently(serverSocket);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        MyLog.i(TAG, "Stopped; " + getStats());
+    }
+
+    /** New messages appear at the young end of each timeline */
+    public void addNewItems(int count) {
+        addedItems.addAndGet(count);
+        for (Stream stream : streams.values()) {
+            stream.count += count;
+        }
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getItemsServed() {
+        return itemsServed.get();
+    }
+
+    public long getRateLimitErrors() {
+        return rateLimitErrors.get();
+    }
+
+    public long getServerErrors() {
+        return serverErrors.get();
+    }
+
+    public String getStats() {
+        return "requests:" + getRequests() + ", bytes:" + getBytesSent() + ", items:" + getItemsServed()
+                + ", 429:" + getRateLimitErrors() + ", 5xx:" + getServerErrors() + ", timelines:" + streams.size();
+    }
+
+    private void acceptConnections() {
+        while (!stopped) {
+            try {
+                final Socket socket = serverSocket.accept();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            } catch (SocketException e) {
+                if (!stopped) {
+                    MyLog.w(TAG, "Accepting connections", e);
+                }
+                break;
+            } catch (IOException e) {
+                MyLog.w(TAG, "Accepting connections", e);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            socket.setSoTimeout(SOCKET_TIMEOUT_MS);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            boolean keepAlive = true;
+            while (keepAlive && !stopped) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.length() == 0) {
+                    break;
+                }
+                Map<String, String> headers = new HashMap<>();
+                for (String line = readLine(in); line != null && line.length() > 0; line = readLine(in)) {
+                    int index = line.indexOf(':');
+                    if (index > 0) {
+                        headers.put(line.substring(0, index).trim().toLowerCase(Locale.US), line.substring(index + 1).trim());
+                    }
+                }
+                keepAlive = requestLine.endsWith("HTTP/1.1") && !"close".equalsIgnoreCase(headers.get("connection"));
+                Response response;
+                if (headers.containsKey("transfer-encoding")) {
+                    response = Response.error(411, "Length Required");
+                    keepAlive = false;
+                } else {
+                    skipBody(in, headers.get("content-length"));
+                    response = respond(requestLine);
+                }
+                write(out, response, keepAlive);
+            }
+        } catch (SocketTimeoutException e) {
+            MyLog.v(TAG, "Idle connection closed");
+        } catch (IOException e) {
+            if (!stopped) {
+                MyLog.d(TAG, "Serving connection", e);
+            }
+        } finally {
+            DbUtils.closeSilently(socket);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (b == '\n') {
+                break;
+            } else if (b != '\r') {
+                line.write(b);
+            }
+        }
+        if (b < 0 && line.size() == 0) {
+            return null;
+        }
+        return new String(line.toByteArray(), UTF_8);
+    }
+
+    private static void skipBody(InputStream in, String contentLength) throws IOException {
+        long toSkip = 0;
+        try {
+            toSkip = contentLength == null ? 0 : Long.parseLong(contentLength);
+        } catch (NumberFormatException e) {
+            MyLog.v(TAG, "Content-Length: " + contentLength);
+        }
+        while (toSkip > 0) {
+            if (in.read() < 0) {
+                break;
+            }
+            toSkip--;
+        }
+    }
+
+    private void write(OutputStream out, Response response, boolean keepAlive) throws IOException {
+        byte[] body = response.body.getBytes(UTF_8);
+        byte[] header = ("HTTP/1.1 " + response.status + " " + response.reason + "\r\n"
+                + "Content-Type: application/json; charset=utf-8\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + (response.status == 429 ? "Retry-After: 60\r\n" : "")
+                + "Connection: " + (keepAlive ? "keep-alive" : "close") + "\r\n\r\n").getBytes(UTF_8);
+        out.write(header);
+        for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, body.length - offset);
+            out.write(body, offset, length);
+            long bps = bytesPerSecond;
+            if (bps > 0) {
+                out.flush();
+                DbUtils.waitMs(TAG, length * 1000L / bps);
+            }
+        }
+        out.flush();
+        bytesSent.addAndGet(header.length + body.length);
+        itemsServed.addAndGet(response.items);
+    }
+
+    private Response respond(String requestLine) {
+        requests.incrementAndGet();
+        if (latencyMs > 0) {
+            DbUtils.waitMs(TAG, latencyMs);
+        }
+        double dice;
+        synchronized (random) {
+            dice = random.nextDouble();
+        }
+        if (dice < rateLimitErrorRate) {
+            rateLimitErrors.incrementAndGet();
+            return Response.error(429, "Too Many Requests");
+        } else if (dice < rateLimitErrorRate + serverErrorRate) {
+            serverErrors.incrementAndGet();
+            return Response.error(503, "Service Unavailable");
+        }
+        try {
+            Request request = parseRequest(requestLine);
+            Response response = route(request);
+            MyLog.v(TAG, requestLine + " -> " + response.status + ", items:" + response.items);
+            return response;
+        } catch (JSONException | RuntimeException e) {
+            MyLog.w(TAG, requestLine, e);
+            return Response.error(500, "Internal Server Error");
+        }
+    }
+
+    private static Request parseRequest(String requestLine) {
+        Request request = new Request();
+        String[] parts = requestLine.split(" ");
+        request.method = parts[0];
+        String target = parts.length > 1 ? parts[1] : "/";
+        int queryIndex = target.indexOf('?');
+        String path = queryIndex < 0 ? target : target.substring(0, queryIndex);
+        if (queryIndex >= 0) {
+            for (String param : target.substring(queryIndex + 1).split("&")) {
+                int index = param.indexOf('=');
+                if (index > 0) {
+                    request.params.put(decode(param.substring(0, index)), decode(param.substring(index + 1)));
+                }
+            }
+        }
+        // The first segment is the original host, see HttpConnectionLocal
+        int hostEnd = path.indexOf('/', 1);
+        request.host = hostEnd < 0 ? path.substring(1) : path.substring(1, hostEnd);
+        request.path = hostEnd < 0 ? "/" : path.substring(hostEnd);
+        return request;
+    }
+
+    private static String decode(String encoded) {
+        try {
+            return URLDecoder.decode(encoded, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return encoded;
+        }
+    }
+
+    private Response route(Request request) throws JSONException {
+        if (request.path.startsWith("/api/user/")) {
+            return routePumpio(request);
+        } else if (request.path.endsWith(".json")) {
+            return routeTwitter(request);
+        }
+        return Response.error(404, "Not Found");
+    }
+
+    private Response routeTwitter(Request request) throws JSONException {
+        Shape shape = request.path.startsWith("/1.1/") ? Shape.TWITTER : Shape.GNU_SOCIAL;
+        String endpoint = request.path.substring(request.path.indexOf('/', 1) + 1, request.path.length() - ".json".length());
+        switch (endpoint) {
+            case "statuses/home_timeline":
+            case "statuses/mentions_timeline":
+            case "statuses/mentions":
+            case "statuses/user_timeline":
+            case "statuses/public_timeline":
+            case "direct_messages":
+            case "search/tweets":
+            case "search":
+                Stream stream = getStream(request.host, endpoint, "");
+                List<Item> items = page(stream, positionOf(request.params.get("since_id")),
+                        positionOf(request.params.get("max_id")), countOf(request.params.get("count")));
+                JSONArray jsa = new JSONArray();
+                for (Item item : items) {
+                    jsa.put(twitterMessage(shape, stream, item));
+                }
+                return Response.ok(jsa.toString(), items.size());
+            case "statuses/show":
+                Stream stream2 = getStream(request.host, "statuses/home_timeline", "");
+                long position = positionOf(request.params.get("id"));
+                if (position < 1 || position > stream2.count) {
+                    return Response.error(404, "Not Found");
+                }
+                return Response.ok(twitterMessage(shape, stream2, item(stream2, (int) position)).toString(), 1);
+            case "friends/ids":
+            case "followers/ids":
+                JSONArray ids = new JSONArray();
+                if (shape == Shape.GNU_SOCIAL) {
+                    // GNU social has no cursors and returns all ids as an array
+                    for (int userIndex = 0; userIndex < usersCount; userIndex++) {
+                        ids.put(userOid(userIndex));
+                    }
+                    return Response.ok(ids.toString(), ids.length());
+                }
+                int idsStart = cursorStart(request.params.get("cursor"));
+                int idsEnd = Math.min(usersCount, idsStart + countOf(request.params.get("count"), MAX_IDS_COUNT));
+                for (int userIndex = idsStart; userIndex < idsEnd; userIndex++) {
+                    ids.put(userOid(userIndex));
+                }
+                return Response.ok(withCursors(new JSONObject().put("ids", ids), idsStart, idsEnd, MAX_IDS_COUNT)
+                        .toString(), ids.length());
+            case "friends/list":
+            case "followers/list":
+                JSONArray users = new JSONArray();
+                int usersStart = cursorStart(request.params.get("cursor"));
+                int usersEnd = Math.min(usersCount, usersStart + countOf(request.params.get("count")));
+                for (int userIndex = usersStart; userIndex < usersEnd; userIndex++) {
+                    users.put(twitterUser(userIndex));
+                }
+                return Response.ok(withCursors(new JSONObject().put("users", users), usersStart, usersEnd,
+                        countOf(request.params.get("count"))).toString(), users.length());
+            case "users/show":
+                return Response.ok(twitterUser((int) positionOf(request.params.get("user_id"))).toString(), 1);
+            default:
+                return Response.error(404, "Not Found");
+        }
+    }
+
+    private Response routePumpio(Request request) throws JSONException {
+        String[] segments = request.path.split("/");
+        // "/api/user/{nickname}/{endpoint...}"
+        if (segments.length < 5) {
+            return Response.error(404, "Not Found");
+        }
+        String nickname = segments[3];
+        String endpoint = request.path.substring(("/api/user/" + nickname + "/").length());
+        switch (endpoint) {
+            case "inbox":
+            case "inbox/major":
+            case "inbox/minor":
+            case "feed":
+            case "feed/major":
+                Stream stream = getStream(request.host, endpoint, nickname);
+                long before = positionOf(request.params.get("before"));
+                List<Item> items = page(stream, positionOf(request.params.get("since")),
+                        before > 0 ? before - 1 : 0, countOf(request.params.get("count")));
+                JSONArray jsa = new JSONArray();
+                for (Item item : items) {
+                    jsa.put(pumpioActivity(stream, item));
+                }
+                return Response.ok(new JSONObject().put("totalItems", stream.count)
+                        .put("items", jsa).toString(), items.size());
+            case "followers":
+            case "following":
+                JSONArray persons = new JSONArray();
+                for (int userIndex = 0; userIndex < Math.min(usersCount, countOf(request.params.get("count"))); userIndex++) {
+                    persons.put(pumpioPerson(request.host, userIndex));
+                }
+                return Response.ok(new JSONObject().put("totalItems", usersCount)
+                        .put("items", persons).toString(), persons.length());
+            case "profile":
+                return Response.ok(pumpioPerson(request.host, 0).toString(), 1);
+            default:
+                return Response.error(404, "Not Found");
+        }
+    }
+
+    private Stream getStream(String host, String endpoint, String nickname) {
+        String key = host + "/" + nickname + "/" + endpoint;
+        Stream stream = streams.get(key);
+        if (stream == null) {
+            synchronized (streams) {
+                stream = streams.get(key);
+                if (stream == null) {
+                    stream = new Stream(streams.size() + 1, host, nickname, itemsPerTimeline + addedItems.get());
+                    streams.put(key, stream);
+                }
+            }
+        }
+        return stream;
+    }
+
+    /** Youngest first. The position is exclusive for sinceId and inclusive for maxId, as in Twitter API */
+    private List<Item> page(Stream stream, long sinceId, long maxId, int count) {
+        List<Item> items = new ArrayList<>();
+        int youngest = maxId > 0 ? (int) Math.min(stream.count, maxId) : stream.count;
+        for (int position = youngest; position > sinceId && position > 0 && items.size() < count; position--) {
+            items.add(item(stream, position));
+        }
+        return items;
+    }
+
+    private Item item(Stream stream, int position) {
+        Random itemRandom = new Random(seed * 31 + stream.index * 1000003L + position);
+        Item item = new Item();
+        item.position = position;
+        item.date = startedAt + (position - itemsPerTimeline) * ITEM_INTERVAL_MS;
+        // Few users write most of the messages
+        item.userIndex = (int) (usersCount * itemRandom.nextDouble() * itemRandom.nextDouble());
+        if (position > 1 && itemRandom.nextInt(100) < REPLIES_PERCENT) {
+            item.inReplyTo = position - 1 - itemRandom.nextInt(Math.min(position - 1, 50));
+        }
+        StringBuilder body = new StringBuilder("Message " + position + " of the timeline " + stream.index);
+        int words = 5 + itemRandom.nextInt(20);
+        for (int ind = 0; ind < words; ind++) {
+            int word = itemRandom.nextInt(1000);
+            body.append(word % 17 == 0 ? " #tag" + word % 50 : " word" + word);
+        }
+        item.body = body.toString();
+        return item;
+    }
+
+    private static String messageOid(Stream stream, int position) {
+        return OID_PREFIX + stream.index + "-" + position;
+    }
+
+    private static String userOid(int userIndex) {
+        return OID_PREFIX + "user-" + userIndex;
+    }
+
+    private static String userName(int userIndex) {
+        return "mockuser" + userIndex;
+    }
+
+    /** @return 0 for the positions, which were not generated here */
+    private static long positionOf(String oid) {
+        if (oid == null || !oid.startsWith(OID_PREFIX)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(oid.substring(oid.lastIndexOf('-') + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static int countOf(String count) {
+        try {
+            return count == null ? DEFAULT_COUNT : Math.max(1, Math.min(MAX_COUNT, Integer.parseInt(count)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_COUNT;
+        }
+    }
+
+    /** For the lists, where the maximum count is also the default one */
+    private static int countOf(String count, int maxCount) {
+        try {
+            return count == null ? maxCount : Math.max(1, Math.min(maxCount, Integer.parseInt(count)));
+        } catch (NumberFormatException e) {
+            return maxCount;
+        }
+    }
+
+    /**
+     * Cursor of a Twitter list is the index of its first user here. "-1" or no cursor means the first page
+     * @see <a href="https://dev.twitter.com/overview/api/cursoring">Using cursors to navigate collections</a>
+     */
+    private int cursorStart(String cursor) {
+        try {
+            long start = cursor == null ? -1 : Long.parseLong(cursor);
+            return start < 0 ? 0 : (int) Math.min(start, usersCount);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** "0" means no more pages in that direction */
+    private JSONObject withCursors(JSONObject jso, int start, int end, int pageSize) throws JSONException {
+        long nextCursor = end < usersCount ? end : 0;
+        long previousCursor = start == 0 ? 0 : (start <= pageSize ? -1 : start - pageSize);
+        return jso.put("next_cursor", nextCursor).put("next_cursor_str", String.valueOf(nextCursor))
+                .put("previous_cursor", previousCursor).put("previous_cursor_str", String.valueOf(previousCursor));
+    }
+
+    private JSONObject twitterMessage(Shape shape, Stream stream, Item item) throws JSONException {
+        JSONObject jso = new JSONObject();
+        String oid = messageOid(stream, item.position);
+        jso.put("id_str", oid);
+        jso.put("created_at", formatDate(Shape.TWITTER, item.date));
+        jso.put("text", item.body);
+        jso.put("source", TAG);
+        jso.put("favorited", false);
+        jso.put("user", twitterUser(item.userIndex));
+        if (shape == Shape.GNU_SOCIAL) {
+            jso.put("id", oid);
+            jso.put("statusnet_html", "<p>" + item.body + "</p>");
+        }
+        if (item.inReplyTo > 0) {
+            int inReplyToUser = item(stream, item.inReplyTo).userIndex;
+            jso.put("in_reply_to_status_id_str", messageOid(stream, item.inReplyTo));
+            jso.put("in_reply_to_user_id_str", userOid(inReplyToUser));
+            jso.put("in_reply_to_screen_name", userName(inReplyToUser));
+        }
+        return jso;
+    }
+
+    private JSONObject twitterUser(int userIndex) throws JSONException {
+        JSONObject jso = new JSONObject();
+        jso.put("id_str", userOid(userIndex));
+        jso.put("screen_name", userName(userIndex));
+        jso.put("name", "Mock User " + userIndex);
+        jso.put("description", "Generated by " + TAG);
+        jso.put("created_at", formatDate(Shape.TWITTER, startedAt - TimeUnit.DAYS.toMillis(365)));
+        jso.put("statuses_count", itemsPerTimeline);
+        jso.put("followers_count", usersCount);
+        jso.put("friends_count", usersCount);
+        return jso;
+    }
+
+    private JSONObject pumpioActivity(Stream stream, Item item) throws JSONException {
+        String date = formatDate(Shape.PUMPIO, item.date);
+        JSONObject note = new JSONObject();
+        note.put("id", OID_PREFIX + "note-" + stream.index + "-" + item.position);
+        note.put("objectType", item.inReplyTo > 0 ? "comment" : "note");
+        note.put("content", item.body);
+        note.put("published", date);
+        note.put("updated", date);
+        note.put("author", pumpioPerson(stream.host, item.userIndex));
+        if (item.inReplyTo > 0) {
+            JSONObject inReplyTo = new JSONObject();
+            inReplyTo.put("id", OID_PREFIX + "note-" + stream.index + "-" + item.inReplyTo);
+            inReplyTo.put("objectType", "note");
+            inReplyTo.put("author", pumpioPerson(stream.host, item(stream, item.inReplyTo).userIndex));
+            note.put("inReplyTo", inReplyTo);
+        }
+        JSONObject activity = new JSONObject();
+        activity.put("id", OID_PREFIX + "activity-" + stream.index + "-" + item.position);
+        activity.put("verb", "post");
+        activity.put("published", date);
+        activity.put("updated", date);
+        activity.put("actor", pumpioPerson(stream.host, item.userIndex));
+        activity.put("generator", new JSONObject().put("displayName", TAG));
+        activity.put("object", note);
+        return activity;
+    }
+
+    private JSONObject pumpioPerson(String host, int userIndex) throws JSONException {
+        JSONObject jso = new JSONObject();
+        jso.put("id", "acct:" + userOid(userIndex) + "@" + host);
+        jso.put("objectType", "person");
+        jso.put("preferredUsername", userOid(userIndex));
+        jso.put("displayName", "Mock User " + userIndex);
+        jso.put("url", "https://" + host + "/" + userOid(userIndex));
+        jso.put("updated", formatDate(Shape.PUMPIO, startedAt));
+        return jso;
+    }
+
+    private static String formatDate(Shape shape, long date) {
+        SimpleDateFormat format = new SimpleDateFormat(shape == Shape.PUMPIO
+                ? "yyyy-MM-dd'T'HH:mm:ss'Z'" : "EEE MMM dd HH:mm:ss Z yyyy", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(date));
+    }
+}
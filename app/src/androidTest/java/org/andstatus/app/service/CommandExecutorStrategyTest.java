@@ -24,6 +24,8 @@ import org.andstatus.app.context.TestSuite;
 import org.andstatus.app.context.Travis;
 import org.andstatus.app.data.DownloadStatus;
 import org.andstatus.app.data.MessageInserter;
+import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.database.CommandMetricsTable;
 import org.andstatus.app.net.http.ConnectionException;
 import org.andstatus.app.net.http.ConnectionException.StatusCode;
 import org.andstatus.app.net.http.HttpConnectionMock;
@@ -31,6 +33,7 @@ import org.andstatus.app.origin.DiscoveredOrigins;
 import org.andstatus.app.origin.OriginType;
 import org.andstatus.app.timeline.TimelineType;
 import org.andstatus.app.util.RawResourceUtils;
+import org.andstatus.app.util.StringUtils;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -141,6 +144,37 @@ public class CommandExecutorStrategyTest extends InstrumentationTestCase {
         httpConnectionMock.setException(null);
     }
 
+    public void testCommandMetrics() throws IOException {
+        long rowsBefore = MyQuery.sqlToLong(null, "testCommandMetrics",
+                "SELECT COUNT(*) FROM " + CommandMetricsTable.TABLE_NAME);
+        CommandData commandData = getCommandDataForUnsentMessage("metrics");
+        httpConnectionMock.setResponse(RawResourceUtils.getString(this.getInstrumentation().getContext(),
+                org.andstatus.app.tests.R.raw.quitter_update_status_response));
+        CommandExecutorStrategy.executeCommand(commandData, null);
+        assertFalse(commandData.toString(), commandData.getResult().hasError());
+        CommandMetrics metrics = commandData.getResult().getMetrics();
+        assertTrue(metrics.toString(), metrics.getBytes() > 0);
+        assertTrue(metrics.toString(), metrics.getDbTransactions() > 0);
+        assertTrue(metrics.toString(), metrics.getDbRows() > 0);
+        assertTrue(metrics.toString(), metrics.getWallTimeMs() >= metrics.getNetworkMs());
+        assertTrue("Metrics should be saved", MyQuery.sqlToLong(null, "testCommandMetrics",
+                "SELECT COUNT(*) FROM " + CommandMetricsTable.TABLE_NAME) > rowsBefore);
+        assertTrue(CommandMetrics.toPercentilesSummary(MyContextHolder.get()),
+                CommandMetrics.toPercentilesSummary(MyContextHolder.get()).contains(
+                        CommandEnum.UPDATE_STATUS.getTitle(MyContextHolder.get(), "").toString()));
+
+        String executed = metrics.toString();
+        CommandMetrics.onDbWrite(System.currentTimeMillis(), 1, 1);
+        assertEquals("Nothing should be collected outside of a command", executed, metrics.toString());
+
+        long[] values = {5, 1, 4, 2, 3, 10, 9, 8, 7, 6};
+        assertEquals(5, CommandMetrics.percentile(values, 50));
+        assertEquals(10, CommandMetrics.percentile(values, 95));
+        assertEquals("5/10", CommandMetrics.percentiles(values));
+        assertEquals(0, CommandMetrics.percentile(new long[0], 95));
+        assertEquals(11, StringUtils.utf8Length("ab\u00e9\u20ac\ud83d\ude00"));
+    }
+
     private CommandData getCommandDataForUnsentMessage(String suffix) {
         String body = "Some text " + suffix + " to send " + System.currentTimeMillis() + "ms";
         long unsentMessageId = MessageInserter.addMessageForAccount(
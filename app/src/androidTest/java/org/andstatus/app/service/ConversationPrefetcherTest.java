@@ -0,0 +1,168 @@
+package org.andstatus.app.service;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.MyPreferences;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.data.OidEnum;
+import org.andstatus.app.database.MsgTable;
+import org.andstatus.app.net.http.ConnectionException;
+import org.andstatus.app.net.http.ConnectionException.StatusCode;
+import org.andstatus.app.net.http.HttpConnectionMock;
+import org.andstatus.app.net.http.HttpReadResult;
+import org.andstatus.app.timeline.TimelineType;
+import org.andstatus.app.util.SharedPreferencesUtil;
+
+@Travis
+public class ConversationPrefetcherTest extends InstrumentationTestCase {
+    private static final String CREATED_AT = "Mon Jul 25 10:00:00 +0000 2016";
+    private static final String SENDER_OID = "9090901";
+
+    private MyAccount ma;
+    private HttpConnectionMock httpConnectionMock;
+    private String oidPrefix;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initializeWithData(this);
+        SharedPreferencesUtil.getDefaultSharedPreferences().edit()
+                .putString(MyPreferences.KEY_CONVERSATION_PREFETCH_DEPTH, "2").commit();
+        TestSuite.setHttpConnectionMockClass(HttpConnectionMock.class);
+        // In order for the the mocked connection to have effect:
+        MyContextHolder.get().persistentAccounts().initialize();
+        MyContextHolder.get().persistentTimelines().initialize();
+        oidPrefix = String.valueOf(System.currentTimeMillis());
+    }
+
+    public void testLevelsAndSkippedMessages() {
+        setAccount(TestSuite.TWITTER_TEST_ORIGIN_NAME);
+        // "x" is loaded already, "b", "n" and "p" are missing
+        setTimeline(status("x", ""), status("a", "x"), status("e", "b"), status("f", "n"), status("h", "p"));
+        // "n" is not found. "p" replies to it, but it was attempted already
+        httpConnectionMock.setResponseForUrl("statuses/lookup", "[" + status("b", "c") + "," + status("p", "n") + "]");
+        httpConnectionMock.setResponseForUrl(showUrl("c"), status("c", "d"));
+
+        CommandData commandData = execute(newCommand());
+
+        assertFalse(commandData.toString(), commandData.getResult().hasError());
+        String lookupUrl = httpConnectionMock.substring2PostedPath("statuses/lookup");
+        assertTrue(lookupUrl, lookupUrl.contains(oid("b")) && lookupUrl.contains(oid("n"))
+                && lookupUrl.contains(oid("p")));
+        assertFalse("Loaded message requested: " + lookupUrl, lookupUrl.contains(oid("x")));
+        assertEquals("Second level", 1, countRequests(showUrl("c")));
+        assertEquals("Attempted message requested again", 1, countRequests(oid("n")));
+        assertEquals("Deeper than the prefetch depth", 0, countRequests(oid("d")));
+        assertEquals(2, countRequests("statuses/lookup") + countRequests("statuses/show"));
+        assertLoaded("b", true);
+        assertLoaded("c", true);
+        assertLoaded("d", false);
+    }
+
+    public void testRequestsLimit() {
+        setAccount(TestSuite.GNUSOCIAL_TEST_ORIGIN_NAME);
+        setTimeline(status("a", "m"), status("b", "n"), status("c", "o"), status("e", "p"), status("f", "q"));
+        for (String id : new String[]{"m", "n", "o", "p", "q"}) {
+            httpConnectionMock.setResponseForUrl(showUrl(id), status(id, ""));
+        }
+        CommandData commandData = newCommand();
+        commandData.getResult().setRemainingHits(ConversationPrefetcher.RESERVED_HITS + 3);
+
+        execute(commandData);
+
+        assertFalse(commandData.toString(), commandData.getResult().hasError());
+        assertEquals("Requests left by the rate limit", 3, countRequests("statuses/show"));
+        assertLoaded("m", true);
+        assertLoaded("q", false);
+    }
+
+    public void testErrors() {
+        setAccount(TestSuite.GNUSOCIAL_TEST_ORIGIN_NAME);
+        setTimeline(status("a", "m"), status("b", "n"), status("c", "o"), status("e", "p"));
+        httpConnectionMock.setExceptionForUrl(showUrl("m"), new ConnectionException(StatusCode.NOT_FOUND, "Deleted"));
+        httpConnectionMock.setResponseForUrl(showUrl("n"), status("n", ""));
+        httpConnectionMock.setExceptionForUrl(showUrl("o"), new ConnectionException(StatusCode.UNKNOWN, "Failed"));
+        httpConnectionMock.setResponseForUrl(showUrl("p"), status("p", ""));
+
+        CommandData commandData = execute(newCommand());
+
+        assertFalse("Prefetch errors don't affect the sync " + commandData, commandData.getResult().hasError());
+        assertEquals("Continued after not found", 1, countRequests(showUrl("n")));
+        assertLoaded("n", true);
+        assertEquals("Requested after the error", 0, countRequests(showUrl("p")));
+        assertLoaded("p", false);
+    }
+
+    private void setAccount(String originName) {
+        ma = MyContextHolder.get().persistentAccounts().getFirstSucceededForOrigin(
+                MyContextHolder.get().persistentOrigins().fromName(originName));
+        assertTrue(ma.toString(), ma.isValidAndSucceeded());
+        httpConnectionMock = ma.getConnection().getHttpMock();
+    }
+
+    private void setTimeline(String... statuses) {
+        StringBuilder builder = new StringBuilder();
+        for (String status : statuses) {
+            builder.append(builder.length() == 0 ? "[" : ",").append(status);
+        }
+        httpConnectionMock.setResponseForUrl("home_timeline", builder.append("]").toString());
+    }
+
+    private CommandData newCommand() {
+        return CommandData.newTimelineCommand(CommandEnum.FETCH_TIMELINE, ma, TimelineType.HOME);
+    }
+
+    private CommandData execute(CommandData commandData) {
+        CommandExecutorStrategy strategy = CommandExecutorStrategy.getStrategy(commandData, null);
+        assertEquals(TimelineDownloaderOther.class, strategy.getClass());
+        strategy.execute();
+        return commandData;
+    }
+
+    private String oid(String id) {
+        return oidPrefix + id;
+    }
+
+    private String showUrl(String id) {
+        return "statuses/show.json?id=" + oid(id);
+    }
+
+    private String status(String id, String inReplyToId) {
+        return "{\"id_str\":\"" + oid(id) + "\",\"created_at\":\"" + CREATED_AT + "\""
+                + ",\"text\":\"Prefetched message " + id + "\""
+                + ",\"user\":{\"id_str\":\"" + SENDER_OID + "\",\"screen_name\":\"prefetcher\"}"
+                + (inReplyToId.length() == 0 ? "" : ",\"in_reply_to_user_id_str\":\"" + SENDER_OID + "\""
+                + ",\"in_reply_to_status_id_str\":\"" + oid(inReplyToId) + "\"")
+                + "}";
+    }
+
+    private int countRequests(String urlSubstring) {
+        int count = 0;
+        for (HttpReadResult result : httpConnectionMock.getResults()) {
+            if (result.getUrl().contains(urlSubstring)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void assertLoaded(String id, boolean loaded) {
+        long msgId = MyQuery.oidToId(OidEnum.MSG_OID, ma.getOriginId(), oid(id));
+        assertEquals("Message " + id + " loaded", loaded,
+                msgId != 0 && MyQuery.msgIdToLongColumnValue(MsgTable.SENT_DATE, msgId) > 0);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        SharedPreferencesUtil.getDefaultSharedPreferences().edit()
+                .remove(MyPreferences.KEY_CONVERSATION_PREFETCH_DEPTH).commit();
+        TestSuite.setHttpConnectionMockInstance(null);
+        TestSuite.setHttpConnectionMockClass(null);
+        MyContextHolder.get().persistentAccounts().initialize();
+        super.tearDown();
+    }
+}
@@ -0,0 +1,63 @@
+package org.andstatus.app.service;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@Travis
+public class MyServiceEventsBusTest extends InstrumentationTestCase {
+    private static final int PROGRESS_EVENTS = 50;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initialize(this);
+    }
+
+    public void testProgressEventsCoalesced() throws InterruptedException {
+        final List<MyServiceEvent> events = Collections.synchronizedList(new ArrayList<MyServiceEvent>());
+        final List<String> progress = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch executed = new CountDownLatch(1);
+        MyServiceEventsReceiver receiver = new MyServiceEventsReceiver(new MyServiceEventsListener() {
+            @Override
+            public void onReceive(CommandData commandData, MyServiceEvent myServiceEvent) {
+                events.add(myServiceEvent);
+                if (myServiceEvent == MyServiceEvent.PROGRESS_EXECUTING_COMMAND) {
+                    progress.add(commandData.getResult().getProgress());
+                } else if (myServiceEvent == MyServiceEvent.AFTER_EXECUTING_COMMAND) {
+                    executed.countDown();
+                }
+            }
+        });
+        receiver.register();
+        try {
+            CommandData commandData = CommandData.newCommand(CommandEnum.FETCH_TIMELINE);
+            long coalescedBefore = MyServiceEventsBus.get().getEventsCoalesced();
+            for (int i = 1; i <= PROGRESS_EVENTS; i++) {
+                MyServiceEventsBroadcaster.newInstance(MyServiceState.RUNNING)
+                        .setCommandData(commandData).setProgress(Integer.toString(i))
+                        .setEvent(MyServiceEvent.PROGRESS_EXECUTING_COMMAND).broadcast();
+            }
+            MyServiceEventsBroadcaster.newInstance(MyServiceState.RUNNING)
+                    .setCommandData(commandData).setEvent(MyServiceEvent.AFTER_EXECUTING_COMMAND).broadcast();
+            // The service may change the command after posting, listeners should see it as it was posted
+            commandData.getResult().setProgress("changed");
+            assertTrue("Event wasn't delivered", executed.await(10, TimeUnit.SECONDS));
+            assertFalse(progress.toString(), progress.contains("changed"));
+            assertEquals(progress.toString(), Integer.toString(PROGRESS_EVENTS), progress.get(progress.size() - 1));
+
+            long coalesced = MyServiceEventsBus.get().getEventsCoalesced() - coalescedBefore;
+            assertEquals(events.toString(), PROGRESS_EVENTS, progress.size() + coalesced);
+            assertEquals(MyServiceEvent.AFTER_EXECUTING_COMMAND, events.get(events.size() - 1));
+        } finally {
+            receiver.unregister();
+        }
+    }
+}
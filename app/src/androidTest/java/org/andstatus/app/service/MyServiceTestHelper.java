@@ -50,8 +50,8 @@ public class MyServiceTestHelper implements MyServiceEventsListener {
         }
         connectionInstanceId = httpConnectionMock.getInstanceId();
 
-        serviceConnector = new MyServiceEventsReceiver(myContext, this);
-        serviceConnector.registerReceiver(myContext.context());
+        serviceConnector = new MyServiceEventsReceiver(this);
+        serviceConnector.register();
         
         dropQueues();
         httpConnectionMock.clearPostedData();
@@ -158,7 +158,7 @@ public class MyServiceTestHelper implements MyServiceEventsListener {
         SharedPreferencesUtil.getDefaultSharedPreferences().edit()
                 .putBoolean(MyPreferences.KEY_SYNC_WHILE_USING_APPLICATION, true).commit();
         
-        serviceConnector.unregisterReceiver(myContext.context());
+        serviceConnector.unregister();
         TestSuite.setHttpConnectionMockClass(null);
         TestSuite.setHttpConnectionMockInstance(null);
         TestSuite.getMyContextForTest().setConnectionState(ConnectionState.UNKNOWN);
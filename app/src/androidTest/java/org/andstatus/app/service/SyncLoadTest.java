@@ -0,0 +1,191 @@
+package org.andstatus.app.service;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.account.MyAccountTest;
+import org.andstatus.app.context.MyContext;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.data.SyntheticDataGenerator;
+import org.andstatus.app.database.MsgTable;
+import org.andstatus.app.net.http.HttpConnectionLocal;
+import org.andstatus.app.net.social.LocalSocialServer;
+import org.andstatus.app.timeline.Timeline;
+import org.andstatus.app.util.MyLog;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.Set;
+
+/**
+ * Full sync cycles of Twitter, GNU social and Pump.io accounts, executed by {@link MyService}
+ * against the {@link LocalSocialServer}. Reports items/sec, requests per item and bytes per item.
+ * It runs for long, so it is not run during Travis build. Results are logged
+ * and written to the "sync_load_test.json" file in the log folder.
+ */
+public class SyncLoadTest extends InstrumentationTestCase {
+    private static final String TAG = SyncLoadTest.class.getSimpleName();
+    private static final String[] ACCOUNT_NAMES = {TestSuite.TWITTER_TEST_ACCOUNT_NAME,
+            TestSuite.GNUSOCIAL_TEST_ACCOUNT_NAME, TestSuite.PUMPIO_TEST_ACCOUNT_NAME};
+    private static final int NEW_ITEMS_PER_CYCLE = 50;
+
+    private MyContext myContext;
+    private LocalSocialServer server;
+    private final List<Timeline> timelines = new ArrayList<>();
+    private final List<String[]> savedPositions = new ArrayList<>();
+    private final StringBuilder results = new StringBuilder();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initializeWithData(this);
+        MyServiceManager.setServiceUnavailable();
+        MyServiceManager.stopService();
+
+        server = new LocalSocialServer(2016).setItemsPerTimeline(1000).setUsersCount(300).start();
+        TestSuite.setHttpConnectionMockClass(HttpConnectionLocal.class);
+        TestSuite.getMyContextForTest().setConnectionState(ConnectionState.WIFI);
+        MyContextHolder.get().setExpired();
+        myContext = MyContextHolder.initialize(MyContextHolder.get().context(), this);
+        MyAccountTest.fixPersistentAccounts(myContext);
+        new CommandQueue().clear();
+        assertTrue(TestSuite.setAndWaitForIsInForeground(false));
+
+        for (String accountName : ACCOUNT_NAMES) {
+            MyAccount ma = myContext.persistentAccounts().fromAccountName(accountName);
+            assertTrue(accountName, ma.isValidAndSucceeded());
+            for (Timeline timeline : myContext.persistentTimelines().values()) {
+                if (timeline.isSyncable() && timeline.getMyAccount().equals(ma)) {
+                    timelines.add(timeline);
+                    savedPositions.add(new String[]{String.valueOf(timeline.getId()), timeline.getYoungestPosition(),
+                            String.valueOf(timeline.getYoungestItemDate()), String.valueOf(timeline.getYoungestSyncedDate())});
+                }
+            }
+        }
+        assertFalse("No timelines to sync", timelines.isEmpty());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop();
+        new CommandQueue().clear();
+        for (String[] saved : savedPositions) {
+            Timeline timeline = myContext.persistentTimelines().fromId(Long.parseLong(saved[0]));
+            timeline.setYoungestPosition(saved[1]);
+            timeline.setYoungestItemDate(Long.parseLong(saved[2]));
+            timeline.setYoungestSyncedDate(Long.parseLong(saved[3]));
+            timeline.save(myContext);
+        }
+        SyntheticDataGenerator.deleteAll(myContext);
+        TestSuite.onDataDeleted();
+        TestSuite.setHttpConnectionMockClass(null);
+        TestSuite.getMyContextForTest().setConnectionState(ConnectionState.UNKNOWN);
+        myContext.persistentAccounts().initialize();
+        myContext.persistentTimelines().initialize();
+        super.tearDown();
+    }
+
+    public void testSyncCycles() {
+        long messagesAdded = syncCycle("initial");
+        assertTrue("No messages added " + server.getStats(), messagesAdded > 0);
+
+        server.addNewItems(NEW_ITEMS_PER_CYCLE);
+        syncCycle("incremental");
+
+        server.setLatencyMs(100).setBytesPerSecond(256 * 1024).setRateLimitErrorRate(0.05).setServerErrorRate(0.05);
+        server.addNewItems(NEW_ITEMS_PER_CYCLE);
+        syncCycle("slow network with errors");
+
+        results.insert(0, "[\n").append("\n]\n");
+        MyLog.writeStringToFile(results.toString(), "sync_load_test.json");
+    }
+
+    public void testFriendsIdsCursors() throws Exception {
+        Set<String> ids = new HashSet<>();
+        long cursor = -1;
+        int pages = 0;
+        do {
+            JSONObject page = new JSONObject(httpGet("/api.twitter.com/1.1/friends/ids.json?count=100&cursor="
+                    + cursor));
+            JSONArray jArr = page.getJSONArray("ids");
+            for (int index = 0; index < jArr.length(); index++) {
+                assertTrue("Duplicated id on page " + pages, ids.add(jArr.getString(index)));
+            }
+            cursor = page.getLong("next_cursor");
+            pages++;
+        } while (cursor != 0 && pages < 10);
+        assertEquals("Pages", 3, pages);
+        assertEquals("Users", 300, ids.size());
+    }
+
+    private String httpGet(String path) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(server.getUrl() + path).openConnection();
+        InputStream in = null;
+        try {
+            assertEquals(path, 200, connection.getResponseCode());
+            in = connection.getInputStream();
+            return new Scanner(in, "UTF-8").useDelimiter("\\A").next();
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+            connection.disconnect();
+        }
+    }
+
+    /** @return number of messages added to the database */
+    private long syncCycle(String name) {
+        long requests = server.getRequests();
+        long bytes = server.getBytesSent();
+        long items = server.getItemsServed();
+        long errors = server.getRateLimitErrors() + server.getServerErrors();
+        long messages = countGeneratedMessages();
+
+        List<CommandData> commands = new ArrayList<>();
+        for (Timeline timeline : timelines) {
+            commands.add(CommandData.newTimelineCommand(CommandEnum.FETCH_TIMELINE, timeline));
+        }
+        MyServiceCommandsRunner runner = new MyServiceCommandsRunner(myContext);
+        runner.setIgnoreServiceAvailability(true);
+        long startedAt = System.currentTimeMillis();
+        runner.sendCommands(commands);
+        runner.waitForCompletion(name);
+        long durationMs = Math.max(1, System.currentTimeMillis() - startedAt);
+        runner.unregisterReceiver();
+        assertTrue("Sync of " + name + " not completed: " + runner, runner.isSyncCompleted());
+
+        requests = server.getRequests() - requests;
+        bytes = server.getBytesSent() - bytes;
+        items = server.getItemsServed() - items;
+        errors = server.getRateLimitErrors() + server.getServerErrors() - errors;
+        messages = countGeneratedMessages() - messages;
+        long perItem = Math.max(1, items);
+        String result = "{\"cycle\":\"" + name + "\", \"timelines\":" + commands.size()
+                + ", \"ms\":" + durationMs + ", \"requests\":" + requests + ", \"errors\":" + errors
+                + ", \"bytes\":" + bytes + ", \"items\":" + items + ", \"messagesAdded\":" + messages
+                + ", \"itemsPerSecond\":" + (items * 1000 / durationMs)
+                + ", \"requestsPerItem\":" + String.format(Locale.US, "%.3f", (double) requests / perItem)
+                + ", \"bytesPerItem\":" + (bytes / perItem) + "}";
+        MyLog.i(TAG, result);
+        if (results.length() > 0) {
+            results.append(",\n");
+        }
+        results.append(result);
+        return messages;
+    }
+
+    private long countGeneratedMessages() {
+        return MyQuery.sqlToLong(null, TAG, "SELECT COUNT(*) FROM " + MsgTable.TABLE_NAME
+                + " WHERE " + MsgTable.MSG_OID + " LIKE '" + SyntheticDataGenerator.OID_PREFIX + "%'");
+    }
+}
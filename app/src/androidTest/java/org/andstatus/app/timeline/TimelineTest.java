@@ -0,0 +1,42 @@
+package org.andstatus.app.timeline;
+
+import android.test.InstrumentationTestCase;
+
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.context.Travis;
+
+import java.util.concurrent.TimeUnit;
+
+@Travis
+public class TimelineTest extends InstrumentationTestCase {
+    private static final long BASE_MS = TimeUnit.MINUTES.toMillis(15);
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestSuite.initialize(this);
+    }
+
+    public void testAdaptSyncPeriod() {
+        assertEquals("Not enough syncs", BASE_MS, Timeline.adaptSyncPeriod(BASE_MS, 2, 0, 2, 10 * BASE_MS));
+        assertEquals("Recent item", BASE_MS, Timeline.adaptSyncPeriod(BASE_MS, 10, 0, 10, BASE_MS / 2));
+        assertEquals(2 * BASE_MS, Timeline.adaptSyncPeriod(BASE_MS, 10, 0, 10, BASE_MS + 1));
+        assertEquals(2 * BASE_MS, Timeline.adaptSyncPeriod(BASE_MS, 10, 0, 10, 3 * BASE_MS - 1));
+        assertEquals(4 * BASE_MS, Timeline.adaptSyncPeriod(BASE_MS, 10, 0, 10, 3 * BASE_MS));
+        assertEquals(8 * BASE_MS, Timeline.adaptSyncPeriod(BASE_MS, 10, 0, 10, 7 * BASE_MS));
+        assertEquals("Max backoff", BASE_MS << Timeline.MAX_BACKOFF_STEPS,
+                Timeline.adaptSyncPeriod(BASE_MS, 10, 0, 10, TimeUnit.DAYS.toMillis(3)));
+        assertEquals("Busy timeline", 2 * BASE_MS, Timeline.adaptSyncPeriod(BASE_MS, 10, 30, 10, 7 * BASE_MS));
+        assertEquals("One empty sync", BASE_MS, Timeline.adaptSyncPeriod(BASE_MS, 10, 0, 1, 7 * BASE_MS));
+        assertEquals("Two empty syncs", 2 * BASE_MS, Timeline.adaptSyncPeriod(BASE_MS, 10, 0, 2, 7 * BASE_MS));
+        assertEquals("Three empty syncs", 4 * BASE_MS, Timeline.adaptSyncPeriod(BASE_MS, 10, 0, 3, 7 * BASE_MS));
+        assertEquals("Not synced for long", 2 * BASE_MS,
+                Timeline.adaptSyncPeriod(BASE_MS, 10, 0, 2, TimeUnit.DAYS.toMillis(3)));
+
+        long longBaseMs = TimeUnit.HOURS.toMillis(6);
+        assertEquals("Max period", Timeline.MAX_AUTO_SYNC_PERIOD_MS,
+                Timeline.adaptSyncPeriod(longBaseMs, 10, 0, 10, TimeUnit.DAYS.toMillis(30)));
+        assertEquals("Base period is longer than max", 2 * Timeline.MAX_AUTO_SYNC_PERIOD_MS,
+                Timeline.adaptSyncPeriod(2 * Timeline.MAX_AUTO_SYNC_PERIOD_MS, 10, 0, 10, TimeUnit.DAYS.toMillis(30)));
+    }
+}
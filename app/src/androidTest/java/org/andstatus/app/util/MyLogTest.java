@@ -23,6 +23,7 @@ import org.andstatus.app.context.TestSuite;
 import org.andstatus.app.context.Travis;
 
 import java.io.File;
+import java.io.IOException;
 
 @Travis
 public class MyLogTest extends InstrumentationTestCase {
@@ -49,6 +50,7 @@ public class MyLogTest extends InstrumentationTestCase {
         MyLog.setLogToFile(true);
         assertFalse(TextUtils.isEmpty(MyLog.getLogFilename()));
         MyLog.v(this, method);
+        MyLog.flushLogFile();
         File file = MyLog.getFileInLogDir(MyLog.getLogFilename(), true);
         assertTrue(file.exists());
         
@@ -60,6 +62,44 @@ public class MyLogTest extends InstrumentationTestCase {
         assertFalse(file.exists());
     }
 
+    public void testLinesAreWrittenInOrder() throws IOException {
+        final String method = "testLinesAreWrittenInOrder";
+        MyLog.setLogToFile(true);
+        File file = MyLog.getFileInLogDir(MyLog.getLogFilename(), true);
+        long droppedBefore = LogFileWriter.getDroppedCount();
+        final int count = 100;
+        for (int ind = 0; ind < count; ind++) {
+            MyLog.v(this, method + " line " + ind);
+        }
+        MyLog.e(this, method + " last line");
+        MyLog.setLogToFile(false);
+        assertEquals(droppedBefore, LogFileWriter.getDroppedCount());
+        String content = new String(FileUtils.getBytes(file), "UTF-8");
+        int indPrevious = -1;
+        for (int ind = 0; ind < count; ind++) {
+            int indLine = content.indexOf(method + " line " + ind + "\n");
+            assertTrue("Line " + ind + " after " + indPrevious + " in " + file, indLine > indPrevious);
+            indPrevious = indLine;
+        }
+        assertTrue(content.indexOf(method + " last line") > indPrevious);
+        assertTrue(file.delete());
+    }
+
+    public void testErrorIsWrittenImmediately() throws IOException {
+        final String method = "testErrorIsWrittenImmediately";
+        MyLog.setLogToFile(true);
+        File file = MyLog.getFileInLogDir(MyLog.getLogFilename(), true);
+        MyLog.v(this, method + " queued line");
+        MyLog.e(this, method + " error line \u043e\u0448\u0438\u0431\u043a\u0430");
+        // No flush here: the error and the lines before it should already be in the file
+        String content = new String(FileUtils.getBytes(file), "UTF-8");
+        int indQueued = content.indexOf(method + " queued line");
+        assertTrue(content, indQueued >= 0);
+        assertTrue(content, content.indexOf(method + " error line") > indQueued);
+        MyLog.setLogToFile(false);
+        assertTrue(file.delete());
+    }
+
     public void testUniqueDateTimeFormatted() {
         String string1 = "";
         String string2 = "";
@@ -41,11 +41,6 @@ public enum IntentExtra{
     ITEM_ID("ITEM_ID"),
     INSTANCE_ID("INSTANCE_ID"),
     COMMAND_RESULT("COMMAND_RESULT"),
-    /**
-     * {@link MyServiceState}
-     */
-    SERVICE_STATE("SERVICE_STATE"),
-    SERVICE_EVENT("SERVICE_EVENT"),
     PROGRESS_TEXT("PROGRESS_TEXT"),
     /** Text of the message/"tweet" */
     MESSAGE_TEXT("MESSAGE_TEXT"),
@@ -111,7 +111,7 @@ public abstract class LoadableListActivity extends MyBaseListActivity implements
         }
 
         MyServiceManager.setServiceAvailable();
-        myServiceReceiver = new MyServiceEventsReceiver(myContext, this);
+        myServiceReceiver = new MyServiceEventsReceiver(this);
 
         mParsedUri = ParsedUri.fromUri(getIntent().getData());
         setCurrentMyAccount(getParsedUri().getAccountUserId(), getParsedUri().getOriginId());
@@ -430,7 +430,7 @@ public abstract class LoadableListActivity extends MyBaseListActivity implements
             if (this.myContext != myContextNew || configChangeTime != myContextNew.preferencesChangeTime()) {
                 configChanged = true;
             }
-            myServiceReceiver.registerReceiver(this);
+            myServiceReceiver.register();
             myContextNew.setInForeground(true);
             if (getListData().size() == 0 && !isLoading()) {
                 showList(WhichPage.ANY);
@@ -450,7 +450,7 @@ public abstract class LoadableListActivity extends MyBaseListActivity implements
     protected void onPause() {
         mIsPaused = true;
         super.onPause();
-        myServiceReceiver.unregisterReceiver(this);
+        myServiceReceiver.unregister();
         MyContextHolder.get().setInForeground(false);
     }
     
@@ -584,7 +584,7 @@ public abstract class LoadableListActivity extends MyBaseListActivity implements
     public void onDestroy() {
         MyLog.v(this, "onDestroy, instanceId=" + mInstanceId);
         if (myServiceReceiver != null) {
-            myServiceReceiver.unregisterReceiver(this);
+            myServiceReceiver.unregister();
         }
         super.onDestroy();
     }
@@ -20,7 +20,6 @@ import android.content.Intent;
 import android.net.Uri;
 
 import org.andstatus.app.service.MyService;
-import org.andstatus.app.service.MyServiceManager;
 
 public enum MyAction {
     /**
@@ -29,11 +28,6 @@ public enum MyAction {
      * (and corresponding broadcast receiver registered). 
      */
     EXECUTE_COMMAND("EXECUTE_COMMAND"),
-    /**
-     * Broadcast with this action is being sent by {@link MyService} to notify of its state.
-     *  Actually {@link MyServiceManager} receives it.
-     */
-    SERVICE_STATE("SERVICE_STATE"),
     VIEW_CONVERSATION("VIEW_CONVERSATION"),
     VIEW_FOLLOWERS("VIEW_FOLLOWERS"),
     VIEW_USERS("VIEW_USERS"),
@@ -69,11 +69,27 @@ public class PersistentAccounts {
     }
     
     public PersistentAccounts initialize() {
+        return initialize(loadAccountsData(myContext));
+    }
+
+    /**
+     * Reads data of all accounts from the AccountManager. Doesn't need the database and origins,
+     * so it may be done in parallel with their initialization
+     */
+    @NonNull
+    public static List<AccountData> loadAccountsData(MyContext myContext) {
+        List<AccountData> accountsData = new ArrayList<>();
+        for (android.accounts.Account account : getAccounts(myContext.context())) {
+            accountsData.add(AccountData.fromAndroidAccount(myContext, account));
+        }
+        return accountsData;
+    }
+
+    public PersistentAccounts initialize(@NonNull List<AccountData> accountsData) {
         myFriends = null;
-        android.accounts.Account[] aa = getAccounts(myContext.context());
         List<MyAccount> myAccounts = new ArrayList<>();
-        for (android.accounts.Account account : aa) {
-            MyAccount ma = Builder.fromAndroidAccount(myContext, account).getAccount();
+        for (AccountData accountData : accountsData) {
+            MyAccount ma = Builder.fromAccountData(myContext, accountData, "fromAndroidAccount").getAccount();
             if (ma.isValid()) {
                 myAccounts.add(ma);
             } else {
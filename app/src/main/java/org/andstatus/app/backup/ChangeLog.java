@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.backup;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.andstatus.app.context.MyPreferences;
+import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.database.ChangeLogTable;
+import org.andstatus.app.util.MyLog;
+import org.andstatus.app.util.SharedPreferencesUtil;
+
+/**
+ * State of the {@link ChangeLogTable}: which changes may be included into an incremental backup
+ * @author yvolk@yurivolkov.com
+ */
+public class ChangeLog {
+    private static final String TAG = ChangeLog.class.getSimpleName();
+    /** Not backed up changes above this limit are pruned, so the next backup will be a full one */
+    static final long MAX_ROWS_TO_KEEP = 500000;
+
+    private ChangeLog() {
+        // Empty
+    }
+
+    /** The id changes when the database is being replaced, e.g. restored from a backup */
+    static long getDatabaseId() {
+        long databaseId = SharedPreferencesUtil.getLong(MyPreferences.KEY_CHANGE_LOG_DATABASE_ID);
+        if (databaseId == 0) {
+            databaseId = System.currentTimeMillis();
+            SharedPreferencesUtil.putLong(MyPreferences.KEY_CHANGE_LOG_DATABASE_ID, databaseId);
+        }
+        return databaseId;
+    }
+
+    /** The counter of the AUTOINCREMENT key keeps the last id even when the log is pruned */
+    static long getMaxChangeId(SQLiteDatabase db) {
+        return MyQuery.sqlToLong(db, TAG, "SELECT seq FROM sqlite_sequence WHERE name='"
+                + ChangeLogTable.TABLE_NAME + "'");
+    }
+
+    /** @return true if the log has all changes, made after a backup of this database, which included the changeId */
+    static boolean hasChangesSince(long databaseId, long changeId) {
+        return databaseId == getDatabaseId() && changeId > 0
+                && changeId >= SharedPreferencesUtil.getLong(MyPreferences.KEY_CHANGE_LOG_TRACKED_SINCE);
+    }
+
+    static void onBackedUp(long changeId) {
+        SharedPreferencesUtil.putLong(MyPreferences.KEY_CHANGE_LOG_BACKED_UP, changeId);
+    }
+
+    /** Changes of the restored database cannot be added to the backups of the database, from which it was restored */
+    static void onRestored(SQLiteDatabase db) {
+        SharedPreferencesUtil.putLong(MyPreferences.KEY_CHANGE_LOG_DATABASE_ID, System.currentTimeMillis());
+        SharedPreferencesUtil.putLong(MyPreferences.KEY_CHANGE_LOG_BACKED_UP, 0);
+        prune(db, getMaxChangeId(db));
+    }
+
+    /**
+     * Changes, logged before, are not enough for an incremental backup, e.g. when more tables became tracked.
+     * So the next backup will be a full one
+     */
+    public static void restartTracking(SQLiteDatabase db) {
+        long maxChangeId = getMaxChangeId(db);
+        prune(db, maxChangeId);
+        SharedPreferencesUtil.putLong(MyPreferences.KEY_CHANGE_LOG_TRACKED_SINCE, maxChangeId + 1);
+    }
+
+    /**
+     * Database conversions may change every row of a table, so the changes are not logged during a conversion,
+     * and the tracking is restarted after it by {@link #resumeTracking(SQLiteDatabase)}
+     */
+    public static void suspendTracking(SQLiteDatabase db) {
+        ChangeLogTable.dropTriggers(db);
+    }
+
+    public static void resumeTracking(SQLiteDatabase db) {
+        if (ChangeLogTable.exists(db)) {
+            ChangeLogTable.createTriggers(db);
+            restartTracking(db);
+        }
+    }
+
+    /**
+     * Deletes changes, which were already backed up, and changes, which are too old
+     * @return number of deleted rows
+     */
+    public static long prune(SQLiteDatabase db) {
+        long maxChangeId = getMaxChangeId(db);
+        long backedUp = SharedPreferencesUtil.getLong(MyPreferences.KEY_CHANGE_LOG_BACKED_UP);
+        // Nothing to keep if there were no backups yet
+        long pruneUpTo = backedUp == 0 ? maxChangeId : Math.max(backedUp, maxChangeId - MAX_ROWS_TO_KEEP);
+        return prune(db, pruneUpTo);
+    }
+
+    private static long prune(SQLiteDatabase db, long pruneUpTo) {
+        if (pruneUpTo <= 0) {
+            return 0;
+        }
+        int deleted = db.delete(ChangeLogTable.TABLE_NAME, ChangeLogTable._ID + "<=" + pruneUpTo, null);
+        if (pruneUpTo > SharedPreferencesUtil.getLong(MyPreferences.KEY_CHANGE_LOG_TRACKED_SINCE)) {
+            SharedPreferencesUtil.putLong(MyPreferences.KEY_CHANGE_LOG_TRACKED_SINCE, pruneUpTo);
+        }
+        MyLog.v(TAG, "Pruned " + deleted + " changes up to id=" + pruneUpTo);
+        return deleted;
+    }
+}
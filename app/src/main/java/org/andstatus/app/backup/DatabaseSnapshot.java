@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.backup;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.util.MyLog;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A consistent and compacted copy of a live database, which is being used (and written to) by other threads.
+ * Uses "VACUUM INTO" where SQLite supports it (3.27+), otherwise the schema is recreated in a new file
+ * and rows are copied in chunks of {@link #ROWS_IN_CHUNK} rows. All chunks are read in one reading transaction
+ * of a separate read only connection, so the copy is of one moment, and the {@link #getLastChangeId()}
+ * is read at the same moment. As the live database is in the write-ahead logging mode,
+ * the reading transaction doesn't block writers. The copy doesn't have free pages of the live file
+ * @author yvolk@yurivolkov.com
+ */
+class DatabaseSnapshot {
+    private static final String TAG = DatabaseSnapshot.class.getSimpleName();
+    static final String SNAPSHOT_PREFIX = "snapshot_";
+    private static final int VACUUM_INTO_MIN_VERSION = 3027000;
+    static final int ROWS_IN_CHUNK = 1000;
+
+    private final SQLiteDatabase db;
+    private final File snapshotFile;
+    private long lastChangeId = 0;
+
+    private static class SchemaItem {
+        final String type;
+        final String name;
+        final String sql;
+
+        SchemaItem(String type, String name, String sql) {
+            this.type = type;
+            this.name = name;
+            this.sql = sql;
+        }
+    }
+
+    DatabaseSnapshot(SQLiteDatabase db, File snapshotFile) {
+        this.db = db;
+        this.snapshotFile = snapshotFile;
+    }
+
+    /** @return the snapshot file, which should be deleted by the caller */
+    File take() throws IOException {
+        final String method = "take";
+        delete();
+        long startedAt = System.currentTimeMillis();
+        if (sqliteVersion() >= VACUUM_INTO_MIN_VERSION) {
+            db.execSQL("VACUUM INTO ?", new Object[]{snapshotFile.getAbsolutePath()});
+            if (!snapshotFile.exists()) {
+                throw new FileNotFoundException("Snapshot was not created: '" + snapshotFile.getAbsolutePath() + "'");
+            }
+            SQLiteDatabase snapshot = SQLiteDatabase.openDatabase(snapshotFile.getAbsolutePath(), null,
+                    SQLiteDatabase.OPEN_READONLY);
+            try {
+                lastChangeId = ChangeLog.getMaxChangeId(snapshot);
+            } finally {
+                snapshot.close();
+            }
+        } else {
+            copyToNewFile();
+        }
+        if (!snapshotFile.exists()) {
+            throw new FileNotFoundException("Snapshot was not created: '" + snapshotFile.getAbsolutePath() + "'");
+        }
+        MyLog.v(TAG, method + "; '" + snapshotFile.getName() + "' " + snapshotFile.length() + " bytes, took "
+                + (System.currentTimeMillis() - startedAt) + " ms");
+        return snapshotFile;
+    }
+
+    /** The last change of the {@link org.andstatus.app.database.ChangeLogTable}, which is included in the snapshot */
+    long getLastChangeId() {
+        return lastChangeId;
+    }
+
+    void delete() {
+        for (File file : new File[]{snapshotFile, new File(snapshotFile.getAbsolutePath() + "-journal")}) {
+            if (file.exists() && !file.delete()) {
+                MyLog.w(TAG, "Couldn't delete '" + file.getAbsolutePath() + "'");
+            }
+        }
+    }
+
+    /** @return SQLite version as a number, e.g. 3027002 for "3.27.2" */
+    private long sqliteVersion() {
+        String version = DatabaseUtils.stringForQuery(db, "SELECT sqlite_version()", null);
+        String[] parts = version.split("\\.");
+        long value = 0;
+        for (int i = 0; i < 3; i++) {
+            try {
+                value = value * 1000 + (i < parts.length ? Long.parseLong(parts[i]) : 0);
+            } catch (NumberFormatException e) {
+                MyLog.v(TAG, "Unknown SQLite version '" + version + "'", e);
+                return 0;
+            }
+        }
+        return value;
+    }
+
+    private void copyToNewFile() throws IOException {
+        SQLiteDatabase live = null;
+        SQLiteDatabase snapshot = null;
+        try {
+            live = beginReading(db);
+            lastChangeId = ChangeLog.getMaxChangeId(live);
+            snapshot = SQLiteDatabase.openOrCreateDatabase(snapshotFile, null);
+            copyAll(live, snapshot);
+        } catch (Exception e) {
+            throw new IOException("Failed to copy database to '" + snapshotFile.getAbsolutePath() + "'", e);
+        } finally {
+            if (snapshot != null) {
+                snapshot.close();
+            }
+            endReading(live);
+        }
+    }
+
+    /**
+     * Opens a separate read only connection to the live database and starts a reading transaction in it,
+     * so all queries of the connection see the database at one moment, until {@link #endReading(SQLiteDatabase)}.
+     * The connection isn't in the write-ahead logging mode, so it's the only connection of its pool
+     */
+    static SQLiteDatabase beginReading(SQLiteDatabase db) {
+        SQLiteDatabase reader = SQLiteDatabase.openDatabase(db.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            // SQLiteDatabase#beginTransaction() starts a writing transaction, and "SAVEPOINT" starts a deferred one,
+            // which becomes a reading transaction on the first query
+            reader.execSQL("SAVEPOINT " + TAG);
+        } catch (RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+        return reader;
+    }
+
+    static void endReading(SQLiteDatabase reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.execSQL("RELEASE " + TAG);
+        } catch (RuntimeException e) {
+            MyLog.d(TAG, "endReading", e);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void copyAll(SQLiteDatabase live, SQLiteDatabase snapshot) {
+        List<SchemaItem> schema = getSchema(live);
+        snapshot.beginTransaction();
+        try {
+            for (SchemaItem item : schema) {
+                if ("table".equals(item.type)) {
+                    snapshot.execSQL(item.sql);
+                    copyTable(live, snapshot, item.name);
+                }
+            }
+            // Indexes are built after all rows are inserted, this gives compact files
+            for (SchemaItem item : schema) {
+                if (!"table".equals(item.type)) {
+                    snapshot.execSQL(item.sql);
+                }
+            }
+            copySequences(live, snapshot);
+            snapshot.setVersion(live.getVersion());
+            snapshot.setTransactionSuccessful();
+        } finally {
+            snapshot.endTransaction();
+        }
+    }
+
+    /** Tables first, so indexes, views and triggers may refer to them */
+    private static List<SchemaItem> getSchema(SQLiteDatabase db) {
+        List<SchemaItem> schema = new ArrayList<>();
+        String sql = "SELECT type, name, sql FROM sqlite_master"
+                + " WHERE sql NOT NULL AND name NOT LIKE 'sqlite_%' AND name != 'android_metadata'"
+                + " ORDER BY CASE type WHEN 'table' THEN 0 WHEN 'index' THEN 1 ELSE 2 END, rowid";
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(sql, null);
+            while (cursor.moveToNext()) {
+                schema.add(new SchemaItem(cursor.getString(0), cursor.getString(1), cursor.getString(2)));
+            }
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+        return schema;
+    }
+
+    /** Rows are read by rowid ranges, so the memory, used by a cursor, is limited to one chunk */
+    private static void copyTable(SQLiteDatabase db, SQLiteDatabase snapshot, String table) {
+        SQLiteStatement insert = null;
+        long rowCount = 0;
+        long lastRowId = Long.MIN_VALUE;
+        try {
+            while (true) {
+                Cursor cursor = null;
+                int chunkRows = 0;
+                try {
+                    cursor = db.rawQuery("SELECT rowid, * FROM " + table + " WHERE rowid>" + lastRowId
+                            + " ORDER BY rowid LIMIT " + ROWS_IN_CHUNK, null);
+                    if (insert == null) {
+                        insert = compileInsert(snapshot, table, cursor);
+                    }
+                    while (cursor.moveToNext()) {
+                        lastRowId = cursor.getLong(0);
+                        for (int index = 1; index < cursor.getColumnCount(); index++) {
+                            bindColumn(insert, index, cursor, index);
+                        }
+                        insert.executeInsert();
+                        chunkRows++;
+                    }
+                } finally {
+                    DbUtils.closeSilently(cursor);
+                }
+                rowCount += chunkRows;
+                if (chunkRows < ROWS_IN_CHUNK) {
+                    break;
+                }
+            }
+        } finally {
+            DbUtils.closeSilently(insert);
+        }
+        MyLog.v(TAG, "Copied " + rowCount + " rows of " + table);
+    }
+
+    /** The first column of the cursor is the rowid, it's not copied separately */
+    private static SQLiteStatement compileInsert(SQLiteDatabase snapshot, String table, Cursor cursor) {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        String[] columnNames = cursor.getColumnNames();
+        for (int index = 1; index < columnNames.length; index++) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+                values.append(", ");
+            }
+            columns.append(columnNames[index]);
+            values.append("?");
+        }
+        return snapshot.compileStatement("INSERT INTO " + table + " (" + columns + ") VALUES (" + values + ")");
+    }
+
+    private static void bindColumn(SQLiteStatement statement, int bindIndex, Cursor cursor, int index) {
+        switch (cursor.getType(index)) {
+            case Cursor.FIELD_TYPE_NULL:
+                statement.bindNull(bindIndex);
+                break;
+            case Cursor.FIELD_TYPE_INTEGER:
+                statement.bindLong(bindIndex, cursor.getLong(index));
+                break;
+            case Cursor.FIELD_TYPE_FLOAT:
+                statement.bindDouble(bindIndex, cursor.getDouble(index));
+                break;
+            case Cursor.FIELD_TYPE_BLOB:
+                statement.bindBlob(bindIndex, cursor.getBlob(index));
+                break;
+            default:
+                statement.bindString(bindIndex, cursor.getString(index));
+                break;
+        }
+    }
+
+    /** Values of AUTOINCREMENT counters may be larger than the max ids of the copied rows */
+    private static void copySequences(SQLiteDatabase db, SQLiteDatabase snapshot) {
+        if (MyQuery.sqlToLong(snapshot, TAG,
+                "SELECT COUNT(*) FROM sqlite_master WHERE name='sqlite_sequence'") == 0) {
+            return;
+        }
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("SELECT name, seq FROM sqlite_sequence", null);
+            snapshot.execSQL("DELETE FROM sqlite_sequence");
+            while (cursor.moveToNext()) {
+                snapshot.execSQL("INSERT INTO sqlite_sequence (name, seq) VALUES (?, ?)",
+                        new Object[]{cursor.getString(0), cursor.getLong(1)});
+            }
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+    }
+}
@@ -20,9 +20,9 @@ import android.app.backup.BackupAgent;
 import android.app.backup.BackupDataInput;
 import android.app.backup.BackupDataOutput;
 import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
 import android.os.ParcelFileDescriptor;
 
-import org.andstatus.app.R;
 import org.andstatus.app.account.PersistentAccounts;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
@@ -30,24 +30,29 @@ import org.andstatus.app.context.MyPreferencesGroupsEnum;
 import org.andstatus.app.context.MyStorage;
 import org.andstatus.app.data.DataPruner;
 import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.database.ChangeLogTable;
 import org.andstatus.app.database.DatabaseHolder;
 import org.andstatus.app.data.MyDataChecker;
 import org.andstatus.app.data.TimelineSearchSuggestionsProvider;
 import org.andstatus.app.service.MyServiceManager;
-import org.andstatus.app.service.MyServiceState;
-import org.andstatus.app.util.FileUtils;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.SharedPreferencesUtil;
 import org.andstatus.app.util.TriState;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class MyBackupAgent extends BackupAgent {
     public static final String DATABASE_KEY = "database";
     public static final String SHARED_PREFERENCES_KEY = "shared_preferences";
+    /** After this number of incremental backups the next backup will be a full one */
+    static final int MAX_INCREMENTAL_BACKUPS_IN_CHAIN = 10;
 
     private MyBackupDescriptor backupDescriptor = null;
 
@@ -92,7 +97,6 @@ public class MyBackupAgent extends BackupAgent {
     public void onBackup(MyBackupDescriptor oldDescriptor, MyBackupDataOutput data,
             MyBackupDescriptor newDescriptor) throws IOException {
         final String method = "onBackup";
-        // Ignore oldDescriptor for now...
         MyLog.i(this, method + " started"
                 + (data != null && data.getDataFolder() != null ? ", folder='"
                         + data.getDataFolder().getAbsolutePath() + "'" : "")
@@ -108,53 +112,135 @@ public class MyBackupAgent extends BackupAgent {
             } else if (MyContextHolder.get().persistentAccounts().isEmpty()) {
                 throw new FileNotFoundException("Nothing to backup - No accounts yet");
             } else {
-                boolean isServiceAvailableStored = checkAndSetServiceUnavailable();
-                doBackup(data);
+                doBackup(oldDescriptor, data);
                 backupDescriptor.save();
                 MyLog.v(this, method + "; newState: " + backupDescriptor.toString());
                 if (backupDescriptor.saved()) {
+                    ChangeLog.onBackedUp(backupDescriptor.getLastChangeId());
                     new MyDataChecker(MyContextHolder.get(), backupDescriptor.getLogger()).fixData();
                 }
-                if (isServiceAvailableStored) {
-                    MyServiceManager.setServiceAvailable();
-                }
             }
         } finally {
             MyLog.i(this, method + " ended, " + (backupDescriptor.saved() ? "success" : "failure"));
         }
     }
 
-    boolean checkAndSetServiceUnavailable() throws IOException {
-        boolean isServiceAvailableStored = MyServiceManager.isServiceAvailable();
-        MyServiceManager.setServiceUnavailable();
-        MyServiceManager.stopService();
-        for (int ind=0; ; ind++) {
-            if (MyServiceManager.getServiceState() == MyServiceState.STOPPED) {
-                break;
-            }
-            if (ind > 5) {
-                throw new FileNotFoundException(getString(R.string.system_is_busy_try_later));
-            }
-            DbUtils.waitMs("checkAndSetServiceUnavailable", 5000);
-        }
-        return isServiceAvailableStored;
-    }
-
-    private void doBackup(MyBackupDataOutput data) throws IOException {
+    private void doBackup(MyBackupDescriptor oldDescriptor, MyBackupDataOutput data) throws IOException {
         sharedPreferencesBackedUp = backupFile(data,
                 SHARED_PREFERENCES_KEY,
                 SharedPreferencesUtil.defaultSharedPreferencesPath(MyContextHolder.get().context()));
-        databasesBackedUp = backupFile(data,
-                DATABASE_KEY + "_" + DatabaseHolder.DATABASE_NAME,
-                MyStorage.getDatabasePath(DatabaseHolder.DATABASE_NAME));
+        if (isIncrementalBackupPossible(oldDescriptor, data)) {
+            databasesBackedUp = backupDatabaseDeltas(oldDescriptor, data);
+        } else {
+            databasesBackedUp = backupDatabaseSnapshot(data);
+        }
         suggestionsBackedUp = backupFile(data,
                 DATABASE_KEY + "_" + TimelineSearchSuggestionsProvider.DATABASE_NAME,
                 MyStorage.getDatabasePath(TimelineSearchSuggestionsProvider.DATABASE_NAME));
         accountsBackedUp = MyContextHolder.get().persistentAccounts().onBackup(data, backupDescriptor);
     }
     
+    /** The database is being backed up from its snapshot, so we don't need to stop syncing */
+    private long backupDatabaseSnapshot(MyBackupDataOutput data) throws IOException {
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        DatabaseSnapshot snapshot = new DatabaseSnapshot(db,
+                MyStorage.getDatabasePath(DatabaseSnapshot.SNAPSHOT_PREFIX + DatabaseHolder.DATABASE_NAME));
+        try {
+            File snapshotFile = snapshot.take();
+            clearChangeLog(snapshotFile);
+            backupDescriptor.setFullBackup(ChangeLog.getDatabaseId(), db.getVersion(), snapshot.getLastChangeId());
+            backupDescriptor.getLogger().logProgress("Database snapshot taken, "
+                    + snapshotFile.length() + " bytes (live file: "
+                    + MyStorage.getDatabasePath(DatabaseHolder.DATABASE_NAME).length() + " bytes)");
+            return backupFile(data, DATABASE_KEY + "_" + DatabaseHolder.DATABASE_NAME, snapshotFile);
+        } finally {
+            snapshot.delete();
+        }
+    }
+
+    /** Changes, made before the snapshot, and local data, which is not tracked, are not needed in it */
+    private void clearChangeLog(File snapshotFile) {
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(snapshotFile.getAbsolutePath(), null,
+                SQLiteDatabase.OPEN_READWRITE);
+        try {
+            db.delete(ChangeLogTable.TABLE_NAME, null, null);
+            for (String table : ChangeLogTable.NOT_BACKED_UP) {
+                db.delete(table, null, null);
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    private boolean isIncrementalBackupPossible(MyBackupDescriptor oldDescriptor, MyBackupDataOutput data) {
+        if (data.getDataFolder() == null || !oldDescriptor.saved()
+                || oldDescriptor.getBackupSchemaVersion() != MyBackupDescriptor.BACKUP_SCHEMA_VERSION
+                || oldDescriptor.getFolderName().length() == 0) {
+            return false;
+        }
+        if (oldDescriptor.getChainLength() >= MAX_INCREMENTAL_BACKUPS_IN_CHAIN) {
+            backupDescriptor.getLogger().logProgress("Full backup: too many incremental backups after the last full one");
+            return false;
+        }
+        // Changed rows cannot be replayed on a base backup with other schema of tables
+        int databaseVersion = MyContextHolder.get().getDatabase().getVersion();
+        if (oldDescriptor.getDatabaseVersion() != databaseVersion) {
+            backupDescriptor.getLogger().logProgress("Full backup: database version changed from "
+                    + oldDescriptor.getDatabaseVersion() + " to " + databaseVersion);
+            return false;
+        }
+        if (!ChangeLog.hasChangesSince(oldDescriptor.getChangeLogDatabaseId(), oldDescriptor.getLastChangeId())) {
+            backupDescriptor.getLogger().logProgress("Full backup: changes since previous backup '"
+                    + oldDescriptor.getFolderName() + "' are not available");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Backs up current values of the rows, changed since the previous backup up to the last logged change.
+     * All tables are read in one reading transaction of a separate connection, which doesn't block sync,
+     * so the rows are of the same moment as the last logged change
+     */
+    private long backupDatabaseDeltas(MyBackupDescriptor oldDescriptor, MyBackupDataOutput data) throws IOException {
+        backupDescriptor.getLogger().logProgress("Incremental backup, based on '" + oldDescriptor.getFolderName() + "'");
+        Map<TableDelta, File> deltaFiles = new LinkedHashMap<>();
+        long lastChangeId;
+        SQLiteDatabase db = null;
+        try {
+            db = DatabaseSnapshot.beginReading(MyContextHolder.get().getDatabase());
+            lastChangeId = Math.max(ChangeLog.getMaxChangeId(db), oldDescriptor.getLastChangeId());
+            for (ChangeLogTable.Tracked tracked : ChangeLogTable.Tracked.values()) {
+                TableDelta delta = new TableDelta(tracked);
+                File file = MyStorage.getDatabasePath(DatabaseSnapshot.SNAPSHOT_PREFIX + delta.getKey()
+                        + TableDelta.FILE_EXTENSION);
+                deltaFiles.put(delta, file);
+                long rowsCount = delta.write(db, oldDescriptor.getLastChangeId(), lastChangeId, file);
+                backupDescriptor.setDeltaRowsCount(tracked.tableName, rowsCount);
+                if (rowsCount == 0 && !file.delete()) {
+                    MyLog.v(this, "Couldn't delete " + file.getAbsolutePath());
+                }
+            }
+            DatabaseSnapshot.endReading(db);
+            db = null;
+            for (Map.Entry<TableDelta, File> entry : deltaFiles.entrySet()) {
+                if (entry.getValue().exists()) {
+                    backupFile(data, entry.getKey().getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            DatabaseSnapshot.endReading(db);
+            for (File file : deltaFiles.values()) {
+                if (file.exists() && !file.delete()) {
+                    MyLog.v(this, "Couldn't delete " + file.getAbsolutePath());
+                }
+            }
+        }
+        backupDescriptor.setIncrementalBackup(oldDescriptor, lastChangeId);
+        return 1;
+    }
+
     private long backupFile(MyBackupDataOutput data, String key, File dataFile) throws IOException {
-        final int chunkSize = 10000;
         long backedUpCount = 0;
         if (dataFile.exists()) {
             long fileLength = dataFile.length();
@@ -163,29 +249,29 @@ public class MyBackupAgent extends BackupAgent {
                         + dataFile.getName() + "' is too large for backup: " + fileLength + " bytes" );
             } 
             int bytesToWrite = (int) fileLength;
+            long startedAt = System.nanoTime();
             data.writeEntityHeader(key, bytesToWrite, MyBackupDataOutput.getDataFileExtension(dataFile));
-            int bytesWritten = 0;
-            while (bytesWritten < bytesToWrite) {
-                byte[] bytes = FileUtils.getBytes(dataFile, bytesWritten, chunkSize);
-                if (bytes.length <= 0) {
-                    break;
-                }
-                bytesWritten += bytes.length;
-                data.writeEntityData(bytes, bytes.length);
-            }
+            int bytesWritten = (int) data.writeEntityData(dataFile);
             if (bytesWritten != bytesToWrite) {
                 throw new FileNotFoundException("Couldn't backup "
                         + filePartiallyWritten(key, dataFile, bytesToWrite, bytesWritten));
             }
             backedUpCount++;
             backupDescriptor.getLogger().logProgress(
-                    "Backed up " + fileWritten(key, dataFile, bytesWritten));
+                    "Backed up " + fileWritten(key, dataFile, bytesWritten)
+                            + throughput(bytesWritten, startedAt));
         } else {
             MyLog.v(this, "File doesn't exist key='" + key + "', path='" + dataFile.getAbsolutePath());
         }
         return backedUpCount;
     }
 
+    /** @return Transfer rate in MB/s, measured since the start time, obtained by {@link System#nanoTime()} */
+    static String throughput(long bytes, long startedAtNanos) {
+        long nanos = Math.max(System.nanoTime() - startedAtNanos, 1);
+        return String.format(Locale.US, ", %.1f MB/s", bytes * 1000000000.0 / nanos / 1024 / 1024);
+    }
+
     private String fileWritten(String key, File dataFile, int bytesWritten) {
         return filePartiallyWritten(key, dataFile, bytesWritten, bytesWritten);
     }
@@ -263,9 +349,13 @@ public class MyBackupAgent extends BackupAgent {
     
     private void doRestore(MyBackupDataInput data) throws IOException {
         restoreSharedPreferences(data);
-        assertNextHeader(data, DATABASE_KEY + "_" + DatabaseHolder.DATABASE_NAME);
-        databasesRestored += restoreFile(data,
+        if (backupDescriptor.isIncremental()) {
+            restoreDatabaseChain(data);
+        } else {
+            assertNextHeader(data, DATABASE_KEY + "_" + DatabaseHolder.DATABASE_NAME);
+            databasesRestored += restoreFile(data,
                     MyStorage.getDatabasePath(DatabaseHolder.DATABASE_NAME));
+        }
         if (optionalNextHeader(data, DATABASE_KEY + "_" + TimelineSearchSuggestionsProvider.DATABASE_NAME)) {
             suggestionsRestored += restoreFile(data,
                     MyStorage.getDatabasePath(TimelineSearchSuggestionsProvider.DATABASE_NAME));
@@ -281,6 +371,86 @@ public class MyBackupAgent extends BackupAgent {
 
         MyContextHolder.release();
         MyContextHolder.initialize(this, this);
+        ChangeLog.onRestored(MyContextHolder.get().getDatabase());
+    }
+
+    /**
+     * Restores the database from the full backup, on which the incremental one is based,
+     * and replays deltas of all incremental backups of the chain, up to this one
+     */
+    private void restoreDatabaseChain(MyBackupDataInput data) throws IOException {
+        List<File> chain = getBaseBackupsChain(data.getDataFolder());
+        File fullBackupFolder = chain.remove(0);
+        backupDescriptor.getLogger().logProgress("Restoring the database from the full backup '"
+                + fullBackupFolder.getName() + "' and " + (chain.size() + 1) + " incremental backups");
+        MyBackupDataInput fullBackup = new MyBackupDataInput(fullBackupFolder);
+        String databaseKey = DATABASE_KEY + "_" + DatabaseHolder.DATABASE_NAME;
+        File databaseFile = MyStorage.getDatabasePath(DatabaseHolder.DATABASE_NAME);
+        while (fullBackup.readNextHeader() && !databaseKey.equals(fullBackup.getKey())) {
+            fullBackup.skipEntityData();
+        }
+        if (!databaseKey.equals(fullBackup.getKey())) {
+            throw new FileNotFoundException("No database in the full backup '" + fullBackupFolder.getName() + "'");
+        }
+        databasesRestored += restoreFile(fullBackup, databaseFile);
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(databaseFile.getAbsolutePath(), null,
+                SQLiteDatabase.OPEN_READWRITE);
+        try {
+            for (File folder : chain) {
+                replayDeltas(new MyBackupDataInput(folder), db, folder.getName(), false);
+            }
+            replayDeltas(data, db, data.getDataFolder().getName(), true);
+        } finally {
+            db.close();
+        }
+    }
+
+    /** @return Data folders of the backups, on which the backup in the dataFolder is based, the full backup first */
+    private List<File> getBaseBackupsChain(File dataFolder) throws IOException {
+        LinkedList<File> chain = new LinkedList<>();
+        MyBackupDescriptor descriptor = backupDescriptor;
+        while (descriptor.isIncremental()) {
+            File baseFolder = new File(dataFolder.getParentFile(), descriptor.getBaseBackup());
+            if (!baseFolder.exists() || chain.contains(baseFolder)) {
+                throw new FileNotFoundException("Base backup not found: '" + baseFolder.getAbsolutePath() + "'");
+            }
+            MyBackupDescriptor baseDescriptor = MyBackupManager.readDescriptor(baseFolder, ProgressLogger.getEmpty());
+            if (baseDescriptor.getChangeLogDatabaseId() != descriptor.getChangeLogDatabaseId()) {
+                throw new FileNotFoundException("Base backup '" + baseFolder.getName() + "' is of other database");
+            }
+            if (baseDescriptor.getDatabaseVersion() != descriptor.getDatabaseVersion()) {
+                throw new FileNotFoundException("Base backup '" + baseFolder.getName()
+                        + "' is of other database version: " + baseDescriptor.getDatabaseVersion());
+            }
+            chain.addFirst(baseFolder);
+            descriptor = baseDescriptor;
+        }
+        return chain;
+    }
+
+    /**
+     * Entities, which are not deltas, are skipped in the base backups.
+     * In the backup being restored the first such entity stops the replay
+     */
+    private void replayDeltas(MyBackupDataInput data, SQLiteDatabase db, String folderName, boolean isRestored)
+            throws IOException {
+        while (data.readNextHeader()) {
+            TableDelta delta = TableDelta.fromKey(data.getKey());
+            if (delta == null) {
+                if (isRestored) {
+                    previousKey = data.getKey();
+                    return;
+                }
+                data.skipEntityData();
+            } else {
+                long startedAt = System.nanoTime();
+                long rowsCount = delta.apply(db, data.getEntityInputStream());
+                backupDescriptor.getLogger().logProgress("Replayed " + rowsCount + " changed rows of "
+                        + delta.tracked.tableName + " from '" + folderName + "'"
+                        + throughput(data.getDataSize(), startedAt));
+            }
+        }
     }
 
     private void restoreSharedPreferences(MyBackupDataInput data) throws IOException {
@@ -321,6 +491,9 @@ public class MyBackupAgent extends BackupAgent {
     }
 
     private boolean optionalNextHeader(MyBackupDataInput data, String key) throws IOException {
+        if (key.equals(previousKey)) {
+            return true;
+        }
         if (data.readNextHeader()) {
             previousKey = data.getKey();
             return key.equals(data.getKey());
@@ -334,31 +507,19 @@ public class MyBackupAgent extends BackupAgent {
             throw new FileNotFoundException("Couldn't delete old file before restore '"
                     + dataFile.getName() + "'");
         }
+        DbUtils.deleteWriteAheadLog(dataFile);
         final String method = "restoreFile";
         MyLog.i(this, method + " started, " + fileWritten(data.getKey(), dataFile, data.getDataSize()));
-        final int chunkSize = 10000;
         int bytesToWrite = data.getDataSize();
-        int bytesWritten = 0;
-        FileOutputStream output = new FileOutputStream(dataFile, false);
-        try {
-            while (bytesToWrite > bytesWritten) {
-                byte[] bytes = new byte[chunkSize];
-                int bytesRead = data.readEntityData(bytes, 0, bytes.length);
-                if (bytesRead == 0) {
-                    break;
-                }
-                output.write(bytes, 0, bytesRead);
-                bytesWritten += bytesRead;
-            }
-            if (bytesWritten != bytesToWrite) {
-                throw new FileNotFoundException("Couldn't restore " 
-                        + filePartiallyWritten(data.getKey(), dataFile, bytesToWrite, bytesWritten));
-            }
-        } finally {
-            output.close();
+        long startedAt = System.nanoTime();
+        int bytesWritten = (int) data.readEntityData(dataFile);
+        if (bytesWritten != bytesToWrite) {
+            throw new FileNotFoundException("Couldn't restore " 
+                    + filePartiallyWritten(data.getKey(), dataFile, bytesToWrite, bytesWritten));
         }
         backupDescriptor.getLogger().logProgress("Restored "
-                + filePartiallyWritten(data.getKey(), dataFile, bytesToWrite, bytesWritten));
+                + filePartiallyWritten(data.getKey(), dataFile, bytesToWrite, bytesWritten)
+                + throughput(bytesWritten, startedAt));
         return 1;
     }
 
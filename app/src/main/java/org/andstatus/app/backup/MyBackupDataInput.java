@@ -19,16 +19,23 @@ package org.andstatus.app.backup;
 import android.app.backup.BackupDataInput;
 
 import org.andstatus.app.context.MyContext;
+import org.andstatus.app.data.DbUtils;
 import org.andstatus.app.util.FileUtils;
 import org.andstatus.app.util.MyLog;
 import org.json.JSONObject;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
 
 public class MyBackupDataInput {
     private MyContext myContext;
@@ -40,22 +47,29 @@ public class MyBackupDataInput {
     private boolean mHeaderReady = false;
     private int dataOffset = 0;
     private BackupHeader header = BackupHeader.getEmpty();
-    
+    /** The data file of the current entity is opened once and is read sequentially */
+    private FileInputStream dataStream = null;
+    private FileChannel dataChannel = null;
+    private GZIPInputStream unzippedStream = null;
+
     static class BackupHeader implements Comparable<BackupHeader> {
         String key;
         long ordinalNumber;
         int dataSize;
         String fileExtension;
+        /** The data file is compressed, {@link #dataSize} is the size of uncompressed data */
+        boolean compressed;
 
-        BackupHeader(String key, long ordinalNumber, int dataSize, String fileExtension) {
+        BackupHeader(String key, long ordinalNumber, int dataSize, String fileExtension, boolean compressed) {
             this.key = key;
             this.ordinalNumber = ordinalNumber;
             this.dataSize = dataSize;
             this.fileExtension = fileExtension;
+            this.compressed = compressed;
         }
 
         static BackupHeader getEmpty() {
-            return new BackupHeader("", 0, 0, "");
+            return new BackupHeader("", 0, 0, "", false);
         }
         
         static BackupHeader fromJson(JSONObject jso) {
@@ -63,7 +77,8 @@ public class MyBackupDataInput {
             jso.optString(MyBackupDataOutput.KEY_KEYNAME, ""),
             jso.optLong(MyBackupDataOutput.KEY_ORDINAL_NUMBER, 0),
             jso.optInt(MyBackupDataOutput.KEY_DATA_SIZE, 0),
-            jso.optString(MyBackupDataOutput.KEY_FILE_EXTENSION, MyBackupDataOutput.DATA_FILE_EXTENSION_DEFAULT));
+            jso.optString(MyBackupDataOutput.KEY_FILE_EXTENSION, MyBackupDataOutput.DATA_FILE_EXTENSION_DEFAULT),
+            jso.optBoolean(MyBackupDataOutput.KEY_COMPRESSED, false));
         }
 
         @Override
@@ -80,6 +95,7 @@ public class MyBackupDataInput {
             result = prime * result + ((fileExtension == null) ? 0 : fileExtension.hashCode());
             result = prime * result + ((key == null) ? 0 : key.hashCode());
             result = prime * result + (int) (ordinalNumber ^ (ordinalNumber >>> 32));
+            result = prime * result + (compressed ? 1 : 0);
             return result;
         }
 
@@ -112,13 +128,13 @@ public class MyBackupDataInput {
             if (ordinalNumber != other.ordinalNumber) {
                 return false;
             }
-            return true;
+            return compressed == other.compressed;
         }
 
         @Override
         public String toString() {
             return "BackupHeader [key=" + key + ", ordinalNumber=" + ordinalNumber + ", dataSize="
-                    + dataSize + "]";
+                    + dataSize + (compressed ? ", compressed" : "") + "]";
         }
     }
     
@@ -151,6 +167,7 @@ public class MyBackupDataInput {
     }
 
     private boolean readNextHeader2() throws IOException {
+        closeDataFile();
         mHeaderReady = false;
         dataOffset = 0;
         if (keysIterator.hasNext()) {
@@ -208,25 +225,121 @@ public class MyBackupDataInput {
     }
 
     private int readEntityData2(byte[] data, int offset, int size) throws IOException {
-        final long chunkSize = 50000;
         int bytesRead = 0;
-        if (size > chunkSize) {
-            throw new FileNotFoundException("Size to read is too large: " + size);
-        } else if (size < 1 || dataOffset >= header.dataSize) {
+        if (size < 1 || dataOffset >= header.dataSize) {
             // skip
+        } else if (mHeaderReady && header.compressed) {
+            int sizeToRead = Math.min(size, header.dataSize - dataOffset);
+            InputStream in = getUnzippedStream();
+            int read;
+            while (bytesRead < sizeToRead && (read = in.read(data, offset + bytesRead, sizeToRead - bytesRead)) > 0) {
+                bytesRead += read;
+            }
         } else if (mHeaderReady) {
-            File dataFile = new File(dataFolder, header.key + MyBackupDataOutput.DATA_FILE_SUFFIX + header.fileExtension);
-            byte[] readData = FileUtils.getBytes(dataFile, dataOffset, size);
-            bytesRead = readData.length;
-            System.arraycopy(readData, 0, data, offset, bytesRead);
+            ByteBuffer buffer = ByteBuffer.wrap(data, offset, Math.min(size, header.dataSize - dataOffset));
+            FileChannel channel = getDataChannel();
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // Reading till the buffer is full
+            }
+            bytesRead = buffer.position() - offset;
         } else {
             throw new IllegalStateException("Entity header not read");
         }
         MyLog.v(this, "key=" + header.key + ", offset=" + dataOffset + ", bytes read=" + bytesRead);
         dataOffset += bytesRead;
+        if (dataOffset >= header.dataSize) {
+            closeDataFile();
+        }
         return bytesRead;
     }
 
+    private FileChannel getDataChannel() throws IOException {
+        if (dataChannel == null) {
+            dataStream = new FileInputStream(getDataFile());
+            dataChannel = dataStream.getChannel();
+            dataChannel.position(dataOffset);
+        }
+        return dataChannel;
+    }
+
+    private InputStream getUnzippedStream() throws IOException {
+        if (unzippedStream == null) {
+            dataStream = new FileInputStream(getDataFile());
+            unzippedStream = new GZIPInputStream(dataStream, MyBackupDataOutput.BUFFER_SIZE);
+            long skipped = unzippedStream.skip(dataOffset);
+            if (skipped < dataOffset) {
+                throw new FileNotFoundException("Skipped only " + skipped + " of " + dataOffset
+                        + " bytes, key=" + header.key);
+            }
+        }
+        return unzippedStream;
+    }
+
+    private File getDataFile() {
+        return new File(dataFolder, header.key + MyBackupDataOutput.DATA_FILE_SUFFIX + header.fileExtension);
+    }
+
+    private void closeDataFile() {
+        DbUtils.closeSilently(unzippedStream, header.key);
+        DbUtils.closeSilently(dataChannel, header.key);
+        DbUtils.closeSilently(dataStream, header.key);
+        unzippedStream = null;
+        dataChannel = null;
+        dataStream = null;
+    }
+
+    /**
+     * Reads all the remaining data of the current entity into the file, replacing its content.
+     * From a data folder the data is transferred channel to channel, without copying it via the Java heap,
+     * unless it is compressed
+     * @return number of bytes written to the file
+     */
+    public long readEntityData(File targetFile) throws IOException {
+        FileOutputStream out = new FileOutputStream(targetFile, false);
+        try {
+            if (backupDataInput != null || header.compressed) {
+                return copyToStream(out);
+            } else {
+                return transferFromDataFile(out.getChannel());
+            }
+        } finally {
+            DbUtils.closeSilently(out, targetFile.getAbsolutePath());
+        }
+    }
+
+    private long copyToStream(FileOutputStream out) throws IOException {
+        byte[] buffer = new byte[MyBackupDataOutput.BUFFER_SIZE];
+        long bytesWritten = 0;
+        int bytesRead;
+        while ((bytesRead = readEntityData(buffer, 0, buffer.length)) > 0) {
+            out.write(buffer, 0, bytesRead);
+            bytesWritten += bytesRead;
+        }
+        return bytesWritten;
+    }
+
+    private long transferFromDataFile(FileChannel target) throws IOException {
+        if (!mHeaderReady) {
+            throw new IllegalStateException("Entity header not read");
+        }
+        long bytesWritten = 0;
+        try {
+            long size = header.dataSize - dataOffset;
+            FileChannel source = getDataChannel();
+            while (bytesWritten < size) {
+                long transferred = target.transferFrom(source, bytesWritten, size - bytesWritten);
+                if (transferred <= 0) {
+                    break;
+                }
+                bytesWritten += transferred;
+            }
+        } finally {
+            dataOffset += bytesWritten;
+            closeDataFile();
+        }
+        return bytesWritten;
+    }
+
     /** {@link BackupDataInput#skipEntityData()}  */
     public void skipEntityData() throws IOException {
         if (backupDataInput != null) {
@@ -238,12 +351,33 @@ public class MyBackupDataInput {
 
     private void skipEntityData2() {
         if (mHeaderReady) {
+            closeDataFile();
             mHeaderReady = false;
         } else {
             throw new IllegalStateException("Entity header not read");
         }
     }
     
+    /** Sequential reading of the remaining data of the current entity */
+    InputStream getEntityInputStream() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] bytes = new byte[1];
+                return read(bytes, 0, 1) > 0 ? bytes[0] & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                int bytesRead = readEntityData(buffer, offset, length);
+                return bytesRead > 0 ? bytesRead : -1;
+            }
+        };
+    }
+
     File getDataFolder() {
         return dataFolder;
     }
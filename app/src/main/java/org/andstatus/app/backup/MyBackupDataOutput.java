@@ -25,10 +25,14 @@ import org.json.JSONObject;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPOutputStream;
 
 /** Allowing to instantiate and to mock BackupDataOutput class */
 public class MyBackupDataOutput {
@@ -39,11 +43,20 @@ public class MyBackupDataOutput {
     static final String KEY_DATA_SIZE = "data_size";
     static final String KEY_ORDINAL_NUMBER = "ordinal_number";
     static final String KEY_FILE_EXTENSION = "file_extension";
+    static final String KEY_COMPRESSED = "compressed";
+    static final String COMPRESSED_FILE_EXTENSION = ".gz";
+    /** Large enough for the file system and the Backup transport to work at their full speed */
+    static final int BUFFER_SIZE = 256 * 1024;
     private File dataFolder;
     private BackupDataOutput backupDataOutput;
     private int sizeToWrite = 0;
     private int sizeWritten = 0;
     private File dataFile = null;
+    /** The data file of the current entity is kept open until all its data is written */
+    private FileOutputStream dataStream = null;
+    private FileChannel dataChannel = null;
+    private GZIPOutputStream zippedStream = null;
+    private boolean compressed = false;
     private int headerOrdinalNumber = 0;
 
     public MyBackupDataOutput(BackupDataOutput backupDataOutput) {
@@ -54,6 +67,12 @@ public class MyBackupDataOutput {
         this.dataFolder = dataFolder;
     }
 
+    /** Data of entities, written to a data folder, will be compressed on the fly (gzip) */
+    MyBackupDataOutput setCompressed(boolean compressed) {
+        this.compressed = compressed;
+        return this;
+    }
+
     /** {@link BackupDataOutput#writeEntityHeader(String, int)} */
     public int writeEntityHeader(String key, int dataSize, String fileExtension) throws IOException {
         headerOrdinalNumber++;
@@ -68,8 +87,9 @@ public class MyBackupDataOutput {
         MyLog.v(this, "Writing header for '" + key + "', size=" + dataSize);
         sizeToWrite = dataSize;
         sizeWritten = 0;
-        writeHeaderFile(key, dataSize, fileExtension);
-        createDataFile(key, dataSize, fileExtension);
+        String dataFileExtension = compressed ? fileExtension + COMPRESSED_FILE_EXTENSION : fileExtension;
+        writeHeaderFile(key, dataSize, dataFileExtension);
+        createDataFile(key, dataSize, dataFileExtension);
         return key.length();
     }
 
@@ -82,6 +102,9 @@ public class MyBackupDataOutput {
             jso.put(KEY_ORDINAL_NUMBER, headerOrdinalNumber);
             jso.put(KEY_DATA_SIZE, dataSize);
             jso.put(KEY_FILE_EXTENSION, fileExtension);
+            if (compressed) {
+                jso.put(KEY_COMPRESSED, true);
+            }
             byte[] bytes = jso.toString(2).getBytes("UTF-8");
             appendBytesToFile(headerFile, bytes, bytes.length);
         } catch (JSONException e) {
@@ -99,8 +122,27 @@ public class MyBackupDataOutput {
     }
     
     private void createDataFile(String key, int dataSize, String fileExtension) throws IOException {
+        closeDataFile();
         dataFile = new File(dataFolder, key + DATA_FILE_SUFFIX + fileExtension);
         createFileIfNeeded(dataSize, dataFile);
+        dataStream = new FileOutputStream(dataFile, false);
+        dataChannel = dataStream.getChannel();
+        if (compressed) {
+            zippedStream = new GZIPOutputStream(dataStream, BUFFER_SIZE);
+        }
+    }
+
+    private void closeDataFile() {
+        if (dataFile != null) {
+            DbUtils.closeSilently(zippedStream, dataFile.getAbsolutePath());
+            DbUtils.closeSilently(dataChannel, dataFile.getAbsolutePath());
+            DbUtils.closeSilently(dataStream, dataFile.getAbsolutePath());
+        }
+        zippedStream = null;
+        dataChannel = null;
+        dataStream = null;
+        dataFile = null;
+        sizeWritten = 0;
     }
 
     /** {@link BackupDataOutput#writeEntityData(byte[], int)} */
@@ -113,26 +155,84 @@ public class MyBackupDataOutput {
     }
 
     private int writeEntityData2(byte[] data, int size) throws IOException {
-        if (!dataFile.exists()) {
-            throw new FileNotFoundException("Output file doesn't exist " + dataFile.getAbsolutePath());
+        if (dataChannel == null) {
+            throw new FileNotFoundException("Output file is not open for writing");
         }
         if (size < 0) {
             throw new FileNotFoundException("Wrong number of bytes to write: " + size);
         }
-        appendBytesToFile(dataFile, data, size);
+        if (zippedStream != null) {
+            zippedStream.write(data, 0, size);
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(data, 0, size);
+            while (buffer.hasRemaining()) {
+                dataChannel.write(buffer);
+            }
+        }
+        onEntityDataWritten(size);
+        return size;
+    }
+
+    private void onEntityDataWritten(long size) throws IOException {
         sizeWritten += size;
         if (sizeWritten >= sizeToWrite) {
             try {
+                if (zippedStream != null) {
+                    zippedStream.finish();
+                }
                 if (sizeWritten > sizeToWrite) {
                     throw new FileNotFoundException("Data is longer than expected: written=" + sizeWritten 
                             + ", expected=" + sizeToWrite );
                 }
             } finally {
-                dataFile = null;
-                sizeWritten = 0;
+                closeDataFile();
             }
         }
-        return size;
+    }
+
+    /**
+     * Writes the whole file as the data of the current entity, streaming it through one open channel:
+     * to a data folder the file is transferred without copying it via the Java heap, unless it is compressed
+     * @return number of bytes written
+     */
+    public long writeEntityData(File sourceFile) throws IOException {
+        FileInputStream in = new FileInputStream(sourceFile);
+        try {
+            if (backupDataOutput != null || compressed) {
+                return copyStream(in);
+            } else {
+                return transferToDataFile(in.getChannel(), sourceFile.length());
+            }
+        } finally {
+            DbUtils.closeSilently(in, sourceFile.getAbsolutePath());
+        }
+    }
+
+    private long copyStream(FileInputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long bytesWritten = 0;
+        int bytesRead;
+        while ((bytesRead = in.read(buffer)) > 0) {
+            writeEntityData(buffer, bytesRead);
+            bytesWritten += bytesRead;
+        }
+        return bytesWritten;
+    }
+
+    private long transferToDataFile(FileChannel source, long size) throws IOException {
+        if (dataChannel == null) {
+            throw new FileNotFoundException("Output file is not open for writing");
+        }
+        long bytesWritten = 0;
+        while (bytesWritten < size) {
+            long transferred = source.transferTo(bytesWritten, size - bytesWritten, dataChannel);
+            if (transferred <= 0) {
+                break;
+            }
+            bytesWritten += transferred;
+        }
+        onEntityDataWritten(bytesWritten);
+        return bytesWritten;
     }
 
     private int appendBytesToFile(File file, byte[] data, int size) throws IOException {
@@ -42,14 +42,21 @@ public class MyBackupDescriptor {
     
     static final int BACKUP_SCHEMA_VERSION_UNKNOWN = -1;
     /**
+     * v.6 2016-06-20 app.v.27 database schema changed, incremental and compressed backups
      * v.5 2016-05-22 app.v.27 database schema changed
      * v.4 2016-02-28 app.v.23 database schema changed
      */
-    static final int BACKUP_SCHEMA_VERSION = 5;
+    static final int BACKUP_SCHEMA_VERSION = 6;
     static final String KEY_ACCOUNTS_COUNT = "accounts_count";
     static final String KEY_CREATED_DATE = "created_date";
     static final String KEY_BACKUP_SCHEMA_VERSION = "backup_schema_version";
     static final String KEY_APPLICATION_VERSION_CODE = "app_version_code";
+    static final String KEY_BASE_BACKUP = "base_backup";
+    static final String KEY_CHAIN_LENGTH = "chain_length";
+    static final String KEY_CHANGE_LOG_DATABASE_ID = "change_log_database_id";
+    static final String KEY_DATABASE_VERSION = "database_version";
+    static final String KEY_LAST_CHANGE_ID = "last_change_id";
+    static final String KEY_DELTAS = "deltas";
     
     private int backupSchemaVersion = BACKUP_SCHEMA_VERSION_UNKNOWN;
     private int applicationVersionCode = 0;
@@ -59,6 +66,20 @@ public class MyBackupDescriptor {
 
     private long accountsCount = 0;
 
+    /** Name of the data folder of this backup, if it is known */
+    private String folderName = "";
+    /** For an incremental backup: name of the data folder of the backup, on which this one is based */
+    private String baseBackup = "";
+    /** Number of incremental backups, including this one, after the last full backup */
+    private int chainLength = 0;
+    private long changeLogDatabaseId = 0;
+    /** Version of the database schema, to which the changes of this backup (and of its base backups) belong */
+    private int databaseVersion = 0;
+    /** The last change of the {@link org.andstatus.app.database.ChangeLogTable}, included in this backup */
+    private long lastChangeId = 0;
+    /** Number of changed rows by table name, for an incremental backup */
+    private JSONObject deltas = new JSONObject();
+
     private final ProgressLogger progressLogger;
     
     private MyBackupDescriptor(ProgressLogger progressLogger) {
@@ -78,6 +99,15 @@ public class MyBackupDescriptor {
             myBackupDescriptor.createdDate = jso.optLong(KEY_CREATED_DATE, myBackupDescriptor.createdDate);
             myBackupDescriptor.applicationVersionCode = jso.optInt(KEY_APPLICATION_VERSION_CODE, myBackupDescriptor.applicationVersionCode);
             myBackupDescriptor.accountsCount = jso.optLong(KEY_ACCOUNTS_COUNT, myBackupDescriptor.accountsCount);
+            myBackupDescriptor.baseBackup = jso.optString(KEY_BASE_BACKUP, "");
+            myBackupDescriptor.chainLength = jso.optInt(KEY_CHAIN_LENGTH, 0);
+            myBackupDescriptor.changeLogDatabaseId = jso.optLong(KEY_CHANGE_LOG_DATABASE_ID, 0);
+            myBackupDescriptor.databaseVersion = jso.optInt(KEY_DATABASE_VERSION, 0);
+            myBackupDescriptor.lastChangeId = jso.optLong(KEY_LAST_CHANGE_ID, 0);
+            JSONObject deltas = jso.optJSONObject(KEY_DELTAS);
+            if (deltas != null) {
+                myBackupDescriptor.deltas = deltas;
+            }
             if (myBackupDescriptor.backupSchemaVersion != BACKUP_SCHEMA_VERSION) {
                 try {
                     MyLog.w(TAG, "Bad backup descriptor: " + jso.toString(2) );
@@ -135,6 +165,12 @@ public class MyBackupDescriptor {
             jso.put(KEY_CREATED_DATE, createdDateNew);
             jso.put(KEY_APPLICATION_VERSION_CODE, applicationVersionCode);
             jso.put(KEY_ACCOUNTS_COUNT, accountsCount);
+            jso.put(KEY_BASE_BACKUP, baseBackup);
+            jso.put(KEY_CHAIN_LENGTH, chainLength);
+            jso.put(KEY_CHANGE_LOG_DATABASE_ID, changeLogDatabaseId);
+            jso.put(KEY_DATABASE_VERSION, databaseVersion);
+            jso.put(KEY_LAST_CHANGE_ID, lastChangeId);
+            jso.put(KEY_DELTAS, deltas);
             
             writeStringToFileDescriptor(jso.toString(), fileDescriptor, true);
             createdDate = createdDateNew;
@@ -169,6 +205,10 @@ public class MyBackupDescriptor {
                 + (fileDescriptor == null ? ", fileDescriptor:null" : "")
                 + ", versionCode:" + applicationVersionCode
                 + ", accountsCount:" + accountsCount
+                + (isIncremental() ? ", base:'" + baseBackup + "', chainLength:" + chainLength
+                        + ", deltas:" + deltas.toString() : "")
+                + ", databaseVersion:" + databaseVersion
+                + ", lastChangeId:" + lastChangeId
                 + "}";
      }
 
@@ -185,6 +225,63 @@ public class MyBackupDescriptor {
         progressLogger.logProgress("Accounts backed up:" + accountsCount);
     }
 
+    boolean isIncremental() {
+        return baseBackup.length() > 0;
+    }
+
+    String getFolderName() {
+        return folderName;
+    }
+
+    void setFolderName(String folderName) {
+        this.folderName = folderName;
+    }
+
+    String getBaseBackup() {
+        return baseBackup;
+    }
+
+    int getChainLength() {
+        return chainLength;
+    }
+
+    long getChangeLogDatabaseId() {
+        return changeLogDatabaseId;
+    }
+
+    int getDatabaseVersion() {
+        return databaseVersion;
+    }
+
+    long getLastChangeId() {
+        return lastChangeId;
+    }
+
+    void setFullBackup(long changeLogDatabaseId, int databaseVersion, long lastChangeId) {
+        this.baseBackup = "";
+        this.chainLength = 0;
+        this.changeLogDatabaseId = changeLogDatabaseId;
+        this.databaseVersion = databaseVersion;
+        this.lastChangeId = lastChangeId;
+    }
+
+    void setIncrementalBackup(MyBackupDescriptor base, long lastChangeId) {
+        this.baseBackup = base.getFolderName();
+        this.chainLength = base.getChainLength() + 1;
+        this.changeLogDatabaseId = base.getChangeLogDatabaseId();
+        this.databaseVersion = base.getDatabaseVersion();
+        this.lastChangeId = lastChangeId;
+    }
+
+    void setDeltaRowsCount(String tableName, long rowsCount) {
+        try {
+            deltas.put(tableName, rowsCount);
+        } catch (JSONException e) {
+            MyLog.d(this, "setDeltaRowsCount", e);
+        }
+        progressLogger.logProgress("Changed rows of " + tableName + ": " + rowsCount);
+    }
+
     public ProgressLogger getLogger() {
         return progressLogger;
     }
@@ -37,13 +37,18 @@ import java.util.Arrays;
  * One backup consists of:
  * 1. Backup descriptor file
  * 2. Folder with: 
- *      For each backup "key": header file and data file  
+ *      For each backup "key": header file and data file (compressed)
+ *
+ * A backup is incremental, if the backup folder already has a backup of this database:
+ * instead of the database it has changed rows of the tables, see {@link TableDelta}
  * @author yvolk (Yuri Volkov), http://yurivolkov.com
  */
 class MyBackupManager {
     static final String DESCRIPTOR_FILE_NAME = "_descriptor.json";
     private File dataFolder = null;
     private MyBackupDescriptor newDescriptor = MyBackupDescriptor.getEmpty();    
+    /** The latest backup in the backup folder, the new backup may be based on it */
+    private MyBackupDescriptor baseDescriptor = MyBackupDescriptor.getEmpty();
 
     private MyBackupAgent backupAgent;
     private final ProgressLogger progressLogger;
@@ -77,6 +82,7 @@ class MyBackupManager {
             throw new FileNotFoundException("Data folder already exists:'"
                     + dataFolderToBe.getAbsolutePath() + "'");
         }
+        baseDescriptor = findLatestBackup(backupFolder);
         dataFolder = dataFolderToBe;
         if (!dataFolder.mkdir() || !dataFolder.exists()) {
             throw new FileNotFoundException("Couldn't create the data folder:'"
@@ -88,6 +94,49 @@ class MyBackupManager {
         }
     }
 
+    private MyBackupDescriptor findLatestBackup(File backupFolder) {
+        String[] names = backupFolder.exists() ? backupFolder.list() : null;
+        if (names != null) {
+            Arrays.sort(names);
+            for (int ind = names.length - 1; ind >= 0; ind--) {
+                File folder = new File(backupFolder, names[ind]);
+                if (folder.isDirectory() && dataFolderToDescriptorFile(folder).exists()) {
+                    try {
+                        MyBackupDescriptor descriptor = readDescriptor(folder, progressLogger);
+                        if (descriptor.saved()) {
+                            progressLogger.logProgress("Previous backup: '" + folder.getName() + "'");
+                            return descriptor;
+                        }
+                    } catch (IOException e) {
+                        MyLog.d(this, "Skipped backup in '" + folder.getAbsolutePath() + "'", e);
+                    }
+                }
+            }
+        }
+        return MyBackupDescriptor.getEmpty();
+    }
+
+    /** Reads and checks the descriptor of the backup in the data folder */
+    static MyBackupDescriptor readDescriptor(File dataFolder, ProgressLogger progressLogger) throws IOException {
+        File descriptorFile = dataFolderToDescriptorFile(dataFolder);
+        if (!descriptorFile.exists()) {
+            throw new FileNotFoundException("Descriptor file doesn't exist:'" + descriptorFile.getAbsolutePath() + "'");
+        }
+        ParcelFileDescriptor state = ParcelFileDescriptor.open(descriptorFile, ParcelFileDescriptor.MODE_READ_ONLY);
+        try {
+            MyBackupDescriptor descriptor = MyBackupDescriptor.fromOldParcelFileDescriptor(state, progressLogger);
+            if (descriptor.getBackupSchemaVersion() != MyBackupDescriptor.BACKUP_SCHEMA_VERSION) {
+                throw new FileNotFoundException("Unsupported backup schema version: " + descriptor.getBackupSchemaVersion()
+                        + "; created with app version code:" + descriptor.getApplicationVersionCode()
+                        + "; data folder:'" + dataFolder.getAbsolutePath() + "'");
+            }
+            descriptor.setFolderName(dataFolder.getName());
+            return descriptor;
+        } finally {
+            state.close();
+        }
+    }
+
     File getDataFolder() {
         return dataFolder;
     }
@@ -105,12 +154,12 @@ class MyBackupManager {
         backupAgent = new MyBackupAgent();
         backupAgent.setContext(MyContextHolder.get().context());
         
-        MyBackupDataOutput dataOutput = new MyBackupDataOutput(dataFolder);
+        MyBackupDataOutput dataOutput = new MyBackupDataOutput(dataFolder).setCompressed(true);
         ParcelFileDescriptor newState = ParcelFileDescriptor.open(getDescriptorFile(),
                 ParcelFileDescriptor.MODE_READ_WRITE);
         try {
             newDescriptor = MyBackupDescriptor.fromEmptyParcelFileDescriptor(newState, progressLogger);
-            backupAgent.onBackup(MyBackupDescriptor.getEmpty(), dataOutput, newDescriptor);
+            backupAgent.onBackup(baseDescriptor, dataOutput, newDescriptor);
             progressLogger.logSuccess();
         } finally {
             newState.close();
@@ -141,22 +190,7 @@ class MyBackupManager {
         } else {
             this.dataFolder = dataFolderOrFile.getParentFile();
         }
-        if (!getDescriptorFile().exists()) {
-            throw new FileNotFoundException("Descriptor file doesn't exist:'" + getDescriptorFile().getAbsolutePath() + "'");
-        }
-
-        ParcelFileDescriptor newState = ParcelFileDescriptor.open(getDescriptorFile(),
-                ParcelFileDescriptor.MODE_READ_ONLY);
-        try {
-            newDescriptor = MyBackupDescriptor.fromOldParcelFileDescriptor(newState, progressLogger);
-            if (newDescriptor.getBackupSchemaVersion() != MyBackupDescriptor.BACKUP_SCHEMA_VERSION) {
-                throw new FileNotFoundException("Unsupported backup schema version: " + newDescriptor.getBackupSchemaVersion()
-                        + "; created with app version code:" + newDescriptor.getApplicationVersionCode()
-                        + "; data folder:'" + dataFolder.getAbsolutePath() + "'");
-            }
-        } finally {
-            newState.close();
-        }
+        newDescriptor = readDescriptor(dataFolder, progressLogger);
     }
 
     void restore() throws IOException {
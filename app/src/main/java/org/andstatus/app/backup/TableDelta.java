@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.backup;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.database.ChangeLogTable;
+import org.andstatus.app.util.MyLog;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+
+/**
+ * Row level changes of one {@link ChangeLogTable.Tracked} table, made between two changes of the change log.
+ * One line of the delta is a JSON object: {"u":{row}} for an inserted or updated row,
+ * {"d":[key1, key2]} for a deleted row. Lines are written and replayed in a streaming way
+ * @author yvolk@yurivolkov.com
+ */
+class TableDelta {
+    static final String KEY_PREFIX = "delta_";
+    static final String FILE_EXTENSION = ".json";
+    private static final String UPSERT = "u";
+    private static final String DELETE = "d";
+    private static final String KEY_ALIAS = "delta_key";
+    private static final int ROWS_IN_TRANSACTION = 500;
+
+    final ChangeLogTable.Tracked tracked;
+
+    TableDelta(ChangeLogTable.Tracked tracked) {
+        this.tracked = tracked;
+    }
+
+    static TableDelta fromKey(String key) {
+        for (ChangeLogTable.Tracked tracked : ChangeLogTable.Tracked.values()) {
+            if (key.equals(KEY_PREFIX + tracked.tableName)) {
+                return new TableDelta(tracked);
+            }
+        }
+        return null;
+    }
+
+    String getKey() {
+        return KEY_PREFIX + tracked.tableName;
+    }
+
+    /**
+     * Writes current values of the rows, changed after fromChangeId up to toChangeId inclusive.
+     * Deleted rows are written as their keys
+     * @return number of rows written
+     */
+    long write(SQLiteDatabase db, long fromChangeId, long toChangeId, File file) throws IOException {
+        String sql = "SELECT c." + ChangeLogTable.KEY1 + ", c." + ChangeLogTable.KEY2
+                + ", t.rowid AS " + KEY_ALIAS + ", t.*"
+                + " FROM (SELECT DISTINCT " + ChangeLogTable.KEY1 + ", " + ChangeLogTable.KEY2
+                + " FROM " + ChangeLogTable.TABLE_NAME
+                + " WHERE " + ChangeLogTable.CHANGED_TABLE + "='" + tracked.tableName + "'"
+                + " AND " + ChangeLogTable._ID + ">" + fromChangeId
+                + " AND " + ChangeLogTable._ID + "<=" + toChangeId + ") AS c"
+                + " LEFT JOIN " + tracked.tableName + " AS t ON t." + tracked.keyColumn1 + "=c." + ChangeLogTable.KEY1
+                + (tracked.hasKey2() ? " AND t." + tracked.keyColumn2 + "=c." + ChangeLogTable.KEY2 : "");
+        long rowCount = 0;
+        Cursor cursor = null;
+        Writer out = null;
+        try {
+            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"),
+                    MyBackupDataOutput.BUFFER_SIZE);
+            cursor = db.rawQuery(sql, null);
+            String[] columnNames = cursor.getColumnNames();
+            while (cursor.moveToNext()) {
+                JSONObject line = new JSONObject();
+                if (cursor.isNull(2)) {
+                    JSONArray key = new JSONArray();
+                    key.put(cursor.getLong(0));
+                    key.put(cursor.getLong(1));
+                    line.put(DELETE, key);
+                } else {
+                    JSONObject row = new JSONObject();
+                    for (int index = 3; index < columnNames.length; index++) {
+                        row.put(columnNames[index], columnValue(cursor, index));
+                    }
+                    line.put(UPSERT, row);
+                }
+                out.write(line.toString());
+                out.write('\n');
+                rowCount++;
+            }
+        } catch (JSONException e) {
+            throw new IOException("Failed to write delta of " + tracked.tableName, e);
+        } finally {
+            DbUtils.closeSilently(cursor);
+            DbUtils.closeSilently(out, file.getAbsolutePath());
+        }
+        return rowCount;
+    }
+
+    private static Object columnValue(Cursor cursor, int index) {
+        switch (cursor.getType(index)) {
+            case Cursor.FIELD_TYPE_NULL:
+                return JSONObject.NULL;
+            case Cursor.FIELD_TYPE_INTEGER:
+                return cursor.getLong(index);
+            case Cursor.FIELD_TYPE_FLOAT:
+                return cursor.getDouble(index);
+            default:
+                return cursor.getString(index);
+        }
+    }
+
+    /**
+     * Replays the delta, reading it line by line
+     * @return number of rows applied
+     */
+    long apply(SQLiteDatabase db, InputStream in) throws IOException {
+        long rowCount = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"),
+                MyBackupDataOutput.BUFFER_SIZE);
+        String line;
+        db.beginTransaction();
+        try {
+            while ((line = reader.readLine()) != null) {
+                if (line.length() == 0) {
+                    continue;
+                }
+                applyLine(db, new JSONObject(line));
+                rowCount++;
+                if (rowCount % ROWS_IN_TRANSACTION == 0) {
+                    db.setTransactionSuccessful();
+                    db.endTransaction();
+                    db.beginTransaction();
+                }
+            }
+            db.setTransactionSuccessful();
+        } catch (JSONException e) {
+            throw new IOException("Failed to apply delta of " + tracked.tableName + " at row " + rowCount, e);
+        } finally {
+            db.endTransaction();
+        }
+        MyLog.v(this, "Applied " + rowCount + " changes of " + tracked.tableName);
+        return rowCount;
+    }
+
+    private void applyLine(SQLiteDatabase db, JSONObject line) throws JSONException {
+        if (line.has(UPSERT)) {
+            JSONObject row = line.getJSONObject(UPSERT);
+            ContentValues values = new ContentValues();
+            Iterator<String> iterator = row.keys();
+            while (iterator.hasNext()) {
+                String column = iterator.next();
+                Object value = row.get(column);
+                if (value == JSONObject.NULL) {
+                    values.putNull(column);
+                } else if (value instanceof Integer || value instanceof Long) {
+                    values.put(column, ((Number) value).longValue());
+                } else if (value instanceof Number) {
+                    values.put(column, ((Number) value).doubleValue());
+                } else {
+                    values.put(column, value.toString());
+                }
+            }
+            db.insertWithOnConflict(tracked.tableName, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        } else {
+            JSONArray key = line.getJSONArray(DELETE);
+            db.delete(tracked.tableName, tracked.keyColumn1 + "=" + key.getLong(0)
+                    + (tracked.hasKey2() ? " AND " + tracked.keyColumn2 + "=" + key.getLong(1) : ""), null);
+        }
+    }
+}
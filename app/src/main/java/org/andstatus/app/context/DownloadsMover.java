@@ -0,0 +1,369 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.context;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Process;
+
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.database.DownloadTable;
+import org.andstatus.app.os.AsyncTaskLauncher;
+import org.andstatus.app.util.MyLog;
+import org.andstatus.app.util.SharedPreferencesUtil;
+import org.andstatus.app.util.TriState;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Moves downloaded files (avatars and attachments) between storages in the background,
+ * after the database has already been switched to the new storage.
+ * Files are copied on a bounded pool of threads, each copy is verified by its size and checksum
+ * before the old file is deleted. Files, which are still in the old directory, are the checkpoint:
+ * an interrupted move continues from them, see {@link #resumeIfPending()}.
+ * A file in the new directory, which is not a copy of the old one, is a newer download, so it is kept.
+ * Files, which are not referenced by the {@link DownloadTable}, are deleted instead of being moved
+ * @author yvolk@yurivolkov.com
+ */
+public class DownloadsMover {
+    private static final String TAG = DownloadsMover.class.getSimpleName();
+    static final int THREADS = 4;
+    static final String TEMP_FILE_SUFFIX = ".moving";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final AtomicBoolean running = new AtomicBoolean();
+
+    private final File dirOld;
+    private final File dirNew;
+    private final AtomicLong filesMoved = new AtomicLong();
+    private final AtomicLong filesFailed = new AtomicLong();
+    private final AtomicLong filesSkipped = new AtomicLong();
+    private final AtomicLong filesPruned = new AtomicLong();
+    private final Queue<String> filenamesMoved = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytesMoved = new AtomicLong();
+
+    DownloadsMover(File dirOld, File dirNew) {
+        this.dirOld = dirOld;
+        this.dirNew = dirNew;
+    }
+
+    /** Downloads are moved to the current storage, from the other one */
+    static DownloadsMover toCurrentStorage() {
+        boolean external = MyStorage.isStorageExternal();
+        return new DownloadsMover(
+                MyStorage.getDataFilesDir(MyStorage.DIRECTORY_DOWNLOADS, TriState.fromBoolean(!external), false),
+                MyStorage.getDataFilesDir(MyStorage.DIRECTORY_DOWNLOADS, TriState.fromBoolean(external)));
+    }
+
+    public static boolean isPending() {
+        return SharedPreferencesUtil.getBoolean(MyPreferences.KEY_DOWNLOADS_MOVE_PENDING, false);
+    }
+
+    static void setPending(boolean pending) {
+        SharedPreferencesUtil.putBoolean(MyPreferences.KEY_DOWNLOADS_MOVE_PENDING, pending);
+    }
+
+    /**
+     * While downloads are being moved, a file may still be in the old storage
+     * @return the file in the old storage, if it exists there, otherwise the fileInCurrentStorage
+     */
+    public static File findNotMovedYet(File fileInCurrentStorage) {
+        if (fileInCurrentStorage == null || !isPending() || fileInCurrentStorage.exists()) {
+            return fileInCurrentStorage;
+        }
+        File dirOld = MyStorage.getDataFilesDir(MyStorage.DIRECTORY_DOWNLOADS,
+                TriState.fromBoolean(!MyStorage.isStorageExternal()), false);
+        if (dirOld != null) {
+            File fileOld = new File(dirOld, fileInCurrentStorage.getName());
+            if (fileOld.exists()) {
+                return fileOld;
+            }
+        }
+        return fileInCurrentStorage;
+    }
+
+    /** Continues the move, which was interrupted, e.g. by the application restart */
+    public static void resumeIfPending() {
+        if (isPending() && !running.get()) {
+            startThread();
+        }
+    }
+
+    static void startInBackground() {
+        setPending(true);
+        startThread();
+    }
+
+    /**
+     * The move may take long, so it runs on its own thread: not in a pool of {@link AsyncTaskLauncher},
+     * where it would delay loaders and where it would be interrupted as a stalled task
+     */
+    private static void startThread() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                toCurrentStorage().move();
+            }
+        }, TAG);
+        thread.start();
+    }
+
+    /** @return true if all files were moved */
+    boolean move() {
+        final String method = "move";
+        if (!running.compareAndSet(false, true)) {
+            MyLog.v(TAG, method + "; already running");
+            return false;
+        }
+        try {
+            boolean succeeded = moveAll();
+            if (succeeded) {
+                setPending(false);
+            }
+            return succeeded;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private boolean moveAll() {
+        final String method = "moveAll";
+        if (dirNew == null) {
+            MyLog.e(TAG, method + "; No directory for new downloads");
+            return false;
+        }
+        File[] files = dirOld == null ? null : dirOld.listFiles();
+        if (files == null || files.length == 0) {
+            MyLog.v(TAG, method + "; No old downloads");
+            return true;
+        }
+        long startedAt = System.currentTimeMillis();
+        MyLog.v(TAG, method + "; " + files.length + " files from: " + dirOld.getPath() + " to: " + dirNew.getPath());
+        final Set<String> referenced = getReferencedFilenames();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (final File fileOld : files) {
+                if (fileOld.isFile()) {
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            moveFile(fileOld, referenced);
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            deletePrunedWhileMoving();
+        } catch (InterruptedException | ExecutionException e) {
+            MyLog.e(TAG, method, e);
+            filesFailed.incrementAndGet();
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = Math.max(System.currentTimeMillis() - startedAt, 1);
+        MyLog.i(TAG, method + "; moved " + filesMoved.get() + " files, " + bytesMoved.get() + " bytes, skipped "
+                + filesSkipped.get() + ", pruned " + filesPruned.get() + ", failed " + filesFailed.get() + ", took " + elapsed + " ms, "
+                + String.format(Locale.US, "%.1f", bytesMoved.get() * 1000.0 / elapsed / 1024 / 1024) + " MB/s");
+        return filesFailed.get() == 0;
+    }
+
+    /**
+     * Names of the files, which are referenced by the download table.
+     * Loaded by one query, because there is no index on the file name
+     * @return null if the table cannot be read, so all files should be moved
+     */
+    Set<String> getReferencedFilenames() {
+        final String method = "getReferencedFilenames";
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        if (db == null) {
+            MyLog.v(TAG, method + "; Database is null");
+            return null;
+        }
+        Set<String> filenames = new HashSet<>();
+        String sql = "SELECT " + DownloadTable.FILE_NAME + " FROM " + DownloadTable.TABLE_NAME
+                + " WHERE " + DownloadTable.FILE_NAME + " NOT NULL";
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(sql, null);
+            while (cursor.moveToNext()) {
+                filenames.add(cursor.getString(0));
+            }
+        } catch (Exception e) {
+            MyLog.e(TAG, method, e);
+            return null;
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+        return filenames;
+    }
+
+    /** Rows of the moved files may have been deleted by the pruner, while the files were being copied */
+    private void deletePrunedWhileMoving() {
+        Set<String> referenced = getReferencedFilenames();
+        if (referenced == null) {
+            return;
+        }
+        for (String name : filenamesMoved) {
+            if (!referenced.contains(name)) {
+                deleteLogged(new File(dirNew, name));
+                filesPruned.incrementAndGet();
+            }
+        }
+    }
+
+    void moveFile(File fileOld, Set<String> referenced) {
+        String name = fileOld.getName();
+        if (name.endsWith(TEMP_FILE_SUFFIX)) {
+            deleteLogged(fileOld);
+            return;
+        }
+        if (referenced != null && !referenced.contains(name)) {
+            deleteLogged(fileOld);
+            filesPruned.incrementAndGet();
+            return;
+        }
+        File fileNew = new File(dirNew, name);
+        File fileTemp = new File(dirNew, name + TEMP_FILE_SUFFIX);
+        try {
+            long size = fileOld.length();
+            boolean moved;
+            if (fileNew.exists()) {
+                // Either copied before the interruption, but the old file wasn't deleted,
+                // or downloaded again to the new storage
+                moved = fileNew.length() == size && checksum(fileNew) == checksum(fileOld);
+            } else {
+                moved = verifyAndRename(fileTemp, size, copy(fileOld, fileTemp), fileNew);
+            }
+            if (!fileOld.delete()) {
+                MyLog.w(TAG, "Couldn't delete old file '" + fileOld.getAbsolutePath() + "'");
+            }
+            if (moved) {
+                filesMoved.incrementAndGet();
+                bytesMoved.addAndGet(size);
+                filenamesMoved.add(name);
+            } else {
+                filesSkipped.incrementAndGet();
+                MyLog.i(TAG, "Newer download kept: '" + fileNew.getAbsolutePath() + "'");
+            }
+        } catch (IOException e) {
+            filesFailed.incrementAndGet();
+            MyLog.e(TAG, "Couldn't move '" + fileOld.getAbsolutePath() + "'", e);
+            deleteLogged(fileTemp);
+        }
+    }
+
+    /** @return false if the new file appeared while the old one was being copied, so it wasn't overwritten */
+    private static boolean verifyAndRename(File fileTemp, long size, long checksum, File fileNew) throws IOException {
+        if (fileTemp.length() != size) {
+            throw new IOException("Size mismatch: " + fileTemp.length() + " instead of " + size
+                    + " bytes in '" + fileTemp.getAbsolutePath() + "'");
+        }
+        if (checksum(fileTemp) != checksum) {
+            throw new IOException("Checksum mismatch in '" + fileTemp.getAbsolutePath() + "'");
+        }
+        if (fileNew.exists()) {
+            deleteLogged(fileTemp);
+            return false;
+        }
+        if (!fileTemp.renameTo(fileNew)) {
+            throw new IOException("Couldn't rename '" + fileTemp.getAbsolutePath() + "'");
+        }
+        return true;
+    }
+
+    /** @return checksum of the copied bytes */
+    static long copy(File src, File dst) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        InputStream in = null;
+        OutputStream out = null;
+        try {
+            in = new FileInputStream(src);
+            out = new FileOutputStream(dst);
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, count);
+                out.write(buffer, 0, count);
+            }
+            out.flush();
+        } finally {
+            DbUtils.closeSilently(out, dst.getAbsolutePath());
+            DbUtils.closeSilently(in, src.getAbsolutePath());
+        }
+        return crc.getValue();
+    }
+
+    static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, count);
+            }
+        } finally {
+            DbUtils.closeSilently(in, file.getAbsolutePath());
+        }
+        return crc.getValue();
+    }
+
+    private static void deleteLogged(File file) {
+        if (file.exists() && !file.delete()) {
+            MyLog.w(TAG, "Couldn't delete '" + file.getAbsolutePath() + "'");
+        }
+    }
+
+    long getFilesMoved() {
+        return filesMoved.get();
+    }
+
+    long getFilesFailed() {
+        return filesFailed.get();
+    }
+
+    long getFilesSkipped() {
+        return filesSkipped.get();
+    }
+
+    long getFilesPruned() {
+        return filesPruned.get();
+    }
+}
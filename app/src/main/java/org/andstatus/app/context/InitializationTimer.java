@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.context;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durations of the {@link MyContextImpl} initialization stages. Some stages run in parallel,
+ * so the total time is less than the sum of the stages
+ * @author yvolk@yurivolkov.com
+ */
+public class InitializationTimer {
+    public enum Stage {
+        DATABASE,
+        /** Reading accounts from the AccountManager, in parallel with the database */
+        ACCOUNTS_DATA,
+        /**
+         * Sizing image caches, bitmaps are allocated later, on the first draw.
+         * Runs in the background: the first use of the caches waits for it, not the initialization
+         */
+        IMAGE_CACHE,
+        ORIGINS,
+        ACCOUNTS,
+        TIMELINES
+    }
+
+    private final long startedAt = System.nanoTime();
+    private final Map<Stage, Long> durations = new ConcurrentHashMap<>();
+    private volatile long completedAt = 0;
+
+    long start() {
+        return System.nanoTime();
+    }
+
+    void stop(Stage stage, long stageStartedAt) {
+        durations.put(stage, System.nanoTime() - stageStartedAt);
+    }
+
+    /** Stages, which run in the background, may be stopped after the completion of the initialization */
+    void complete() {
+        completedAt = System.nanoTime();
+    }
+
+    /** @return 0 if the stage wasn't executed */
+    public long getMillis(Stage stage) {
+        Long nanos = durations.get(stage);
+        return nanos == null ? 0 : nanos / 1000000;
+    }
+
+    public long getTotalMillis() {
+        return completedAt == 0 ? 0 : (completedAt - startedAt) / 1000000;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Initialized in " + getTotalMillis() + " ms");
+        for (Stage stage : Stage.values()) {
+            if (durations.containsKey(stage)) {
+                builder.append(", " + stage.name().toLowerCase() + ": " + getMillis(stage) + " ms");
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -29,12 +29,14 @@ import android.support.annotation.NonNull;
 import net.jcip.annotations.ThreadSafe;
 
 import org.andstatus.app.ClassInApplicationPackage;
+import org.andstatus.app.account.AccountData;
 import org.andstatus.app.account.PersistentAccounts;
 import org.andstatus.app.data.AssertionData;
 import org.andstatus.app.database.DatabaseConverterController;
 import org.andstatus.app.database.DatabaseHolder;
 import org.andstatus.app.graphics.MyImageCache;
 import org.andstatus.app.net.http.HttpConnection;
+import org.andstatus.app.net.http.HttpClientPool;
 import org.andstatus.app.net.http.TlsSniSocketFactory;
 import org.andstatus.app.origin.PersistentOrigins;
 import org.andstatus.app.os.AsyncTaskLauncher;
@@ -47,7 +49,13 @@ import org.andstatus.app.util.RelativeTime;
 import org.andstatus.app.util.SharedPreferencesUtil;
 import org.andstatus.app.util.TriState;
 
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Contains global state of the application
@@ -77,6 +85,7 @@ public final class MyContextImpl implements MyContext {
     private final PersistentTimelines persistentTimelines = PersistentTimelines.newEmpty(this);
 
     private volatile boolean mExpired = false;
+    private volatile InitializationTimer initializationTimer = null;
 
     private final Locale mLocale = Locale.getDefault();
     
@@ -105,8 +114,9 @@ public final class MyContextImpl implements MyContext {
         return myContext;
     }
 
-    private void initialize2(MyContextImpl myContext) {
+    private void initialize2(final MyContextImpl myContext) {
         final String method = "initialize2";
+        final InitializationTimer timer = new InitializationTimer();
         boolean createApplicationData = MyStorage.isApplicationDataCreated().not().toBoolean(false);
         if (createApplicationData) {
             MyLog.i(TAG, method + " Creating application data");
@@ -114,18 +124,55 @@ public final class MyContextImpl implements MyContext {
             tryToSetExternalStorageOnDataCreation();
         }
         myContext.mPreferencesChangeTime = MyPreferences.getPreferencesChangeTime();
-        initializeDatabase(myContext, createApplicationData);
 
-        switch (myContext.mState) {
-            case READY:
-                myContext.mPersistentOrigins.initialize();
-                myContext.mPersistentAccounts.initialize();
-                myContext.persistentTimelines.initialize();
+        // Stages, which don't need the database, run in parallel with its opening
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<List<AccountData>> accountsData = executor.submit(new Callable<List<AccountData>>() {
+            @Override
+            public List<AccountData> call() {
+                long startedAt = timer.start();
+                List<AccountData> data = PersistentAccounts.loadAccountsData(myContext);
+                timer.stop(InitializationTimer.Stage.ACCOUNTS_DATA, startedAt);
+                return data;
+            }
+        });
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long startedAt = timer.start();
                 MyImageCache.initialize(myContext.context());
-                break;
-            default:
-                break;
+                timer.stop(InitializationTimer.Stage.IMAGE_CACHE, startedAt);
+            }
+        });
+        executor.shutdown();
+
+        long startedAt = timer.start();
+        initializeDatabase(myContext, createApplicationData);
+        timer.stop(InitializationTimer.Stage.DATABASE, startedAt);
+        try {
+            switch (myContext.mState) {
+                case READY:
+                    startedAt = timer.start();
+                    myContext.mPersistentOrigins.initialize();
+                    timer.stop(InitializationTimer.Stage.ORIGINS, startedAt);
+                    startedAt = timer.start();
+                    myContext.mPersistentAccounts.initialize(accountsData.get());
+                    timer.stop(InitializationTimer.Stage.ACCOUNTS, startedAt);
+                    startedAt = timer.start();
+                    myContext.persistentTimelines.initialize();
+                    timer.stop(InitializationTimer.Stage.TIMELINES, startedAt);
+                    break;
+                default:
+                    accountsData.cancel(false);
+                    break;
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            MyLog.e(TAG, method, e);
+            myContext.mState = MyContextState.ERROR;
         }
+        timer.complete();
+        myContext.initializationTimer = timer;
+        MyLog.i(TAG, method + " " + timer);
     }
 
     private void initializeDatabase(MyContextImpl myContext, boolean createApplicationData) {
@@ -249,10 +296,16 @@ public final class MyContextImpl implements MyContext {
      */
     public void release() {
         TlsSniSocketFactory.forget();
+        HttpClientPool.shutdown();
         AsyncTaskLauncher.forget();
         MyLog.forget();
     }
 
+    /** @return durations of the initialization stages, null if the context was not initialized */
+    public InitializationTimer getInitializationTimer() {
+        return initializationTimer;
+    }
+
     @Override
     public PersistentAccounts persistentAccounts() {
         return mPersistentAccounts;
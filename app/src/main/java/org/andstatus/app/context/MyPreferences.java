@@ -78,6 +78,8 @@ public class MyPreferences {
     public static final String KEY_SYNC_INDICATOR_ON_TIMELINE = "sync_indicator_on_timeline";
     public static final String KEY_SYNC_AFTER_MESSAGE_WAS_SENT = "sync_after_message_was_sent";
     public static final String KEY_DONT_SYNCHRONIZE_OLD_MESSAGES = "dont_synchronize_old_messages";
+    /** Number of levels of previous messages of conversations to download after a timeline sync. 0 - turned off */
+    public static final String KEY_CONVERSATION_PREFETCH_DEPTH = "conversation_prefetch_depth";
     public static final String KEY_CONNECTION_TIMEOUT_SECONDS = "connection_timeout";
     private static final long CONNECTION_TIMEOUT_DEFAULT_SECONDS = 30;
 
@@ -102,6 +104,8 @@ public class MyPreferences {
     public static final String KEY_USE_EXTERNAL_STORAGE = "use_external_storage";
     /** New value for #KEY_USE_EXTERNAL_STORAGE to be confirmed/processed */
     public static final String KEY_USE_EXTERNAL_STORAGE_NEW = "use_external_storage_new";
+    /** Downloads are still being moved to the storage, set by {@link #KEY_USE_EXTERNAL_STORAGE} */
+    public static final String KEY_DOWNLOADS_MOVE_PENDING = "downloads_move_pending";
     public static final String KEY_HISTORY_SIZE = "history_size";
     public static final String KEY_HISTORY_TIME = "history_time";
     public static final String KEY_ENABLE_ANDROID_BACKUP = "enable_android_backup";
@@ -125,6 +129,12 @@ public class MyPreferences {
     /** System time when shared preferences were changed */
     public static final String KEY_PREFERENCES_CHANGE_TIME = "preferences_change_time";
     public static final String KEY_DATA_PRUNED_DATE = "data_pruned_date";
+    /** Identifies the sequence of changes in the change log of this database, see ChangeLogTable */
+    public static final String KEY_CHANGE_LOG_DATABASE_ID = "change_log_database_id";
+    /** All changes with larger ids are in the change log */
+    public static final String KEY_CHANGE_LOG_TRACKED_SINCE = "change_log_tracked_since";
+    /** The last change, included in a backup */
+    public static final String KEY_CHANGE_LOG_BACKED_UP = "change_log_backed_up";
     /** Version code of last opened application (int) */
     public static final String KEY_VERSION_CODE_LAST = "version_code_last";
     public static final String KEY_BEING_EDITED_MESSAGE_ID = "draft_message_id";
@@ -139,6 +149,10 @@ public class MyPreferences {
         return SharedPreferencesUtil.getLongStoredAsString(KEY_DONT_SYNCHRONIZE_OLD_MESSAGES, 0);
     }
 
+    public static int getConversationPrefetchDepth() {
+        return (int) SharedPreferencesUtil.getLongStoredAsString(KEY_CONVERSATION_PREFETCH_DEPTH, 0);
+    }
+
     public static int getConnectionTimeoutMs() {
         return (int) java.util.concurrent.TimeUnit.SECONDS.toMillis(
                 SharedPreferencesUtil.getLongStoredAsString(
@@ -98,6 +98,7 @@ public class MySettingsFragment extends PreferenceFragment implements
         showManageAccounts();
         showFrequency();
         showDontSynchronizeOldMessages();
+        showConversationPrefetchDepth();
         showConnectionTimeout();
         showHistorySize();
         showHistoryTime();
@@ -156,6 +157,16 @@ public class MySettingsFragment extends PreferenceFragment implements
         }
     }
 
+    private void showConversationPrefetchDepth() {
+        int depth = MyPreferences.getConversationPrefetchDepth();
+        Preference preference = findPreference(MyPreferences.KEY_CONVERSATION_PREFETCH_DEPTH);
+        if (preference != null) {
+            preference.setSummary( depth > 0 ?
+                    String.format(getText(R.string.conversation_prefetch_depth_summary).toString(),
+                            Integer.toString(depth)) : getString(R.string.this_option_is_turned_off));
+        }
+    }
+
     protected void showHistorySize() {
         SharedPreferencesUtil.showListPreference(this, MyPreferences.KEY_HISTORY_SIZE,
                 R.array.history_size_values, R.array.history_size_entries,
@@ -378,6 +389,9 @@ public class MySettingsFragment extends PreferenceFragment implements
                 case MyPreferences.KEY_DONT_SYNCHRONIZE_OLD_MESSAGES:
                     showDontSynchronizeOldMessages();
                     break;
+                case MyPreferences.KEY_CONVERSATION_PREFETCH_DEPTH:
+                    showConversationPrefetchDepth();
+                    break;
                 case MyPreferences.KEY_SYNC_FREQUENCY_SECONDS:
                     MyContextHolder.get().persistentAccounts().onDefaultSyncFrequencyChanged();
                     showFrequency();
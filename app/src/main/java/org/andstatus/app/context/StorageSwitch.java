@@ -162,18 +162,27 @@ public class StorageSwitch {
                 return;
             }
             try {
+                if (MyContextHolder.get().getMyDatabase() != null) {
+                    // The database file is copied, so changes shouldn't stay in its write-ahead log
+                    MyContextHolder.get().getMyDatabase().checkpoint(true);
+                }
                 result.success = moveDatabase(mUseExternalStorageNew, result.messageBuilder, DatabaseHolder.DATABASE_NAME);
                 if (result.success) {
                     result.moved = true;
                     moveDatabase(mUseExternalStorageNew, result.messageBuilder, 
                             TimelineSearchSuggestionsProvider.DATABASE_NAME);
-                    moveDownloads(mUseExternalStorageNew, result.messageBuilder);
                 }
             } finally {
                 if (result.success) {
+                    // The database is switched first, downloads are moved after that in the background
+                    DownloadsMover.setPending(true);
                     saveNewSettings(mUseExternalStorageNew, result.messageBuilder);
                 }
             }
+            if (result.moved) {
+                DownloadsMover.startInBackground();
+                result.messageBuilder.append(" Downloads are being moved in the background.");
+            }
         }
 
         private boolean moveDatabase(boolean useExternalStorageNew, StringBuilder messageToAppend, String databaseName) {
@@ -220,6 +229,8 @@ public class StorageSwitch {
                         MyLog.v(this, method + " to: " + dbFileNew.getPath());
                     }
                     try {
+                        // A log, left from the database, which was moved from here earlier, would corrupt the new copy
+                        DbUtils.deleteWriteAheadLog(dbFileNew);
                         if (copyFile(dbFileOld, dbFileNew)) {
                             copied = true;
                             succeeded = true;
@@ -239,15 +250,21 @@ public class StorageSwitch {
                 try {
                     if (succeeded) {
                         if ( copied && dbFileOld != null
-                                && dbFileOld.exists()
-                                && !dbFileOld.delete()) {
-                            messageToAppend.append(method + " couldn't delete old files. ");
+                                && dbFileOld.exists()) {
+                            if (!dbFileOld.delete()) {
+                                messageToAppend.append(method + " couldn't delete old files. ");
+                            }
+                            // The log was checkpointed before the copy, and it would corrupt a database,
+                            // moved back here later
+                            DbUtils.deleteWriteAheadLog(dbFileOld);
                         }
                     } else {
                         if (dbFileNew != null
-                                && dbFileNew.exists()
-                                && !dbFileNew.delete()) {
-                            messageToAppend.append(method + " couldn't delete new files. ");
+                                && dbFileNew.exists()) {
+                            if (!dbFileNew.delete()) {
+                                messageToAppend.append(method + " couldn't delete new files. ");
+                            }
+                            DbUtils.deleteWriteAheadLog(dbFileNew);
                         }
                     }
                 } catch (Exception e) {
@@ -297,7 +314,15 @@ public class StorageSwitch {
                         DbUtils.closeSilently(inChannel);
                         DbUtils.closeSilently(fileInputStream);
                     }
-
+                    if (ok && dst.length() != sizeIn) {
+                        MyLog.e(this, "Size mismatch: " + dst.length() + " instead of " + sizeIn
+                                + " bytes in '" + dst.getCanonicalPath() + "'");
+                        ok = false;
+                    }
+                    if (ok && DownloadsMover.checksum(src) != DownloadsMover.checksum(dst)) {
+                        MyLog.e(this, "Checksum mismatch in '" + dst.getCanonicalPath() + "'");
+                        ok = false;
+                    }
                 }
             }
             MyLog.d(this, "Copied " + sizeCopied + " bytes of " + sizeIn);
@@ -305,88 +330,6 @@ public class StorageSwitch {
         }
 
 
-        private void moveDownloads(boolean useExternalStorageNew, StringBuilder messageToAppend) {
-            String method = "moveDownloads";
-            boolean succeeded = false;
-            boolean done = false;
-            boolean didWeCopyAnything = false;
-            File dirOld = null;
-            File dirNew = null;
-            try {
-
-                if (!done) {
-                    dirOld = MyStorage.getDataFilesDir(MyStorage.DIRECTORY_DOWNLOADS);
-                    dirNew = MyStorage.getDataFilesDir(MyStorage.DIRECTORY_DOWNLOADS,
-                            TriState.fromBoolean(useExternalStorageNew));
-                    if (dirOld == null || !dirOld.exists()) {
-                        messageToAppend.append(" No old avatars. ");
-                        done = true;
-                        succeeded = true;
-                    }
-                    if (dirNew == null) {
-                        messageToAppend.append(" No directory for new avatars?! ");
-                        done = true;
-                    }
-                }
-                if (!done) {
-                    if (MyLog.isVerboseEnabled()) {
-                        MyLog.v(this, method + " from: " + dirOld.getPath());
-                        MyLog.v(this, method + " to: " + dirNew.getPath());
-                    }
-                    String filename = "";
-                    try {
-                        for (File fileOld : dirOld.listFiles()) {
-                            if (fileOld.isFile()) {
-                                filename = fileOld.getName();
-                                File fileNew = new File(dirNew, filename);
-                                if (copyFile(fileOld, fileNew)) {
-                                    didWeCopyAnything = true;
-                                }
-                            }
-                        }
-                        succeeded = true;
-                    } catch (Exception e) {
-                        String logMsg = method + " couldn't copy'" + filename + "'";
-                        MyLog.v(this, logMsg, e);
-                        messageToAppend.insert(0, " " + logMsg + ": " + e.getMessage());
-                    }
-                    done = true;
-                }
-            } catch (Exception e) {
-                MyLog.v(this, e);
-                messageToAppend.append(method + " error: " + e.getMessage() + ". ");
-                succeeded = false;
-            } finally {
-                // Delete unnecessary files
-                try {
-                    if (succeeded) {
-                        if (didWeCopyAnything) {
-                            for (File fileOld : dirOld.listFiles()) {
-                                if (fileOld.isFile() && !fileOld.delete()) {
-                                    messageToAppend.append(method + " couldn't delete old file "
-                                            + fileOld.getName());
-                                }
-                            }
-                        }
-                    } else {
-                        if (dirNew != null && dirNew.exists()) {
-                            for (File fileNew : dirNew.listFiles()) {
-                                if (fileNew.isFile() && !fileNew.delete()) {
-                                    messageToAppend.append(method + " couldn't delete new file "
-                                            + fileNew.getName());
-                                }
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    String logMsg = method + " deleting unnecessary files";
-                    MyLog.v(this, logMsg, e);
-                    messageToAppend.append(logMsg + ": " + e.getMessage());
-                }
-            }
-            MyLog.d(this, method + " " + (succeeded ? "succeeded" : "failed"));
-        }
-
         private void saveNewSettings(boolean useExternalStorageNew, StringBuilder messageToAppend) {
             try {
                 SharedPreferencesUtil
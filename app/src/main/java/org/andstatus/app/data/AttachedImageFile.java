@@ -66,6 +66,14 @@ public class AttachedImageFile {
         downloadFile = new DownloadFile(filename);
     }
 
+    public long getDownloadRowId() {
+        return downloadRowId;
+    }
+
+    public String getFilename() {
+        return downloadFile.getFilename();
+    }
+
     public Point getSize() {
         if (size == null && downloadFile.exists()) {
             size = MyImageCache.getAttachedImageSize(downloadFile.getFilePath());
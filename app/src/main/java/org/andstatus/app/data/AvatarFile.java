@@ -42,9 +42,13 @@ public class AvatarFile {
 
     @NonNull
     public static Drawable getDrawable(long authorId, Cursor cursor) {
+        return getDrawable(authorId, DbUtils.getString(cursor, DownloadTable.AVATAR_FILE_NAME));
+    }
+
+    @NonNull
+    public static Drawable getDrawable(long authorId, String avatarFilename) {
         Drawable drawable = null;
         if (MyPreferences.getShowAvatars()) {
-            String avatarFilename = DbUtils.getString(cursor, DownloadTable.AVATAR_FILE_NAME);
             AvatarFile avatarFile = new AvatarFile(authorId, avatarFilename);
             drawable = avatarFile.getDrawable();
         }
@@ -54,6 +58,20 @@ public class AvatarFile {
         return drawable;
     }
 
+    /** Doesn't decode the image file, if the avatar is not in the cache yet */
+    @NonNull
+    public static Drawable getCachedDrawable(long authorId, String avatarFilename) {
+        Drawable drawable = null;
+        if (MyPreferences.getShowAvatars()) {
+            drawable = MyImageCache.getCachedAvatarDrawable(authorId,
+                    new DownloadFile(avatarFilename).getFilePath());
+        }
+        if (drawable == null || drawable == MyDrawableCache.BROKEN) {
+            drawable = getDefaultDrawable();
+        }
+        return drawable;
+    }
+
     @NonNull
     public Drawable getDrawable() {
         Drawable drawable = MyImageCache.getAvatarDrawable(this, downloadFile.getFilePath());
@@ -17,7 +17,9 @@
 package org.andstatus.app.data;
 
 import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
+import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
 import org.andstatus.app.account.MyAccount;
@@ -38,6 +40,7 @@ import org.andstatus.app.service.AttachmentDownloader;
 import org.andstatus.app.service.CommandData;
 import org.andstatus.app.service.CommandEnum;
 import org.andstatus.app.service.CommandExecutionContext;
+import org.andstatus.app.service.CommandMetrics;
 import org.andstatus.app.timeline.TimelineType;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.SharedPreferencesUtil;
@@ -158,9 +161,13 @@ public class DataInserter {
             }
 
 
+            MsgRow rowStored;
             if (msgId == 0) {
                 // Lookup the System's (AndStatus) id from the Originated system's id
-                msgId = MyQuery.oidToId(OidEnum.MSG_OID, execContext.getMyAccount().getOriginId(), rowOid);
+                rowStored = MsgRow.fromOid(execContext.getMyAccount().getOriginId(), rowOid);
+                msgId = rowStored.id;
+            } else {
+                rowStored = MsgRow.fromId(msgId);
             }
 
             /**
@@ -176,8 +183,8 @@ public class DataInserter {
 
             long sentDateStored = 0;
             if (msgId != 0) {
-                DownloadStatus statusStored = DownloadStatus.load(MyQuery.msgIdToLongColumnValue(MsgTable.MSG_STATUS, msgId));
-                sentDateStored = MyQuery.msgIdToLongColumnValue(MsgTable.SENT_DATE, msgId);
+                DownloadStatus statusStored = rowStored.status;
+                sentDateStored = rowStored.sentDate;
                 if (isFirstTimeLoaded) {
                     isFirstTimeLoaded = statusStored != DownloadStatus.LOADED;
                 }
@@ -197,7 +204,11 @@ public class DataInserter {
                 }
                 values.put(MsgTable.ORIGIN_ID, message.originId);
                 values.put(MsgTable.BODY, message.getBody());
+                NormalizedBody.fromBody(message.getBody()).toContentValues(values);
             }
+            // Other accounts were marked as mentioned, when the body was stored
+            boolean isBodyChanged = (isFirstTimeLoaded || isDraftUpdated)
+                    && !message.getBody().equals(rowStored.body);
             
             /**
              * Is the message newer than stored in the database (e.g. the newer reblog of existing message)
@@ -254,7 +265,8 @@ public class DataInserter {
                                 + " by " + execContext.getMyAccount().getAccountName());
             }
 
-            boolean mentioned = isMentionedAndPutInReplyToMessage(message, lum, values);
+            MentionsExtractor mentions = MentionsExtractor.fromBodyText(getAuthor(message), message.getBody());
+            boolean mentioned = isMentionedAndPutInReplyToMessage(message, mentions, lum, values);
             
             if (MyLog.isVerboseEnabled()) {
                 MyLog.v(this, ((msgId==0) ? "insertMsg" : "updateMsg " + msgId)
@@ -275,6 +287,12 @@ public class DataInserter {
                 Uri msgUri = MatchedUri.getMsgUri(execContext.getMyAccount().getUserId(), msgId);
                 execContext.getContext().getContentResolver().update(msgUri, values, null, null);
             }
+            if (isBodyChanged) {
+                markMentionedOtherAccounts(msgId, mentions);
+            }
+            if (isFirstTimeLoaded) {
+                lum.getSearchTerms().onMessageInserted(mentions.getBodyText(), message.sender, mentions.getUsers());
+            }
 
             if (isFirstTimeLoaded || isDraftUpdated) {
                 List<Long> downloadIds = new ArrayList<>();
@@ -329,8 +347,8 @@ public class DataInserter {
         return msgId;
     }
 
-    private boolean isMentionedAndPutInReplyToMessage(MbMessage message, LatestUserMessages lum,
-                                                      ContentValues values) {
+    private boolean isMentionedAndPutInReplyToMessage(MbMessage message, MentionsExtractor mentions,
+                                                      LatestUserMessages lum, ContentValues values) {
         boolean mentioned = execContext.getTimeline().getTimelineType() == TimelineType.MENTIONS;
         Long inReplyToUserId = 0L;
         if (message.inReplyToMessage != null) {
@@ -341,13 +359,13 @@ public class DataInserter {
             if (message.inReplyToMessage.sender != null) {
                 inReplyToUserId = MyQuery.oidToId(OidEnum.USER_OID, message.originId, message.inReplyToMessage.sender.oid);
             } else if (inReplyToMessageId != 0) {
-                inReplyToUserId = MyQuery.msgIdToLongColumnValue(MsgTable.SENDER_ID, inReplyToMessageId);
+                inReplyToUserId = MsgRow.fromId(inReplyToMessageId).senderId;
             }
             if (inReplyToMessageId != 0) {
                 values.put(MsgTable.IN_REPLY_TO_MSG_ID, inReplyToMessageId);
             }
         } else {
-            inReplyToUserId = getReplyToUserIdInBody(message);
+            inReplyToUserId = getReplyToUserIdInBody(mentions);
         }
         if (inReplyToUserId != 0) {
             values.put(MsgTable.IN_REPLY_TO_USER_ID, inReplyToUserId);
@@ -360,9 +378,8 @@ public class DataInserter {
         }
 
         // Check if current user was mentioned in the text of the message
-        if (message.getBody().length() > 0 
-                && !mentioned 
-                && message.getBody().contains("@" + execContext.getMyAccount().getUsername())) {
+        if (!mentioned
+                && mentions.getMentionedAccountUserIds().contains(execContext.getMyAccount().getUserId())) {
             mentioned = true;
         }
         if (mentioned) {
@@ -371,8 +388,8 @@ public class DataInserter {
         return mentioned;
     }
 
-    private long getReplyToUserIdInBody(MbMessage message) {
-        long userId = 0;
+    @NonNull
+    private static MbUser getAuthor(MbMessage message) {
         MbUser author = message.sender;
         if (author == null) {
             author = message.actor;
@@ -380,7 +397,12 @@ public class DataInserter {
         if (author == null) {
             author = MbUser.fromOriginAndUserOid(message.originId, "");
         }
-        List<MbUser> users = author.fromBodyText(message.getBody(), true);
+        return author;
+    }
+
+    private long getReplyToUserIdInBody(MentionsExtractor mentions) {
+        long userId = 0;
+        List<MbUser> users = mentions.getReplyToUsers();
         if (users.size() > 0) {
             userId = users.get(0).userId;
             if (userId == 0) {
@@ -390,6 +412,29 @@ public class DataInserter {
         return userId;
     }
 
+    /**
+     * Other accounts of the same origin are marked in one pass,
+     * so we don't need to parse the body again for each of them
+     */
+    private void markMentionedOtherAccounts(long msgId, MentionsExtractor mentions) {
+        if (msgId == 0) {
+            return;
+        }
+        SQLiteDatabase db = execContext.getMyContext().getDatabase();
+        if (db == null) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        int rows = 0;
+        for (long userId : mentions.getMentionedAccountUserIds()) {
+            if (userId != execContext.getMyAccount().getUserId()) {
+                MsgOfUserValues.newMentioned(userId, msgId).update(db);
+                rows++;
+            }
+        }
+        CommandMetrics.onDbWrite(startedAt, rows, rows);
+    }
+
     public long insertOrUpdateUser(MbUser user) {
         LatestUserMessages lum = new LatestUserMessages();
         long userId = insertOrUpdateUser(user, lum);
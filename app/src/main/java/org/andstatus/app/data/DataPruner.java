@@ -16,13 +16,16 @@
 
 package org.andstatus.app.data;
 
-import android.content.ContentResolver;
 import android.content.SharedPreferences;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
 
+import org.andstatus.app.backup.ChangeLog;
+import org.andstatus.app.backup.ProgressLogger;
 import org.andstatus.app.context.MyContext;
-import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.database.DownloadTable;
 import org.andstatus.app.database.FriendshipTable;
@@ -31,13 +34,14 @@ import org.andstatus.app.database.MsgOfUserTable;
 import org.andstatus.app.database.UserTable;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.RelativeTime;
-import org.andstatus.app.util.SelectionAndArgs;
 import org.andstatus.app.util.SharedPreferencesUtil;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Clean database from outdated information
@@ -45,14 +49,20 @@ import java.util.List;
  */
 public class DataPruner {
     private MyContext mMyContext;
-    private ContentResolver mContentResolver;
     private int mDeleted = 0;
+    private ProgressLogger logger = ProgressLogger.getEmpty();
     static final long MAX_DAYS_LOGS_TO_KEEP = 10;
-    static final long PRUNE_MIN_PERIOD_DAYS = 1;	
+    static final long PRUNE_MIN_PERIOD_DAYS = 1;
+    static final int CHUNK_SIZE = 500;
+    private static final long PAUSE_BETWEEN_CHUNKS_MS = 50;
 
     public DataPruner(MyContext myContext) {
         mMyContext = myContext;
-        mContentResolver = myContext.context().getContentResolver();
+    }
+
+    public DataPruner setLogger(@NonNull ProgressLogger logger) {
+        this.logger = logger;
+        return this;
     }
 
     /**
@@ -65,6 +75,7 @@ public class DataPruner {
             return pruned;
         }
         MyLog.v(this, method + " started");
+        long startTime = System.currentTimeMillis();
 
         mDeleted = 0;
         int nDeletedTime = 0;
@@ -72,75 +83,47 @@ public class DataPruner {
         SharedPreferences sp = SharedPreferencesUtil
                 .getDefaultSharedPreferences();
 
-        // Don't delete messages, which are favorited by any user
-        String sqlNotFavoritedMessage = "NOT EXISTS ("
-                + "SELECT * FROM " + MsgOfUserTable.TABLE_NAME + " AS gnf WHERE "
-                + MsgTable.TABLE_NAME + "." + MsgTable._ID + "=gnf." + MsgOfUserTable.MSG_ID
-                + " AND gnf." + MsgOfUserTable.FAVORITED + "=1"
-                + ")";
-        String sqlNotLatestMessageByFollowedUser = MsgTable.TABLE_NAME + "." + MsgTable._ID + " NOT IN("
-                + "SELECT " + UserTable.USER_MSG_ID
-                + " FROM " + UserTable.TABLE_NAME + " AS userf"
-                + " INNER JOIN " + FriendshipTable.TABLE_NAME
-                + " ON" 
-                + " userf." + UserTable._ID + "=" + FriendshipTable.TABLE_NAME + "." + FriendshipTable.FRIEND_ID
-                + " AND " + FriendshipTable.TABLE_NAME + "." + FriendshipTable.FOLLOWED + "=1"
-                + ")";
-
         int maxDays = Integer.parseInt(sp.getString(MyPreferences.KEY_HISTORY_TIME, "3"));
         long latestTimestamp = 0;
 
-        int nTweets = 0;
-        int nToDeleteSize = 0;
+        long nTweets = 0;
+        long nToDeleteSize = 0;
         int nDeletedSize = 0;
         int maxSize = Integer.parseInt(sp.getString(MyPreferences.KEY_HISTORY_SIZE, "2000"));
-        long latestTimestampSize = 0;
-        Cursor cursor = null;
+        long latestMsgIdSize = 0;
         try {
+            SQLiteDatabase db = mMyContext.getDatabase();
+            if (db == null) {
+                MyLog.v(this, method + "; Database is null");
+                return pruned;
+            }
+            Set<Long> protectedIds = getProtectedMessageIds(db);
             if (maxDays > 0) {
                 latestTimestamp = System.currentTimeMillis() - java.util.concurrent.TimeUnit.DAYS.toMillis(maxDays);
-                SelectionAndArgs sa = new SelectionAndArgs();
-                sa.addSelection(MsgTable.TABLE_NAME + "." + MsgTable.INS_DATE + " <  ?",
-                        new String[] {String.valueOf(latestTimestamp)});
-                sa.addSelection(sqlNotFavoritedMessage);
-                sa.addSelection(sqlNotLatestMessageByFollowedUser);
-                nDeletedTime = mContentResolver.delete(MatchedUri.MSG_CONTENT_URI, sa.selection, sa.selectionArgs);
+                nDeletedTime = deleteMessagesInChunks(db, "time",
+                        MsgTable.INS_DATE + "<" + latestTimestamp, protectedIds);
             }
 
             if (maxSize > 0) {
-                nDeletedSize = 0;
-                cursor = mContentResolver.query(MatchedUri.MSG_CONTENT_COUNT_URI, null, null, null, null);
-                if (cursor.moveToFirst()) {
-                    // Count is in the first column
-                    nTweets = cursor.getInt(0);
-                    nToDeleteSize = nTweets - maxSize;
-                }
-                cursor.close();
+                nTweets = DatabaseUtils.queryNumEntries(db, MsgTable.TABLE_NAME);
+                nToDeleteSize = nTweets - maxSize;
                 if (nToDeleteSize > 0) {
-                    // Find INS_DATE of the most recent tweet to delete
-                    cursor = mContentResolver.query(MatchedUri.MSG_CONTENT_URI, new String[] {
-                            MsgTable.INS_DATE
-                    }, null, null, MsgTable.INS_DATE + " ASC LIMIT 0," + nToDeleteSize);
-                    if (cursor.moveToLast()) {
-                        latestTimestampSize = cursor.getLong(0);
-                    }
-                    cursor.close();
-                    if (latestTimestampSize > 0) {
-                        SelectionAndArgs sa = new SelectionAndArgs();
-                        sa.addSelection(MsgTable.TABLE_NAME + "." + MsgTable.INS_DATE + " <=  ?",
-                                new String[] {String.valueOf(latestTimestampSize)});
-                        sa.addSelection(sqlNotFavoritedMessage);
-                        sa.addSelection(sqlNotLatestMessageByFollowedUser);
-                        nDeletedSize = mContentResolver.delete(MatchedUri.MSG_CONTENT_URI, sa.selection,
-                                sa.selectionArgs);
+                    // Row ids grow in the order of insertion, so the rowid index gives us
+                    // the same cutoff as ordering by INS_DATE, but without sorting the whole table
+                    latestMsgIdSize = MyQuery.sqlToLong(db, method, "SELECT " + MsgTable._ID
+                            + " FROM " + MsgTable.TABLE_NAME
+                            + " ORDER BY " + MsgTable._ID + " LIMIT 1 OFFSET " + (nToDeleteSize - 1));
+                    if (latestMsgIdSize > 0) {
+                        nDeletedSize = deleteMessagesInChunks(db, "size",
+                                MsgTable._ID + "<=" + latestMsgIdSize, protectedIds);
                     }
                 }
             }
+            ChangeLog.prune(db);
+            SearchTerms.prune(db);
             pruned = true;
         } catch (Exception e) {
             MyLog.i(this, method + " failed", e);
-        } finally {
-            DbUtils.closeSilently(cursor);
         }
         mDeleted = nDeletedTime + nDeletedSize;
         if (mDeleted > 0) {
@@ -153,11 +136,133 @@ public class DataPruner {
                     method + " " + (pruned ? "succeeded" : "failed") + "; History time=" + maxDays + " days; deleted " + nDeletedTime
                     + " , before " + new Date(latestTimestamp).toString());
             MyLog.v(this, method + "; History size=" + maxSize + " messages; deleted "
-                    + nDeletedSize + " of " + nTweets + " messages, before " + new Date(latestTimestampSize).toString());
+                    + nDeletedSize + " of " + nTweets + " messages, up to msgId=" + latestMsgIdSize);
+            MyLog.v(this, method + "; took " + (System.currentTimeMillis() - startTime) + " ms");
         }
         return pruned;
     }
 
+    /**
+     * Messages, which are favorited by any user, and the latest messages by followed users
+     * are not deleted
+     */
+    @NonNull
+    private Set<Long> getProtectedMessageIds(SQLiteDatabase db) {
+        String sql = "SELECT DISTINCT " + MsgOfUserTable.MSG_ID
+                + " FROM " + MsgOfUserTable.TABLE_NAME
+                + " WHERE " + MsgOfUserTable.FAVORITED + "=1"
+                + " UNION"
+                + " SELECT userf." + UserTable.USER_MSG_ID
+                + " FROM " + UserTable.TABLE_NAME + " AS userf"
+                + " INNER JOIN " + FriendshipTable.TABLE_NAME
+                + " ON"
+                + " userf." + UserTable._ID + "=" + FriendshipTable.TABLE_NAME + "." + FriendshipTable.FRIEND_ID
+                + " AND " + FriendshipTable.TABLE_NAME + "." + FriendshipTable.FOLLOWED + "=1";
+        Set<Long> ids = new HashSet<>();
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(sql, null);
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+        return ids;
+    }
+
+    /**
+     * Walks the selected messages in the order of their ids (keyset pagination) and deletes them
+     * in chunks of {@link #CHUNK_SIZE} messages, each chunk in its own short transaction,
+     * so other threads may write to the database in between
+     * @return number of messages deleted
+     */
+    private int deleteMessagesInChunks(SQLiteDatabase db, String pass, String condition, Set<Long> protectedIds) {
+        final String method = "deleteMessages " + pass;
+        int nDeleted = 0;
+        int nChunks = 0;
+        long startTime = System.currentTimeMillis();
+        long lastMsgId = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> chunk = new ArrayList<>();
+            boolean more = false;
+            String sql = "SELECT " + MsgTable._ID + " FROM " + MsgTable.TABLE_NAME
+                    + " WHERE " + MsgTable._ID + ">" + lastMsgId
+                    + " AND " + condition
+                    + " ORDER BY " + MsgTable._ID + " LIMIT " + CHUNK_SIZE;
+            Cursor cursor = null;
+            try {
+                cursor = db.rawQuery(sql, null);
+                while (cursor.moveToNext()) {
+                    more = true;
+                    lastMsgId = cursor.getLong(0);
+                    if (!protectedIds.contains(lastMsgId)) {
+                        chunk.add(lastMsgId);
+                    }
+                }
+            } finally {
+                DbUtils.closeSilently(cursor);
+            }
+            if (!more) {
+                break;
+            }
+            if (!chunk.isEmpty()) {
+                nDeleted += deleteChunk(db, chunk);
+                nChunks++;
+                logger.logProgress(method + "; chunk " + nChunks + ", deleted " + nDeleted
+                        + " messages in " + (System.currentTimeMillis() - startTime) + " ms");
+                DbUtils.waitMs(method, PAUSE_BETWEEN_CHUNKS_MS);
+            }
+        }
+        if (nDeleted > 0) {
+            MyLog.v(this, method + "; deleted " + nDeleted + " messages in " + nChunks + " chunks, "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        }
+        return nDeleted;
+    }
+
+    /**
+     * Deletes messages, their {@link MsgOfUserTable} rows and their attachments in one transaction
+     */
+    private int deleteChunk(SQLiteDatabase db, List<Long> msgIds) {
+        String sqlIds = DownloadData.toSqlList(msgIds);
+        List<String> filenames = getDownloadFilenames(db, sqlIds);
+        int count = 0;
+        db.beginTransaction();
+        try {
+            db.delete(MsgOfUserTable.TABLE_NAME, MsgOfUserTable.MSG_ID + " IN(" + sqlIds + ")", null);
+            db.delete(DownloadTable.TABLE_NAME, DownloadTable.MSG_ID + " IN(" + sqlIds + ")", null);
+            count = db.delete(MsgTable.TABLE_NAME, MsgTable._ID + " IN(" + sqlIds + ")", null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        for (String filename : filenames) {
+            new DownloadFile(filename).delete();
+        }
+        return count;
+    }
+
+    @NonNull
+    private List<String> getDownloadFilenames(SQLiteDatabase db, String sqlMsgIds) {
+        List<String> filenames = new ArrayList<>();
+        String sql = "SELECT " + DownloadTable.FILE_NAME + " FROM " + DownloadTable.TABLE_NAME
+                + " WHERE " + DownloadTable.MSG_ID + " IN(" + sqlMsgIds + ")";
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(sql, null);
+            while (cursor.moveToNext()) {
+                String filename = cursor.getString(0);
+                if (!TextUtils.isEmpty(filename)) {
+                    filenames.add(filename);
+                }
+            }
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+        return filenames;
+    }
+
     long pruneAttachments() {
         final String method = "pruneAttachments";
         String sql = "SELECT DISTINCT " + DownloadTable.MSG_ID + " FROM " + DownloadTable.TABLE_NAME
@@ -166,13 +271,12 @@ public class DataPruner {
                 + "SELECT * FROM " + MsgTable.TABLE_NAME
                 + " WHERE " + MsgTable.TABLE_NAME + "." + MsgTable._ID + "=" + DownloadTable.MSG_ID
                 + ")";
-        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        SQLiteDatabase db = mMyContext.getDatabase();
         if (db == null) {
             MyLog.v(this, method + "; Database is null");
             return 0;
         }
-        long nDeleted = 0;
-        List<Long> list = new ArrayList<Long>();
+        List<Long> list = new ArrayList<>();
         Cursor cursor = null;
         try {
             cursor = db.rawQuery(sql, null);
@@ -182,10 +286,24 @@ public class DataPruner {
         } finally {
             DbUtils.closeSilently(cursor);
         }
-        for (Long msgId : list) {
-            DownloadData.deleteAllOfThisMsg(msgId);
-            nDeleted++;
+        for (int from = 0; from < list.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = list.subList(from, Math.min(from + CHUNK_SIZE, list.size()));
+            String sqlIds = DownloadData.toSqlList(chunk);
+            List<String> filenames;
+            db.beginTransaction();
+            try {
+                filenames = getDownloadFilenames(db, sqlIds);
+                db.delete(DownloadTable.TABLE_NAME, DownloadTable.MSG_ID + " IN(" + sqlIds + ")", null);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            // Files are deleted after the commit, so no row refers to a deleted file
+            for (String filename : filenames) {
+                new DownloadFile(filename).delete();
+            }
         }
+        long nDeleted = list.size();
         if (nDeleted > 0) {
             MyLog.v(this, method + "; Attachments deleted for " + nDeleted + " messages");
         }
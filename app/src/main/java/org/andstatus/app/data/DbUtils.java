@@ -27,9 +27,11 @@ import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
 import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.service.CommandMetrics;
 import org.andstatus.app.util.MyLog;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -57,6 +59,7 @@ public final class DbUtils {
             MyLog.v(TAG, method + "; Database is null");
             return 0;
         }
+        long startedAt = System.currentTimeMillis();
         for (int pass = 0; pass < nRetries; pass++) {
             try {
                 rowId = db.insert(tableName, null, values);
@@ -76,6 +79,7 @@ public final class DbUtils {
         if (rowId == -1) {
             MyLog.e(method, "Failed to insert row into " + tableName + "; values=" + values.toString(), null);
         }
+        CommandMetrics.onDbWrite(startedAt, rowId == -1 ? 0 : 1, 1);
         return rowId;
     }
 
@@ -90,6 +94,7 @@ public final class DbUtils {
             MyLog.v(TAG, method + "; Database is null");
             return 0;
         }
+        long startedAt = System.currentTimeMillis();
         for (int pass=0; pass<nRetries; pass++) {
             try {
                 rowsUpdated = db.update(tableName, values, BaseColumns._ID + "=" + Long.toString(rowId), null);
@@ -102,6 +107,7 @@ public final class DbUtils {
         if (rowsUpdated != 1) {
             MyLog.e(method, " Failed to update rowId=" + rowId + " updated " + rowsUpdated + " rows", null);
         }
+        CommandMetrics.onDbWrite(startedAt, rowsUpdated, 1);
         return rowsUpdated;
     }
 
@@ -140,6 +146,19 @@ public final class DbUtils {
         closeSilently(closeable, "");
     }
     
+    /**
+     * Deletes the write-ahead log files of the database file, which is going to be replaced:
+     * SQLite would apply a stale log to the new file
+     */
+    public static void deleteWriteAheadLog(File dbFile) {
+        for (String suffix : new String[]{"-wal", "-shm"}) {
+            File file = new File(dbFile.getAbsolutePath() + suffix);
+            if (file.exists() && !file.delete()) {
+                MyLog.w(TAG, "Couldn't delete '" + file.getAbsolutePath() + "'");
+            }
+        }
+    }
+
     public static void closeSilently(Object closeable, String message) {
         if (closeable != null) {
             try {
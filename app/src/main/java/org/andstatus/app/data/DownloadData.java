@@ -13,6 +13,7 @@ import org.andstatus.app.os.AsyncTaskLauncher;
 import org.andstatus.app.os.MyAsyncTask;
 import org.andstatus.app.service.CommandData;
 import org.andstatus.app.service.CommandEnum;
+import org.andstatus.app.service.CommandMetrics;
 import org.andstatus.app.service.MyServiceManager;
 import org.andstatus.app.util.InstanceId;
 import org.andstatus.app.util.MyLog;
@@ -110,6 +111,7 @@ public class DownloadData {
         }
         Cursor cursor = null;
         try {
+            MyQuery.onQuery();
             cursor = db.rawQuery(sql, null);
             status = DownloadStatus.ABSENT;
             if (cursor.moveToNext()) {
@@ -324,6 +326,7 @@ public class DownloadData {
                 + DownloadTable.FILE_NAME
                 + " FROM " + DownloadTable.TABLE_NAME
                 + " WHERE " + where;
+        long startedAt = System.currentTimeMillis();
         int rowsDeleted = 0;
         boolean done = false;
         for (int pass=0; !done && pass<3; pass++) {
@@ -350,6 +353,7 @@ public class DownloadData {
                 DbUtils.waitMs(method, 500);
             }
         }
+        CommandMetrics.onDbWrite(startedAt, rowsDeleted, rowsDeleted);
         if (!done || rowsDeleted>0) {
             MyLog.v(DownloadData.class, method + (done ? " succeeded" : " failed") + "; deleted " + rowsDeleted + " rows");
         }
@@ -19,6 +19,7 @@ package org.andstatus.app.data;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
+import org.andstatus.app.context.DownloadsMover;
 import org.andstatus.app.context.MyStorage;
 import org.andstatus.app.util.MyLog;
 
@@ -32,7 +33,8 @@ public class DownloadFile {
     public DownloadFile(String filename) {
         this.filename = filename;
         if (!TextUtils.isEmpty(filename)) {
-            file = new File(MyStorage.getDataFilesDir(MyStorage.DIRECTORY_DOWNLOADS), filename);
+            file = DownloadsMover.findNotMovedYet(
+                    new File(MyStorage.getDataFilesDir(MyStorage.DIRECTORY_DOWNLOADS), filename));
         } else {
             file = null;
         }
@@ -23,6 +23,7 @@ import android.database.sqlite.SQLiteDatabaseLockedException;
 
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.database.FriendshipTable;
+import org.andstatus.app.service.CommandMetrics;
 import org.andstatus.app.util.ContentValuesUtils;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.SharedPreferencesUtil;
@@ -58,9 +59,11 @@ public class FriendshipValues {
     }
 
     private static void setFollowed(long followerId, long friendId, boolean followed) {
+        long startedAt = System.currentTimeMillis();
         FriendshipValues fu = new FriendshipValues(followerId, friendId);
         fu.setFollowed(followed);
         fu.update(MyContextHolder.get().getDatabase());
+        CommandMetrics.onDbWrite(startedAt, 1, 1);
     }
 
     public FriendshipValues(long userId, long friendId) {
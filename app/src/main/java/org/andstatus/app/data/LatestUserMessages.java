@@ -16,16 +16,20 @@
 
 package org.andstatus.app.data;
 
+import org.andstatus.app.context.MyContextHolder;
+
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Collects {@link UserMsg} data (e.g. during timeline download) and allows to save it in bulk 
+ * Collects {@link UserMsg} data and {@link SearchTerms} of the messages (e.g. during timeline download)
+ * and allows to save it in bulk
  * @author yvolk@yurivolkov.com
  */
 public class LatestUserMessages {
     private Map<Long, UserMsg> messages;
+    private final SearchTerms searchTerms = new SearchTerms();
     public LatestUserMessages() {
         messages = new HashMap<Long, UserMsg>();
     }
@@ -33,6 +37,10 @@ public class LatestUserMessages {
     public Collection<UserMsg> getUserMessages() {
         return messages.values();
     }
+
+    public SearchTerms getSearchTerms() {
+        return searchTerms;
+    }
     
     /**
      * Add information about new/updated message by the User
@@ -60,6 +68,7 @@ public class LatestUserMessages {
                 ok = false;
             }
         }
+        searchTerms.save(MyContextHolder.get().getDatabase());
         return ok;
     }
 }
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.database.UserTable;
+import org.andstatus.app.net.social.MbUser;
+import org.andstatus.app.origin.Origin;
+import org.andstatus.app.util.MyHtml;
+import org.andstatus.app.util.MyLog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds users, mentioned in a message body as "@username" or "@webfingerid".
+ * The body is tokenized once, and all mentioned users are looked up
+ * in the {@link UserTable} with one query
+ * @author yvolk@yurivolkov.com
+ */
+public class MentionsExtractor {
+    private static final String TAG = MentionsExtractor.class.getSimpleName();
+    private static final String SEPARATORS = ", ;'=`~!#$%^&*(){}[]/";
+
+    private final Origin origin;
+    private final String authorHost;
+    private final String originHost;
+    private final List<Mention> mentions = new ArrayList<>();
+    private final List<MbUser> users = new ArrayList<>();
+    private MbUser replyToUser = null;
+    private String bodyText = "";
+
+    private static class Mention {
+        final String userName;
+        final String webFingerId;
+        final boolean atStart;
+
+        Mention(String userName, String webFingerId, boolean atStart) {
+            this.userName = userName;
+            this.webFingerId = webFingerId;
+            this.atStart = atStart;
+        }
+    }
+
+    private MentionsExtractor(@NonNull MbUser author) {
+        origin = MyContextHolder.get().persistentOrigins().fromId(author.originId);
+        authorHost = author.getHost();
+        originHost = origin.getUrl() == null ? "" : origin.getUrl().getHost();
+    }
+
+    @NonNull
+    public static MentionsExtractor fromBodyText(@NonNull MbUser author, String textIn) {
+        MentionsExtractor extractor = new MentionsExtractor(author);
+        extractor.bodyText = MyHtml.fromHtml(textIn);
+        extractor.tokenize(extractor.bodyText);
+        if (!extractor.mentions.isEmpty()) {
+            extractor.lookupUsers();
+        }
+        return extractor;
+    }
+
+    private void tokenize(String text) {
+        if (TextUtils.isEmpty(text)) {
+            return;
+        }
+        int atPos = text.indexOf('@');
+        while (atPos >= 0) {
+            int end = atPos + 1;
+            while (end < text.length() && SEPARATORS.indexOf(text.charAt(end)) < 0) {
+                end++;
+            }
+            String token = text.substring(atPos + 1, end);
+            String validUserName = longestValidPrefix(token, false);
+            String validWebFingerId = token.indexOf('@') > 0 ? longestValidPrefix(token, true) : "";
+            if (MbUser.isWebFingerIdValid(validWebFingerId) || !TextUtils.isEmpty(validUserName)) {
+                mentions.add(new Mention(validUserName, validWebFingerId, atPos == 0));
+            }
+            atPos = end < text.length() ? text.indexOf('@', end) : -1;
+        }
+    }
+
+    /** Usually the whole token is valid, so we start from the longest prefix */
+    private String longestValidPrefix(String token, boolean webFingerId) {
+        for (int length = token.length(); length > 0; length--) {
+            String prefix = token.substring(0, length);
+            if (webFingerId ? MbUser.isWebFingerIdValid(prefix) : origin.isUsernameValid(prefix)) {
+                return prefix;
+            }
+        }
+        return "";
+    }
+
+    private void lookupUsers() {
+        Set<String> webFingerIds = new LinkedHashSet<>();
+        Set<String> userNames = new LinkedHashSet<>();
+        Set<String> oids = new LinkedHashSet<>();
+        for (Mention mention : mentions) {
+            if (MbUser.isWebFingerIdValid(mention.webFingerId)) {
+                webFingerIds.add(mention.webFingerId);
+            } else {
+                webFingerIds.add(mention.userName + "@" + authorHost);
+                webFingerIds.add(mention.userName + "@" + originHost);
+                userNames.add(mention.userName);
+            }
+            oids.add(MbUser.getTempOid(mention.webFingerId, mention.userName));
+            if (!TextUtils.isEmpty(mention.userName)) {
+                oids.add(MbUser.getTempOid("", mention.userName));
+            }
+        }
+        Map<String, Long> idsByWebFingerId = new HashMap<>();
+        Map<String, Long> idsByUserName = new HashMap<>();
+        Map<String, Long> idsByOid = new HashMap<>();
+        queryUserIds(webFingerIds, userNames, oids, idsByWebFingerId, idsByUserName, idsByOid);
+
+        for (Mention mention : mentions) {
+            String webFingerId = mention.webFingerId;
+            long userId = 0;
+            if (!MbUser.isWebFingerIdValid(webFingerId)) {
+                // Try a host of the Author first, next try host of this Social network
+                userId = getId(idsByWebFingerId, mention.userName + "@" + authorHost);
+                if (userId == 0) {
+                    userId = getId(idsByWebFingerId, mention.userName + "@" + originHost);
+                }
+                if (userId != 0) {
+                    webFingerId = mention.userName + "@" + authorHost;
+                }
+            }
+            MbUser mbUser = MbUser.fromOriginAndUserOid(origin.getId(), "");
+            mbUser.setWebFingerId(webFingerId);
+            mbUser.setUserName(mention.userName);
+            if (userId == 0) {
+                if (mbUser.isWebFingerIdValid()) {
+                    userId = getId(idsByWebFingerId, mbUser.getWebFingerId());
+                } else if (!TextUtils.isEmpty(mbUser.getUserName())) {
+                    userId = getId(idsByUserName, mbUser.getUserName());
+                }
+            }
+            if (userId == 0) {
+                userId = getId(idsByOid, mbUser.getTempOid());
+            }
+            if (userId == 0 && mbUser.hasAltTempOid()) {
+                userId = getId(idsByOid, mbUser.getAltTempOid());
+            }
+            mbUser.userId = userId;
+            if (!users.contains(mbUser)) {
+                users.add(mbUser);
+            }
+            if (mention.atStart && replyToUser == null) {
+                replyToUser = mbUser;
+            }
+        }
+    }
+
+    private static long getId(Map<String, Long> ids, String key) {
+        Long id = ids.get(key);
+        return id == null ? 0 : id;
+    }
+
+    private void queryUserIds(Set<String> webFingerIds, Set<String> userNames, Set<String> oids,
+                              Map<String, Long> idsByWebFingerId, Map<String, Long> idsByUserName,
+                              Map<String, Long> idsByOid) {
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        if (db == null) {
+            MyLog.v(TAG, "lookupUsers; Database is null");
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        String sql = "SELECT " + BaseColumns._ID + ", " + UserTable.WEBFINGER_ID + ", "
+                + UserTable.USERNAME + ", " + UserTable.USER_OID
+                + " FROM " + UserTable.TABLE_NAME
+                + " WHERE " + UserTable.ORIGIN_ID + "=" + origin.getId()
+                + " AND (" + UserTable.WEBFINGER_ID + inClause(webFingerIds, args)
+                + (userNames.isEmpty() ? "" : " OR " + UserTable.USERNAME + inClause(userNames, args))
+                + " OR " + UserTable.USER_OID + inClause(oids, args)
+                + ")";
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(sql, args.toArray(new String[args.size()]));
+            while (cursor.moveToNext()) {
+                long userId = cursor.getLong(0);
+                putFirst(idsByWebFingerId, cursor.getString(1), userId);
+                putFirst(idsByUserName, cursor.getString(2), userId);
+                putFirst(idsByOid, cursor.getString(3), userId);
+            }
+        } catch (Exception e) {
+            MyLog.e(TAG, "lookupUsers; SQL:'" + sql + "'", e);
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+    }
+
+    private static String inClause(Collection<String> values, List<String> args) {
+        StringBuilder builder = new StringBuilder(" IN (");
+        for (String value : values) {
+            if (builder.length() > 5) {
+                builder.append(", ");
+            }
+            builder.append("?");
+            args.add(value);
+        }
+        return builder.append(")").toString();
+    }
+
+    private static void putFirst(Map<String, Long> ids, String key, long userId) {
+        if (!TextUtils.isEmpty(key) && !ids.containsKey(key)) {
+            ids.put(key, userId);
+        }
+    }
+
+    /** Mentioned users in the order of their appearance in the body, without duplicates */
+    @NonNull
+    /** The body without html markup, as it was tokenized, so the body doesn't need to be stripped again */
+    @NonNull
+    public String getBodyText() {
+        return bodyText;
+    }
+
+    public List<MbUser> getUsers() {
+        return users;
+    }
+
+    /** The user, mentioned at the very beginning of the body, i.e. the user, to whom the message is a reply */
+    @NonNull
+    public List<MbUser> getReplyToUsers() {
+        List<MbUser> list = new ArrayList<>();
+        if (replyToUser != null) {
+            list.add(replyToUser);
+        }
+        return list;
+    }
+
+    /**
+     * @return UserIds of my accounts of this origin, which were mentioned in the body
+     */
+    @NonNull
+    public Set<Long> getMentionedAccountUserIds() {
+        Set<Long> userIds = new HashSet<>();
+        if (users.isEmpty()) {
+            return userIds;
+        }
+        for (MyAccount ma : MyContextHolder.get().persistentAccounts().list()) {
+            if (ma.getOriginId() != origin.getId()) {
+                continue;
+            }
+            for (MbUser user : users) {
+                if (user.userId == ma.getUserId()
+                        || (user.userId == 0 && ma.getUsername().equals(user.getUserName()))) {
+                    userIds.add(ma.getUserId());
+                    break;
+                }
+            }
+        }
+        return userIds;
+    }
+}
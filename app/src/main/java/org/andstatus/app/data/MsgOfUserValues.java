@@ -66,6 +66,13 @@ class MsgOfUserValues {
         return userValues;
     }
 
+    static MsgOfUserValues newMentioned(long userId, long msgId) {
+        MsgOfUserValues userValues = new MsgOfUserValues(userId);
+        userValues.setMsgId(msgId);
+        userValues.contentValues.put(MsgOfUserTable.MENTIONED, 1);
+        return userValues;
+    }
+
     boolean isValid() {
         return userId != 0 && msgId != 0;
     }
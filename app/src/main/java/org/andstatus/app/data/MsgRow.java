@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.andstatus.app.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.database.MsgTable;
+import org.andstatus.app.database.UserTable;
+import org.andstatus.app.util.MyLog;
+
+/**
+ * Columns of a message, that are often needed together, loaded with one query
+ * instead of several {@link MyQuery#msgIdToLongColumnValue(String, long)} calls.
+ * Oids of the "in reply to" message and of the recipient are joined, so sending a message
+ * or saving its draft doesn't need to look them up separately
+ * @author yvolk@yurivolkov.com
+ */
+public class MsgRow {
+    public static final MsgRow EMPTY = new MsgRow();
+    private static final String IN_REPLY_TO_OID = "in_reply_to_oid";
+    private static final String IN_REPLY_TO_BODY = "in_reply_to_body";
+    private static final String RECIPIENT_OID = "recipient_oid";
+
+    public final long id;
+    public final long originId;
+    @NonNull
+    public final String oid;
+    public final DownloadStatus status;
+    public final long senderId;
+    public final long authorId;
+    public final long recipientId;
+    @NonNull
+    public final String recipientOid;
+    @NonNull
+    public final String body;
+    public final long sentDate;
+    public final long inReplyToMsgId;
+    public final long inReplyToUserId;
+    @NonNull
+    public final String inReplyToOid;
+    @NonNull
+    public final String inReplyToBody;
+
+    private MsgRow() {
+        id = 0;
+        originId = 0;
+        oid = "";
+        status = DownloadStatus.UNKNOWN;
+        senderId = 0;
+        authorId = 0;
+        recipientId = 0;
+        recipientOid = "";
+        body = "";
+        sentDate = 0;
+        inReplyToMsgId = 0;
+        inReplyToUserId = 0;
+        inReplyToOid = "";
+        inReplyToBody = "";
+    }
+
+    private MsgRow(Cursor cursor) {
+        id = DbUtils.getLong(cursor, BaseColumns._ID);
+        originId = DbUtils.getLong(cursor, MsgTable.ORIGIN_ID);
+        oid = DbUtils.getString(cursor, MsgTable.MSG_OID);
+        status = DownloadStatus.load(DbUtils.getLong(cursor, MsgTable.MSG_STATUS));
+        senderId = DbUtils.getLong(cursor, MsgTable.SENDER_ID);
+        authorId = DbUtils.getLong(cursor, MsgTable.AUTHOR_ID);
+        recipientId = DbUtils.getLong(cursor, MsgTable.RECIPIENT_ID);
+        recipientOid = DbUtils.getString(cursor, RECIPIENT_OID);
+        body = DbUtils.getString(cursor, MsgTable.BODY);
+        sentDate = DbUtils.getLong(cursor, MsgTable.SENT_DATE);
+        inReplyToMsgId = DbUtils.getLong(cursor, MsgTable.IN_REPLY_TO_MSG_ID);
+        inReplyToUserId = DbUtils.getLong(cursor, MsgTable.IN_REPLY_TO_USER_ID);
+        inReplyToOid = DbUtils.getString(cursor, IN_REPLY_TO_OID);
+        inReplyToBody = DbUtils.getString(cursor, IN_REPLY_TO_BODY);
+    }
+
+    /** @return {@link #EMPTY} if not found */
+    @NonNull
+    public static MsgRow fromId(long msgId) {
+        if (msgId == 0) {
+            return EMPTY;
+        }
+        return fromCondition("msg." + BaseColumns._ID + "=" + msgId);
+    }
+
+    /** @return {@link #EMPTY} if not found */
+    @NonNull
+    public static MsgRow fromOid(long originId, String oid) {
+        if (TextUtils.isEmpty(oid)) {
+            return EMPTY;
+        }
+        return fromCondition("msg." + MsgTable.ORIGIN_ID + "=" + originId
+                + " AND msg." + MsgTable.MSG_OID + "=" + MyQuery.quoteIfNotQuoted(oid));
+    }
+
+    @NonNull
+    private static MsgRow fromCondition(String condition) {
+        final String method = "MsgRow";
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        if (db == null) {
+            MyLog.v(MyQuery.TAG, method + "; database is null");
+            return EMPTY;
+        }
+        String sql = "SELECT msg." + BaseColumns._ID
+                + ", msg." + MsgTable.ORIGIN_ID
+                + ", msg." + MsgTable.MSG_OID
+                + ", msg." + MsgTable.MSG_STATUS
+                + ", msg." + MsgTable.SENDER_ID
+                + ", msg." + MsgTable.AUTHOR_ID
+                + ", msg." + MsgTable.RECIPIENT_ID
+                + ", recipient." + UserTable.USER_OID + " AS " + RECIPIENT_OID
+                + ", msg." + MsgTable.BODY
+                + ", msg." + MsgTable.SENT_DATE
+                + ", msg." + MsgTable.IN_REPLY_TO_MSG_ID
+                + ", msg." + MsgTable.IN_REPLY_TO_USER_ID
+                + ", replied." + MsgTable.MSG_OID + " AS " + IN_REPLY_TO_OID
+                + ", replied." + MsgTable.BODY + " AS " + IN_REPLY_TO_BODY
+                + " FROM " + MsgTable.TABLE_NAME + " AS msg"
+                + " LEFT JOIN " + UserTable.TABLE_NAME + " AS recipient"
+                + " ON recipient." + BaseColumns._ID + "=msg." + MsgTable.RECIPIENT_ID
+                + " LEFT JOIN " + MsgTable.TABLE_NAME + " AS replied"
+                + " ON replied." + BaseColumns._ID + "=msg." + MsgTable.IN_REPLY_TO_MSG_ID
+                + " WHERE " + condition;
+        MsgRow row = EMPTY;
+        Cursor cursor = null;
+        try {
+            MyQuery.onQuery();
+            cursor = db.rawQuery(sql, null);
+            if (cursor.moveToFirst()) {
+                row = new MsgRow(cursor);
+            }
+        } catch (Exception e) {
+            MyLog.e(MyQuery.TAG, method + "; sql='" + sql + "'", e);
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+        if (MyLog.isVerboseEnabled()) {
+            MyLog.v(MyQuery.TAG, method + "; " + condition + " -> " + row);
+        }
+        return row;
+    }
+
+    public boolean isEmpty() {
+        return id == 0;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "MsgRow:EMPTY" : MyLog.formatKeyValue("MsgRow", "id:" + id + ", oid:'" + oid
+                + "', status:" + status + ", sent:" + sentDate);
+    }
+}
@@ -33,6 +33,7 @@ import org.andstatus.app.database.MsgOfUserTable;
 import org.andstatus.app.database.MsgTable;
 import org.andstatus.app.database.OriginTable;
 import org.andstatus.app.database.UserTable;
+import org.andstatus.app.service.CommandMetrics;
 import org.andstatus.app.util.MyLog;
 
 import java.util.Arrays;
@@ -79,6 +80,7 @@ public class MyProvider extends ContentProvider {
             MyLog.v(this, "delete; Database is null");
             return 0;
         }
+        long startedAt = System.currentTimeMillis();
         int count;
         ParsedUri uriParser = ParsedUri.fromUri(uri);
         switch (uriParser.matched()) {
@@ -101,6 +103,7 @@ public class MyProvider extends ContentProvider {
             default:
                 throw new IllegalArgumentException(uriParser.toString());
         }
+        CommandMetrics.onDbWrite(startedAt, count, 1);
         return count;
     }
 
@@ -155,8 +158,9 @@ public class MyProvider extends ContentProvider {
         
         long rowId;
         Uri newUri = null;
+        long startedAt = System.currentTimeMillis();
         try {
-            Long now = System.currentTimeMillis();
+            Long now = startedAt;
             SQLiteDatabase db = MyContextHolder.get().getDatabase();
             if (db == null) {
                 MyLog.v(this, "insert; Database is null");
@@ -243,6 +247,7 @@ public class MyProvider extends ContentProvider {
         } catch (Exception e) {
           MyLog.e(this, "Insert " + uri, e);
         }
+        CommandMetrics.onDbWrite(startedAt, newUri == null ? 0 : 1, 1);
         return newUri;
     }
 
@@ -418,6 +423,7 @@ public class MyProvider extends ContentProvider {
             MyLog.v(this, "update; Database is null");
             return 0;
         }
+        long startedAt = System.currentTimeMillis();
         int count = 0;
         ParsedUri uriParser = ParsedUri.fromUri(uri);
         long accountUserId;
@@ -460,7 +466,7 @@ public class MyProvider extends ContentProvider {
             default:
                 throw new IllegalArgumentException(uriParser.toString());
         }
-
+        CommandMetrics.onDbWrite(startedAt, count, 1);
         return count;
     }
 }
@@ -38,17 +38,39 @@ import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class MyQuery {
     static final String TAG = MyQuery.class.getSimpleName();
+    /** Counted for the current thread only, so queries of other threads don't affect a measurement */
+    private static final ThreadLocal<long[]> queriesCount = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
 
     private MyQuery() {
         // Empty
     }
 
+    /** Counts single row queries of this class and of row loaders, e.g. {@link MsgRow} and {@link DownloadData} */
+    static void onQuery() {
+        queriesCount.get()[0]++;
+    }
+
+    /**
+     * @return number of single row queries done so far in the current thread,
+     * so tests may check how many queries an action needs
+     */
+    public static long getQueriesCount() {
+        return queriesCount.get()[0];
+    }
+
     static String userNameField(UserInTimeline userInTimeline) {
         switch (userInTimeline) {
             case AT_USERNAME:
@@ -116,6 +138,7 @@ public class MyQuery {
         long value = 0;
         SQLiteStatement statement = null;
         try {
+            onQuery();
             statement = db.compileStatement(sql);
             value = statement.simpleQueryForLong();
             if ((value == 1 || value == 388)
@@ -222,6 +245,7 @@ public class MyQuery {
                     default:
                         throw new IllegalArgumentException(method + "; Unknown parameter: " + oe);
                 }
+                onQuery();
                 prog = db.compileStatement(sql);
                 oid = prog.simpleQueryForString();
                 
@@ -370,6 +394,7 @@ public class MyQuery {
                     MyLog.v(TAG, method + "; Database is null");
                     return "";
                 }
+                onQuery();
                 prog = db.compileStatement(sql);
                 columnValue = prog.simpleQueryForString();
             } catch (SQLiteDoneException e) {
@@ -524,6 +549,46 @@ public class MyQuery {
         return getLongs(sql);
     }
 
+    /**
+     * The same as {@link #getMyFollowersOf(long)} but for many users at once, using one query
+     * @param sqlUserIds SQL condition for the followed users' IDs, e.g. "=5" or " IN (...)"
+     * @return MyAccounts' userIDs, mapped by the followed userId. Users without my followers are absent
+     */
+    @NonNull
+    public static Map<Long, Set<Long>> getMyFollowersOf(String sqlUserIds) {
+        Map<Long, Set<Long>> followers = new HashMap<>();
+        SelectedUserIds selectedAccounts = new SelectedUserIds(Timeline.getEmpty(null));
+        if (selectedAccounts.size() == 0 || TextUtils.isEmpty(sqlUserIds)) {
+            return followers;
+        }
+        String sql = "SELECT " + FriendshipTable.FRIEND_ID + ", " + FriendshipTable.USER_ID
+                + " FROM " + FriendshipTable.TABLE_NAME
+                + " WHERE " + FriendshipTable.USER_ID + selectedAccounts.getSql()
+                + " AND " + FriendshipTable.FRIEND_ID + sqlUserIds
+                + " AND " + FriendshipTable.FOLLOWED + "=1";
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        if (db == null) {
+            MyLog.v(TAG, "getMyFollowersOf; Database is null");
+            return followers;
+        }
+        Cursor c = null;
+        try {
+            c = db.rawQuery(sql, null);
+            while (c.moveToNext()) {
+                long friendId = c.getLong(0);
+                Set<Long> ids = followers.get(friendId);
+                if (ids == null) {
+                    ids = new HashSet<>();
+                    followers.put(friendId, ids);
+                }
+                ids.add(c.getLong(1));
+            }
+        } finally {
+            DbUtils.closeSilently(c);
+        }
+        return followers;
+    }
+
     /**
      * Newest replies are the first
      */
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.andstatus.app.database.MsgTable;
+import org.andstatus.app.util.MyHtml;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import java.util.regex.Pattern;
+
+/**
+ * Text of a message body, cleaned of markup and formatting, and its hash.
+ * Used to find duplicated messages. It is computed once, when a message is stored,
+ * see {@link MsgTable#BODY_NORMALIZED} and {@link MsgTable#BODY_HASH}
+ * @author yvolk@yurivolkov.com
+ */
+public class NormalizedBody {
+    private static final Pattern NEWLINE = Pattern.compile("\n");
+    private static final Pattern DOUBLE_SPACE = Pattern.compile("  ");
+    private static final Pattern FAVORITED_PREFIX = Pattern.compile(".*(favorited something by.*)");
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    public static final NormalizedBody EMPTY = fromBody("");
+
+    @NonNull
+    public final String text;
+    /** Never 0, so 0 in the database means "not computed yet" */
+    public final long hash;
+
+    private NormalizedBody(@NonNull String text) {
+        this(text, hashOf(text));
+    }
+
+    private NormalizedBody(@NonNull String text, long hash) {
+        this.text = text;
+        this.hash = hash;
+    }
+
+    @NonNull
+    public static NormalizedBody fromBody(String body) {
+        String out = MyHtml.fromHtml(body).toLowerCase();
+        out = StringEscapeUtils.unescapeHtml4(out);
+        out = NEWLINE.matcher(out).replaceAll(" ");
+        out = DOUBLE_SPACE.matcher(out).replaceAll(" ");
+        out = FAVORITED_PREFIX.matcher(out).replaceFirst("$1");
+        return new NormalizedBody(out);
+    }
+
+    /** @return null if the values were not stored or not included into the projection */
+    @Nullable
+    public static NormalizedBody fromCursor(Cursor cursor) {
+        int hashIndex = cursor.getColumnIndex(MsgTable.BODY_HASH);
+        int textIndex = cursor.getColumnIndex(MsgTable.BODY_NORMALIZED);
+        if (hashIndex < 0 || textIndex < 0 || cursor.getLong(hashIndex) == 0 || cursor.isNull(textIndex)) {
+            return null;
+        }
+        return new NormalizedBody(cursor.getString(textIndex), cursor.getLong(hashIndex));
+    }
+
+    public void toContentValues(ContentValues values) {
+        values.put(MsgTable.BODY_NORMALIZED, text);
+        values.put(MsgTable.BODY_HASH, hash);
+    }
+
+    /** 64-bit FNV-1a hash of the text */
+    static long hashOf(String text) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    public boolean isSameText(NormalizedBody other) {
+        return hash == other.hash && text.equals(other.text);
+    }
+
+    public int length() {
+        return text.length();
+    }
+}
@@ -54,6 +54,8 @@ public class ProjectionMap {
         MSG.put(MsgTable.SENDER_ID, MsgTable.SENDER_ID);
         MSG.put(UserTable.SENDER_NAME, UserTable.SENDER_NAME);
         MSG.put(MsgTable.BODY, MsgTable.BODY);
+        MSG.put(MsgTable.BODY_NORMALIZED, MsgTable.BODY_NORMALIZED);
+        MSG.put(MsgTable.BODY_HASH, MsgTable.BODY_HASH);
         MSG.put(MsgTable.VIA, MsgTable.VIA);
         MSG.put(MsgTable.URL, MsgTable.URL);
         MSG.put(MsgTable.IN_REPLY_TO_MSG_ID, MsgTable.IN_REPLY_TO_MSG_ID);
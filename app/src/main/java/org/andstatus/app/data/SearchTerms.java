@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import org.andstatus.app.database.SearchTermTable;
+import org.andstatus.app.net.social.MbUser;
+import org.andstatus.app.service.CommandMetrics;
+import org.andstatus.app.util.MyLog;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hashtags, usernames and search queries, which are suggested while a User types a search query.
+ * The terms are collected incrementally, as messages are downloaded and queries are entered,
+ * see {@link SearchTermTable}.
+ * Terms of the downloaded messages are collected by an instance of this class
+ * and are saved in one transaction, together with the {@link LatestUserMessages}
+ * @author yvolk@yurivolkov.com
+ */
+public class SearchTerms {
+    private static final String TAG = SearchTerms.class.getSimpleName();
+    /** Only the most used terms are kept by the {@link DataPruner} */
+    static final int MAX_ROWS = 5000;
+    public static final int MAX_TERM_LENGTH = 100;
+    /** Letters and digits of any language. "\w" matches ASCII only, unless UNICODE_CHARACTER_CLASS (API 24) is set */
+    private static final String HASHTAG_CHARS = "\\p{L}\\p{M}\\p{N}_";
+    private static final Pattern HASHTAG_PATTERN = Pattern.compile(
+            "(?<![" + HASHTAG_CHARS + "&/])#([" + HASHTAG_CHARS + "]+)");
+
+    public enum TermType {
+        HASHTAG(1, "#"),
+        USERNAME(2, "@"),
+        QUERY(3, "");
+
+        final long id;
+        final String prefix;
+
+        TermType(long id, String prefix) {
+            this.id = id;
+            this.prefix = prefix;
+        }
+    }
+
+    /** Terms to save mapped to the number of messages, which used them */
+    private final Map<String, Integer> hashtags = new LinkedHashMap<>();
+    private final Map<String, Integer> usernames = new LinkedHashMap<>();
+
+    /**
+     * Collects hashtags of the body and usernames of the sender and of the mentioned users
+     * @param bodyText the body without html markup, see {@link MentionsExtractor#getBodyText()}
+     */
+    public void onMessageInserted(String bodyText, MbUser sender, List<MbUser> users) {
+        for (String hashtag : getHashtags(bodyText)) {
+            increment(hashtags, hashtag);
+        }
+        Set<String> messageUsernames = new LinkedHashSet<>();
+        if (sender != null) {
+            messageUsernames.add(sender.getUserName());
+        }
+        for (MbUser user : users) {
+            messageUsernames.add(user.getUserName());
+        }
+        for (String username : messageUsernames) {
+            increment(usernames, username);
+        }
+    }
+
+    private static void increment(Map<String, Integer> terms, String term) {
+        if (TextUtils.isEmpty(term)) {
+            return;
+        }
+        Integer count = terms.get(term);
+        terms.put(term, count == null ? 1 : count + 1);
+    }
+
+    /** Saves the collected terms in one transaction */
+    public void save(SQLiteDatabase db) {
+        if (db == null || (hashtags.isEmpty() && usernames.isEmpty())) {
+            return;
+        }
+        long usedDate = System.currentTimeMillis();
+        try {
+            db.beginTransaction();
+            try {
+                for (Map.Entry<String, Integer> entry : hashtags.entrySet()) {
+                    add(db, TermType.HASHTAG, entry.getKey(), usedDate, entry.getValue());
+                }
+                for (Map.Entry<String, Integer> entry : usernames.entrySet()) {
+                    add(db, TermType.USERNAME, entry.getKey(), usedDate, entry.getValue());
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            CommandMetrics.onDbWrite(usedDate, hashtags.size() + usernames.size(), 1);
+            hashtags.clear();
+            usernames.clear();
+        } catch (Exception e) {
+            MyLog.e(TAG, "save", e);
+        }
+    }
+
+    public static void onQuery(SQLiteDatabase db, String query) {
+        if (db == null) {
+            return;
+        }
+        try {
+            add(db, TermType.QUERY, query, System.currentTimeMillis(), 1);
+        } catch (Exception e) {
+            MyLog.e(TAG, "onQuery", e);
+        }
+    }
+
+    /** Deletes the queries, when the recent queries of the {@link TimelineSearchSuggestionsProvider} are cleared */
+    static void clearQueries(SQLiteDatabase db) {
+        if (db == null) {
+            return;
+        }
+        try {
+            long deleted = db.delete(SearchTermTable.TABLE_NAME,
+                    SearchTermTable.TERM_TYPE + "=" + TermType.QUERY.id, null);
+            MyLog.v(TAG, "Cleared " + deleted + " queries");
+        } catch (Exception e) {
+            MyLog.e(TAG, "clearQueries", e);
+        }
+    }
+
+    @NonNull
+    static Set<String> getHashtags(String bodyText) {
+        Set<String> hashtags = new LinkedHashSet<>();
+        if (!TextUtils.isEmpty(bodyText)) {
+            Matcher matcher = HASHTAG_PATTERN.matcher(bodyText);
+            while (matcher.find()) {
+                hashtags.add(matcher.group(1));
+            }
+        }
+        return hashtags;
+    }
+
+    private static void add(SQLiteDatabase db, TermType termType, String termIn, long usedDate, int count) {
+        String key = toKey(termIn);
+        if (TextUtils.isEmpty(key) || key.length() > MAX_TERM_LENGTH) {
+            return;
+        }
+        String term = termType.prefix + (termType == TermType.QUERY ? termIn.trim() : stripPrefix(termIn.trim()));
+        db.execSQL("INSERT OR IGNORE INTO " + SearchTermTable.TABLE_NAME + " ("
+                + SearchTermTable.TERM_KEY + ", "
+                + SearchTermTable.TERM + ", "
+                + SearchTermTable.TERM_TYPE
+                + ") VALUES (?, ?, " + termType.id + ")", new Object[]{key, term});
+        // The latest spelling of the term is shown
+        db.execSQL("UPDATE " + SearchTermTable.TABLE_NAME + " SET "
+                + SearchTermTable.TERM + "=?, "
+                + SearchTermTable.USE_COUNT + "=" + SearchTermTable.USE_COUNT + "+" + count + ", "
+                + SearchTermTable.LAST_USED_DATE + "=" + usedDate
+                + " WHERE " + SearchTermTable.TERM_KEY + "=?"
+                + " AND " + SearchTermTable.TERM_TYPE + "=" + termType.id, new Object[]{term, key});
+    }
+
+    /**
+     * @param text The text typed by a User. Leading "#" or "@" limits suggestions to hashtags or usernames
+     * @return Terms, which start with the text, the most used first
+     */
+    @NonNull
+    public static List<String> suggest(SQLiteDatabase db, String text, int limit) {
+        List<String> terms = new ArrayList<>();
+        if (db == null || TextUtils.isEmpty(text) || TextUtils.isEmpty(text.trim())) {
+            return terms;
+        }
+        String textTrimmed = text.trim();
+        String key = toKey(textTrimmed);
+        TermType termType = null;
+        for (TermType type : TermType.values()) {
+            if (!TextUtils.isEmpty(type.prefix) && textTrimmed.startsWith(type.prefix)) {
+                termType = type;
+            }
+        }
+        // The range condition uses the unique index on the key, so only matching rows are read and sorted
+        String sql = "SELECT " + SearchTermTable.TERM
+                + " FROM " + SearchTermTable.TABLE_NAME
+                + " WHERE " + SearchTermTable.TERM_KEY + ">=? AND " + SearchTermTable.TERM_KEY + "<?"
+                + (termType == null ? "" : " AND " + SearchTermTable.TERM_TYPE + "=" + termType.id)
+                + " ORDER BY " + SearchTermTable.USE_COUNT + " DESC, " + SearchTermTable.LAST_USED_DATE + " DESC"
+                + " LIMIT " + limit;
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(sql, new String[]{key, key + "\uffff"});
+            while (cursor.moveToNext()) {
+                terms.add(cursor.getString(0));
+            }
+        } catch (Exception e) {
+            MyLog.i(TAG, "suggest; text='" + text + "'", e);
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+        return terms;
+    }
+
+    /** Deletes the least used terms over the {@link #MAX_ROWS} */
+    static long prune(SQLiteDatabase db) {
+        long deleted = db.delete(SearchTermTable.TABLE_NAME, SearchTermTable._ID + " NOT IN (SELECT "
+                + SearchTermTable._ID + " FROM " + SearchTermTable.TABLE_NAME
+                + " ORDER BY " + SearchTermTable.USE_COUNT + " DESC, " + SearchTermTable.LAST_USED_DATE + " DESC"
+                + " LIMIT " + MAX_ROWS + ")", null);
+        MyLog.v(TAG, "Pruned " + deleted + " search terms");
+        return deleted;
+    }
+
+    /** The key is used to find a term regardless of its case and prefix */
+    @NonNull
+    public static String toKey(String term) {
+        if (TextUtils.isEmpty(term)) {
+            return "";
+        }
+        return stripPrefix(term.trim()).toLowerCase(Locale.US);
+    }
+
+    private static String stripPrefix(String term) {
+        if (term.startsWith(TermType.HASHTAG.prefix) || term.startsWith(TermType.USERNAME.prefix)) {
+            return term.substring(1);
+        }
+        return term;
+    }
+}
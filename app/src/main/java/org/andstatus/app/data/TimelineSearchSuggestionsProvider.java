@@ -16,21 +16,84 @@
 
 package org.andstatus.app.data;
 
+import android.app.SearchManager;
 import android.content.SearchRecentSuggestionsProvider;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.provider.BaseColumns;
+import android.text.TextUtils;
 
 import org.andstatus.app.ClassInApplicationPackage;
+import org.andstatus.app.context.MyContext;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.util.MyLog;
+
+import java.util.List;
 
 /**
- * TODO: Extend as in http://www.grokkingandroid.com/android-tutorial-adding-suggestions-to-search/
+ * Suggests hashtags, usernames and previous queries, which start with the typed text,
+ * see {@link SearchTerms}.
+ * Recent queries of the {@link SearchRecentSuggestionsProvider} are shown, when nothing is typed yet
+ * or when nothing was found. Clearing the recent queries clears the queries of the {@link SearchTerms} also
  */
 public class TimelineSearchSuggestionsProvider extends SearchRecentSuggestionsProvider {
     /** Note: This is historical constant, remained to preserve compatibility without reinstallation */
     public static final String AUTHORITY = ClassInApplicationPackage.PACKAGE_NAME + ".data.TimelineSuggestionProvider";
     public static final String DATABASE_NAME = "suggestions.db";
     public static final int MODE = DATABASE_MODE_QUERIES;
-    
+    static final int DEFAULT_LIMIT = 20;
+    private static final String[] COLUMNS = {BaseColumns._ID, SearchManager.SUGGEST_COLUMN_TEXT_1,
+            SearchManager.SUGGEST_COLUMN_QUERY};
+
     public TimelineSearchSuggestionsProvider() {
         super();
         setupSuggestions(AUTHORITY, MODE);
     }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        String text = selectionArgs == null || selectionArgs.length == 0 ? "" : selectionArgs[0];
+        MyContext myContext = MyContextHolder.get();
+        if (!TextUtils.isEmpty(text) && myContext.isReady()) {
+            long startedAt = System.currentTimeMillis();
+            List<String> terms = SearchTerms.suggest(myContext.getDatabase(), text, getLimit(uri));
+            if (MyLog.isVerboseEnabled()) {
+                MyLog.v(this, "query '" + text + "'; " + terms.size() + " suggestions in "
+                        + (System.currentTimeMillis() - startedAt) + " ms");
+            }
+            if (!terms.isEmpty()) {
+                MatrixCursor cursor = new MatrixCursor(COLUMNS, terms.size());
+                long id = 0;
+                for (String term : terms) {
+                    cursor.addRow(new Object[]{++id, term, term});
+                }
+                return cursor;
+            }
+        }
+        return super.query(uri, projection, selection, selectionArgs, sortOrder);
+    }
+
+    /** The whole history is deleted without a selection, see {@link android.provider.SearchRecentSuggestions#clearHistory()} */
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        int count = super.delete(uri, selection, selectionArgs);
+        MyContext myContext = MyContextHolder.get();
+        if (TextUtils.isEmpty(selection) && myContext.isReady()) {
+            SearchTerms.clearQueries(myContext.getDatabase());
+        }
+        return count;
+    }
+
+    private static int getLimit(Uri uri) {
+        String limit = uri == null ? null : uri.getQueryParameter(SearchManager.SUGGEST_PARAMETER_LIMIT);
+        if (!TextUtils.isEmpty(limit)) {
+            try {
+                return Math.max(1, Integer.parseInt(limit));
+            } catch (NumberFormatException e) {
+                MyLog.v(TimelineSearchSuggestionsProvider.class, "Wrong limit: " + limit);
+            }
+        }
+        return DEFAULT_LIMIT;
+    }
 }
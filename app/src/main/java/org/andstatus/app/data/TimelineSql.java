@@ -277,6 +277,8 @@ public class TimelineSql {
         columnNames.add(MsgTable.ORIGIN_ID);
         columnNames.add(UserTable.AUTHOR_NAME);
         columnNames.add(MsgTable.BODY);
+        columnNames.add(MsgTable.BODY_NORMALIZED);
+        columnNames.add(MsgTable.BODY_HASH);
         columnNames.add(MsgTable.IN_REPLY_TO_MSG_ID);
         columnNames.add(UserTable.IN_REPLY_TO_NAME);
         columnNames.add(UserTable.RECIPIENT_NAME);
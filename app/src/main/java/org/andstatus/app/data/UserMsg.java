@@ -22,6 +22,7 @@ import android.provider.BaseColumns;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.database.MsgTable;
 import org.andstatus.app.database.UserTable;
+import org.andstatus.app.service.CommandMetrics;
 import org.andstatus.app.util.MyLog;
 
 import java.util.Date;
@@ -62,8 +63,9 @@ public final class UserMsg {
         if (userId == 0) {
             throw new IllegalArgumentException(TAG + ": userId==0");
         }
-        lastMsgId = MyQuery.userIdToLongColumnValue(UserTable.USER_MSG_ID, userId);
-        lastMsgDate = MyQuery.userIdToLongColumnValue(UserTable.USER_MSG_DATE, userId);
+        UserRow row = UserRow.fromId(userId);
+        lastMsgId = row.userMsgId;
+        lastMsgDate = row.userMsgDate;
     }
 
     /**
@@ -153,7 +155,9 @@ public final class UserMsg {
                 MyLog.v(this, "Database is null");
                 return false;
             }
+            long startedAt = System.currentTimeMillis();
             db.execSQL(sql);
+            CommandMetrics.onDbWrite(startedAt, 1, 1);
             
             changed = false;
         } catch (Exception e) {
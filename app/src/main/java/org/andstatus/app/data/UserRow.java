@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.andstatus.app.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+import android.support.annotation.NonNull;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.database.UserTable;
+import org.andstatus.app.util.MyLog;
+
+/**
+ * Columns of a user, that are often needed together, loaded with one query
+ * @author yvolk@yurivolkov.com
+ */
+public class UserRow {
+    public static final UserRow EMPTY = new UserRow();
+
+    public final long id;
+    public final long originId;
+    @NonNull
+    public final String oid;
+    @NonNull
+    public final String webFingerId;
+    /** See {@link UserTable#USER_MSG_ID} */
+    public final long userMsgId;
+    /** See {@link UserTable#USER_MSG_DATE} */
+    public final long userMsgDate;
+
+    private UserRow() {
+        id = 0;
+        originId = 0;
+        oid = "";
+        webFingerId = "";
+        userMsgId = 0;
+        userMsgDate = 0;
+    }
+
+    private UserRow(Cursor cursor) {
+        id = DbUtils.getLong(cursor, BaseColumns._ID);
+        originId = DbUtils.getLong(cursor, UserTable.ORIGIN_ID);
+        oid = DbUtils.getString(cursor, UserTable.USER_OID);
+        webFingerId = DbUtils.getString(cursor, UserTable.WEBFINGER_ID);
+        userMsgId = DbUtils.getLong(cursor, UserTable.USER_MSG_ID);
+        userMsgDate = DbUtils.getLong(cursor, UserTable.USER_MSG_DATE);
+    }
+
+    /** @return {@link #EMPTY} if not found */
+    @NonNull
+    public static UserRow fromId(long userId) {
+        final String method = "UserRow";
+        if (userId == 0) {
+            return EMPTY;
+        }
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        if (db == null) {
+            MyLog.v(MyQuery.TAG, method + "; database is null");
+            return EMPTY;
+        }
+        String sql = "SELECT " + BaseColumns._ID
+                + ", " + UserTable.ORIGIN_ID
+                + ", " + UserTable.USER_OID
+                + ", " + UserTable.WEBFINGER_ID
+                + ", " + UserTable.USER_MSG_ID
+                + ", " + UserTable.USER_MSG_DATE
+                + " FROM " + UserTable.TABLE_NAME
+                + " WHERE " + BaseColumns._ID + "=" + userId;
+        UserRow row = EMPTY;
+        Cursor cursor = null;
+        try {
+            MyQuery.onQuery();
+            cursor = db.rawQuery(sql, null);
+            if (cursor.moveToFirst()) {
+                row = new UserRow(cursor);
+            }
+        } catch (Exception e) {
+            MyLog.e(MyQuery.TAG, method + "; sql='" + sql + "'", e);
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+        return row;
+    }
+
+    public boolean isEmpty() {
+        return id == 0;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "UserRow:EMPTY" : MyLog.formatKeyValue("UserRow", "id:" + id + ", oid:'" + oid
+                + "', webFingerId:'" + webFingerId + "'");
+    }
+}
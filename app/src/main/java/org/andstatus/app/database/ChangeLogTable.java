@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+import android.text.TextUtils;
+
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.data.MyQuery;
+
+/**
+ * Keys of the rows, which were inserted, updated or deleted in the {@link Tracked} tables.
+ * The table is filled by triggers and is used to create incremental backups
+ * @author yvolk@yurivolkov.com
+ */
+public final class ChangeLogTable implements BaseColumns {
+    public static final String TABLE_NAME = "change_log";
+    private ChangeLogTable() {
+    }
+
+    /** Name of the changed table */
+    public static final String CHANGED_TABLE = "changed_table";
+    /** The first column of the key of the changed row */
+    public static final String KEY1 = "key1";
+    /** The second column of the key of the changed row, 0 for tables with one column keys */
+    public static final String KEY2 = "key2";
+
+    /**
+     * Local data, which is cleared in backups, so its changes are not tracked.
+     * All other tables, except this one, should be {@link Tracked}
+     */
+    public static final String[] NOT_BACKED_UP = {CommandMetricsTable.TABLE_NAME, SearchTermTable.TABLE_NAME};
+
+    /** Tables, changes of which are being tracked */
+    public enum Tracked {
+        MSG(MsgTable.TABLE_NAME, BaseColumns._ID, ""),
+        USER(UserTable.TABLE_NAME, BaseColumns._ID, ""),
+        MSG_OF_USER(MsgOfUserTable.TABLE_NAME, MsgOfUserTable.USER_ID, MsgOfUserTable.MSG_ID),
+        FRIENDSHIP(FriendshipTable.TABLE_NAME, FriendshipTable.USER_ID, FriendshipTable.FRIEND_ID),
+        DOWNLOAD(DownloadTable.TABLE_NAME, BaseColumns._ID, ""),
+        ORIGIN(OriginTable.TABLE_NAME, BaseColumns._ID, ""),
+        TIMELINE(TimelineTable.TABLE_NAME, BaseColumns._ID, ""),
+        COMMAND(CommandTable.TABLE_NAME, BaseColumns._ID, "");
+
+        public final String tableName;
+        public final String keyColumn1;
+        public final String keyColumn2;
+
+        Tracked(String tableName, String keyColumn1, String keyColumn2) {
+            this.tableName = tableName;
+            this.keyColumn1 = keyColumn1;
+            this.keyColumn2 = keyColumn2;
+        }
+
+        public boolean hasKey2() {
+            return !TextUtils.isEmpty(keyColumn2);
+        }
+
+        private String keyValues(String row) {
+            return "'" + tableName + "', " + row + "." + keyColumn1 + ", " + (hasKey2() ? row + "." + keyColumn2 : "0");
+        }
+
+        private String keyChanged() {
+            return "OLD." + keyColumn1 + "!=NEW." + keyColumn1
+                    + (hasKey2() ? " OR OLD." + keyColumn2 + "!=NEW." + keyColumn2 : "");
+        }
+
+        private void createTriggers(SQLiteDatabase db) {
+            String insert = "INSERT INTO " + TABLE_NAME + " (" + CHANGED_TABLE + ", " + KEY1 + ", " + KEY2 + ")";
+            String prefix = "CREATE TRIGGER IF NOT EXISTS " + triggerPrefix();
+            DbUtils.execSQL(db, prefix + "_ins AFTER INSERT ON " + tableName + " BEGIN "
+                    + insert + " VALUES (" + keyValues("NEW") + "); END");
+            DbUtils.execSQL(db, prefix + "_upd AFTER UPDATE ON " + tableName + " BEGIN "
+                    + insert + " VALUES (" + keyValues("NEW") + "); "
+                    + insert + " SELECT " + keyValues("OLD") + " WHERE " + keyChanged() + "; END");
+            DbUtils.execSQL(db, prefix + "_del AFTER DELETE ON " + tableName + " BEGIN "
+                    + insert + " VALUES (" + keyValues("OLD") + "); END");
+        }
+    }
+
+        private void dropTriggers(SQLiteDatabase db) {
+            for (String suffix : new String[]{"_ins", "_upd", "_del"}) {
+                DbUtils.execSQL(db, "DROP TRIGGER IF EXISTS " + triggerPrefix() + suffix);
+            }
+        }
+
+        private String triggerPrefix() {
+            return "tr_" + tableName + "_" + TABLE_NAME;
+        }
+    }
+
+    /** Triggers of the tables, which exist in the database */
+    public static void createTriggers(SQLiteDatabase db) {
+        for (Tracked tracked : Tracked.values()) {
+            if (tableExists(db, tracked.tableName)) {
+                tracked.createTriggers(db);
+            }
+        }
+    }
+
+    public static void dropTriggers(SQLiteDatabase db) {
+        for (Tracked tracked : Tracked.values()) {
+            tracked.dropTriggers(db);
+        }
+    }
+
+    public static boolean exists(SQLiteDatabase db) {
+        return tableExists(db, TABLE_NAME);
+    }
+
+    private static boolean tableExists(SQLiteDatabase db, String tableName) {
+        return MyQuery.sqlToLong(db, TABLE_NAME, "SELECT count(*) FROM sqlite_master WHERE type='table'"
+                + " AND name='" + tableName + "'") > 0;
+    }
+
+    public static void create(SQLiteDatabase db) {
+        DbUtils.execSQL(db, "CREATE TABLE " + TABLE_NAME + " ("
+                + _ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + CHANGED_TABLE + " TEXT NOT NULL,"
+                + KEY1 + " INTEGER NOT NULL,"
+                + KEY2 + " INTEGER DEFAULT 0 NOT NULL"
+                + ")");
+        for (Tracked tracked : Tracked.values()) {
+            tracked.createTriggers(db);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+
+import org.andstatus.app.data.DbUtils;
+
+/**
+ * Metrics of recently executed commands, one row per execution.
+ * Only the last {@link #MAX_ROWS} rows are kept
+ * @author yvolk@yurivolkov.com
+ */
+public final class CommandMetricsTable implements BaseColumns {
+    public static final String TABLE_NAME = "command_metrics";
+    public static final int MAX_ROWS = 1000;
+    /** The oldest rows are deleted when an id of the inserted row is a multiple of this number */
+    public static final int PRUNE_EVERY_ROWS = 100;
+
+    private CommandMetricsTable() {
+        // Empty
+    }
+
+    public static final String COMMAND_CODE = CommandTable.COMMAND_CODE;
+    public static final String ORIGIN_ID = CommandTable.ORIGIN_ID;
+    public static final String ACCOUNT_ID = CommandTable.ACCOUNT_ID;
+    public static final String EXECUTED_DATE = "executed_date";
+
+    /** Time from the command creation or from its previous execution till the start of this execution */
+    public static final String QUEUE_WAIT_MS = "queue_wait_ms";
+    public static final String WALL_TIME_MS = "wall_time_ms";
+    /** Time of waiting for HTTP responses, including reading of their bodies */
+    public static final String NETWORK_MS = "network_ms";
+    /** Bytes of the response bodies */
+    public static final String BYTES = "bytes";
+    public static final String PARSE_MS = "parse_ms";
+    public static final String DB_WRITE_MS = "db_write_ms";
+    public static final String DB_ROWS = "db_rows";
+    public static final String DB_TRANSACTIONS = "db_transactions";
+    public static final String HAS_ERROR = "has_error";
+
+    public static void create(SQLiteDatabase db) {
+        DbUtils.execSQL(db, "CREATE TABLE " + TABLE_NAME + " ("
+                + _ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + COMMAND_CODE + " TEXT NOT NULL,"
+                + ORIGIN_ID + " INTEGER DEFAULT 0 NOT NULL,"
+                + ACCOUNT_ID + " INTEGER DEFAULT 0 NOT NULL,"
+                + EXECUTED_DATE + " INTEGER NOT NULL,"
+                + QUEUE_WAIT_MS + " INTEGER DEFAULT 0 NOT NULL,"
+                + WALL_TIME_MS + " INTEGER DEFAULT 0 NOT NULL,"
+                + NETWORK_MS + " INTEGER DEFAULT 0 NOT NULL,"
+                + BYTES + " INTEGER DEFAULT 0 NOT NULL,"
+                + PARSE_MS + " INTEGER DEFAULT 0 NOT NULL,"
+                + DB_WRITE_MS + " INTEGER DEFAULT 0 NOT NULL,"
+                + DB_ROWS + " INTEGER DEFAULT 0 NOT NULL,"
+                + DB_TRANSACTIONS + " INTEGER DEFAULT 0 NOT NULL,"
+                + HAS_ERROR + " BOOLEAN DEFAULT 0 NOT NULL"
+                + ")");
+    }
+}
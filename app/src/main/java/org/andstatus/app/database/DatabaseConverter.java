@@ -18,14 +18,19 @@ package org.andstatus.app.database;
 
 import android.app.Activity;
 import android.app.ProgressDialog;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import org.andstatus.app.R;
 import org.andstatus.app.account.MyAccountConverter;
+import org.andstatus.app.backup.ChangeLog;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyStorage;
 import org.andstatus.app.data.ApplicationUpgradeException;
 import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.data.NormalizedBody;
+import org.andstatus.app.data.SearchTerms;
 import org.andstatus.app.util.DialogFactory;
 import org.andstatus.app.util.FileUtils;
 import org.andstatus.app.util.MyLog;
@@ -118,6 +123,7 @@ class DatabaseConverter {
         boolean converterNotFound = false;
         String lastError = "?";
         OneStep oneStep;
+        ChangeLog.suspendTracking(db);
         do {
             oneStep = null;
             try {
@@ -147,6 +153,7 @@ class DatabaseConverter {
         } while (oneStep != null && currentVersion < newVersion);
 
         if (currentVersion == newVersion) {
+            ChangeLog.resumeTracking(db);
             MyLog.i(this, "Successfully upgraded database from version " + oldVersion + " to version "
                     + newVersion + ".");
         } else {
@@ -414,4 +421,172 @@ class DatabaseConverter {
             DbUtils.execSQL(db, sql);
         }
     }
+
+    static class Convert25 extends OneStep {
+        @Override
+        protected void execute2() {
+            versionTo = 26;
+
+            sql = "CREATE TABLE change_log (_id INTEGER PRIMARY KEY AUTOINCREMENT,changed_table TEXT NOT NULL,key1 INTEGER NOT NULL,key2 INTEGER DEFAULT 0 NOT NULL)";
+            DbUtils.execSQL(db, sql);
+
+            String[][] tables = {
+                    {"msg", "_id", ""},
+                    {"user", "_id", ""},
+                    {"msgofuser", "user_id", "msg_id"},
+                    {"followinguser", "user_id", "following_user_id"},
+                    {"download", "_id", ""}};
+            for (String[] table : tables) {
+                String insert = "INSERT INTO change_log (changed_table, key1, key2)";
+                String newKey = "'" + table[0] + "', NEW." + table[1] + ", " + (table[2].isEmpty() ? "0" : "NEW." + table[2]);
+                String oldKey = newKey.replace("NEW.", "OLD.");
+                String keyChanged = "OLD." + table[1] + "!=NEW." + table[1]
+                        + (table[2].isEmpty() ? "" : " OR OLD." + table[2] + "!=NEW." + table[2]);
+                sql = "CREATE TRIGGER tr_" + table[0] + "_change_log_ins AFTER INSERT ON " + table[0]
+                        + " BEGIN " + insert + " VALUES (" + newKey + "); END";
+                DbUtils.execSQL(db, sql);
+                sql = "CREATE TRIGGER tr_" + table[0] + "_change_log_upd AFTER UPDATE ON " + table[0]
+                        + " BEGIN " + insert + " VALUES (" + newKey + "); "
+                        + insert + " SELECT " + oldKey + " WHERE " + keyChanged + "; END";
+                DbUtils.execSQL(db, sql);
+                sql = "CREATE TRIGGER tr_" + table[0] + "_change_log_del AFTER DELETE ON " + table[0]
+                        + " BEGIN " + insert + " VALUES (" + oldKey + "); END";
+                DbUtils.execSQL(db, sql);
+            }
+        }
+    }
+
+    static class Convert26 extends OneStep {
+        private static final int ROWS_IN_TRANSACTION = 500;
+
+        @Override
+        protected void execute2() {
+            versionTo = 27;
+
+            sql = "ALTER TABLE msg ADD COLUMN body_normalized TEXT";
+            DbUtils.execSQL(db, sql);
+            sql = "ALTER TABLE msg ADD COLUMN body_hash INTEGER DEFAULT 0 NOT NULL";
+            DbUtils.execSQL(db, sql);
+
+            sql = "SELECT _id, body FROM msg";
+            Cursor cursor = null;
+            SQLiteStatement update = null;
+            long rowCount = 0;
+            try {
+                cursor = db.rawQuery(sql, null);
+                update = db.compileStatement("UPDATE msg SET body_normalized=?, body_hash=? WHERE _id=?");
+                db.beginTransaction();
+                try {
+                    while (cursor.moveToNext()) {
+                        NormalizedBody normalized = NormalizedBody.fromBody(cursor.getString(1));
+                        update.bindString(1, normalized.text);
+                        update.bindLong(2, normalized.hash);
+                        update.bindLong(3, cursor.getLong(0));
+                        update.executeUpdateDelete();
+                        rowCount++;
+                        if (rowCount % ROWS_IN_TRANSACTION == 0) {
+                            db.setTransactionSuccessful();
+                            db.endTransaction();
+                            db.beginTransaction();
+                        }
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            } finally {
+                DbUtils.closeSilently(update);
+                DbUtils.closeSilently(cursor);
+            }
+            MyLog.i(this, "Normalized bodies of " + rowCount + " messages");
+        }
+    }
+
+    static class Convert27 extends OneStep {
+        @Override
+        protected void execute2() {
+            versionTo = 28;
+
+            sql = "ALTER TABLE origin ADD COLUMN max_connections INTEGER DEFAULT 0 NOT NULL";
+            DbUtils.execSQL(db, sql);
+        }
+    }
+
+    static class Convert28 extends OneStep {
+        @Override
+        protected void execute2() {
+            versionTo = 29;
+
+            sql = "CREATE TABLE command_metrics (_id INTEGER PRIMARY KEY AUTOINCREMENT,command_code TEXT NOT NULL,origin_id INTEGER DEFAULT 0 NOT NULL,account_id INTEGER DEFAULT 0 NOT NULL,executed_date INTEGER NOT NULL,queue_wait_ms INTEGER DEFAULT 0 NOT NULL,wall_time_ms INTEGER DEFAULT 0 NOT NULL,network_ms INTEGER DEFAULT 0 NOT NULL,bytes INTEGER DEFAULT 0 NOT NULL,parse_ms INTEGER DEFAULT 0 NOT NULL,db_write_ms INTEGER DEFAULT 0 NOT NULL,db_rows INTEGER DEFAULT 0 NOT NULL,db_transactions INTEGER DEFAULT 0 NOT NULL,has_error BOOLEAN DEFAULT 0 NOT NULL)";
+            DbUtils.execSQL(db, sql);
+        }
+    }
+
+    static class Convert29 extends OneStep {
+        @Override
+        protected void execute2() {
+            versionTo = 30;
+
+            sql = "CREATE TABLE search_term (_id INTEGER PRIMARY KEY AUTOINCREMENT,term_key TEXT NOT NULL,term TEXT NOT NULL,term_type INTEGER NOT NULL,use_count INTEGER DEFAULT 0 NOT NULL,last_used_date INTEGER DEFAULT 0 NOT NULL)";
+            DbUtils.execSQL(db, sql);
+            sql = "CREATE UNIQUE INDEX idx_search_term_key ON search_term (term_key, term_type)";
+            DbUtils.execSQL(db, sql);
+
+            // Keys are lowercased here and not by SQLite's lower(), which changes ASCII letters only
+            sql = "SELECT username FROM user WHERE username IS NOT NULL AND username != ''";
+            Cursor cursor = null;
+            SQLiteStatement insert = null;
+            long rowCount = 0;
+            try {
+                cursor = db.rawQuery(sql, null);
+                insert = db.compileStatement("INSERT OR IGNORE INTO search_term"
+                        + " (term_key, term, term_type, use_count, last_used_date) VALUES (?, ?, 2, 1, 0)");
+                db.beginTransaction();
+                try {
+                    while (cursor.moveToNext()) {
+                        String username = cursor.getString(0);
+                        String key = SearchTerms.toKey(username);
+                        if (key.length() == 0 || key.length() > SearchTerms.MAX_TERM_LENGTH) {
+                            continue;
+                        }
+                        insert.bindString(1, key);
+                        insert.bindString(2, "@" + username.trim());
+                        insert.executeInsert();
+                        rowCount++;
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            } finally {
+                DbUtils.closeSilently(insert);
+                DbUtils.closeSilently(cursor);
+            }
+            MyLog.i(this, "Added " + rowCount + " usernames to search terms");
+        }
+    }
+
+    static class Convert30 extends OneStep {
+        @Override
+        protected void execute2() {
+            versionTo = 31;
+
+            String[] tables = {"origin", "timeline", "command"};
+            for (String table : tables) {
+                String insert = "INSERT INTO change_log (changed_table, key1, key2)";
+                sql = "CREATE TRIGGER tr_" + table + "_change_log_ins AFTER INSERT ON " + table
+                        + " BEGIN " + insert + " VALUES ('" + table + "', NEW._id, 0); END";
+                DbUtils.execSQL(db, sql);
+                sql = "CREATE TRIGGER tr_" + table + "_change_log_upd AFTER UPDATE ON " + table
+                        + " BEGIN " + insert + " VALUES ('" + table + "', NEW._id, 0); "
+                        + insert + " SELECT '" + table + "', OLD._id, 0 WHERE OLD._id!=NEW._id; END";
+                DbUtils.execSQL(db, sql);
+                sql = "CREATE TRIGGER tr_" + table + "_change_log_del AFTER DELETE ON " + table
+                        + " BEGIN " + insert + " VALUES ('" + table + "', OLD._id, 0); END";
+                DbUtils.execSQL(db, sql);
+            }
+            // Previous incremental backups don't have changes of these tables
+            ChangeLog.restartTracking(db);
+        }
+    }
 }
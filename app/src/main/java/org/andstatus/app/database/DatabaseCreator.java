@@ -33,6 +33,12 @@ public class DatabaseCreator {
      * This is used to check (and upgrade if necessary)
      * existing database after application update.
      *
+     * v.31 2016-07-26 app.v.27 Changes of Origin, Timeline and Command tables are tracked for incremental backups
+     * v.30 2016-07-25 app.v.27 SearchTermTable added for search suggestions
+     * v.29 2016-07-18 app.v.27 CommandMetricsTable added
+     * v.28 2016-07-04 app.v.27 Maximum number of connections added to Origin
+     * v.27 2016-06-27 app.v.27 Normalized body and its hash added to Msg to find duplicates
+     * v.26 2016-06-20 app.v.27 ChangeLogTable added for incremental backups
      * v.25 2016-06-07 app.v.27 TimelineTable and CommandTable added
      * v.24 2016-02-27 app.v.23 several attributes added to User, https://github.com/andstatus/andstatus/issues/320
      * v.23 2015-09-02 app.v.19 msg_status added for Unsent messages
@@ -55,7 +61,7 @@ public class DatabaseCreator {
      *      All messages are in the same table.
      *      Allows to have multiple User Accounts in different Originating systems (twitter.com etc. )
      */
-    public static final int DATABASE_VERSION = 25;
+    public static final int DATABASE_VERSION = 31;
     public static final long ORIGIN_ID_TWITTER =  1L;
 
     private final SQLiteDatabase db;
@@ -78,6 +84,9 @@ public class DatabaseCreator {
         OriginTable.create(db);
         TimelineTable.create(db);
         CommandTable.create(db);
+        ChangeLogTable.create(db);
+        CommandMetricsTable.create(db);
+        SearchTermTable.create(db);
         return this;
     }
 
@@ -17,18 +17,27 @@
 package org.andstatus.app.database;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
 import org.andstatus.app.context.MyContextState;
 import org.andstatus.app.context.MyStorage;
+import org.andstatus.app.data.DbUtils;
 import org.andstatus.app.util.MyLog;
 
+/**
+ * The database is opened in write-ahead logging mode, so queries of the UI run in parallel
+ * with writing during syncing: Android gives readers their own connections, while all writes
+ * go through the primary connection
+ */
 public final class DatabaseHolder extends SQLiteOpenHelper  {
     private final boolean creationEnabled;
     private boolean wasNotCreated = false;
 
     public static final String DATABASE_NAME = "andstatus.sqlite";
+    static final int CACHE_SIZE_KB = 4096;
+    static final long MMAP_SIZE_BYTES = 32L * 1024 * 1024;
 
     public DatabaseHolder(Context context, boolean creationEnabled) {
         super(context, DATABASE_NAME, null, DatabaseCreator.DATABASE_VERSION);
@@ -70,6 +79,70 @@ public final class DatabaseHolder extends SQLiteOpenHelper  {
         return state;
     }
     
+    /**
+     * Called for each opening of the database. Android (before API 28) has no hook for pragmas of each
+     * pooled connection: it opens reader connections on demand and sets their journal and synchronous modes
+     * from the platform configuration. So the pragmas are set here for the primary connection, which does
+     * all writes: the cache and memory mapping pragmas - before the write-ahead logging is enabled,
+     * while the pool has the primary connection only, and the synchronous mode - after that,
+     * because switching to the WAL mode resets it.
+     * In WAL mode "NORMAL" synchronization is durable except for the last transactions on a power loss,
+     * and it doesn't sync on every commit. Memory mapping is ignored by SQLite versions before 3.7.17
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        pragma(db, "cache_size=-" + CACHE_SIZE_KB);
+        pragma(db, "mmap_size=" + MMAP_SIZE_BYTES);
+        db.enableWriteAheadLogging();
+        pragma(db, "synchronous=NORMAL");
+    }
+
+    /** @return the first column of the pragma's result, or an empty string */
+    static String pragma(SQLiteDatabase db, String pragma) {
+        String value = "";
+        Cursor cursor = null;
+        try {
+            // Pragmas, returning a value, cannot be executed with execSQL
+            cursor = db.rawQuery("PRAGMA " + pragma, null);
+            if (cursor.moveToFirst() && cursor.getColumnCount() > 0) {
+                value = cursor.getString(0);
+            }
+        } catch (Exception e) {
+            MyLog.d(DatabaseHolder.class, "PRAGMA " + pragma, e);
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+        return value;
+    }
+
+    /**
+     * Copies changes from the write-ahead log into the database file, so the log doesn't grow
+     * and next reads don't need to look into it.
+     * @param full wait till writers finish, so the database file alone has all changes
+     *             (needed before copying the file)
+     */
+    public void checkpoint(boolean full) {
+        long startedAt = System.currentTimeMillis();
+        Cursor cursor = null;
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            if (db == null || !db.isWriteAheadLoggingEnabled()) {
+                return;
+            }
+            cursor = db.rawQuery("PRAGMA wal_checkpoint(" + (full ? "FULL" : "PASSIVE") + ")", null);
+            if (cursor.moveToFirst() && MyLog.isVerboseEnabled()) {
+                MyLog.v(this, "Checkpoint " + (full ? "full" : "passive") + "; busy:" + cursor.getInt(0)
+                        + ", log frames:" + cursor.getInt(1) + ", checkpointed:" + cursor.getInt(2)
+                        + ", " + (System.currentTimeMillis() - startedAt) + " ms");
+            }
+        } catch (Exception e) {
+            MyLog.d(this, "Checkpoint", e);
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         if (!creationEnabled) {
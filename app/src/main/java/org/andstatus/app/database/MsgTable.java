@@ -78,6 +78,14 @@ public final class MsgTable implements BaseColumns {
      * Text of the message ("TEXT" may be reserved word so it was renamed here)
      */
     public static final String BODY = "body";
+    /**
+     * Text of the {@link #BODY} without markup, in lower case, see {@link org.andstatus.app.data.NormalizedBody}
+     */
+    public static final String BODY_NORMALIZED = "body_normalized";
+    /**
+     * Hash of the {@link #BODY_NORMALIZED}, 0 if not computed yet
+     */
+    public static final String BODY_HASH = "body_hash";
     /**
      * String generally describing Client's software used to post this message
      * It's like "User Agent" string in the browsers?!: "via ..."
@@ -137,6 +145,8 @@ public final class MsgTable implements BaseColumns {
                 + MsgTable.SENDER_ID + " INTEGER,"
                 + MsgTable.RECIPIENT_ID + " INTEGER,"
                 + MsgTable.BODY + " TEXT,"
+                + MsgTable.BODY_NORMALIZED + " TEXT,"
+                + MsgTable.BODY_HASH + " INTEGER DEFAULT 0 NOT NULL,"
                 + MsgTable.VIA + " TEXT,"
                 + MsgTable.URL + " TEXT,"
                 + MsgTable.IN_REPLY_TO_MSG_ID + " INTEGER,"
@@ -47,6 +47,8 @@ public final class OriginTable implements BaseColumns {
     public static final String SHORT_URL_LENGTH = "short_url_length";
     public static final String MENTION_AS_WEBFINGER_ID = "mention_as_webfinger_id";
     public static final String USE_LEGACY_HTTP = "use_legacy_http";
+    /** Maximum number of simultaneous connections to the server, 0 means default */
+    public static final String MAX_CONNECTIONS = "max_connections";
     /**
      * Include this system in Global Search while in Combined Timeline
      */
@@ -69,6 +71,7 @@ public final class OriginTable implements BaseColumns {
                 + OriginTable.SHORT_URL_LENGTH + " INTEGER NOT NULL DEFAULT 0,"
                 + OriginTable.MENTION_AS_WEBFINGER_ID + " INTEGER DEFAULT " + TriState.UNKNOWN.getId() + " NOT NULL,"
                 + OriginTable.USE_LEGACY_HTTP + " INTEGER DEFAULT " + TriState.UNKNOWN.getId() + " NOT NULL,"
+                + OriginTable.MAX_CONNECTIONS + " INTEGER DEFAULT 0 NOT NULL,"
                 + OriginTable.IN_COMBINED_GLOBAL_SEARCH + " BOOLEAN DEFAULT 1 NOT NULL,"
                 + OriginTable.IN_COMBINED_PUBLIC_RELOAD + " BOOLEAN DEFAULT 1 NOT NULL"
                 + ")");
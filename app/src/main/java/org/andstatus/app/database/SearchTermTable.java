@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+
+import org.andstatus.app.data.DbUtils;
+
+/**
+ * Terms for search suggestions: hashtags, usernames and recent search queries.
+ * The unique index on the lowercase key and the type allows to find suggestions by a prefix
+ * using an index range scan
+ * @author yvolk@yurivolkov.com
+ */
+public final class SearchTermTable implements BaseColumns {
+    public static final String TABLE_NAME = "search_term";
+
+    private SearchTermTable() {
+        // Empty
+    }
+
+    /** Lowercase term without a leading "#" or "@" */
+    public static final String TERM_KEY = "term_key";
+    /** The term as it is shown to a User, e.g. "#AndStatus" */
+    public static final String TERM = "term";
+    /** See {@link org.andstatus.app.data.SearchTerms.TermType} */
+    public static final String TERM_TYPE = "term_type";
+    public static final String USE_COUNT = "use_count";
+    public static final String LAST_USED_DATE = "last_used_date";
+
+    public static void create(SQLiteDatabase db) {
+        DbUtils.execSQL(db, "CREATE TABLE " + TABLE_NAME + " ("
+                + _ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + TERM_KEY + " TEXT NOT NULL,"
+                + TERM + " TEXT NOT NULL,"
+                + TERM_TYPE + " INTEGER NOT NULL,"
+                + USE_COUNT + " INTEGER DEFAULT 0 NOT NULL,"
+                + LAST_USED_DATE + " INTEGER DEFAULT 0 NOT NULL"
+                + ")");
+
+        DbUtils.execSQL(db, "CREATE UNIQUE INDEX idx_search_term_key ON " + TABLE_NAME + " ("
+                + TERM_KEY + ", "
+                + TERM_TYPE
+                + ")");
+    }
+}
@@ -44,6 +44,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -63,6 +64,8 @@ public class MyDrawableCache extends LruCache<String, BitmapSubsetDrawable> {
     final AtomicLong misses = new AtomicLong();
     final Set<String> brokenBitmaps = new ConcurrentSkipListSet<>();
     final Queue<Bitmap> recycledBitmaps;
+    /** Bitmaps of the pool are allocated on demand, when images are being drawn */
+    private final AtomicInteger allocatedBitmaps = new AtomicInteger();
     final DisplayMetrics displayMetrics;
     volatile boolean rounded = false;
 
@@ -88,20 +91,6 @@ public class MyDrawableCache extends LruCache<String, BitmapSubsetDrawable> {
         this.requestedCacheSize = requestedCacheSizeIn;
         this.currentCacheSize = this.requestedCacheSize;
         recycledBitmaps = new ConcurrentLinkedQueue<>();
-        try {
-            for (int i = 0; i < currentCacheSize + 2; i++) {
-                recycledBitmaps.add(newBlankBitmap());
-            }
-        } catch (OutOfMemoryError e) {
-            MyLog.w(this, getInfo(), e);
-            currentCacheSize = recycledBitmaps.size() - 2;
-            if (currentCacheSize < 0) {
-                currentCacheSize = 0;
-            }
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                super.resize(currentCacheSize);
-            }
-        }
     }
 
     private Bitmap newBlankBitmap() {
@@ -200,7 +189,42 @@ public class MyDrawableCache extends LruCache<String, BitmapSubsetDrawable> {
     }
 
     private Bitmap getSuitableRecycledBitmap(Rect srcRect) {
-        return recycledBitmaps.poll();
+        Bitmap bitmap = recycledBitmaps.poll();
+        if (bitmap == null) {
+            bitmap = allocateBitmap();
+        }
+        return bitmap;
+    }
+
+    @Nullable
+    private Bitmap allocateBitmap() {
+        if (allocatedBitmaps.incrementAndGet() > currentCacheSize + 2) {
+            allocatedBitmaps.decrementAndGet();
+            return null;
+        }
+        try {
+            return newBlankBitmap();
+        } catch (OutOfMemoryError e) {
+            MyLog.w(this, getInfo(), e);
+            onOutOfMemory();
+            return null;
+        }
+    }
+
+    /** Bitmaps may be allocated by several threads, so the cache is shrunk by one of them at a time */
+    private synchronized void onOutOfMemory() {
+        int allocated = allocatedBitmaps.decrementAndGet();
+        int newCacheSize = allocated > 2 ? allocated - 2 : 0;
+        if (newCacheSize < currentCacheSize) {
+            currentCacheSize = newCacheSize;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                super.resize(newCacheSize);
+            }
+        }
+    }
+
+    int getAllocatedBitmapsCount() {
+        return allocatedBitmaps.get();
     }
 
     @Nullable
@@ -267,7 +291,7 @@ public class MyDrawableCache extends LruCache<String, BitmapSubsetDrawable> {
         if (requestedCacheSize != currentCacheSize) {
             builder.append(" (initially capacity was " + requestedCacheSize + ")");
         }
-        builder.append(", free: " + recycledBitmaps.size());
+        builder.append(", allocated: " + allocatedBitmaps.get() + ", free: " + recycledBitmaps.size());
         if (!brokenBitmaps.isEmpty()) {
             builder.append(", broken: " + brokenBitmaps.size());
         }
@@ -58,7 +58,11 @@ public class MyImageCache {
 
     public static synchronized void initialize(Context context) {
         styledDrawables.clear();
-        if (attachedImagesCache != null) {
+        initializeIfNeeded(context);
+    }
+
+    private static synchronized void initializeIfNeeded(Context context) {
+        if (avatarsCache != null) {
             return;
         }
         initializeAttachedImagesCache(context);
@@ -66,6 +70,27 @@ public class MyImageCache {
         MyLog.i(MyImageCache.class.getSimpleName(), "Cache initialized. " + getCacheInfo());
     }
 
+    /**
+     * The caches are initialized in the background, while the application context is being initialized,
+     * so the first use of a cache waits for that initialization to complete.
+     * The avatars cache is initialized last
+     */
+    private static void waitForInitialization() {
+        if (avatarsCache == null) {
+            initializeIfNeeded(MyContextHolder.get().context());
+        }
+    }
+
+    private static MyDrawableCache getAttachedImagesCache() {
+        waitForInitialization();
+        return attachedImagesCache;
+    }
+
+    private static MyDrawableCache getAvatarsCache() {
+        waitForInitialization();
+        return avatarsCache;
+    }
+
     private static void initializeAttachedImagesCache(Context context) {
         // We assume that current display orientation is preferred, so we use "y" size only
         int imageSize = (int) Math.round(AttachedImageView.MAX_ATTACHED_IMAGE_PART *
@@ -105,6 +130,7 @@ public class MyImageCache {
     }
 
     public static void setAvatarsRounded() {
+        MyDrawableCache avatarsCache = getAvatarsCache();
         avatarsCache.evictAll();
         avatarsCache.rounded = SharedPreferencesUtil.getBoolean(MyPreferences.KEY_ROUNDED_AVATARS, true);
     }
@@ -137,24 +163,29 @@ public class MyImageCache {
 
     @NonNull
     public static Point getAttachedImageSize(String path) {
-        return attachedImagesCache.getImageSize(path);
+        return getAttachedImagesCache().getImageSize(path);
     }
 
     @Nullable
     public static Drawable getAvatarDrawable(Object objTag, String path) {
-        return avatarsCache.getDrawable(objTag, path);
+        return getAvatarsCache().getDrawable(objTag, path);
+    }
+
+    @Nullable
+    public static Drawable getCachedAvatarDrawable(Object objTag, String path) {
+        return getAvatarsCache().getCachedDrawable(objTag, path);
     }
 
     public static int getAvatarWidthPixels() {
-        return avatarsCache.getMaxBitmapWidth();
+        return getAvatarsCache().getMaxBitmapWidth();
     }
 
     public static Drawable getCachedAttachedImageDrawable(Object objTag, String path) {
-        return attachedImagesCache.getCachedDrawable(objTag, path);
+        return getAttachedImagesCache().getCachedDrawable(objTag, path);
     }
 
     public static Drawable getAttachedImageDrawable(Object objTag, String path) {
-        return attachedImagesCache.getDrawable(objTag, path);
+        return getAttachedImagesCache().getDrawable(objTag, path);
     }
 
     public static String getCacheInfo() {
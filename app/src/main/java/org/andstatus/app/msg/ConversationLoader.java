@@ -75,6 +75,9 @@ public abstract class ConversationLoader<T extends ConversationItem> extends Syn
         load2(newOMsg(selectedMessageId, 0));
         Collections.sort(mMsgs, replyLevelComparator);
         enumerateMessages();
+        for (T oMsg : mMsgs) {
+            MessageBodyCache.getBody(oMsg);
+        }
     }
 
     protected abstract void load2(T oMsg);
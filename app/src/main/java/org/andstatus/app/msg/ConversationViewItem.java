@@ -19,8 +19,6 @@ package org.andstatus.app.msg;
 import android.content.Context;
 import android.database.Cursor;
 import android.provider.BaseColumns;
-import android.text.Html;
-import android.text.TextUtils;
 
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.data.AttachedImageFile;
@@ -80,10 +78,7 @@ public class ConversationViewItem extends ConversationItem {
                 msgStatus = DownloadStatus.load(DbUtils.getLong(cursor, MsgTable.MSG_STATUS));
                 authorName = TimelineSql.userColumnNameToNameAtTimeline(cursor, UserTable.AUTHOR_NAME, false);
                 body = MyHtml.prepareForView(DbUtils.getString(cursor, MsgTable.BODY));
-                String via = DbUtils.getString(cursor, MsgTable.VIA);
-                if (!TextUtils.isEmpty(via)) {
-                    messageSource = Html.fromHtml(via).toString().trim();
-                }
+                messageSource = MessageBodyCache.getSource(DbUtils.getString(cursor, MsgTable.VIA));
                 avatarDrawable = AvatarFile.getDrawable(authorId, cursor);
                 if (MyPreferences.getDownloadAndDisplayAttachedImages()) {
                     attachedImageFile = AttachedImageFile.fromCursor(cursor);
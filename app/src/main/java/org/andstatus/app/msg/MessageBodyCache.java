@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.msg;
+
+import android.support.annotation.NonNull;
+import android.text.Html;
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import org.andstatus.app.util.MyUrlSpan;
+
+/**
+ * Message bodies, parsed from HTML and linkified, ready to be shown in a list.
+ * Loaders fill the cache in a background, so adapters don't parse HTML while scrolling.
+ * A body is keyed by the message id and the hash of its text, so an edited message is parsed again
+ * @author yvolk@yurivolkov.com
+ */
+class MessageBodyCache {
+    static final int BODIES_MAX_SIZE = 600;
+    private static final int SOURCES_MAX_SIZE = 50;
+
+    private static final LruCache<Key, Spanned> bodies = new LruCache<>(BODIES_MAX_SIZE);
+    /** Message sources ("via") are few and repeat a lot */
+    private static final LruCache<String, String> sources = new LruCache<>(SOURCES_MAX_SIZE);
+
+    private MessageBodyCache() {
+        // Empty
+    }
+
+    private static final class Key {
+        final long msgId;
+        final int bodyHash;
+
+        Key(MessageViewItem item) {
+            msgId = item.getMsgId();
+            bodyHash = item.body.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return msgId == key.msgId && bodyHash == key.bodyHash;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) (msgId ^ (msgId >>> 32)) + bodyHash;
+        }
+    }
+
+    /** Parses the body, if it is not in the cache yet. Better to be called not in the UI thread */
+    @NonNull
+    static Spanned getBody(MessageViewItem item) {
+        Key key = new Key(item);
+        Spanned spanned = bodies.get(key);
+        if (spanned == null) {
+            spanned = MyUrlSpan.toSpanned(item.body, true);
+            bodies.put(key, spanned);
+        }
+        return spanned;
+    }
+
+    /** @return plain text of the "via" HTML */
+    @NonNull
+    static String getSource(String via) {
+        if (TextUtils.isEmpty(via)) {
+            return "";
+        }
+        String source = sources.get(via);
+        if (source == null) {
+            source = Html.fromHtml(via).toString().trim();
+            sources.put(via, source);
+        }
+        return source;
+    }
+
+    static void clear() {
+        bodies.evictAll();
+        sources.evictAll();
+    }
+}
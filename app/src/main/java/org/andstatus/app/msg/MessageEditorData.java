@@ -27,11 +27,12 @@ import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.UserInTimeline;
 import org.andstatus.app.data.AttachedImageFile;
 import org.andstatus.app.data.DataInserter;
-import org.andstatus.app.data.OidEnum;
 import org.andstatus.app.data.DownloadData;
 import org.andstatus.app.data.DownloadStatus;
+import org.andstatus.app.data.MsgRow;
 import org.andstatus.app.data.MyContentType;
 import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.data.UserRow;
 import org.andstatus.app.database.MsgTable;
 import org.andstatus.app.net.social.MbAttachment;
 import org.andstatus.app.net.social.MbMessage;
@@ -64,6 +65,8 @@ public class MessageEditorData {
     public String inReplyToBody = "";
     boolean replyAll = false;
     public long recipientId = 0;
+    /** The message, as it was loaded from the database */
+    private MsgRow msgRow = MsgRow.EMPTY;
     public MyAccount ma = MyAccount.getEmpty(MyContextHolder.get(), "");
 
     private MessageEditorData(MyAccount myAccount) {
@@ -136,11 +139,12 @@ public class MessageEditorData {
     static MessageEditorData load(Long msgId) {
         MessageEditorData data;
         if (msgId != 0) {
-            MyAccount ma = MyContextHolder.get().persistentAccounts().fromUserId(
-                    MyQuery.msgIdToLongColumnValue(MsgTable.SENDER_ID, msgId));
+            MsgRow msg = MsgRow.fromId(msgId);
+            MyAccount ma = MyContextHolder.get().persistentAccounts().fromUserId(msg.senderId);
             data = new MessageEditorData(ma);
             data.msgId = msgId;
-            data.setBody(MyQuery.msgIdToStringColumnValue(MsgTable.BODY, msgId));
+            data.msgRow = msg;
+            data.setBody(msg.body);
             data.image = DownloadData.getSingleForMessage(msgId, MyContentType.IMAGE, Uri.EMPTY);
             if (data.image.getStatus() == DownloadStatus.LOADED) {
                 AttachedImageFile imageFile = new AttachedImageFile(data.image.getDownloadId(),
@@ -148,9 +152,9 @@ public class MessageEditorData {
                 data.imageSize = imageFile.getSize();
                 data.imageDrawable = imageFile.getDrawableSync();
             }
-            data.inReplyToId = MyQuery.msgIdToLongColumnValue(MsgTable.IN_REPLY_TO_MSG_ID, msgId);
-            data.inReplyToBody = MyQuery.msgIdToStringColumnValue(MsgTable.BODY, data.inReplyToId);
-            data.recipientId = MyQuery.msgIdToLongColumnValue(MsgTable.RECIPIENT_ID, msgId);
+            data.inReplyToId = msg.inReplyToMsgId;
+            data.inReplyToBody = msg.inReplyToBody;
+            data.recipientId = msg.recipientId;
             MyLog.v(TAG, "Loaded " + data);
         } else {
             data = new MessageEditorData(MyContextHolder.get().persistentAccounts().getCurrentAccount());
@@ -172,6 +176,7 @@ public class MessageEditorData {
             data.inReplyToBody = inReplyToBody;
             data.replyAll = replyAll;
             data.recipientId = recipientId;
+            data.msgRow = msgRow;
             return data;
         } else {
             return INVALID;
@@ -188,11 +193,11 @@ public class MessageEditorData {
         message.setBody(body);
         if (recipientId != 0) {
             message.recipient = MbUser.fromOriginAndUserOid(getMyAccount().getOriginId(),
-                    MyQuery.idToOid(OidEnum.USER_OID, recipientId, 0));
+                    recipientId == msgRow.recipientId ? msgRow.recipientOid : UserRow.fromId(recipientId).oid);
         }
         if (inReplyToId != 0) {
             message.inReplyToMessage = MbMessage.fromOriginAndOid(getMyAccount().getOriginId(),
-                    MyQuery.idToOid(OidEnum.MSG_OID, inReplyToId, 0),
+                    inReplyToId == msgRow.inReplyToMsgId ? msgRow.inReplyToOid : MsgRow.fromId(inReplyToId).oid,
                     DownloadStatus.UNKNOWN);
         }
         Uri mediaUri = imageUriToSave.equals(Uri.EMPTY) ? image.getUri() : imageUriToSave;
@@ -102,7 +102,7 @@ public class MessageEditorSaver extends MyAsyncTask<MessageEditorCommand, Void,
                 data.status == DownloadStatus.DELETED ? CommandEnum.DESTROY_STATUS : CommandEnum.UPDATE_STATUS,
                 data.getMyAccount(),
                 data.getMsgId());
-        MyServiceEventsBroadcaster.newInstance(MyContextHolder.get(), MyServiceState.UNKNOWN)
+        MyServiceEventsBroadcaster.newInstance(MyServiceState.UNKNOWN)
                 .setCommandData(commandData).setEvent(MyServiceEvent.AFTER_EXECUTING_COMMAND).broadcast();
     }
 
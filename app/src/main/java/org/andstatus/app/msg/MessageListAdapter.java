@@ -124,7 +124,7 @@ public abstract class MessageListAdapter<T extends MessageViewItem> extends MyBa
 
     protected void showMessageBody(View view, MessageViewItem item) {
         TextView body = (TextView) view.findViewById(R.id.message_body);
-        MyUrlSpan.showText(body, item.body, true, true);
+        MyUrlSpan.showSpanned(body, MessageBodyCache.getBody(item), true, true);
     }
 
     protected void showAvatar(View view, MessageViewItem item) {
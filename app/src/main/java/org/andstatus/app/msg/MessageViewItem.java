@@ -28,13 +28,12 @@ import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.data.AttachedImageFile;
 import org.andstatus.app.data.AvatarFile;
 import org.andstatus.app.data.DownloadStatus;
+import org.andstatus.app.data.NormalizedBody;
 import org.andstatus.app.util.I18n;
-import org.andstatus.app.util.MyHtml;
 import org.andstatus.app.util.RelativeTime;
 import org.andstatus.app.util.SharedPreferencesUtil;
 import org.andstatus.app.widget.DuplicatesCollapsible;
 import org.andstatus.app.widget.DuplicationLink;
-import org.apache.commons.lang3.StringEscapeUtils;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -65,6 +64,9 @@ public class MessageViewItem implements DuplicatesCollapsible<MessageViewItem> {
     String messageSource = "";
 
     String body = "";
+    /** Normalized {@link #body}, it is recomputed if the body was changed */
+    private NormalizedBody normalizedBody = null;
+    private String normalizedFor = null;
 
     boolean favorited = false;
     Map<Long, String> rebloggers = new HashMap<>();
@@ -155,12 +157,12 @@ public class MessageViewItem implements DuplicatesCollapsible<MessageViewItem> {
         }
         if (link == DuplicationLink.NONE) {
             if (Math.abs(createdDate - other.createdDate) < TimeUnit.HOURS.toMillis(24)) {
-                String thisBody = getCleanedBody(body);
-                String otherBody = getCleanedBody(other.body);
+                NormalizedBody thisBody = getNormalizedBody();
+                NormalizedBody otherBody = other.getNormalizedBody();
                 if (thisBody.length() < MIN_LENGTH_TO_COMPARE ||
                         otherBody.length() < MIN_LENGTH_TO_COMPARE) {
                     // Too short to compare
-                } else if (thisBody.equals(otherBody)) {
+                } else if (thisBody.isSameText(otherBody)) {
                     if (createdDate == other.createdDate) {
                         link = duplicatesByFavoritedAndReblogged(other);
                     } else if (createdDate < other.createdDate) {
@@ -168,9 +170,9 @@ public class MessageViewItem implements DuplicatesCollapsible<MessageViewItem> {
                     } else {
                         link = DuplicationLink.DUPLICATES;
                     }
-                } else if (thisBody.contains(otherBody)) {
+                } else if (thisBody.text.contains(otherBody.text)) {
                     link = DuplicationLink.DUPLICATES;
-                } else if (otherBody.contains(thisBody)) {
+                } else if (otherBody.text.contains(thisBody.text)) {
                     link = DuplicationLink.IS_DUPLICATED;
                 }
             }
@@ -178,13 +180,19 @@ public class MessageViewItem implements DuplicatesCollapsible<MessageViewItem> {
         return link;
     }
 
+    /** The value stored in the database, if it was loaded, or computed from the body here */
     @NonNull
-    private String getCleanedBody(String body) {
-        String out = MyHtml.fromHtml(body).toLowerCase();
-        out = StringEscapeUtils.unescapeHtml4(out);
-        return out.replaceAll("\n", " ").
-                replaceAll("  ", " ").
-                replaceFirst(".*(favorited something by.*)","$1");
+    NormalizedBody getNormalizedBody() {
+        if (normalizedBody == null || normalizedFor != body) {
+            normalizedBody = NormalizedBody.fromBody(body);
+            normalizedFor = body;
+        }
+        return normalizedBody;
+    }
+
+    void setNormalizedBody(@NonNull NormalizedBody normalizedBody) {
+        this.normalizedBody = normalizedBody;
+        normalizedFor = body;
     }
 
     private DuplicationLink duplicatesByFavoritedAndReblogged(MessageViewItem other) {
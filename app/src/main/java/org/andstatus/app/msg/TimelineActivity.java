@@ -50,8 +50,11 @@ import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.context.MySettingsActivity;
 import org.andstatus.app.data.MatchedUri;
+import org.andstatus.app.data.SearchTerms;
 import org.andstatus.app.data.TimelineSearchSuggestionsProvider;
 import org.andstatus.app.origin.Origin;
+import org.andstatus.app.os.AsyncTaskLauncher;
+import org.andstatus.app.os.MyAsyncTask;
 import org.andstatus.app.service.CommandData;
 import org.andstatus.app.service.CommandEnum;
 import org.andstatus.app.service.MyServiceManager;
@@ -73,6 +76,7 @@ import org.andstatus.app.util.UriUtils;
 import org.andstatus.app.widget.MyBaseAdapter;
 
 import java.util.Collections;
+import java.util.List;
 
 /**
  * @author yvolk@yurivolkov.com
@@ -86,6 +90,8 @@ public class TimelineActivity extends LoadableListActivity implements
     /** Last parameters, requested to load. Thread safe. They are taken by a Loader at some time */
     private volatile TimelineListParameters paramsToLoad;
     private volatile TimelineData listData;
+    /** On a cold start the first page may be shown from the {@link TimelineSnapshot} */
+    private volatile boolean snapshotAllowed = false;
 
     private MessageContextMenu contextMenu;
     private MessageEditor mMessageEditor;
@@ -158,6 +164,7 @@ public class TimelineActivity extends LoadableListActivity implements
         if (savedInstanceState != null) {
             restoreActivityState(savedInstanceState);
         } else {
+            snapshotAllowed = true;
             parseNewIntent(getIntent());
         }
     }
@@ -347,10 +354,30 @@ public class TimelineActivity extends LoadableListActivity implements
         crashTest();
         mMessageEditor.saveAsBeingEditedAndHide();
         saveListPosition();
+        saveSnapshot();
         myContext.persistentTimelines().saveChanged();
         super.onPause();
     }
 
+    private void saveSnapshot() {
+        if (!getParamsLoaded().isLoaded() || !isPositionRestored()) {
+            return;
+        }
+        final Timeline timeline = getParamsLoaded().getTimeline();
+        final List<TimelineViewItem> items = TimelineSnapshot.itemsToSave(getListData());
+        if (items.isEmpty()) {
+            return;
+        }
+        AsyncTaskLauncher.execute(this, false,
+                new MyAsyncTask<Void, Void, Void>("SaveSnapshot" + mInstanceId, MyAsyncTask.PoolEnum.QUICK_UI) {
+                    @Override
+                    protected Void doInBackground2(Void... params) {
+                        TimelineSnapshot.save(myContext, timeline, items);
+                        return null;
+                    }
+                });
+    }
+
     /**
      * Cancel notifications of loading timeline, which were set during Timeline downloading
      */
@@ -829,7 +856,12 @@ public class TimelineActivity extends LoadableListActivity implements
             }
             saveSearchQuery();
         }
-        return new TimelineLoader(params, BundleUtils.fromBundle(args, IntentExtra.INSTANCE_ID));
+        TimelineLoader loader = new TimelineLoader(params, BundleUtils.fromBundle(args, IntentExtra.INSTANCE_ID));
+        if (snapshotAllowed) {
+            snapshotAllowed = false;
+            loader.allowSnapshot();
+        }
+        return loader;
     }
 
     private void saveSearchQuery() {
@@ -839,8 +871,17 @@ public class TimelineActivity extends LoadableListActivity implements
             SearchRecentSuggestions suggestions = new SearchRecentSuggestions(this,
                     TimelineSearchSuggestionsProvider.AUTHORITY,
                     TimelineSearchSuggestionsProvider.MODE);
-            suggestions.saveRecentQuery(getParamsNew().getTimeline().getSearchQuery(), null);
-
+            final String query = getParamsNew().getTimeline().getSearchQuery();
+            suggestions.saveRecentQuery(query, null);
+            final MyContext myContext = MyContextHolder.get();
+            AsyncTaskLauncher.execute(this, false,
+                    new MyAsyncTask<Void, Void, Void>("SaveSearchQuery" + mInstanceId, MyAsyncTask.PoolEnum.QUICK_UI) {
+                        @Override
+                        protected Void doInBackground2(Void... params) {
+                            SearchTerms.onQuery(myContext.getDatabase(), query);
+                            return null;
+                        }
+                    });
         }
     }
 
@@ -848,7 +889,8 @@ public class TimelineActivity extends LoadableListActivity implements
     public void onLoadFinished(boolean keepCurrentPosition_in) {
         final String method = "onLoadFinished";
         verboseListPositionLog(method, "started");
-        TimelineData dataLoaded = setAndGetListData(((TimelineLoader) getLoaded()).getPage());
+        TimelinePage pageLoaded = ((TimelineLoader) getLoaded()).getPage();
+        TimelineData dataLoaded = setAndGetListData(pageLoaded);
         MyLog.v(this, method + "; " + dataLoaded.params.toSummary());
 
         // TODO start: Move this inside superclass
@@ -886,6 +928,9 @@ public class TimelineActivity extends LoadableListActivity implements
         if (isParamsChanged) {
             MyLog.v(this, method + "; Parameters changed, requesting " + otherParams.toSummary());
             showList(otherParams, TriState.TRUE);
+        } else if (pageLoaded.fromSnapshot) {
+            MyLog.v(this, method + "; Shown from snapshot, reloading " + dataLoaded.params.toSummary());
+            showList(TimelineListParameters.clone(dataLoaded.params, dataLoaded.params.whichPage), TriState.TRUE);
         } else if (otherPageToRequest != WhichPage.EMPTY) {
             MyLog.v(this, method + "; Nothing loaded, requesting " + otherPageToRequest);
             showList(otherPageToRequest, TriState.TRUE);
@@ -26,7 +26,9 @@ import org.andstatus.app.util.MyLog;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -128,30 +130,24 @@ public class TimelineData extends ListData {
             pages.remove(indExistingPage);
             return;
         }
-        long edgeDate =  ePage.params.minSentDateLoaded;
-        List<TimelineViewItem> toRemove = new ArrayList<>();
-        for (int ind = 0; ind < page.items.size(); ind++) {
-            TimelineViewItem item = page.items.get(ind);
-            if (item.sentDate < edgeDate) {
-                break;
-            } else if (item.sentDate > edgeDate) {
-                MyLog.e(this, "This page has an item younger than on a younger page: " + item);
-                toRemove.add(item);
-            } else {
-                for (int eInd = ePage.items.size() - 1; eInd >= 0; eInd--) {
-                    TimelineViewItem eItem = ePage.items.get(eInd);
-                    if (eItem.sentDate > item.sentDate) {
-                        break;
-                    }
-                    if (eItem.getMsgId() == item.getMsgId()) {
-                        mergeWithExisting(item, eItem);
-                        toRemove.add(item);
-                        break;
-                    }
-                }
+        removeDuplicates(page, ePage);
+    }
+
+    /**
+     * Ids of the existing page are hashed, so this takes O(page size)
+     * instead of comparing each item with each item
+     */
+    private void removeDuplicates(TimelinePage page, TimelinePage ePage) {
+        Map<Long, TimelineViewItem> existing = ePage.mapByMsgId();
+        Iterator<TimelineViewItem> iterator = page.items.iterator();
+        while (iterator.hasNext()) {
+            TimelineViewItem item = iterator.next();
+            TimelineViewItem eItem = existing.get(item.getMsgId());
+            if (eItem != null) {
+                mergeWithExisting(item, eItem);
+                iterator.remove();
             }
         }
-        page.items.removeAll(toRemove);
     }
 
     private void mergeWithExisting(TimelineViewItem newItem, TimelineViewItem existingItem) {
@@ -169,30 +165,7 @@ public class TimelineData extends ListData {
             pages.remove(indExistingPage);
             return;
         }
-        long edgeDate = ePage.params.maxSentDateLoaded;
-        List<TimelineViewItem> toRemove = new ArrayList<>();
-        for (int ind = page.items.size() - 1; ind >= 0; ind--) {
-            TimelineViewItem item = page.items.get(ind);
-            if ( item.sentDate > edgeDate) {
-                break;
-            } else if (item.sentDate < edgeDate) {
-                MyLog.e(this, "This page has an item older than on an older page: " + item);
-                toRemove.add(item);
-            } else {
-                for (int eInd = 0; eInd < ePage.items.size(); eInd++) {
-                    TimelineViewItem eItem = ePage.items.get(eInd);
-                    if (eItem.sentDate < item.sentDate) {
-                        break;
-                    }
-                    if (eItem.getMsgId() == item.getMsgId()) {
-                        mergeWithExisting(item, eItem);
-                        toRemove.add(item);
-                        break;
-                    }
-                }
-            }
-        }
-        page.items.removeAll(toRemove);
+        removeDuplicates(page, ePage);
     }
 
     @Override
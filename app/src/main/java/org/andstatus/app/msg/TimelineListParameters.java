@@ -59,9 +59,13 @@ public class TimelineListParameters {
     String[] mProjection;
 
     long maxSentDate = 0;
+    /** If not 0, the page starts right after the (maxSentDate, maxMsgId) row, excluding it */
+    long maxMsgId = 0;
 
     // These params are updated just before page loading
     volatile long minSentDate = 0;
+    /** If not 0, the page starts right after the (minSentDate, minMsgId) row, excluding it */
+    volatile long minMsgId = 0;
     volatile SelectionAndArgs selectionAndArgs = new SelectionAndArgs();
     volatile String sortOrderAndLimit = "";
 
@@ -72,7 +76,9 @@ public class TimelineListParameters {
     volatile Timeline timelineToSync = Timeline.getEmpty(MyAccount.getEmpty());
     volatile int rowsLoaded = 0;
     volatile long minSentDateLoaded = 0;
+    volatile long minMsgIdLoaded = 0;
     volatile long maxSentDateLoaded = 0;
+    volatile long maxMsgIdLoaded = 0;
 
     public static TimelineListParameters clone(TimelineListParameters prev, WhichPage whichPage) {
         TimelineListParameters params = new TimelineListParameters(prev.myContext);
@@ -92,6 +98,7 @@ public class TimelineListParameters {
             case OLDER:
                 if (prev.mayHaveOlderPage()) {
                     params.maxSentDate = prev.minSentDateLoaded;
+                    params.maxMsgId = prev.minMsgIdLoaded;
                 } else {
                     params.maxSentDate = prev.maxSentDate;
                 }
@@ -99,6 +106,7 @@ public class TimelineListParameters {
             case YOUNGER:
                 if (prev.mayHaveYoungerPage()) {
                     params.minSentDate = prev.maxSentDateLoaded;
+                    params.minMsgId = prev.maxMsgIdLoaded;
                 } else {
                     params.minSentDate = prev.minSentDate;
                 }
@@ -115,15 +123,16 @@ public class TimelineListParameters {
         return endTime > 0;
     }
 
+    /** Rows of a keyset page don't include its edge row, so any loaded row means progress */
     public boolean mayHaveYoungerPage() {
         return maxSentDate > 0 ||
-                (minSentDate > 0 && rowsLoaded > 0 && minSentDate < maxSentDateLoaded);
+                (minSentDate > 0 && rowsLoaded > 0 && (minMsgId != 0 || minSentDate < maxSentDateLoaded));
     }
 
     public boolean mayHaveOlderPage() {
         return whichPage.equals(WhichPage.CURRENT) ||
                 minSentDate > 0 ||
-                (maxSentDate > 0 && rowsLoaded > 0 && maxSentDate > minSentDateLoaded);
+                (maxSentDate > 0 && rowsLoaded > 0 && (maxMsgId != 0 || maxSentDate > minSentDateLoaded));
     }
 
     public boolean isSortOrderAscending() {
@@ -194,8 +203,9 @@ public class TimelineListParameters {
         if (!timeline.equals(that.timeline)) return false;
         if (!whichPage.equals(WhichPage.CURRENT) && !that.whichPage.equals(WhichPage.CURRENT)) {
             if (minSentDate != that.minSentDate) return false;
+            if (minMsgId != that.minMsgId) return false;
         }
-        return maxSentDate == that.maxSentDate;
+        return maxSentDate == that.maxSentDate && maxMsgId == that.maxMsgId;
     }
 
     @Override
@@ -205,8 +215,10 @@ public class TimelineListParameters {
             result = 31 * result + (-1 ^ (-1 >>> 32));
         } else {
             result = 31 * result + (int) (minSentDate ^ (minSentDate >>> 32));
+            result = 31 * result + (int) (minMsgId ^ (minMsgId >>> 32));
         }
         result = 31 * result + (int) (maxSentDate ^ (maxSentDate >>> 32));
+        result = 31 * result + (int) (maxMsgId ^ (maxMsgId >>> 32));
         return result;
     }
 
@@ -234,12 +246,17 @@ public class TimelineListParameters {
         return timeline.getMyAccount();
     }
 
-    public void rememberSentDateLoaded(long sentDate) {
-        if (minSentDateLoaded == 0 || minSentDateLoaded > sentDate) {
+    /** Remembers the oldest and the youngest loaded rows, the keys for the next pages */
+    public void rememberItemLoaded(long sentDate, long msgId) {
+        if (minSentDateLoaded == 0 || minSentDateLoaded > sentDate
+                || (minSentDateLoaded == sentDate && minMsgIdLoaded > msgId)) {
             minSentDateLoaded = sentDate;
+            minMsgIdLoaded = msgId;
         }
-        if (maxSentDateLoaded == 0 || maxSentDateLoaded < sentDate) {
+        if (maxSentDateLoaded == 0 || maxSentDateLoaded < sentDate
+                || (maxSentDateLoaded == sentDate && maxMsgIdLoaded < msgId)) {
             maxSentDateLoaded = sentDate;
+            maxMsgIdLoaded = msgId;
         }
     }
 
@@ -255,8 +272,11 @@ public class TimelineListParameters {
         selectionAndArgs = buildSelectionAndArgs();
     }
 
+    /** Message id makes the order unique, so a page may continue exactly after its neighbour */
     private String buildSortOrderAndLimit() {
-        return (isSortOrderAscending() ? MsgTable.ASC_SORT_ORDER : MsgTable.DESC_SORT_ORDER)
+        String msgIdColumn = ProjectionMap.MSG_TABLE_ALIAS + "." + MsgTable._ID;
+        return (isSortOrderAscending() ? MsgTable.ASC_SORT_ORDER + ", " + msgIdColumn + " ASC"
+                : MsgTable.DESC_SORT_ORDER + ", " + msgIdColumn + " DESC")
                 + (minSentDate > 0 && maxSentDate > 0 ? "" : " LIMIT " + PAGE_SIZE);
     }
 
@@ -314,20 +334,33 @@ public class TimelineListParameters {
         }
 
         if (minSentDate > 0) {
-            sa.addSelection(ProjectionMap.MSG_TABLE_ALIAS + "." + MsgTable.SENT_DATE
-                            + " >= ?",
-                    new String[]{
-                            String.valueOf(minSentDate)
-                    });
+            addKeysetSelection(sa, ">", minSentDate, minMsgId);
         }
         if (maxSentDate > 0) {
-            sa.addSelection(ProjectionMap.MSG_TABLE_ALIAS + "." + MsgTable.SENT_DATE
-                            + " <= ?",
+            addKeysetSelection(sa, "<", maxSentDate, maxMsgId);
+        }
+        return sa;
+    }
+
+    /**
+     * Without a message id the edge sent date is included, so the page overlaps with its neighbour.
+     * With it this is a keyset condition on (sent date, message id), which selects only new rows
+     */
+    private static void addKeysetSelection(SelectionAndArgs sa, String operator, long sentDate, long msgId) {
+        String sentDateColumn = ProjectionMap.MSG_TABLE_ALIAS + "." + MsgTable.SENT_DATE;
+        if (msgId == 0) {
+            sa.addSelection(sentDateColumn + " " + operator + "= ?",
+                    new String[]{
+                            String.valueOf(sentDate)
+                    });
+        } else {
+            sa.addSelection("(" + sentDateColumn + " " + operator + " ?"
+                            + " OR (" + sentDateColumn + " = ?"
+                            + " AND " + ProjectionMap.MSG_TABLE_ALIAS + "." + MsgTable._ID + " " + operator + " ?))",
                     new String[]{
-                            String.valueOf(maxSentDate)
+                            String.valueOf(sentDate), String.valueOf(sentDate), String.valueOf(msgId)
                     });
         }
-        return sa;
     }
 
     Cursor queryDatabase() {
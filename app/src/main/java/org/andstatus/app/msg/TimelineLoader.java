@@ -29,11 +29,11 @@ import org.andstatus.app.data.DbUtils;
 import org.andstatus.app.timeline.Timeline;
 import org.andstatus.app.timeline.TimelineType;
 import org.andstatus.app.util.I18n;
-import org.andstatus.app.util.MyHtml;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.SharedPreferencesUtil;
 
 import java.util.ArrayList;
+import java.util.Collections;
 
 /**
 * @author yvolk@yurivolkov.com
@@ -43,6 +43,7 @@ public class TimelineLoader extends SyncLoader<TimelineViewItem> {
     private final TimelinePage page;
 
     private final long instanceId;
+    private volatile boolean snapshotAllowed = false;
 
     public TimelineLoader(@NonNull TimelineListParameters params, long instanceId) {
         this.params = params;
@@ -54,7 +55,9 @@ public class TimelineLoader extends SyncLoader<TimelineViewItem> {
     @Override
     public void load(LoadableListActivity.ProgressPublisher publisher) {
         markStart();
-        if (params.whichPage != WhichPage.EMPTY) {
+        if (snapshotAllowed && TimelineSnapshot.load(page)) {
+            MyLog.v(this, "Loaded from snapshot");
+        } else if (params.whichPage != WhichPage.EMPTY) {
             Cursor cursor = queryDatabase();
             checkIfReloadIsNeeded(cursor);
             loadFromCursor(cursor);
@@ -133,8 +136,9 @@ public class TimelineLoader extends SyncLoader<TimelineViewItem> {
                     do {
                         rowsCount++;
                         TimelineViewItem item = TimelineViewItem.fromCursorRow(params.getMyContext(), cursor);
-                        getParams().rememberSentDateLoaded(item.sentDate);
-                        String body = MyHtml.fromHtml(item.body).toLowerCase();
+                        getParams().rememberItemLoaded(item.sentDate, item.getMsgId());
+                        // Parsed here, in a background, and cached for the adapter
+                        String body = MessageBodyCache.getBody(item).toString().toLowerCase();
                         boolean skip = keywordsFilter.matched(body);
                         if (!skip && !TextUtils.isEmpty(searchQuery)) {
                             skip = !body.contains(searchQuery);
@@ -147,12 +151,13 @@ public class TimelineLoader extends SyncLoader<TimelineViewItem> {
                             if (MyLog.isVerboseEnabled()) {
                                 MyLog.v(this, filteredOutCount + " Filtered out: " + I18n.trimTextAt(body, 40));
                             }
-                        } else if (reversedOrder) {
-                            page.items.add(0, item);
                         } else {
                             page.items.add(item);
                         }
                     } while (cursor.moveToNext());
+                    if (reversedOrder) {
+                        Collections.reverse(page.items);
+                    }
                 }
             } finally {
                 cursor.close();
@@ -163,6 +168,11 @@ public class TimelineLoader extends SyncLoader<TimelineViewItem> {
         getParams().rowsLoaded = rowsCount;
     }
 
+    /** The page may be loaded from the {@link TimelineSnapshot} instead of the database */
+    void allowSnapshot() {
+        snapshotAllowed = true;
+    }
+
     public TimelineListParameters getParams() {
         return params;
     }
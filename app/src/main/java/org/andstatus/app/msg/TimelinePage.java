@@ -16,7 +16,9 @@
 
 package org.andstatus.app.msg;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author yvolk@yurivolkov.com
@@ -24,9 +26,23 @@ import java.util.List;
 public class TimelinePage {
     final TimelineListParameters params;
     final List<TimelineViewItem> items;
+    /** The page was loaded from {@link TimelineSnapshot} and is to be reloaded from the database */
+    volatile boolean fromSnapshot = false;
 
     public TimelinePage(TimelineListParameters params, List<TimelineViewItem> items) {
         this.params = params;
         this.items = items;
     }
+
+    /** Including collapsed duplicates */
+    Map<Long, TimelineViewItem> mapByMsgId() {
+        Map<Long, TimelineViewItem> map = new HashMap<>();
+        for (TimelineViewItem item : items) {
+            map.put(item.getMsgId(), item);
+            for (TimelineViewItem child : item.getChildren()) {
+                map.put(child.getMsgId(), item);
+            }
+        }
+        return map;
+    }
 }
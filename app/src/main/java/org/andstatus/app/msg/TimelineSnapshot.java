@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.msg;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.andstatus.app.context.MyContext;
+import org.andstatus.app.context.MyPreferences;
+import org.andstatus.app.data.AttachedImageFile;
+import org.andstatus.app.data.AvatarFile;
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.data.DownloadStatus;
+import org.andstatus.app.timeline.Timeline;
+import org.andstatus.app.util.MyLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The first page of the default timeline, as it was shown last time, in a compact binary file.
+ * It is shown on a cold start before the timeline is queried from the database, and is replaced
+ * with the result of the query right after that.
+ * The snapshot is valid only for the same timeline and the same stored list position.
+ * @author yvolk@yurivolkov.com
+ */
+class TimelineSnapshot {
+    private static final String TAG = TimelineSnapshot.class.getSimpleName();
+    static final String FILE_NAME = "timeline_snapshot.bin";
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 32 * 1024;
+    private static final int MAX_STRING_BYTES = 1024 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private TimelineSnapshot() {
+        // Empty
+    }
+
+    @Nullable
+    static File getFile(MyContext myContext) {
+        Context context = myContext.context();
+        return context == null ? null : new File(context.getCacheDir(), FILE_NAME);
+    }
+
+    /** Items are copied, so this may be called before writing the snapshot in a background */
+    @NonNull
+    static List<TimelineViewItem> itemsToSave(TimelineData data) {
+        List<TimelineViewItem> items = new ArrayList<>();
+        if (data.pages.isEmpty() || !data.params.isAtHome() || data.mayHaveYoungerPage()) {
+            return items;
+        }
+        for (TimelinePage page : data.pages) {
+            for (TimelineViewItem item : page.items) {
+                if (items.size() >= TimelineListParameters.PAGE_SIZE) {
+                    return items;
+                }
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    static void save(MyContext myContext, Timeline timeline, List<TimelineViewItem> items) {
+        File file = getFile(myContext);
+        if (file == null) {
+            return;
+        }
+        if (items.isEmpty()) {
+            delete(myContext);
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        File tempFile = new File(file.getAbsolutePath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE));
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(timeline.getId());
+            out.writeLong(timeline.getVisibleItemId());
+            out.writeInt(timeline.getVisibleY());
+            out.writeInt(items.size());
+            for (TimelineViewItem item : items) {
+                writeItem(out, item);
+            }
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Couldn't rename to '" + file.getAbsolutePath() + "'");
+            }
+            MyLog.v(TAG, "Saved " + items.size() + " items, " + file.length() + " bytes, "
+                    + (System.currentTimeMillis() - startedAt) + " ms");
+        } catch (IOException e) {
+            MyLog.w(TAG, "Failed to save snapshot", e);
+            delete(myContext);
+        } finally {
+            DbUtils.closeSilently(out, tempFile.getAbsolutePath());
+            if (tempFile.exists() && !tempFile.delete()) {
+                MyLog.w(TAG, "Couldn't delete '" + tempFile.getAbsolutePath() + "'");
+            }
+        }
+    }
+
+    private static void writeItem(DataOutputStream out, TimelineViewItem item) throws IOException {
+        out.writeLong(item.getMsgId());
+        out.writeLong(item.getOriginId());
+        out.writeLong(item.getLinkedUserId());
+        out.writeLong(item.authorId);
+        writeString(out, item.authorName);
+        writeString(out, item.avatarFilename);
+        writeString(out, item.body);
+        out.writeLong(item.inReplyToMsgId);
+        out.writeLong(item.inReplyToUserId);
+        writeString(out, item.inReplyToName);
+        writeString(out, item.recipientName);
+        out.writeBoolean(item.favorited);
+        out.writeBoolean(item.reblogged);
+        out.writeLong(item.sentDate);
+        out.writeLong(item.createdDate);
+        writeString(out, item.msgStatus.save());
+        writeString(out, item.messageSource);
+        out.writeInt(item.rebloggers.size());
+        for (Map.Entry<Long, String> entry : item.rebloggers.entrySet()) {
+            out.writeLong(entry.getKey());
+            writeString(out, entry.getValue());
+        }
+        out.writeLong(item.attachedImageFile.getDownloadRowId());
+        writeString(out, item.attachedImageFile.getFilename());
+    }
+
+    /** Unlike {@link DataOutputStream#writeUTF(String)}, this is not limited to 64K bytes */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("Wrong string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * @return true if items were loaded into the page
+     */
+    static boolean load(TimelinePage page) {
+        TimelineListParameters params = page.params;
+        File file = getFile(params.getMyContext());
+        if (file == null || !file.exists() || !params.isAtHome() || !params.whichPage.isYoungest()) {
+            return false;
+        }
+        long startedAt = System.currentTimeMillis();
+        Timeline timeline = params.getTimeline();
+        List<TimelineViewItem> items = new ArrayList<>();
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+            if (in.readInt() != FORMAT_VERSION || in.readLong() != timeline.getId()
+                    || in.readLong() != timeline.getVisibleItemId() || in.readInt() != timeline.getVisibleY()) {
+                MyLog.v(TAG, "Snapshot is not for the current state of " + timeline);
+                return false;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                items.add(readItem(in, params.getMyContext()));
+            }
+        } catch (IOException e) {
+            MyLog.w(TAG, "Failed to load snapshot", e);
+            delete(params.getMyContext());
+            return false;
+        } finally {
+            DbUtils.closeSilently(in, file.getAbsolutePath());
+        }
+        for (TimelineViewItem item : items) {
+            params.rememberItemLoaded(item.sentDate, item.getMsgId());
+            MessageBodyCache.getBody(item);
+        }
+        params.rowsLoaded = items.size();
+        page.items.addAll(items);
+        page.fromSnapshot = true;
+        MyLog.v(TAG, "Loaded " + items.size() + " items, " + (System.currentTimeMillis() - startedAt) + " ms");
+        return true;
+    }
+
+    private static TimelineViewItem readItem(DataInputStream in, MyContext myContext) throws IOException {
+        TimelineViewItem item = new TimelineViewItem();
+        item.setMyContext(myContext);
+        item.setMsgId(in.readLong());
+        item.setOriginId(in.readLong());
+        item.setLinkedUserAndAccount(in.readLong());
+        item.authorId = in.readLong();
+        item.authorName = readString(in);
+        item.avatarFilename = readString(in);
+        // Images are not decoded here, they will be loaded with the live page
+        item.avatarDrawable = AvatarFile.getCachedDrawable(item.authorId, item.avatarFilename);
+        item.body = readString(in);
+        item.inReplyToMsgId = in.readLong();
+        item.inReplyToUserId = in.readLong();
+        item.inReplyToName = readString(in);
+        item.recipientName = readString(in);
+        item.favorited = in.readBoolean();
+        item.reblogged = in.readBoolean();
+        item.sentDate = in.readLong();
+        item.createdDate = in.readLong();
+        item.msgStatus = DownloadStatus.load(readString(in));
+        item.messageSource = readString(in);
+        int rebloggersCount = in.readInt();
+        for (int i = 0; i < rebloggersCount; i++) {
+            item.addReblogger(in.readLong(), readString(in));
+        }
+        long imageId = in.readLong();
+        String imageFilename = readString(in);
+        if (MyPreferences.getDownloadAndDisplayAttachedImages() && imageId != 0) {
+            item.attachedImageFile = new AttachedImageFile(imageId, imageFilename);
+        }
+        return item;
+    }
+
+    static void delete(MyContext myContext) {
+        File file = getFile(myContext);
+        if (file != null && file.exists() && !file.delete()) {
+            MyLog.w(TAG, "Couldn't delete '" + file.getAbsolutePath() + "'");
+        }
+    }
+}
@@ -16,7 +16,6 @@
 package org.andstatus.app.msg;
 
 import android.database.Cursor;
-import android.text.Html;
 import android.text.TextUtils;
 
 import org.andstatus.app.context.MyContext;
@@ -25,6 +24,7 @@ import org.andstatus.app.data.AttachedImageFile;
 import org.andstatus.app.data.AvatarFile;
 import org.andstatus.app.data.DbUtils;
 import org.andstatus.app.data.DownloadStatus;
+import org.andstatus.app.data.NormalizedBody;
 import org.andstatus.app.data.TimelineSql;
 import org.andstatus.app.database.DownloadTable;
 import org.andstatus.app.database.MsgOfUserTable;
@@ -39,6 +39,7 @@ import org.andstatus.app.util.MyLog;
  */
 public class TimelineViewItem extends MessageViewItem {
     private final static TimelineViewItem EMPTY = new TimelineViewItem();
+    String avatarFilename = "";
 
     public static TimelineViewItem getEmpty() {
         return EMPTY;
@@ -54,6 +55,10 @@ public class TimelineViewItem extends MessageViewItem {
         item.authorName = TimelineSql.userColumnIndexToNameAtTimeline(cursor,
                 cursor.getColumnIndex(UserTable.AUTHOR_NAME), MyPreferences.getShowOrigin());
         item.body = MyHtml.prepareForView(DbUtils.getString(cursor, MsgTable.BODY));
+        NormalizedBody normalizedBody = NormalizedBody.fromCursor(cursor);
+        if (normalizedBody != null) {
+            item.setNormalizedBody(normalizedBody);
+        }
         item.inReplyToMsgId = DbUtils.getLong(cursor, MsgTable.IN_REPLY_TO_MSG_ID);
         item.inReplyToUserId = DbUtils.getLong(cursor, MsgTable.IN_REPLY_TO_USER_ID);
         item.inReplyToName = DbUtils.getString(cursor, UserTable.IN_REPLY_TO_NAME);
@@ -81,12 +86,10 @@ public class TimelineViewItem extends MessageViewItem {
             }
         }
 
-        String via = DbUtils.getString(cursor, MsgTable.VIA);
-        if (!TextUtils.isEmpty(via)) {
-            item.messageSource = Html.fromHtml(via).toString().trim();
-        }
+        item.messageSource = MessageBodyCache.getSource(DbUtils.getString(cursor, MsgTable.VIA));
 
-        item.avatarDrawable = AvatarFile.getDrawable(item.authorId, cursor);
+        item.avatarFilename = DbUtils.getString(cursor, DownloadTable.AVATAR_FILE_NAME);
+        item.avatarDrawable = AvatarFile.getDrawable(item.authorId, item.avatarFilename);
         if (MyPreferences.getDownloadAndDisplayAttachedImages()) {
             item.attachedImageFile = new AttachedImageFile(
                     DbUtils.getLong(cursor, DownloadTable.IMAGE_ID),
@@ -95,7 +98,7 @@ public class TimelineViewItem extends MessageViewItem {
         return item;
     }
 
-    private void addReblogger(long userId, String userName) {
+    void addReblogger(long userId, String userName) {
         rebloggers.put(userId, userName);
     }
 
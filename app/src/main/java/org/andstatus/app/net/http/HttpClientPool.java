@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.net.http;
+
+import org.andstatus.app.context.MyPreferences;
+import org.andstatus.app.origin.Origin;
+import org.andstatus.app.util.MyLog;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import cz.msebera.android.httpclient.client.HttpClient;
+import cz.msebera.android.httpclient.conn.ClientConnectionManager;
+import cz.msebera.android.httpclient.impl.conn.PoolingHttpClientConnectionManager;
+import cz.msebera.android.httpclient.impl.conn.tsccm.ThreadSafeClientConnManager;
+import cz.msebera.android.httpclient.pool.PoolStats;
+
+/**
+ * HttpClients with their connection pools, reused by all connections to an origin in this process,
+ * so kept alive connections are reused.
+ * A client is created for each combination of the origin, its {@link SslModeEnum} and the connection timeout.
+ * Idle connections are closed periodically. Clients are not shut down while the process lives,
+ * because a client may still be used after it was handed out, e.g. by an OAuth provider,
+ * and an idle client without connections holds no sockets. All clients are shut down by {@link #shutdown()}
+ * only, on the application context release
+ * @author yvolk@yurivolkov.com
+ */
+public class HttpClientPool {
+    private static final String TAG = HttpClientPool.class.getSimpleName();
+    public static final int MAX_CONNECTIONS_DEFAULT = 4;
+    static final long IDLE_CONNECTION_SECONDS = 30;
+    private static final long EVICTION_PERIOD_SECONDS = 15;
+
+    private static final Map<String, PooledClient> clients = new ConcurrentHashMap<>();
+    private static volatile long evictedAt = System.currentTimeMillis();
+
+    private HttpClientPool() {
+        // Empty
+    }
+
+    private static class PooledClient {
+        final String key;
+        final HttpClient client;
+        final PoolingHttpClientConnectionManager poolingManager;
+        final ClientConnectionManager legacyManager;
+
+        PooledClient(String key, SslModeEnum sslMode, int maxConnections, int connectionTimeoutMs) {
+            this.key = key;
+            if (sslMode == SslModeEnum.MISCONFIGURED) {
+                poolingManager = null;
+                ThreadSafeClientConnManager manager = MisconfiguredSslHttpClientFactory.newConnectionManager(
+                        maxConnections);
+                legacyManager = manager;
+                client = MisconfiguredSslHttpClientFactory.newHttpClient(manager, connectionTimeoutMs);
+            } else {
+                legacyManager = null;
+                poolingManager = MyHttpClientFactory.newConnectionManager(sslMode, maxConnections);
+                client = MyHttpClientFactory.newHttpClient(poolingManager, connectionTimeoutMs);
+            }
+        }
+
+        void closeIdleConnections() {
+            if (poolingManager != null) {
+                poolingManager.closeExpiredConnections();
+                poolingManager.closeIdleConnections(IDLE_CONNECTION_SECONDS, TimeUnit.SECONDS);
+            } else {
+                legacyManager.closeExpiredConnections();
+                legacyManager.closeIdleConnections(IDLE_CONNECTION_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+
+        /** Leased connections are not counted for the legacy manager */
+        PoolStats getStats() {
+            if (poolingManager != null) {
+                return poolingManager.getTotalStats();
+            }
+            int inPool = ((ThreadSafeClientConnManager) legacyManager).getConnectionsInPool();
+            int max = ((ThreadSafeClientConnManager) legacyManager).getMaxTotal();
+            return new PoolStats(0, 0, inPool, max);
+        }
+
+        void shutdown() {
+            if (poolingManager != null) {
+                poolingManager.shutdown();
+            } else {
+                legacyManager.shutdown();
+            }
+        }
+    }
+
+    static HttpClient getHttpClient(HttpConnectionData data) {
+        Origin origin = data.getAccountName().getOrigin();
+        SslModeEnum sslMode = origin.getSslMode();
+        int connectionTimeoutMs = MyPreferences.getConnectionTimeoutMs();
+        String key = origin.getId() + ";" + origin.getName() + ";" + sslMode + ";" + connectionTimeoutMs;
+        PooledClient pooled = clients.get(key);
+        if (pooled == null) {
+            synchronized (clients) {
+                pooled = clients.get(key);
+                if (pooled == null) {
+                    int maxConnections = origin.getMaxConnections() > 0 ? origin.getMaxConnections()
+                            : MAX_CONNECTIONS_DEFAULT;
+                    pooled = new PooledClient(key, sslMode, maxConnections, connectionTimeoutMs);
+                    clients.put(key, pooled);
+                    MyLog.v(TAG, "New client for " + key + ", max connections: " + maxConnections);
+                }
+            }
+        }
+        evictIfNeeded(System.currentTimeMillis());
+        return pooled.client;
+    }
+
+    private static void evictIfNeeded(long now) {
+        if (now - evictedAt < TimeUnit.SECONDS.toMillis(EVICTION_PERIOD_SECONDS)) {
+            return;
+        }
+        evictedAt = now;
+        for (PooledClient pooled : clients.values()) {
+            try {
+                pooled.closeIdleConnections();
+            } catch (Exception e) {
+                MyLog.d(TAG, "Evicting connections of " + pooled.key, e);
+            }
+        }
+    }
+
+    /** Leased, pending, available and max connections of all clients */
+    public static PoolStats getTotalStats() {
+        int leased = 0;
+        int pending = 0;
+        int available = 0;
+        int max = 0;
+        for (PooledClient pooled : clients.values()) {
+            PoolStats stats = pooled.getStats();
+            leased += stats.getLeased();
+            pending += stats.getPending();
+            available += stats.getAvailable();
+            max += stats.getMax();
+        }
+        return new PoolStats(leased, pending, available, max);
+    }
+
+    public static int getClientsCount() {
+        return clients.size();
+    }
+
+    /** Closes all connections. New clients will be created on request */
+    public static void shutdown() {
+        synchronized (clients) {
+            for (PooledClient pooled : clients.values()) {
+                try {
+                    pooled.shutdown();
+                } catch (Exception e) {
+                    MyLog.d(TAG, "Shutting down " + pooled.key, e);
+                }
+            }
+            if (!clients.isEmpty()) {
+                MyLog.v(TAG, "Shut down " + clients.size() + " clients");
+            }
+            clients.clear();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import android.text.TextUtils;
 
 import org.andstatus.app.account.AccountDataWriter;
 import org.andstatus.app.net.http.ConnectionException.StatusCode;
+import org.andstatus.app.service.CommandMetrics;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.TriState;
 import org.andstatus.app.util.UrlUtils;
@@ -87,7 +88,12 @@ public abstract class HttpConnection {
         if( result.hasFormParams()) {
             MyLog.logNetworkLevelMessage("post_form", data.getLogName(), result.getFormParams());
         }
-        postRequest(result);
+        long startedAt = System.currentTimeMillis();
+        try {
+            postRequest(result);
+        } finally {
+            CommandMetrics.onNetwork(startedAt, result.getResponseBytes());
+        }
         MyLog.logNetworkLevelMessage("post_response", data.getLogName(), result.strResponse);
         result.parseAndThrow();
         return result.getJsonObject();
@@ -109,7 +115,12 @@ public abstract class HttpConnection {
         }
         HttpReadResult result = new HttpReadResult(pathToUrlString(path));
         result.authenticate = authenticated;
-        getRequest(result);
+        long startedAt = System.currentTimeMillis();
+        try {
+            getRequest(result);
+        } finally {
+            CommandMetrics.onNetwork(startedAt, result.getResponseBytes());
+        }
         MyLog.logNetworkLevelMessage("get_response", data.getLogName(), result.strResponse);
         result.parseAndThrow();
         return result;
@@ -121,7 +132,12 @@ public abstract class HttpConnection {
 
     public final void downloadFile(String url, File file) throws ConnectionException {
         HttpReadResult result = new HttpReadResult(url, file);
-        getRequest(result);
+        long startedAt = System.currentTimeMillis();
+        try {
+            getRequest(result);
+        } finally {
+            CommandMetrics.onNetwork(startedAt, result.getResponseBytes());
+        }
         result.parseAndThrow();
     }
     
@@ -133,10 +133,9 @@ public class HttpConnectionApacheCommon {
         return formParams;
     }
 
-    public static HttpClient getHttpClient(SslModeEnum sslMode) {
-        return sslMode == SslModeEnum.MISCONFIGURED ?
-                MisconfiguredSslHttpClientFactory.getHttpClient() :
-                    MyHttpClientFactory.getHttpClient(sslMode) ;
+    /** The client is shared by connections to the same origin, see {@link HttpClientPool} */
+    public static HttpClient getHttpClient(HttpConnectionData data) {
+        return HttpClientPool.getHttpClient(data);
     }
 
     protected void getRequest(HttpReadResult result) {
@@ -180,6 +179,8 @@ public class HttpConnectionApacheCommon {
                             }
                             MyLog.v(this, message.toString());
                         }
+                        // Release the pooled connection before following the redirect
+                        DbUtils.closeSilently(httpResponse);
                         break;
                     default:
                         result.appendToLog( "statusLine:'" + statusLine + "'");
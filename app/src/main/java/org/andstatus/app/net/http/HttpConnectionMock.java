@@ -29,6 +29,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 public class HttpConnectionMock extends HttpConnection {
@@ -63,6 +65,8 @@ public class HttpConnectionMock extends HttpConnection {
     private volatile String responseString = "";
     private volatile InputStream responseFileStream = null;
     private volatile ConnectionException exception = null;
+    private final Map<String, String> responsesForUrls = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionException> exceptionsForUrls = new ConcurrentHashMap<>();
 
     private volatile String password = "password";
     private volatile String userToken = "token";
@@ -92,6 +96,27 @@ public class HttpConnectionMock extends HttpConnection {
         this.exception = exception;
     }
 
+    /** The response is returned instead of the default one, if the url of a request contains the substring */
+    public void setResponseForUrl(String urlSubstring, String responseString) {
+        responsesForUrls.put(urlSubstring, responseString);
+    }
+
+    /** The exception is thrown instead of the default one, if the url of a request contains the substring */
+    public void setExceptionForUrl(String urlSubstring, ConnectionException exception) {
+        exceptionsForUrls.put(urlSubstring, exception);
+    }
+
+    private static <T> T getForUrl(Map<String, T> map, String url, T defaultValue) {
+        if (!TextUtils.isEmpty(url)) {
+            for (Map.Entry<String, T> entry : map.entrySet()) {
+                if (url.contains(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return defaultValue;
+    }
+
     @Override
     public String pathToUrlString(String path) throws ConnectionException {
         if (data.originUrl == null) {
@@ -103,12 +128,13 @@ public class HttpConnectionMock extends HttpConnection {
     @Override
     protected void postRequest(HttpReadResult result) throws ConnectionException {
         onRequest("postRequestWithObject", result);
-        throwExceptionIfSet();
+        throwExceptionIfSet(result);
     }
 
-    private void throwExceptionIfSet() throws ConnectionException {
-        if (exception != null) {
-            throw exception;
+    private void throwExceptionIfSet(HttpReadResult result) throws ConnectionException {
+        ConnectionException e = getForUrl(exceptionsForUrls, result.getUrl(), exception);
+        if (e != null) {
+            throw e;
         }
     }
 
@@ -129,7 +155,7 @@ public class HttpConnectionMock extends HttpConnection {
     }
 
     private void onRequest(String method, HttpReadResult result) {
-        result.strResponse = responseString;
+        result.strResponse = getForUrl(responsesForUrls, result.getUrl(), responseString);
         if (result.fileResult != null && responseFileStream != null) {
             try {
                 FileUtils.readStreamToFile(responseFileStream, result.fileResult);
@@ -146,7 +172,7 @@ public class HttpConnectionMock extends HttpConnection {
 
     private void getRequestInner(String method, HttpReadResult result) throws ConnectionException {
         onRequest(method, result);
-        throwExceptionIfSet();
+        throwExceptionIfSet(result);
     }
 
     @Override
@@ -19,8 +19,10 @@ package org.andstatus.app.net.http;
 import android.text.TextUtils;
 
 import org.andstatus.app.net.http.ConnectionException.StatusCode;
+import org.andstatus.app.service.CommandMetrics;
 import org.andstatus.app.util.I18n;
 import org.andstatus.app.util.MyLog;
+import org.andstatus.app.util.StringUtils;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -118,7 +120,20 @@ public class HttpReadResult {
     }
     
     JSONObject getJsonObject() throws ConnectionException {
-        return innerGetJsonObject(strResponse);
+        long startedAt = System.currentTimeMillis();
+        try {
+            return innerGetJsonObject(strResponse);
+        } finally {
+            CommandMetrics.onJsonParsed(startedAt);
+        }
+    }
+
+    /** Size of the response body: of the file downloaded or of the response text in UTF-8 */
+    long getResponseBytes() {
+        if (fileResult != null) {
+            return fileResult.exists() ? fileResult.length() : 0;
+        }
+        return StringUtils.utf8Length(strResponse);
     }
 
     private JSONObject innerGetJsonObject(String strJson) throws ConnectionException {
@@ -143,6 +158,15 @@ public class HttpReadResult {
     }
 
     JSONArray getJsonArray() throws ConnectionException {
+        long startedAt = System.currentTimeMillis();
+        try {
+            return innerGetJsonArray();
+        } finally {
+            CommandMetrics.onJsonParsed(startedAt);
+        }
+    }
+
+    private JSONArray innerGetJsonArray() throws ConnectionException {
         String method = "getJsonArray; ";
         if (TextUtils.isEmpty(strResponse)) {
             MyLog.v(this, method + "; response is empty");
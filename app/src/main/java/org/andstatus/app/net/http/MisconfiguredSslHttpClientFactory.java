@@ -16,9 +16,10 @@
 
 package org.andstatus.app.net.http;
 
-import org.andstatus.app.context.MyPreferences;
 import cz.msebera.android.httpclient.HttpVersion;
 import cz.msebera.android.httpclient.client.HttpClient;
+import cz.msebera.android.httpclient.client.protocol.RequestAddCookies;
+import cz.msebera.android.httpclient.client.protocol.ResponseProcessCookies;
 import cz.msebera.android.httpclient.conn.ClientConnectionManager;
 import cz.msebera.android.httpclient.conn.scheme.PlainSocketFactory;
 import cz.msebera.android.httpclient.conn.scheme.Scheme;
@@ -38,7 +39,7 @@ public class MisconfiguredSslHttpClientFactory {
         // Empty
     }
     
-    static HttpClient getHttpClient() {
+    static ThreadSafeClientConnManager newConnectionManager(int maxConnections) {
         SchemeRegistry schemeRegistry = new SchemeRegistry();
         schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
         
@@ -48,25 +49,32 @@ public class MisconfiguredSslHttpClientFactory {
         socketFactory.setHostnameVerifier(SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);        
         schemeRegistry.register(new Scheme("https", socketFactory, 443));
 
-        HttpParams params = getHttpParams();        
-        ClientConnectionManager clientConnectionManager = new ThreadSafeClientConnManager(params, schemeRegistry);
-        HttpClient client = new DefaultHttpClient(clientConnectionManager, params);
+        ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager(schemeRegistry);
+        connectionManager.setMaxTotal(maxConnections + 2);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        return connectionManager;
+    }
+
+    static HttpClient newHttpClient(ClientConnectionManager connectionManager, int connectionTimeoutMs) {
+        HttpParams params = getHttpParams(connectionTimeoutMs);
+        DefaultHttpClient client = new DefaultHttpClient(connectionManager, params);
+        // The client is shared by all accounts of an origin, see HttpClientPool, so it shouldn't keep cookies
+        client.removeRequestInterceptorByClass(RequestAddCookies.class);
+        client.removeResponseInterceptorByClass(ResponseProcessCookies.class);
         client.getParams()
-                .setIntParameter(CoreConnectionPNames.CONNECTION_TIMEOUT,
-                        MyPreferences.getConnectionTimeoutMs())
-                .setIntParameter(CoreConnectionPNames.SO_TIMEOUT,
-                        MyPreferences.getConnectionTimeoutMs());
+                .setIntParameter(CoreConnectionPNames.CONNECTION_TIMEOUT, connectionTimeoutMs)
+                .setIntParameter(CoreConnectionPNames.SO_TIMEOUT, connectionTimeoutMs);
         return client;
     }
 
-    private static HttpParams getHttpParams() {
+    private static HttpParams getHttpParams(int connectionTimeoutMs) {
         HttpParams params = new BasicHttpParams();
         HttpProtocolParams.setVersion(params, HttpVersion.HTTP_1_1);
         HttpProtocolParams.setContentCharset(params, HTTP.UTF_8);
         HttpConnectionParams.setStaleCheckingEnabled(params, true);
 
         HttpProtocolParams.setUseExpectContinue(params, false);
-        HttpConnectionParams.setSoTimeout(params, MyPreferences.getConnectionTimeoutMs());
+        HttpConnectionParams.setSoTimeout(params, connectionTimeoutMs);
         HttpConnectionParams.setSocketBufferSize(params, 2*8192);
         return params;
     }
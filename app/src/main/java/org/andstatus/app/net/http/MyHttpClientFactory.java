@@ -16,11 +16,11 @@
 
 package org.andstatus.app.net.http;
 
-import org.andstatus.app.context.MyPreferences;
 import cz.msebera.android.httpclient.client.HttpClient;
 import cz.msebera.android.httpclient.client.config.RequestConfig;
 import cz.msebera.android.httpclient.config.Registry;
 import cz.msebera.android.httpclient.config.RegistryBuilder;
+import cz.msebera.android.httpclient.conn.HttpClientConnectionManager;
 import cz.msebera.android.httpclient.conn.socket.ConnectionSocketFactory;
 import cz.msebera.android.httpclient.conn.socket.PlainConnectionSocketFactory;
 import cz.msebera.android.httpclient.impl.client.HttpClientBuilder;
@@ -28,6 +28,11 @@ import cz.msebera.android.httpclient.impl.client.HttpClients;
 import cz.msebera.android.httpclient.impl.conn.PoolingHttpClientConnectionManager;
 
 public class MyHttpClientFactory {
+    /**
+     * Pooled connections, which were idle for longer, are checked before reuse,
+     * as the server may have closed them, so a request doesn't fail with NoHttpResponseException
+     */
+    static final int VALIDATE_AFTER_INACTIVITY_MS = 2000;
 
     /** Based on: https://github.com/rfc2822/davdroid/blob/master/src/at/bitfire/davdroid/webdav/DavHttpClient.java */
 
@@ -35,22 +40,27 @@ public class MyHttpClientFactory {
         // Empty
     }
     
-    public static HttpClient getHttpClient(SslModeEnum sslMode) {
+    static PoolingHttpClientConnectionManager newConnectionManager(SslModeEnum sslMode, int maxConnections) {
         Registry<ConnectionSocketFactory> registry = 
                 RegistryBuilder.<ConnectionSocketFactory> create()
                     .register("http", PlainConnectionSocketFactory.getSocketFactory())
                     .register("https", TlsSniSocketFactory.getInstance(sslMode))
                     .build();
         PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
-        // max.  3 connections in total
-        connectionManager.setMaxTotal(3);
-        // max.  2 connections per host
-        connectionManager.setDefaultMaxPerRoute(2);
+        // Connections to the server of the origin and a couple more for downloads from other hosts
+        connectionManager.setMaxTotal(maxConnections + 2);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+        return connectionManager;
+    }
 
+    static HttpClient newHttpClient(HttpClientConnectionManager connectionManager, int connectionTimeoutMs) {
         // use request defaults from AndroidHttpClient
         RequestConfig requestConfig = RequestConfig.copy(RequestConfig.DEFAULT)
-                .setConnectTimeout(MyPreferences.getConnectionTimeoutMs())
-                .setSocketTimeout(2*MyPreferences.getConnectionTimeoutMs())
+                .setConnectTimeout(connectionTimeoutMs)
+                .setSocketTimeout(2*connectionTimeoutMs)
+                // Don't wait forever for a connection from the pool
+                .setConnectionRequestTimeout(2*connectionTimeoutMs)
                 .setStaleConnectionCheckEnabled(false)
                 .build();
         
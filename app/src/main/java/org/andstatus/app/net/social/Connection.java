@@ -38,12 +38,8 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Handles connection to the API of the Microblogging System (i.e. to the "Origin")
@@ -103,6 +99,10 @@ public abstract class Connection {
         SEARCH_MESSAGES(true),
 
         GET_MESSAGE,
+        /** Several messages by their IDs in one request */
+        GET_MESSAGES,
+        /** All messages of a conversation in one request */
+        GET_CONVERSATION,
         STOP_FOLLOWING_USER,
         
         /**
@@ -288,6 +288,34 @@ public abstract class Connection {
 
     /** See {@link #getMessage(String)} */
     protected abstract MbMessage getMessage1(String statusId) throws ConnectionException;
+
+    /** Maximum number of IDs in one {@link #getMessages(List)} request */
+    public int getMessagesLimit() {
+        return 1;
+    }
+
+    /**
+     * Several messages, specified by their IDs. The default implementation requests them one by one.
+     * Messages, which were not found, are not returned
+     */
+    public List<MbMessage> getMessages(List<String> statusIds) throws ConnectionException {
+        List<MbMessage> messages = new ArrayList<>();
+        for (String statusId : statusIds) {
+            MbMessage message = getMessage(statusId);
+            if (message != null && !message.isEmpty()) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * All messages of the conversation, see {@link MbMessage#conversationOid}
+     * This is supported, if {@link #isApiSupported(ApiRoutineEnum)} for {@link ApiRoutineEnum#GET_CONVERSATION}
+     */
+    public List<MbMessage> getConversation(String conversationOid) throws ConnectionException {
+        throw ConnectionException.fromStatusCode(StatusCode.UNSUPPORTED_API, "getConversation oid=" + conversationOid);
+    }
     
     /**
      * Update user status by posting to the Twitter REST API.
@@ -450,34 +478,12 @@ public abstract class Connection {
      * @return Unix time. Returns 0 in a case of an error
      */
     public long parseDate(String stringDate) {
-        if(TextUtils.isEmpty(stringDate)) {
-            return 0;
-        }
-        long unixDate = 0;
-        String[] formats = {"", "E MMM d HH:mm:ss Z yyyy", "E, d MMM yyyy HH:mm:ss Z"};
-        for (String format : formats) {
-            if (TextUtils.isEmpty(format)) {
-                try {
-                    unixDate = Date.parse(stringDate);
-                } catch (IllegalArgumentException e) {
-                    MyLog.ignored(this, e);
-                }
-            } else {
-                DateFormat dateFormat1 = new SimpleDateFormat(format, Locale.ENGLISH);
-                try {
-                    unixDate = dateFormat1.parse(stringDate).getTime();
-                } catch (ParseException e) {
-                    MyLog.ignored(this, e);
-                }
-            }
-            if (unixDate != 0) {
-                break;
-            }
-        }
-        if (unixDate == 0) {
-            MyLog.d(this, "Failed to parse the date: '" + stringDate +"'");
-        }
-        return unixDate;
+        return getDateParser().parse(stringDate);
+    }
+
+    /** Format of dates in this API */
+    protected DateParser getDateParser() {
+        return DateParser.TWITTER;
     }
 
     protected void setMessagesPublic(List<MbTimelineItem> timeline) {
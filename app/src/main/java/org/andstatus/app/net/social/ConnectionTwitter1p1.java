@@ -28,6 +28,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -95,6 +96,10 @@ public class ConnectionTwitter1p1 extends ConnectionTwitter {
                 // https://dev.twitter.com/docs/api/1.1/get/statuses/mentions_timeline
                 url = "statuses/mentions_timeline" + EXTENSION;
                 break;
+            case GET_MESSAGES:
+                // https://dev.twitter.com/rest/reference/get/statuses/lookup
+                url = "statuses/lookup" + EXTENSION;
+                break;
             default:
                 url = "";
                 break;
@@ -105,6 +110,35 @@ public class ConnectionTwitter1p1 extends ConnectionTwitter {
         return prependWithBasicPath(url);
     }
 
+    @Override
+    public int getMessagesLimit() {
+        return 100;
+    }
+
+    @Override
+    public List<MbMessage> getMessages(List<String> statusIds) throws ConnectionException {
+        if (statusIds.size() < 2) {
+            return super.getMessages(statusIds);
+        }
+        Uri sUri = Uri.parse(getApiPath(ApiRoutineEnum.GET_MESSAGES));
+        Uri.Builder builder = sUri.buildUpon();
+        builder.appendQueryParameter("id", TextUtils.join(",", statusIds));
+        JSONArray jArr = http.getRequestAsArray(builder.build().toString());
+        List<MbMessage> messages = new ArrayList<>();
+        for (int index = 0; index < jArr.length(); index++) {
+            try {
+                MbMessage message = messageFromJson(jArr.getJSONObject(index));
+                if (!message.isEmpty()) {
+                    message.setPublic(true);
+                    messages.add(message);
+                }
+            } catch (JSONException e) {
+                throw ConnectionException.loggedJsonException(this, "Parsing " + ApiRoutineEnum.GET_MESSAGES, e, null);
+            }
+        }
+        return messages;
+    }
+
     @Override
     public MbMessage createFavorite(String statusId) throws ConnectionException {
         JSONObject out = new JSONObject();
@@ -58,6 +58,9 @@ public class ConnectionTwitterGnuSocial extends ConnectionTwitter1p0 {
             case SEARCH_MESSAGES:
                 url = "search" + EXTENSION;
                 break;
+            case GET_CONVERSATION:
+                url = "statusnet/conversation/";
+                break;
             default:
                 url = "";
                 break;
@@ -159,11 +162,32 @@ public class ConnectionTwitterGnuSocial extends ConnectionTwitter1p0 {
         }
     }
 
+    @Override
+    public List<MbMessage> getConversation(String conversationOid) throws ConnectionException {
+        if (TextUtils.isEmpty(conversationOid)) {
+            return new ArrayList<>();
+        }
+        String url = getApiPath(ApiRoutineEnum.GET_CONVERSATION) + conversationOid + EXTENSION;
+        JSONArray jArr = http.getRequestAsArray(url);
+        List<MbMessage> messages = new ArrayList<>();
+        for (MbTimelineItem item : jArrToTimeline(jArr, ApiRoutineEnum.GET_CONVERSATION, url)) {
+            if (item.mbMessage != null && !item.mbMessage.isEmpty()) {
+                item.mbMessage.setPublic(true);
+                messages.add(item.mbMessage);
+            }
+        }
+        return messages;
+    }
+
+    private static final String CONVERSATION_ID_FIELD_NAME = "statusnet_conversation_id";
     private static final String ATTACHMENTS_FIELD_NAME = "attachments";
     @Override
     protected MbMessage messageFromJson(JSONObject jso) throws ConnectionException {
         final String method = "messageFromJson";
         MbMessage message = super.messageFromJson(jso);
+        if (jso != null) {
+            message.conversationOid = jso.optString(CONVERSATION_ID_FIELD_NAME);
+        }
         if (jso != null && jso.has(ATTACHMENTS_FIELD_NAME)) {
             try {
                 JSONArray jArr = jso.getJSONArray(ATTACHMENTS_FIELD_NAME);
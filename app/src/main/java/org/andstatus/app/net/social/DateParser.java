@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.net.social;
+
+import android.text.TextUtils;
+
+import org.andstatus.app.util.MyLog;
+
+import java.util.Date;
+
+/**
+ * Parsers of the date formats, used by the APIs of Social networks.
+ * They don't allocate objects for the formats they know, and they are thread safe,
+ * so one instance may be used by all connections.
+ * @author yvolk@yurivolkov.com
+ */
+public enum DateParser {
+    /**
+     * Twitter and GNU social: "Fri Oct 24 13:34:38 -0700 2014",
+     * RFC 822: "Fri, 24 Oct 2014 13:34:38 -0700",
+     * and other formats, understood by {@link Date#parse(String)}
+     */
+    TWITTER {
+        @Override
+        long parseKnown(String date) {
+            long unixDate = parseTwitter(date);
+            if (unixDate == 0) {
+                unixDate = parseRfc822(date);
+            }
+            return unixDate;
+        }
+
+        @Override
+        long parseOther(String date) {
+            try {
+                return Date.parse(date);
+            } catch (IllegalArgumentException e) {
+                MyLog.ignored(this, e);
+            }
+            return 0;
+        }
+    },
+    /** Pump.io and Mastodon: "2013-09-12T17:10:44Z", "2016-03-16T14:44:31.580+02:00" */
+    ISO_8601 {
+        @Override
+        long parseKnown(String date) {
+            return parseIso8601(date);
+        }
+    };
+
+    private static final String MONTHS = "janfebmaraprmayjunjulaugsepoctnovdec";
+    private static final int ERROR = Integer.MIN_VALUE;
+
+    /**
+     * @return Unix time. Returns 0 in a case of an error
+     */
+    public long parse(String date) {
+        if (TextUtils.isEmpty(date)) {
+            return 0;
+        }
+        long unixDate = parseKnown(date);
+        if (unixDate == 0) {
+            unixDate = parseOther(date);
+        }
+        if (unixDate == 0) {
+            MyLog.d(this, "Failed to parse the date: '" + date + "'");
+        }
+        return unixDate;
+    }
+
+    abstract long parseKnown(String date);
+
+    long parseOther(String date) {
+        return 0;
+    }
+
+    /** "EEE MMM d HH:mm:ss Z yyyy" */
+    static long parseTwitter(String s) {
+        int length = s.length();
+        if (length < 28 || s.charAt(3) != ' ' || s.charAt(7) != ' ' || s.charAt(length - 5) != ' ') {
+            return 0;
+        }
+        int pos = s.indexOf(' ', 8);
+        if (pos < 0 || length < pos + 16 || s.charAt(pos + 9) != ' ') {
+            return 0;
+        }
+        int month = month(s, 4);
+        int day = number(s, 8, pos);
+        int offset = offsetMinutes(s, pos + 10, length - 5);
+        int year = number(s, length - 4, length);
+        return toUnixTime(year, month, day, s, pos + 1, 0, offset);
+    }
+
+    /** "EEE, d MMM yyyy HH:mm:ss Z" */
+    static long parseRfc822(String s) {
+        if (s.length() < 30 || s.charAt(3) != ',' || s.charAt(4) != ' ') {
+            return 0;
+        }
+        int pos = s.indexOf(' ', 5);
+        if (pos < 0 || s.length() != pos + 26 || s.charAt(pos + 4) != ' '
+                || s.charAt(pos + 9) != ' ' || s.charAt(pos + 18) != ' ') {
+            return 0;
+        }
+        int day = number(s, 5, pos);
+        int month = month(s, pos + 1);
+        int year = number(s, pos + 5, pos + 9);
+        int offset = offsetMinutes(s, pos + 19, pos + 24);
+        return toUnixTime(year, month, day, s, pos + 10, 0, offset);
+    }
+
+    /** "yyyy-MM-ddTHH:mm:ss[.SSS](Z|+HH:mm|+HHmm|+HH)" */
+    static long parseIso8601(String s) {
+        if (s.length() < 20 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T') {
+            return 0;
+        }
+        int year = number(s, 0, 4);
+        int month = number(s, 5, 7);
+        int day = number(s, 8, 10);
+        int pos = 19;
+        int millis = 0;
+        if (s.charAt(pos) == '.') {
+            int end = pos + 1;
+            while (end < s.length() && Character.isDigit(s.charAt(end))) {
+                end++;
+            }
+            millis = end - pos > 4 ? number(s, pos + 1, pos + 4) : number(s, pos + 1, end);
+            for (int i = end - pos - 1; i > 0 && i < 3; i++) {
+                millis *= 10;
+            }
+            pos = end;
+        }
+        int offset;
+        if (pos == s.length() - 1 && s.charAt(pos) == 'Z') {
+            offset = 0;
+        } else {
+            offset = offsetMinutes(s, pos, s.length());
+        }
+        return toUnixTime(year, month, day, s, 11, millis, offset);
+    }
+
+    /** @param timePos position of the "HH:mm:ss" */
+    private static long toUnixTime(int year, int month, int day, String s, int timePos, int millis, int offsetMinutes) {
+        if (s.charAt(timePos + 2) != ':' || s.charAt(timePos + 5) != ':') {
+            return 0;
+        }
+        int hour = number(s, timePos, timePos + 2);
+        int minute = number(s, timePos + 3, timePos + 5);
+        int second = number(s, timePos + 6, timePos + 8);
+        if (year == ERROR || month < 1 || month > 12 || day < 1 || day > 31 || hour == ERROR
+                || hour > 23 || minute == ERROR || minute > 59 || second == ERROR || second > 60
+                || millis == ERROR || offsetMinutes == ERROR) {
+            return 0;
+        }
+        long days = daysFromCivil(year, month, day);
+        return (((days * 24 + hour) * 60 + minute - offsetMinutes) * 60 + second) * 1000 + millis;
+    }
+
+    /**
+     * Days since 1970-01-01 in the proleptic Gregorian calendar. See
+     * <a href="http://howardhinnant.github.io/date_algorithms.html#days_from_civil">days_from_civil</a>
+     */
+    static long daysFromCivil(int yearIn, int month, int day) {
+        int year = month <= 2 ? yearIn - 1 : yearIn;
+        int era = (year >= 0 ? year : year - 399) / 400;
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /** @return 1 - 12 or {@link #ERROR} */
+    private static int month(String s, int pos) {
+        for (int i = 0; i < MONTHS.length(); i += 3) {
+            if (Character.toLowerCase(s.charAt(pos)) == MONTHS.charAt(i)
+                    && Character.toLowerCase(s.charAt(pos + 1)) == MONTHS.charAt(i + 1)
+                    && Character.toLowerCase(s.charAt(pos + 2)) == MONTHS.charAt(i + 2)) {
+                return i / 3 + 1;
+            }
+        }
+        return ERROR;
+    }
+
+    /** Time zone offset in the form "+HHmm", "+HH:mm" or "+HH", optionally prefixed with "GMT" */
+    private static int offsetMinutes(String s, int startIn, int end) {
+        int start = startIn;
+        if (end - start >= 3 && s.startsWith("GMT", start)) {
+            start += 3;
+            if (start == end) {
+                return 0;
+            }
+        }
+        int length = end - start;
+        if (length != 3 && length != 5 && length != 6) {
+            return ERROR;
+        }
+        char sign = s.charAt(start);
+        if (sign != '+' && sign != '-') {
+            return ERROR;
+        }
+        int hours = number(s, start + 1, start + 3);
+        int minutes = 0;
+        if (length == 5) {
+            minutes = number(s, start + 3, start + 5);
+        } else if (length == 6) {
+            minutes = s.charAt(start + 3) == ':' ? number(s, start + 4, start + 6) : ERROR;
+        }
+        if (hours == ERROR || minutes == ERROR) {
+            return ERROR;
+        }
+        return (sign == '-' ? -1 : 1) * (hours * 60 + minutes);
+    }
+
+    /** @return Non-negative number or {@link #ERROR} */
+    private static int number(String s, int start, int end) {
+        if (start >= end) {
+            return ERROR;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return ERROR;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
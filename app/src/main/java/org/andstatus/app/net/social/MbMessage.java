@@ -45,6 +45,8 @@ public class MbMessage {
 
     public MbMessage rebloggedMessage = null;
     public MbMessage inReplyToMessage = null;
+    /** ID of the conversation at the origin, if the origin has it, see {@link Connection#getConversation(String)} */
+    public String conversationOid = "";
     public final List<MbMessage> replies = new ArrayList<>();
     public String via = "";
     public String url="";
@@ -21,18 +21,18 @@ import android.text.TextUtils;
 
 import org.andstatus.app.context.MyContext;
 import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.data.MentionsExtractor;
 import org.andstatus.app.data.MyQuery;
 import org.andstatus.app.data.OidEnum;
 import org.andstatus.app.origin.Origin;
 import org.andstatus.app.util.I18n;
-import org.andstatus.app.util.MyHtml;
 import org.andstatus.app.util.SharedPreferencesUtil;
 import org.andstatus.app.util.TriState;
 import org.andstatus.app.util.UriUtils;
 
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * 'Mb' stands for "Microblogging system" 
@@ -41,6 +41,7 @@ import java.util.List;
 public class MbUser implements Comparable<MbUser> {
     // RegEx from http://www.mkyong.com/regular-expressions/how-to-validate-email-address-with-regular-expression/
     public static final String WEBFINGER_ID_REGEX = "^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@[A-Za-z0-9-]+(\\.[A-Za-z0-9-]+)*(\\.[A-Za-z]{2,})$";
+    private static final Pattern WEBFINGER_ID_PATTERN = Pattern.compile(WEBFINGER_ID_REGEX);
     private static final String TEMP_OID_PREFIX = "andstatustemp:";
     public String oid = "";
     private String userName = "";
@@ -243,7 +244,7 @@ public class MbUser implements Comparable<MbUser> {
     public static boolean isWebFingerIdValid(String webFingerId) {
         boolean ok = false;
         if (!TextUtils.isEmpty(webFingerId)) {
-            ok = webFingerId.matches(WEBFINGER_ID_REGEX);
+            ok = WEBFINGER_ID_PATTERN.matcher(webFingerId).matches();
         }
         return ok;
     }
@@ -295,61 +296,8 @@ public class MbUser implements Comparable<MbUser> {
     }
 
     public List<MbUser> fromBodyText(String textIn, boolean replyOnly) {
-        final String SEPARATORS = ", ;'=`~!#$%^&*(){}[]/";
-        Origin origin = MyContextHolder.get().persistentOrigins().fromId(originId);
-        List<MbUser> users = new ArrayList<>();
-        String text = MyHtml.fromHtml(textIn);
-        while (!TextUtils.isEmpty(text)) {
-            int atPos = text.indexOf('@');
-            if (atPos < 0 || (atPos > 0 && replyOnly)) {
-                break;
-            }
-            String validUserName = "";
-            String validWebFingerId = "";
-            int ind=atPos+1;
-            for (; ind < text.length(); ind++) {
-                if (SEPARATORS.indexOf(text.charAt(ind)) >= 0) {
-                    break;
-                }
-                String userName = text.substring(atPos+1, ind + 1);
-                if (origin.isUsernameValid(userName)) {
-                    validUserName = userName;
-                }
-                if (isWebFingerIdValid(userName)) {
-                    validWebFingerId = userName;
-                }
-            }
-            if (ind < text.length()) {
-                text = text.substring(ind);
-            } else {
-                text = "";
-            }
-            if (MbUser.isWebFingerIdValid(validWebFingerId) || !TextUtils.isEmpty(validUserName)) {
-                MbUser mbUser = MbUser.fromOriginAndUserOid(origin.getId(), "");
-                if (!MbUser.isWebFingerIdValid(validWebFingerId)) {
-                    // Try a host of the Author first
-                    mbUser.userId = MyQuery.webFingerIdToId(origin.getId(), validUserName + "@" + getHost());
-                    if (mbUser.userId == 0 && (origin.getUrl() != null)) {
-                        // Next try host of this Social network
-                        mbUser.userId = MyQuery.webFingerIdToId(origin.getId(), validUserName 
-                            + "@" + origin.getUrl().getHost());
-                    }
-                    if (mbUser.userId != 0) {
-                        validWebFingerId = validUserName + "@" + getHost();
-                    }
-                }
-                mbUser.setWebFingerId(validWebFingerId);
-                mbUser.setUserName(validUserName);
-                mbUser.lookupUserId();
-                if (!users.contains(mbUser)) {
-                    users.add(mbUser);
-                }
-                if (replyOnly) {
-                    break;
-                }
-            }
-        }
-        return users;
+        MentionsExtractor extractor = MentionsExtractor.fromBodyText(this, textIn);
+        return replyOnly ? extractor.getReplyToUsers() : extractor.getUsers();
     }
 
     public String getHost() {
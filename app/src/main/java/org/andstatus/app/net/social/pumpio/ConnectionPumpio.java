@@ -28,6 +28,7 @@ import org.andstatus.app.net.http.ConnectionException.StatusCode;
 import org.andstatus.app.net.http.HttpConnection;
 import org.andstatus.app.net.http.HttpConnectionData;
 import org.andstatus.app.net.social.Connection;
+import org.andstatus.app.net.social.DateParser;
 import org.andstatus.app.net.social.MbAttachment;
 import org.andstatus.app.net.social.MbMessage;
 import org.andstatus.app.net.social.MbRateLimitStatus;
@@ -45,12 +46,8 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.net.URL;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Implementation of pump.io API: <a href="https://github.com/e14n/pump.io/blob/master/API.md">https://github.com/e14n/pump.io/blob/master/API.md</a>  
@@ -143,31 +140,11 @@ public class ConnectionPumpio extends Connection {
         return user;
     }
 
-    private final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.GERMANY);
-    /**
-     * Simple solution based on:
-     * http://stackoverflow.com/questions/2201925/converting-iso8601-compliant-string-to-java-util-date
-     * @return Unix time. Returns 0 in a case of an error
-     */
     @Override
-    public long parseDate(String stringDate) {
-        long unixDate = 0;
-        if(stringDate != null) {
-            String datePrepared;        
-            if (stringDate.lastIndexOf('Z') == stringDate.length()-1) {
-                datePrepared = stringDate.substring(0, stringDate.length()-1) + "+0000";
-            } else {
-                datePrepared = stringDate.replaceAll("\\+0([0-9]):00", "+0$100");
-            }
-            try {
-                unixDate = dateFormat.parse(datePrepared).getTime();
-            } catch (ParseException e) {
-                MyLog.e(this, "Failed to parse the date: '" + stringDate +"'", e);
-            }
-        }
-        return unixDate;
+    protected DateParser getDateParser() {
+        return DateParser.ISO_8601;
     }
-    
+
     @Override
     public MbMessage destroyFavorite(String messageId) throws ConnectionException {
         return actOnMessage(ActivityType.UNFAVORITE, messageId);
@@ -20,7 +20,6 @@ import android.os.Bundle;
 import android.view.MenuItem;
 
 import org.andstatus.app.R;
-import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.service.CommandData;
 import org.andstatus.app.service.CommandEnum;
 import org.andstatus.app.service.MyServiceEvent;
@@ -29,7 +28,7 @@ import org.andstatus.app.service.MyServiceEventsReceiver;
 import org.andstatus.app.service.MyServiceManager;
 
 public class DiscoveredOriginList extends OriginList implements MyServiceEventsListener {
-    MyServiceEventsReceiver mServiceConnector = new MyServiceEventsReceiver(MyContextHolder.get(), this);
+    MyServiceEventsReceiver mServiceConnector = new MyServiceEventsReceiver(this);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -61,13 +60,13 @@ public class DiscoveredOriginList extends OriginList implements MyServiceEventsL
     protected void onResume() {
         super.onResume();
         MyServiceManager.setServiceAvailable();
-        mServiceConnector.registerReceiver(this);
+        mServiceConnector.register();
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        mServiceConnector.unregisterReceiver(this);
+        mServiceConnector.unregister();
     }
     
     @Override
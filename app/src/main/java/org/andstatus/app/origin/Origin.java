@@ -69,6 +69,8 @@ public class Origin {
     private SslModeEnum sslMode = SslModeEnum.SECURE;
 
     private TriState mUseLegacyHttpProtocol = TriState.UNKNOWN;
+    /** 0 means default */
+    private int maxConnections = 0;
 
     private boolean allowHtml = false;
 
@@ -136,7 +138,7 @@ public class Origin {
     public boolean isUsernameValid(String username) {
         boolean ok = false;
         if (!TextUtils.isEmpty(username)) {
-            ok = username.matches(originType.usernameRegEx);
+            ok = originType.getUsernamePattern().matcher(username).matches();
         }
         return ok;
     }
@@ -233,6 +235,11 @@ public class Origin {
         return keyRoot + Long.toString(id);
     }
 
+    /** @return Maximum number of simultaneous connections to this server, 0 means default */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
     public boolean isHtmlContentAllowed() {
         return allowHtml;
     }
@@ -424,6 +431,7 @@ public class Origin {
                     OriginTable.MENTION_AS_WEBFINGER_ID)));
             setUseLegacyHttpProtocol(TriState.fromId(DbUtils.getLong(cursor,
                     OriginTable.USE_LEGACY_HTTP)));
+            setMaxConnections(DbUtils.getInt(cursor, OriginTable.MAX_CONNECTIONS));
         }
 
         protected void setTextLimit(int textLimit) {
@@ -448,6 +456,7 @@ public class Origin {
             setInCombinedPublicReload(original.inCombinedPublicReload);
             setMentionAsWebFingerId(original.mMentionAsWebFingerId);
             origin.mUseLegacyHttpProtocol = original.mUseLegacyHttpProtocol;
+            setMaxConnections(original.maxConnections);
         }
 
         public Origin build() {
@@ -530,6 +539,11 @@ public class Origin {
             return this;
         }
         
+        public Builder setMaxConnections(int maxConnections) {
+            origin.maxConnections = maxConnections < 0 ? 0 : maxConnections;
+            return this;
+        }
+
         public Builder save(MbConfig config) {
             origin.shortUrlLength = config.shortUrlLength;
             setTextLimit(config.textLimit);
@@ -566,6 +580,7 @@ public class Origin {
             values.put(OriginTable.IN_COMBINED_PUBLIC_RELOAD, origin.inCombinedPublicReload);
             values.put(OriginTable.MENTION_AS_WEBFINGER_ID, origin.mMentionAsWebFingerId.getId());
             values.put(OriginTable.USE_LEGACY_HTTP, origin.useLegacyHttpProtocol().getId());
+            values.put(OriginTable.MAX_CONNECTIONS, origin.maxConnections);
 
             boolean changed = false;
             if (origin.id == 0) {
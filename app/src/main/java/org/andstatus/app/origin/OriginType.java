@@ -32,6 +32,7 @@ import org.andstatus.app.util.TriState;
 import org.andstatus.app.util.UrlUtils;
 
 import java.net.URL;
+import java.util.regex.Pattern;
 
 public enum OriginType {
     /**
@@ -98,6 +99,7 @@ public enum OriginType {
      * This is only for no OAuth */
     protected boolean shouldSetNewUsernameManuallyNoOAuth = false;
     protected String usernameRegEx = USERNAME_REGEX_SIMPLE;
+    private final Pattern usernamePattern;
     public final String validUsernameExamples;
     /**
      * Length of the link after changing to the shortened link
@@ -227,6 +229,12 @@ public enum OriginType {
                 validUsernameExamples = USERNAME_EXAMPLES_SIMPLE;
                 break;
         }
+        usernamePattern = Pattern.compile(usernameRegEx);
+    }
+
+    /** Compiled once, because usernames are checked for every "@" in every message body */
+    public Pattern getUsernamePattern() {
+        return usernamePattern;
     }
 
     public Class<? extends Origin> getOriginClass() {
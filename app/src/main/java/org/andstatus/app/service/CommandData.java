@@ -185,6 +185,13 @@ public class CommandData implements Comparable<CommandData> {
         return commandData;
     }
 
+    /** A snapshot of the command, which is not changed by the service while the command is being executed */
+    CommandData copy(MyContext myContext) {
+        CommandData copy = fromBundle(myContext, toBundle());
+        copy.commandResult = commandResult.copy();
+        return copy;
+    }
+
     /**
      * @return Intent to be sent to MyService
      */
@@ -24,13 +24,12 @@ import android.text.TextUtils;
 import org.andstatus.app.appwidget.AppWidgets;
 import org.andstatus.app.data.DataInserter;
 import org.andstatus.app.data.DownloadData;
-import org.andstatus.app.data.DownloadStatus;
 import org.andstatus.app.data.MatchedUri;
+import org.andstatus.app.data.MsgRow;
 import org.andstatus.app.data.MyContentType;
 import org.andstatus.app.data.MyQuery;
 import org.andstatus.app.data.OidEnum;
 import org.andstatus.app.database.MsgOfUserTable;
-import org.andstatus.app.database.MsgTable;
 import org.andstatus.app.net.http.ConnectionException;
 import org.andstatus.app.net.http.ConnectionException.StatusCode;
 import org.andstatus.app.net.social.MbMessage;
@@ -333,9 +332,10 @@ class CommandExecutorOther extends CommandExecutorStrategy{
     private void updateStatus(long msgId) {
         final String method = "updateStatus";
         MbMessage message = null;
-        String status = MyQuery.msgIdToStringColumnValue(MsgTable.BODY, msgId);
-        String oid = getMsgOid(method, msgId, false);
-        long recipientUserId = MyQuery.msgIdToLongColumnValue(MsgTable.RECIPIENT_ID, msgId);
+        MsgRow msg = MsgRow.fromId(msgId);
+        String status = msg.body;
+        String oid = msg.oid;
+        long recipientUserId = msg.recipientId;
         Uri mediaUri = DownloadData.getSingleForMessage(msgId, MyContentType.IMAGE, Uri.EMPTY).
                 mediaUriToBePosted();
         String msgLog = "text:'" + MyLog.trimmedString(status, 40) + "'"
@@ -344,23 +344,17 @@ class CommandExecutorOther extends CommandExecutorStrategy{
             if (MyLog.isVerboseEnabled()) {
                 MyLog.v(this, method + ";" + msgLog);
             }
-            DownloadStatus statusStored = DownloadStatus.load(
-                    MyQuery.msgIdToLongColumnValue(MsgTable.MSG_STATUS, msgId));
-            if (!statusStored.mayBeSent()) {
+            if (!msg.status.mayBeSent()) {
                 throw ConnectionException.hardConnectionException(
-                        "Wrong message status: " + statusStored, null);
+                        "Wrong message status: " + msg.status, null);
             }
             if (recipientUserId == 0) {
-                long replyToMsgId = MyQuery.msgIdToLongColumnValue(
-                        MsgTable.IN_REPLY_TO_MSG_ID, msgId);
-                String replyToMsgOid = getMsgOid(method, replyToMsgId, false);
                 message = execContext.getMyAccount().getConnection()
-                        .updateStatus(status.trim(), oid, replyToMsgOid, mediaUri);
+                        .updateStatus(status.trim(), oid, msg.inReplyToOid, mediaUri);
             } else {
-                String recipientOid = MyQuery.idToOid(OidEnum.USER_OID, recipientUserId, 0);
                 // Currently we don't use Screen Name, I guess id is enough.
                 message = execContext.getMyAccount().getConnection()
-                        .postDirectMessage(status.trim(), oid, recipientOid, mediaUri);
+                        .postDirectMessage(status.trim(), oid, msg.recipientOid, mediaUri);
             }
             logIfEmptyMessage(method, msgId, message);
         } catch (ConnectionException e) {
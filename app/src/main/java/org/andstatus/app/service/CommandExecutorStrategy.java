@@ -16,7 +16,6 @@
 
 package org.andstatus.app.service;
 
-import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.net.http.ConnectionException;
 import org.andstatus.app.util.I18n;
 import org.andstatus.app.util.MyLog;
@@ -31,11 +30,22 @@ class CommandExecutorStrategy implements CommandExecutorParent {
     static void executeCommand(CommandData commandData, CommandExecutorParent parent) {
         CommandExecutorStrategy strategy = getStrategy(new CommandExecutionContext(commandData))
                 .setParent(parent);
+        CommandMetrics metrics = CommandMetrics.start(Math.max(commandData.getCreatedDate(),
+                commandData.getResult().getLastExecutedDate()));
         commandData.getResult().prepareForLaunch();
         logLaunch(strategy);
         // This may cause recursive calls to executors...
-        strategy.execute();
+        try {
+            strategy.execute();
+        } finally {
+            metrics.stop();
+        }
         commandData.getResult().afterExecutionEnded();
+        if (!metrics.isNested()) {
+            // The metrics of a nested execution are already counted in the outer command
+            commandData.getResult().setMetrics(metrics);
+            metrics.save(strategy.execContext.getMyContext(), commandData);
+        }
         logEnd(strategy);
     }
 
@@ -71,7 +81,7 @@ class CommandExecutorStrategy implements CommandExecutorParent {
             }
         }
         lastProgressBroadcastAt = System.currentTimeMillis();
-        MyServiceEventsBroadcaster.newInstance(MyContextHolder.get(), MyServiceState.RUNNING)
+        MyServiceEventsBroadcaster.newInstance(MyServiceState.RUNNING)
                 .setCommandData(execContext.getCommandData())
                 .setProgress(progress)
                 .setEvent(MyServiceEvent.PROGRESS_EXECUTING_COMMAND).broadcast();
@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Parcel;
+import android.provider.BaseColumns;
+
+import org.andstatus.app.R;
+import org.andstatus.app.context.MyContext;
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.database.CommandMetricsTable;
+import org.andstatus.app.origin.Origin;
+import org.andstatus.app.util.MyLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Where the time of one command execution went: waiting in a queue, waiting for the network,
+ * parsing JSON and writing to the database.
+ * The metrics are collected by the thread, which executes the command,
+ * through the static "on..." methods, called by the connection and by the data layer,
+ * where it writes to the database: the {@link org.andstatus.app.data.MyProvider} and the direct writes, which bypass it.
+ * The methods do nothing, if no command is being executed by the current thread.
+ * @author yvolk@yurivolkov.com
+ */
+public final class CommandMetrics {
+    private static final ThreadLocal<CommandMetrics> current = new ThreadLocal<>();
+
+    long queueWaitMs = 0;
+    long wallTimeMs = 0;
+    long networkMs = 0;
+    long bytes = 0;
+    long parseMs = 0;
+    long dbWriteMs = 0;
+    long dbRows = 0;
+    long dbTransactions = 0;
+
+    private long startedAt = 0;
+    private CommandMetrics previous = null;
+    private boolean nested = false;
+
+    /** Starts collecting the metrics by the current thread. Nested starts are allowed */
+    static CommandMetrics start(long queuedAt) {
+        CommandMetrics metrics = new CommandMetrics();
+        metrics.startedAt = System.currentTimeMillis();
+        if (queuedAt > 0 && queuedAt < metrics.startedAt) {
+            metrics.queueWaitMs = metrics.startedAt - queuedAt;
+        }
+        metrics.previous = current.get();
+        metrics.nested = metrics.previous != null;
+        current.set(metrics);
+        return metrics;
+    }
+
+    /**
+     * Stops collecting, the metrics of the outer command (if any) are collected again
+     * and the metrics of this nested execution are added to them
+     */
+    CommandMetrics stop() {
+        wallTimeMs = System.currentTimeMillis() - startedAt;
+        if (current.get() == this) {
+            current.set(previous);
+        }
+        if (previous != null) {
+            previous.networkMs += networkMs;
+            previous.bytes += bytes;
+            previous.parseMs += parseMs;
+            previous.dbWriteMs += dbWriteMs;
+            previous.dbRows += dbRows;
+            previous.dbTransactions += dbTransactions;
+        }
+        previous = null;
+        return this;
+    }
+
+    /** The execution was started while another one was being measured by the same thread */
+    boolean isNested() {
+        return nested;
+    }
+
+    public static void onNetwork(long startedAt, long bytesIn) {
+        CommandMetrics metrics = current.get();
+        if (metrics != null) {
+            metrics.networkMs += System.currentTimeMillis() - startedAt;
+            metrics.bytes += bytesIn;
+        }
+    }
+
+    public static void onJsonParsed(long startedAt) {
+        CommandMetrics metrics = current.get();
+        if (metrics != null) {
+            metrics.parseMs += System.currentTimeMillis() - startedAt;
+        }
+    }
+
+    public static void onDbWrite(long startedAt, long rows, long transactions) {
+        CommandMetrics metrics = current.get();
+        if (metrics != null) {
+            metrics.dbWriteMs += System.currentTimeMillis() - startedAt;
+            metrics.dbRows += rows;
+            metrics.dbTransactions += transactions;
+        }
+    }
+
+    public long getQueueWaitMs() {
+        return queueWaitMs;
+    }
+
+    public long getWallTimeMs() {
+        return wallTimeMs;
+    }
+
+    public long getNetworkMs() {
+        return networkMs;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getParseMs() {
+        return parseMs;
+    }
+
+    public long getDbWriteMs() {
+        return dbWriteMs;
+    }
+
+    public long getDbRows() {
+        return dbRows;
+    }
+
+    public long getDbTransactions() {
+        return dbTransactions;
+    }
+
+    void writeToParcel(Parcel dest) {
+        dest.writeLong(queueWaitMs);
+        dest.writeLong(wallTimeMs);
+        dest.writeLong(networkMs);
+        dest.writeLong(bytes);
+        dest.writeLong(parseMs);
+        dest.writeLong(dbWriteMs);
+        dest.writeLong(dbRows);
+        dest.writeLong(dbTransactions);
+    }
+
+    static CommandMetrics fromParcel(Parcel parcel) {
+        CommandMetrics metrics = new CommandMetrics();
+        metrics.queueWaitMs = parcel.readLong();
+        metrics.wallTimeMs = parcel.readLong();
+        metrics.networkMs = parcel.readLong();
+        metrics.bytes = parcel.readLong();
+        metrics.parseMs = parcel.readLong();
+        metrics.dbWriteMs = parcel.readLong();
+        metrics.dbRows = parcel.readLong();
+        metrics.dbTransactions = parcel.readLong();
+        return metrics;
+    }
+
+    /** Adds a row to the {@link CommandMetricsTable}, removing the oldest rows from time to time */
+    void save(MyContext myContext, CommandData commandData) {
+        SQLiteDatabase db = myContext.getDatabase();
+        if (db == null) {
+            MyLog.v(this, "save; Database is null");
+            return;
+        }
+        ContentValues values = new ContentValues();
+        values.put(CommandMetricsTable.COMMAND_CODE, commandData.getCommand().save());
+        values.put(CommandMetricsTable.ORIGIN_ID, commandData.getTimeline().getOrigin().getId());
+        values.put(CommandMetricsTable.ACCOUNT_ID, commandData.getTimeline().getMyAccount().getUserId());
+        values.put(CommandMetricsTable.EXECUTED_DATE, commandData.getResult().getLastExecutedDate());
+        values.put(CommandMetricsTable.QUEUE_WAIT_MS, queueWaitMs);
+        values.put(CommandMetricsTable.WALL_TIME_MS, wallTimeMs);
+        values.put(CommandMetricsTable.NETWORK_MS, networkMs);
+        values.put(CommandMetricsTable.BYTES, bytes);
+        values.put(CommandMetricsTable.PARSE_MS, parseMs);
+        values.put(CommandMetricsTable.DB_WRITE_MS, dbWriteMs);
+        values.put(CommandMetricsTable.DB_ROWS, dbRows);
+        values.put(CommandMetricsTable.DB_TRANSACTIONS, dbTransactions);
+        values.put(CommandMetricsTable.HAS_ERROR, commandData.getResult().hasError());
+        try {
+            long rowId = db.insert(CommandMetricsTable.TABLE_NAME, null, values);
+            if (rowId > 0 && rowId % CommandMetricsTable.PRUNE_EVERY_ROWS == 0) {
+                DbUtils.execSQL(db, "DELETE FROM " + CommandMetricsTable.TABLE_NAME
+                        + " WHERE " + BaseColumns._ID + "<=" + (rowId - CommandMetricsTable.MAX_ROWS));
+            }
+        } catch (Exception e) {
+            MyLog.e(this, "save " + this, e);
+        }
+    }
+
+    /** p50 and p95 of the stored metrics per command and per origin */
+    public static String toPercentilesSummary(MyContext myContext) {
+        SQLiteDatabase db = myContext.getDatabase();
+        if (db == null) {
+            return "";
+        }
+        Map<String, List<CommandMetrics>> byCommand = new TreeMap<>();
+        Map<String, List<CommandMetrics>> byOrigin = new TreeMap<>();
+        String sql = "SELECT * FROM " + CommandMetricsTable.TABLE_NAME;
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(sql, null);
+            while (cursor.moveToNext()) {
+                CommandMetrics metrics = fromCursor(cursor);
+                addTo(byCommand, CommandEnum.load(DbUtils.getString(cursor, CommandMetricsTable.COMMAND_CODE))
+                        .getTitle(myContext, "").toString(), metrics);
+                Origin origin = myContext.persistentOrigins().fromId(
+                        DbUtils.getLong(cursor, CommandMetricsTable.ORIGIN_ID));
+                addTo(byOrigin, origin.isValid() ? origin.getName() : "-", metrics);
+            }
+        } catch (Exception e) {
+            MyLog.e(CommandMetrics.class, "toPercentilesSummary; SQL='" + sql + "'", e);
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+        if (byCommand.isEmpty()) {
+            return myContext.context().getText(R.string.no_command_metrics).toString();
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append(myContext.context().getText(R.string.command_metrics_legend));
+        appendGroups(builder, byCommand);
+        appendGroups(builder, byOrigin);
+        return builder.toString();
+    }
+
+    private static CommandMetrics fromCursor(Cursor cursor) {
+        CommandMetrics metrics = new CommandMetrics();
+        metrics.queueWaitMs = DbUtils.getLong(cursor, CommandMetricsTable.QUEUE_WAIT_MS);
+        metrics.wallTimeMs = DbUtils.getLong(cursor, CommandMetricsTable.WALL_TIME_MS);
+        metrics.networkMs = DbUtils.getLong(cursor, CommandMetricsTable.NETWORK_MS);
+        metrics.bytes = DbUtils.getLong(cursor, CommandMetricsTable.BYTES);
+        metrics.parseMs = DbUtils.getLong(cursor, CommandMetricsTable.PARSE_MS);
+        metrics.dbWriteMs = DbUtils.getLong(cursor, CommandMetricsTable.DB_WRITE_MS);
+        metrics.dbRows = DbUtils.getLong(cursor, CommandMetricsTable.DB_ROWS);
+        metrics.dbTransactions = DbUtils.getLong(cursor, CommandMetricsTable.DB_TRANSACTIONS);
+        return metrics;
+    }
+
+    private static void addTo(Map<String, List<CommandMetrics>> groups, String key, CommandMetrics metrics) {
+        List<CommandMetrics> list = groups.get(key);
+        if (list == null) {
+            list = new ArrayList<>();
+            groups.put(key, list);
+        }
+        list.add(metrics);
+    }
+
+    private static void appendGroups(StringBuilder builder, Map<String, List<CommandMetrics>> groups) {
+        builder.append("\n");
+        for (Map.Entry<String, List<CommandMetrics>> entry : groups.entrySet()) {
+            List<CommandMetrics> list = entry.getValue();
+            long[] wall = new long[list.size()];
+            long[] queue = new long[list.size()];
+            long[] network = new long[list.size()];
+            long[] parse = new long[list.size()];
+            long[] db = new long[list.size()];
+            for (int ind = 0; ind < list.size(); ind++) {
+                CommandMetrics metrics = list.get(ind);
+                wall[ind] = metrics.wallTimeMs;
+                queue[ind] = metrics.queueWaitMs;
+                network[ind] = metrics.networkMs;
+                parse[ind] = metrics.parseMs;
+                db[ind] = metrics.dbWriteMs;
+            }
+            builder.append("\n" + entry.getKey() + " (" + list.size() + ")"
+                    + "\n wall " + percentiles(wall) + ", queue " + percentiles(queue)
+                    + "\n net " + percentiles(network) + ", parse " + percentiles(parse)
+                    + ", db " + percentiles(db));
+        }
+    }
+
+    /** @return "p50/p95" */
+    static String percentiles(long[] values) {
+        return percentile(values, 50) + "/" + percentile(values, 95);
+    }
+
+    /** Nearest-rank percentile */
+    static long percentile(long[] values, int percent) {
+        if (values.length == 0) {
+            return 0;
+        }
+        List<Long> list = new ArrayList<>(values.length);
+        for (long value : values) {
+            list.add(value);
+        }
+        Collections.sort(list);
+        int rank = (int) Math.ceil(percent / 100.0 * list.size());
+        return list.get(Math.max(0, Math.min(list.size(), rank) - 1));
+    }
+
+    @Override
+    public String toString() {
+        return "wall:" + wallTimeMs + "ms, queue:" + queueWaitMs + "ms, net:" + networkMs + "ms, "
+                + bytes + "b, parse:" + parseMs + "ms, db:" + dbWriteMs + "ms, " + dbRows + " rows, "
+                + dbTransactions + " tx";
+    }
+}
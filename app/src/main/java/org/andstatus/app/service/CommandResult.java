@@ -59,9 +59,21 @@ public final class CommandResult implements Parcelable {
     private int directedAdded = 0;
     private int downloadedCount = 0;
 
+    private CommandMetrics metrics = new CommandMetrics();
+
     public CommandResult() {
     }
 
+    /** A copy, which doesn't change, when this result changes */
+    CommandResult copy() {
+        Parcel parcel = Parcel.obtain();
+        writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        CommandResult copy = new CommandResult(parcel);
+        parcel.recycle();
+        return copy;
+    }
+
     CommandResult forOneExecStep() {
         Parcel parcel = Parcel.obtain();
         writeToParcel(parcel, 0);
@@ -119,6 +131,7 @@ public final class CommandResult implements Parcelable {
         dest.writeInt(remainingHits);
         dest.writeInt(downloadedCount);
         dest.writeString(progress);
+        metrics.writeToParcel(dest);
     }
     
     public CommandResult(Parcel parcel) {
@@ -134,6 +147,7 @@ public final class CommandResult implements Parcelable {
         remainingHits = parcel.readInt();
         downloadedCount = parcel.readInt();
         progress = parcel.readString();
+        metrics = CommandMetrics.fromParcel(parcel);
     }
 
     public void toContentValues(ContentValues values) {
@@ -229,6 +243,9 @@ public final class CommandResult implements Parcelable {
         if (directedAdded > 0) {
             message.append("directed:" + directedAdded + ", ");
         }
+        if (metrics.getWallTimeMs() > 0) {
+            message.append("wall:" + metrics.getWallTimeMs() + "ms, ");
+        }
         if (!TextUtils.isEmpty(mMessage)) {
             message.append(" \n" + mMessage);
         }
@@ -378,6 +395,15 @@ public final class CommandResult implements Parcelable {
         this.mMessage = message;
     }
 
+    /** Metrics of the last execution. Not stored with the command, see {@link CommandMetrics#save} */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    void setMetrics(CommandMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public String getProgress() {
         return progress;
     }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.service;
+
+import android.text.TextUtils;
+
+import org.andstatus.app.context.MyPreferences;
+import org.andstatus.app.data.DataInserter;
+import org.andstatus.app.data.LatestUserMessages;
+import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.data.OidEnum;
+import org.andstatus.app.database.MsgTable;
+import org.andstatus.app.net.http.ConnectionException;
+import org.andstatus.app.net.http.ConnectionException.StatusCode;
+import org.andstatus.app.net.social.Connection;
+import org.andstatus.app.net.social.MbMessage;
+import org.andstatus.app.util.MyLog;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Downloads previous messages of conversations, to which freshly downloaded messages reply,
+ * so a conversation may be shown without loading its messages one by one.
+ * This is done after a timeline sync, if turned on by {@link MyPreferences#KEY_CONVERSATION_PREFETCH_DEPTH}.
+ * Errors are logged only, they don't affect the result of the sync.
+ * @author yvolk@yurivolkov.com
+ */
+class ConversationPrefetcher {
+    /** Requests per sync. The limit is lowered by the known rate limit status */
+    static final int MAX_REQUESTS = 20;
+    /** Remaining requests of the rate limit to leave for other commands */
+    static final int RESERVED_HITS = 10;
+
+    private final CommandExecutorStrategy strategy;
+    private final int depth;
+    /** Oids of the messages, which were not downloaded yet, mapped to the oids of their conversations */
+    private Map<String, String> missing = new LinkedHashMap<>();
+    private final Set<String> attempted = new HashSet<>();
+    private final Set<String> conversationsLoaded = new HashSet<>();
+    private final LatestUserMessages lum = new LatestUserMessages();
+    private int requestsLeft = 0;
+    private int messagesLoaded = 0;
+
+    ConversationPrefetcher(CommandExecutorStrategy strategy) {
+        this.strategy = strategy;
+        depth = MyPreferences.getConversationPrefetchDepth();
+    }
+
+    boolean isEnabled() {
+        return depth > 0;
+    }
+
+    /** Remembers the message, to which the downloaded message replies, if it's not downloaded yet */
+    void onMessageInserted(MbMessage message) {
+        if (!isEnabled() || message == null || message.isEmpty()) {
+            return;
+        }
+        onMessageInserted(message.rebloggedMessage);
+        MbMessage inReplyTo = message.inReplyToMessage;
+        if (inReplyTo == null || TextUtils.isEmpty(inReplyTo.oid) || attempted.contains(inReplyTo.oid)
+                || missing.containsKey(inReplyTo.oid) || isLoaded(message.originId, inReplyTo.oid)) {
+            return;
+        }
+        missing.put(inReplyTo.oid, message.conversationOid);
+    }
+
+    private static boolean isLoaded(long originId, String oid) {
+        long msgId = MyQuery.oidToId(OidEnum.MSG_OID, originId, oid);
+        return msgId != 0 && MyQuery.msgIdToLongColumnValue(MsgTable.SENT_DATE, msgId) > 0;
+    }
+
+    void prefetch() {
+        if (!isEnabled() || missing.isEmpty()) {
+            return;
+        }
+        requestsLeft = MAX_REQUESTS;
+        int remainingHits = strategy.execContext.getResult().getRemainingHits();
+        if (remainingHits > 0) {
+            requestsLeft = Math.min(requestsLeft, remainingHits - RESERVED_HITS);
+        }
+        Connection connection = strategy.execContext.getMyAccount().getConnection();
+        String method = "prefetch";
+        try {
+            for (int level = 1; level <= depth; level++) {
+                if (missing.isEmpty() || requestsLeft <= 0 || strategy.isStopping()) {
+                    break;
+                }
+                Map<String, String> toLoad = missing;
+                missing = new LinkedHashMap<>();
+                attempted.addAll(toLoad.keySet());
+                if (connection.isApiSupported(Connection.ApiRoutineEnum.GET_CONVERSATION)) {
+                    loadConversations(connection, toLoad);
+                }
+                loadInBatches(connection, new ArrayList<>(toLoad.keySet()));
+            }
+        } catch (ConnectionException e) {
+            MyLog.d(this, method + "; stopped: " + e.getMessage());
+        }
+        lum.save();
+        MyLog.v(this, method + "; loaded " + messagesLoaded + " messages, requests left: " + requestsLeft
+                + ", still missing: " + missing.size());
+    }
+
+    private void loadConversations(Connection connection, Map<String, String> toLoad) throws ConnectionException {
+        for (String conversationOid : new HashSet<>(toLoad.values())) {
+            if (requestsLeft <= 0 || strategy.isStopping()) {
+                break;
+            }
+            if (TextUtils.isEmpty(conversationOid) || !conversationsLoaded.add(conversationOid)) {
+                continue;
+            }
+            requestsLeft--;
+            List<MbMessage> messages = connection.getConversation(conversationOid);
+            for (MbMessage message : messages) {
+                attempted.add(message.oid);
+                toLoad.remove(message.oid);
+            }
+            insert(messages);
+        }
+    }
+
+    private void loadInBatches(Connection connection, List<String> oids) throws ConnectionException {
+        int batchSize = Math.max(1, connection.getMessagesLimit());
+        for (int from = 0; from < oids.size(); from += batchSize) {
+            if (requestsLeft <= 0 || strategy.isStopping()) {
+                break;
+            }
+            List<String> batch = oids.subList(from, Math.min(oids.size(), from + batchSize));
+            requestsLeft--;
+            try {
+                insert(connection.getMessages(batch));
+            } catch (ConnectionException e) {
+                if (e.getStatusCode() != StatusCode.NOT_FOUND) {
+                    throw e;
+                }
+                MyLog.v(this, "Not found " + batch);
+            }
+        }
+    }
+
+    private void insert(List<MbMessage> messages) {
+        DataInserter di = new DataInserter(strategy.execContext);
+        for (MbMessage message : messages) {
+            di.insertOrUpdateMsg(message, lum);
+            messagesLoaded++;
+            onMessageInserted(message);
+        }
+    }
+
+    int getMessagesLoaded() {
+        return messagesLoaded;
+    }
+}
@@ -29,6 +29,7 @@ import net.jcip.annotations.GuardedBy;
 import org.andstatus.app.MyAction;
 import org.andstatus.app.appwidget.AppWidgets;
 import org.andstatus.app.context.MyContext;
+import org.andstatus.app.context.DownloadsMover;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.data.DbUtils;
@@ -142,7 +143,7 @@ public class MyService extends Service {
                 stopDelayed(false);
                 break;
             case BROADCAST_SERVICE_STATE:
-                MyServiceEventsBroadcaster.newInstance(myContext, getServiceState())
+                MyServiceEventsBroadcaster.newInstance(getServiceState())
                         .broadcast();
                 break;
             case UNKNOWN:
@@ -213,7 +214,7 @@ public class MyService extends Service {
     }
 
     private void broadcastAfterExecutingCommand(CommandData commandData) {
-        MyServiceEventsBroadcaster.newInstance(myContext, getServiceState())
+        MyServiceEventsBroadcaster.newInstance(getServiceState())
         .setCommandData(commandData).setEvent(MyServiceEvent.AFTER_EXECUTING_COMMAND).broadcast();
     }
     
@@ -235,9 +236,10 @@ public class MyService extends Service {
                 AppWidgets.updateWidgets(myContext);
             }
             reviveHeartBeat();
+            DownloadsMover.resumeIfPending();
         }
         if (changed) {
-            MyServiceEventsBroadcaster.newInstance(myContext, getServiceState()).broadcast();
+            MyServiceEventsBroadcaster.newInstance(getServiceState()).broadcast();
         }
     }
     private void reviveHeartBeat() {
@@ -458,7 +460,7 @@ public class MyService extends Service {
             return;
         }
         unInitialize();
-        MyServiceEventsBroadcaster.newInstance(myContext, getServiceState())
+        MyServiceEventsBroadcaster.newInstance(getServiceState())
                 .setEvent(MyServiceEvent.ON_STOP).broadcast();
     }
 
@@ -541,6 +543,7 @@ public class MyService extends Service {
         protected Boolean doInBackground2(Void... arg0) {
             MyLog.d(this, "Started, " + queues.get(QueueType.CURRENT).size() + " commands to process");
             String breakReason = "";
+            int executedCount = 0;
             do {
                 if (isStopping()) {
                     breakReason = "isStopping";
@@ -570,10 +573,11 @@ public class MyService extends Service {
                 ConnectionState connectionState = myContext.getConnectionState();
                 if (commandData.getCommand().getConnectionRequired()
                         .isConnectionStateOk(connectionState)) {
-                    MyServiceEventsBroadcaster.newInstance(myContext, getServiceState())
+                    MyServiceEventsBroadcaster.newInstance(getServiceState())
                             .setCommandData(commandData)
                             .setEvent(MyServiceEvent.BEFORE_EXECUTING_COMMAND).broadcast();
                     CommandExecutorStrategy.executeCommand(commandData, this);
+                    executedCount++;
                 } else {
                     commandData.getResult().incrementNumIoExceptions();
                     commandData.getResult().setMessage("Expected '"
@@ -588,6 +592,9 @@ public class MyService extends Service {
                 broadcastAfterExecutingCommand(commandData);
                 addSyncOfThisToQueue(commandData);
             } while (true);
+            if (executedCount > 0 && myContext.getMyDatabase() != null) {
+                myContext.getMyDatabase().checkpoint(false);
+            }
             MyLog.d(this, "Ended, " + breakReason + ", " + queues.totalSizeToExecute() + " commands left");
             return true;
         }
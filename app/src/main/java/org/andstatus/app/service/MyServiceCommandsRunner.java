@@ -40,7 +40,7 @@ public class MyServiceCommandsRunner implements MyServiceEventsListener {
 
     public MyServiceCommandsRunner(MyContext myContext) {
         this.myContext = myContext;
-        eventsReceiver = new MyServiceEventsReceiver(myContext, this);
+        eventsReceiver = new MyServiceEventsReceiver(this);
     }
 
     public void autoSyncAccount(String accountName, SyncResult syncResult) {
@@ -98,7 +98,7 @@ public class MyServiceCommandsRunner implements MyServiceEventsListener {
                 commands.put(commandData, false);
             }
         }
-        eventsReceiver.registerReceiver(myContext.context());
+        eventsReceiver.register();
         for (CommandData commandData : commands.keySet()) {
             if (ignoreServiceAvailability) {
                 MyServiceManager.sendCommandEvenForUnavailable(commandData);
@@ -149,7 +149,7 @@ public class MyServiceCommandsRunner implements MyServiceEventsListener {
     }
 
     public void unregisterReceiver() {
-        eventsReceiver.unregisterReceiver(myContext.context());
+        eventsReceiver.unregister();
     }
 
     int getCompletedCount() {
@@ -16,29 +16,23 @@
 
 package org.andstatus.app.service;
 
-import android.content.Intent;
 import android.text.TextUtils;
 
-import org.andstatus.app.IntentExtra;
-import org.andstatus.app.MyAction;
-import org.andstatus.app.context.MyContext;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.util.MyLog;
 
 public class MyServiceEventsBroadcaster {
-    private final MyContext mMyContext;
     private final MyServiceState mState;
     private CommandData mCommandData = null;
     private MyServiceEvent mEvent = MyServiceEvent.UNKNOWN;
     private String progress = null;
     
-    private MyServiceEventsBroadcaster(MyContext myContext, MyServiceState state) {
-        this.mMyContext = myContext;
+    private MyServiceEventsBroadcaster(MyServiceState state) {
         this.mState = state;
     }
     
-    public static MyServiceEventsBroadcaster newInstance(MyContext myContext, MyServiceState state) {
-        return new MyServiceEventsBroadcaster(myContext, state);
+    public static MyServiceEventsBroadcaster newInstance(MyServiceState state) {
+        return new MyServiceEventsBroadcaster(state);
     }
 
     public MyServiceEventsBroadcaster setCommandData(CommandData commandData) {
@@ -56,19 +50,17 @@ public class MyServiceEventsBroadcaster {
         return this;
     }
 
+    /** The event is delivered to listeners of this process only, see {@link MyServiceEventsBus} */
     public void broadcast() {
-        Intent intent = MyAction.SERVICE_STATE.getIntent();
         if (mCommandData != null) {
             mCommandData.getResult().setProgress(progress);
-            intent = mCommandData.toIntent(intent);
         }
-        intent.putExtra(IntentExtra.SERVICE_STATE.key, mState.save());
-        intent.putExtra(IntentExtra.SERVICE_EVENT.key, mEvent.save());
         if (MyLog.isVerboseEnabled()) {
             MyLog.v(this, "state:" + mState + ", event:" + mEvent
             + (mCommandData == null ? "" : ", " + mCommandData.toCommandSummary(MyContextHolder.get()))
             + (TextUtils.isEmpty(progress) ? "" : ", progress:" + progress) );
         }
-        mMyContext.context().sendBroadcast(intent);
+        MyServiceManager.setServiceState(mState);
+        MyServiceEventsBus.get().post(mCommandData, mEvent);
     }
 }
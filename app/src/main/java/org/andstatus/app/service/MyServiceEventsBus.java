@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.service;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.util.MyLog;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers {@link MyServiceEvent}s to listeners of this process, replacing system broadcasts.
+ * Events are delivered in the UI thread, in the order they were posted, as broadcasts were.
+ * Listeners receive a copy of the {@link CommandData}, as broadcasts did,
+ * so the service thread doesn't change it during the delivery.
+ * Progress events of a command are coalesced: if the previous progress of the same command
+ * hasn't been delivered yet, only the latest one will be delivered. The copy of a progress event
+ * is taken when it is being delivered, so coalesced events are not copied at all
+ * @author yvolk@yurivolkov.com
+ */
+public class MyServiceEventsBus {
+    private static final MyServiceEventsBus INSTANCE = new MyServiceEventsBus();
+
+    private final List<MyServiceEventsReceiver> receivers = new CopyOnWriteArrayList<>();
+    /** Command data of progress events, posted but not delivered yet, by command id. Not copied yet */
+    private final ConcurrentMap<Long, CommandData> pendingProgress = new ConcurrentHashMap<>();
+    private final AtomicLong eventsPosted = new AtomicLong();
+    private final AtomicLong eventsCoalesced = new AtomicLong();
+    private volatile Handler handler = null;
+
+    private MyServiceEventsBus() {
+        // Singleton
+    }
+
+    public static MyServiceEventsBus get() {
+        return INSTANCE;
+    }
+
+    void register(MyServiceEventsReceiver receiver) {
+        if (!receivers.contains(receiver)) {
+            receivers.add(receiver);
+        }
+    }
+
+    void unregister(MyServiceEventsReceiver receiver) {
+        receivers.remove(receiver);
+    }
+
+    void post(final CommandData commandDataIn, final MyServiceEvent event) {
+        if (event == MyServiceEvent.UNKNOWN || receivers.isEmpty()) {
+            return;
+        }
+        eventsPosted.incrementAndGet();
+        if (event == MyServiceEvent.PROGRESS_EXECUTING_COMMAND && commandDataIn != null) {
+            final long commandId = commandDataIn.getCommandId();
+            if (pendingProgress.put(commandId, commandDataIn) != null) {
+                eventsCoalesced.incrementAndGet();
+                return;
+            }
+            getHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    CommandData latest = pendingProgress.remove(commandId);
+                    if (latest != null) {
+                        deliver(latest.copy(MyContextHolder.get()), event);
+                    }
+                }
+            });
+        } else {
+            final CommandData commandData = commandDataIn == null ? null : commandDataIn.copy(MyContextHolder.get());
+            getHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(commandData, event);
+                }
+            });
+        }
+    }
+
+    private void deliver(CommandData commandData, MyServiceEvent event) {
+        for (MyServiceEventsReceiver receiver : receivers) {
+            try {
+                receiver.onReceive(commandData == null ? CommandData.getEmpty() : commandData, event);
+            } catch (Exception e) {
+                MyLog.e(this, "Delivering " + event + " to " + receiver, e);
+            }
+        }
+    }
+
+    private Handler getHandler() {
+        if (handler == null) {
+            handler = new Handler(Looper.getMainLooper());
+        }
+        return handler;
+    }
+
+    public long getEventsPosted() {
+        return eventsPosted.get();
+    }
+
+    /** @return number of progress events that were replaced with later ones before delivery */
+    public long getEventsCoalesced() {
+        return eventsCoalesced.get();
+    }
+}
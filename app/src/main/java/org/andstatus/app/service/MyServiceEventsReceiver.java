@@ -16,53 +16,38 @@
 
 package org.andstatus.app.service;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-
-import org.andstatus.app.IntentExtra;
-import org.andstatus.app.MyAction;
-import org.andstatus.app.context.MyContext;
 import org.andstatus.app.util.InstanceId;
 import org.andstatus.app.util.MyLog;
 
 /**
- * @author yvolk@yurivolkov.com
+ * Connects a {@link MyServiceEventsListener} to the {@link MyServiceEventsBus}
  */
-public final class MyServiceEventsReceiver extends BroadcastReceiver {
+public final class MyServiceEventsReceiver {
     private final long mInstanceId = InstanceId.next();
     private final MyServiceEventsListener listener;
-    private final MyContext myContext;
 
-    public MyServiceEventsReceiver(MyContext myContext, MyServiceEventsListener listener) {
+    public MyServiceEventsReceiver(MyServiceEventsListener listener) {
         super();
-        this.myContext = myContext;
         this.listener = listener;
         MyLog.v(this, "Created, instanceId=" + mInstanceId + (listener != null ? "; listener='"
                 + listener.toString() + "'" : ""));
     }
     
-    public void registerReceiver(Context context) {
-        context.registerReceiver(this, new IntentFilter(MyAction.SERVICE_STATE.getAction()));
+    public void register() {
+        MyServiceEventsBus.get().register(this);
     }
 
-    public void unregisterReceiver(Context context) {
-        try {
-            context.unregisterReceiver(this);
-        } catch (IllegalArgumentException e) {
-            // Thrown when the "Receiver not registered: org.andstatus.app.service.MyServiceReceiver@..."
-            MyLog.ignored(this, e);
-        }
+    public void unregister() {
+        MyServiceEventsBus.get().unregister(this);
     }
     
-    @Override
-    public void onReceive(Context context, Intent intent) {
-        MyServiceEvent event = MyServiceEvent.load(intent.getStringExtra(IntentExtra.SERVICE_EVENT.key));
-        if (event == MyServiceEvent.UNKNOWN) {
-            return;
-        }
+    void onReceive(CommandData commandData, MyServiceEvent event) {
         MyLog.v(this, "onReceive " + event + " for " + MyLog.objTagToString(listener) + ", instanceId:" + mInstanceId);
-        listener.onReceive(CommandData.fromIntent(myContext, intent), event);
+        listener.onReceive(commandData, event);
+    }
+
+    @Override
+    public String toString() {
+        return "MyServiceEventsReceiver{instanceId=" + mInstanceId + ", listener=" + MyLog.objTagToString(listener) + "}";
     }
-}
\ No newline at end of file
+}
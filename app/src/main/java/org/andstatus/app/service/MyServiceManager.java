@@ -22,7 +22,6 @@ import android.content.Intent;
 
 import net.jcip.annotations.GuardedBy;
 
-import org.andstatus.app.IntentExtra;
 import org.andstatus.app.MyAction;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.util.InstanceId;
@@ -58,11 +57,10 @@ public class MyServiceManager extends BroadcastReceiver {
             return new MyServiceStateInTime();
         }
 
-        public static MyServiceStateInTime fromIntent(Intent intent) {
+        public static MyServiceStateInTime fromState(MyServiceState serviceState) {
             MyServiceStateInTime state = new MyServiceStateInTime();
             state.stateQueuedTime = System.nanoTime();
-            state.stateEnum = MyServiceState.load(intent
-                    .getStringExtra(IntentExtra.SERVICE_STATE.key));
+            state.stateEnum = serviceState;
             return state;
         }
 
@@ -77,11 +75,7 @@ public class MyServiceManager extends BroadcastReceiver {
     @Override
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
-        if (action.equals(MyAction.SERVICE_STATE.getAction())) {
-            MyContextHolder.initialize(context, this);
-            stateInTime = MyServiceStateInTime.fromIntent(intent);
-            MyLog.d(this, "Notification received: Service state=" + stateInTime.stateEnum);
-        } else if ("android.intent.action.BOOT_COMPLETED".equals(action)) {
+        if ("android.intent.action.BOOT_COMPLETED".equals(action)) {
             MyLog.d(this, "Trying to start service on boot");
             sendCommand(CommandData.getEmpty());            
         } else if ("android.intent.action.ACTION_SHUTDOWN".equals(action)) {
@@ -92,6 +86,12 @@ public class MyServiceManager extends BroadcastReceiver {
         }
     }
 
+    /** Called by {@link MyServiceEventsBroadcaster} of this process instead of a broadcast */
+    static void setServiceState(MyServiceState state) {
+        stateInTime = MyServiceStateInTime.fromState(state);
+        MyLog.v(TAG, "Service state=" + state);
+    }
+
     /**
      * Starts MyService  asynchronously if it is not already started
      * and send command to it.
@@ -103,7 +103,7 @@ public class MyServiceManager extends BroadcastReceiver {
             // Imitate a soft service error
             commandData.getResult().incrementNumIoExceptions();
             commandData.getResult().setMessage("Service is not available");
-            MyServiceEventsBroadcaster.newInstance(MyContextHolder.get(), MyServiceState.STOPPED)
+            MyServiceEventsBroadcaster.newInstance(MyServiceState.STOPPED)
             .setCommandData(commandData).setEvent(MyServiceEvent.AFTER_EXECUTING_COMMAND).broadcast();
             return;
         }
@@ -16,10 +16,13 @@
 
 package org.andstatus.app.service;
 
+import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.TextUtils;
 import android.view.ContextMenu;
 import android.view.ContextMenu.ContextMenuInfo;
+import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
@@ -35,6 +38,8 @@ import java.util.Collections;
 import java.util.Queue;
 
 public class QueueViewer extends LoadableListActivity {
+    /** Percentiles of the {@link CommandMetrics}, calculated in the background together with the list */
+    private volatile String metricsSummary = "";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -56,10 +61,47 @@ public class QueueViewer extends LoadableListActivity {
                     }
                 }
                 Collections.sort(items);
+                metricsSummary = CommandMetrics.toPercentilesSummary(myContext);
             }
         };
     }
 
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.queue_viewer, menu);
+        return super.onCreateOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        MenuItem item = menu.findItem(R.id.menuItemCommandMetrics);
+        if (item != null) {
+            item.setEnabled(!TextUtils.isEmpty(metricsSummary));
+        }
+        return super.onPrepareOptionsMenu(menu);
+    }
+
+    @Override
+    public void onLoadFinished(boolean keepCurrentPosition) {
+        super.onLoadFinished(keepCurrentPosition);
+        invalidateOptionsMenu();
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case R.id.menuItemCommandMetrics:
+                new AlertDialog.Builder(this)
+                        .setTitle(R.string.command_metrics)
+                        .setMessage(metricsSummary)
+                        .setPositiveButton(android.R.string.ok, null)
+                        .show();
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
+        }
+    }
+
     @Override
     protected MyBaseAdapter newListAdapter() {
         return new QueueViewerListAdapter(this, getLoaded().getList());
@@ -34,6 +34,7 @@ import org.andstatus.app.util.MyLog;
  * @author yvolk@yurivolkov.com
  */
 abstract class TimelineDownloader extends CommandExecutorStrategy {
+    protected final ConversationPrefetcher conversationPrefetcher = new ConversationPrefetcher(this);
 
     @Override
     void execute() {
@@ -43,6 +44,9 @@ abstract class TimelineDownloader extends CommandExecutorStrategy {
                         " by " + execContext.getMyAccount().getAccountName() );
                 download();
                 onSyncEnded();
+                if (!isStopping()) {
+                    conversationPrefetcher.prefetch();
+                }
             } else {
                 MyLog.v(this, execContext.getTimeline() + " is not supported for "
                         + execContext.getMyAccount().getAccountName());
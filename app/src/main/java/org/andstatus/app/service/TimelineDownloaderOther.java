@@ -96,6 +96,7 @@ class TimelineDownloaderOther extends TimelineDownloader {
                     switch (item.getType()) {
                         case MESSAGE:
                             di.insertOrUpdateMsg(item.mbMessage, latestUserMessages);
+                            conversationPrefetcher.onMessageInserted(item.mbMessage);
                             break;
                         case USER:
                             di.insertOrUpdateUser(item.mbUser);
@@ -42,11 +42,22 @@ import org.andstatus.app.util.MyLog;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author yvolk@yurivolkov.com
  */
 public class Timeline implements Comparable<Timeline> {
+    /**
+     * Parameters of the adaptive period of automatic syncing,
+     * see {@link #adaptSyncPeriod(long, long, long, long, long)}
+     */
+    static final int MIN_SYNCS_TO_ADAPT = 3;
+    static final int MIN_EMPTY_SYNCS_TO_BACK_OFF = 2;
+    static final int MAX_BACKOFF_STEPS = 5;
+    static final double BUSY_ITEMS_PER_SYNC = 1.0;
+    static final long MAX_AUTO_SYNC_PERIOD_MS = TimeUnit.HOURS.toMillis(12);
+
     private volatile long id;
 
     private final TimelineType timelineType;
@@ -102,6 +113,8 @@ public class Timeline implements Comparable<Timeline> {
     private volatile long downloadedItemsCount = 0;
     private volatile long newItemsCount = 0;
     private volatile long countSince = System.currentTimeMillis();
+    /** Successful syncs in a row, which didn't add new items. Not persisted: we start from the base period */
+    private volatile long emptySyncsInRow = 0;
 
     /** Accumulated numbers for statistics. They are reset by a user's request */
     private volatile long syncedTimesCountTotal = 0;
@@ -721,22 +734,60 @@ public class Timeline implements Comparable<Timeline> {
      * @return true if it's time to auto update this timeline
      */
     public boolean isTimeToAutoSync() {
-        long syncFrequencyMs = myAccount.getEffectiveSyncFrequencySeconds() * 1000;
+        long baseMs = myAccount.getEffectiveSyncFrequencySeconds() * 1000;
+        long syncPeriodMs = getAutoSyncPeriodMs(baseMs);
         // This correction is needed to take into account that we remembered time, when sync ended,
         // and not time, when Android initiated it.
-        long correctionForExecutionTime = syncFrequencyMs / 10;
+        long correctionForExecutionTime = baseMs / 10;
         long passedMs = System.currentTimeMillis() - getSyncSucceededDate();
-        boolean blnOut = passedMs > syncFrequencyMs - correctionForExecutionTime;
+        boolean blnOut = passedMs > syncPeriodMs - correctionForExecutionTime;
 
         if (blnOut && MyLog.isVerboseEnabled()) {
             MyLog.v(this, "It's time to auto update " + this +
                     ". " +
-                    java.util.concurrent.TimeUnit.MILLISECONDS.toMinutes(passedMs) +
-                    " minutes passed.");
+                    TimeUnit.MILLISECONDS.toMinutes(passedMs) +
+                    " minutes passed, sync period: " +
+                    TimeUnit.MILLISECONDS.toMinutes(syncPeriodMs) + " minutes");
         }
         return blnOut;
     }
 
+    /**
+     * Period of automatic syncing of this timeline, adapted to how often new items appear in it.
+     * Each account's sync period, that passed without new items, doubles the period,
+     * so a quiet timeline is synced rarely, while a busy one is synced with the account's frequency.
+     * The period is doubled only after several empty syncs in a row, and by one step per empty sync,
+     * so a single empty sync or a long pause in syncing doesn't slow down a busy timeline
+     * @param baseMs sync period of the account
+     */
+    long getAutoSyncPeriodMs(long baseMs) {
+        long quietSince = youngestItemDate > 0 ? youngestItemDate : countSince;
+        return adaptSyncPeriod(baseMs, syncedTimesCount, newItemsCount, emptySyncsInRow,
+                System.currentTimeMillis() - quietSince);
+    }
+
+    /**
+     * @param syncedTimes number of successful syncs, counted together with newItems
+     * @param emptySyncs successful syncs in a row without new items
+     * @param quietMs time passed since the youngest item of the timeline
+     */
+    static long adaptSyncPeriod(long baseMs, long syncedTimes, long newItems, long emptySyncs, long quietMs) {
+        if (baseMs <= 0 || syncedTimes < MIN_SYNCS_TO_ADAPT || emptySyncs < MIN_EMPTY_SYNCS_TO_BACK_OFF
+                || quietMs <= baseMs) {
+            return baseMs;
+        }
+        // The period doubled after each empty sync: quietMs = baseMs * (2^steps - 1)
+        long maxSteps = Math.min(MAX_BACKOFF_STEPS, emptySyncs - MIN_EMPTY_SYNCS_TO_BACK_OFF + 1);
+        int steps = 0;
+        while (steps < maxSteps && (baseMs << (steps + 1)) - baseMs <= quietMs) {
+            steps++;
+        }
+        if ((double) newItems / syncedTimes >= BUSY_ITEMS_PER_SYNC) {
+            steps = Math.min(steps, 1);
+        }
+        return Math.max(baseMs, Math.min(baseMs << steps, MAX_AUTO_SYNC_PERIOD_MS));
+    }
+
     public String getYoungestPosition() {
         return youngestPosition;
     }
@@ -833,6 +884,11 @@ public class Timeline implements Comparable<Timeline> {
             syncSucceededDate = System.currentTimeMillis();
             syncedTimesCount++;
             syncedTimesCountTotal++;
+            if (result.getMessagesAdded() > 0) {
+                emptySyncsInRow = 0;
+            } else {
+                emptySyncsInRow++;
+            }
         }
         if (result.getMessagesAdded() > 0) {
             newItemsCount += result.getMessagesAdded();
@@ -918,6 +974,7 @@ public class Timeline implements Comparable<Timeline> {
         syncedTimesCount = 0;
         downloadedItemsCount = 0;
         newItemsCount = 0;
+        emptySyncsInRow = 0;
         countSince = System.currentTimeMillis();
         changed = true;
     }
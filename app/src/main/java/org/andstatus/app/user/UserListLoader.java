@@ -3,6 +3,7 @@ package org.andstatus.app.user;
 import android.database.Cursor;
 import android.net.Uri;
 import android.provider.BaseColumns;
+import android.text.TextUtils;
 
 import org.andstatus.app.LoadableListActivity;
 import org.andstatus.app.LoadableListActivity.ProgressPublisher;
@@ -23,6 +24,11 @@ import org.andstatus.app.service.CommandEnum;
 import org.andstatus.app.service.MyServiceManager;
 import org.andstatus.app.util.MyLog;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 public class UserListLoader extends SyncLoader<UserListViewItem> {
     protected final UserListType mUserListType;
     protected final MyAccount ma;
@@ -31,6 +37,7 @@ public class UserListLoader extends SyncLoader<UserListViewItem> {
     protected final long mCentralItemId;
 
     private LoadableListActivity.ProgressPublisher mProgress;
+    private final Map<Long, UserListViewItem> itemsById = new HashMap<>();
 
     public UserListLoader(UserListType userListType, MyAccount ma, long centralItemId, boolean isListCombined) {
         mUserListType = userListType;
@@ -68,8 +75,11 @@ public class UserListLoader extends SyncLoader<UserListViewItem> {
     }
 
     protected void addUserToList(UserListViewItem oUser) {
-        if (!oUser.isEmpty() && !items.contains(oUser)) {
+        if (!oUser.isEmpty() && !contains(oUser)) {
             items.add(oUser);
+            if (oUser.getUserId() != 0) {
+                itemsById.put(oUser.getUserId(), oUser);
+            }
             if (oUser.mbUser.userId == 0 && mAllowLoadingFromInternet) {
                 loadFromInternet(oUser);
             }
@@ -79,6 +89,10 @@ public class UserListLoader extends SyncLoader<UserListViewItem> {
         }
     }
 
+    private boolean contains(UserListViewItem oUser) {
+        return oUser.getUserId() == 0 ? items.contains(oUser) : itemsById.containsKey(oUser.getUserId());
+    }
+
     private void loadFromInternet(UserListViewItem oUser) {
         MyLog.v(this, "User " + oUser + " will be loaded from the Internet");
         MyServiceManager.sendForegroundCommand(
@@ -92,11 +106,12 @@ public class UserListLoader extends SyncLoader<UserListViewItem> {
     protected void loadInternal() {
         // TODO: Why only MyAccount's ID ??
         Uri mContentUri = MatchedUri.getUserListUri(ma.getUserId(), mUserListType, ma.getOriginId(), mCentralItemId);
+        String sqlUserIds = getSqlUserIds();
         Cursor c = null;
         try {
             c = MyContextHolder.get().context().getContentResolver()
                     .query(mContentUri, UserListSql.getListProjection(),
-                            UserTable.TABLE_NAME + "." + BaseColumns._ID + getSqlUserIds(),
+                            UserTable.TABLE_NAME + "." + BaseColumns._ID + sqlUserIds,
                             null, null);
             while ( c != null && c.moveToNext()) {
                 populateItem(c);
@@ -104,15 +119,26 @@ public class UserListLoader extends SyncLoader<UserListViewItem> {
         } finally {
             DbUtils.closeSilently(c);
         }
+        // Items, which were added by the query, are not in the sqlUserIds
+        Map<Long, Set<Long>> myFollowers = MyQuery.getMyFollowersOf(toSqlUserIds(itemsById.keySet()));
+        for (Map.Entry<Long, Set<Long>> entry : myFollowers.entrySet()) {
+            UserListViewItem item = itemsById.get(entry.getKey());
+            if (item != null) {
+                item.myFollowers = entry.getValue();
+            }
+        }
     }
 
     private void populateItem(Cursor cursor) {
         long userId = DbUtils.getLong(cursor, BaseColumns._ID);
-        UserListViewItem item = getById(userId);
+        UserListViewItem item = itemsById.get(userId);
         if (item == null) {
-            Origin origin = MyContextHolder.get().persistentOrigins().fromId(
-                    DbUtils.getLong(cursor, UserTable.ORIGIN_ID));
-            item = addUserIdToList(origin, userId);
+            // All the fields are in the cursor, so we don't need to query them by userId
+            MbUser mbUser = MbUser.fromOriginAndUserOid(DbUtils.getLong(cursor, UserTable.ORIGIN_ID),
+                    DbUtils.getString(cursor, UserTable.USER_OID));
+            mbUser.userId = userId;
+            item = UserListViewItem.fromMbUser(mbUser);
+            addUserToList(item);
         }
         MbUser user = item.mbUser;
         user.oid = DbUtils.getString(cursor, UserTable.USER_OID);
@@ -133,19 +159,16 @@ public class UserListLoader extends SyncLoader<UserListViewItem> {
         user.setCreatedDate(DbUtils.getLong(cursor, UserTable.CREATED_DATE));
         user.setUpdatedDate(DbUtils.getLong(cursor, UserTable.UPDATED_DATE));
 
-        item.myFollowers = MyQuery.getMyFollowersOf(userId);
         item.avatarDrawable = AvatarFile.getDrawable(item.getUserId(), cursor);
 
         item.populated = true;
     }
 
-    private UserListViewItem getById(long userId) {
-        for (UserListViewItem item : items) {
-            if (item.getUserId() == userId) {
-                return item;
-            }
+    private static String toSqlUserIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return "";
         }
-        return null;
+        return userIds.size() == 1 ? "=" + userIds.iterator().next() : " IN (" + TextUtils.join(", ", userIds) + ")";
     }
 
     protected String getSqlUserIds() {
@@ -27,13 +27,11 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
-import java.util.Arrays;
 
 public class FileUtils {
     private static final String TAG = FileUtils.class.getSimpleName();
@@ -111,30 +109,6 @@ public class FileUtils {
         return new byte[0];
     }
     
-    /** Reads up to 'size' bytes, starting from 'offset' */
-    public static byte[] getBytes(File file, int offset, int size) throws IOException {
-        if (file != null) {
-            InputStream is = new FileInputStream(file);
-            byte[] readBuffer = new byte[size];
-            try {
-                long bytesSkipped = is.skip(offset);
-                if (bytesSkipped < offset) {
-                    throw new FileNotFoundException("Skipped only " + bytesSkipped 
-                            + " of " + offset + " bytes in file='" + file.getAbsolutePath() + "'");
-                }
-                int bytesRead = is.read(readBuffer, 0, size);
-                if (bytesRead == readBuffer.length) {
-                    return readBuffer;
-                } else if (bytesRead > 0) {
-                    return Arrays.copyOf(readBuffer, bytesRead);
-                }
-            } finally {
-                DbUtils.closeSilently(is);
-            }
-        }
-        return new byte[0];
-    }
-
     public static void deleteFilesRecursively(File rootDirectory) {
         if (rootDirectory == null) {
             return;
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.util;
+
+import android.text.TextUtils;
+import android.util.Log;
+
+import net.jcip.annotations.GuardedBy;
+
+import org.andstatus.app.data.DbUtils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes log lines of {@link MyLog} to the log file in a background thread,
+ * so a logging thread only puts a line into a bounded queue.
+ * The file is kept open while logging to file is enabled. It is flushed periodically and after each error,
+ * and a new file is started when the current one grows too large.
+ * If the queue is full, lines are dropped and counted, the count is written to the file later.
+ * Errors are never dropped: they are written and flushed in the logging thread together with the queued lines,
+ * so lines before a crash are not lost.
+ * @author yvolk@yurivolkov.com
+ */
+class LogFileWriter {
+    private static final String TAG = LogFileWriter.class.getSimpleName();
+    static final int QUEUE_CAPACITY = 4000;
+    static final long FLUSH_PERIOD_MS = 1000;
+    static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static class LogRecord {
+        final long time = System.currentTimeMillis();
+        final int logLevel;
+        final String tag;
+        final String msg;
+        final Throwable tr;
+
+        LogRecord(int logLevel, String tag, String msg, Throwable tr) {
+            this.logLevel = logLevel;
+            this.tag = tag;
+            this.msg = msg;
+            this.tr = tr;
+        }
+    }
+
+    private static final BlockingQueue<LogRecord> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    /** Signals the writer thread that there are records in the queue */
+    private static final Semaphore queued = new Semaphore(0);
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong droppedTotal = new AtomicLong();
+    private static final Object writerLock = new Object();
+    @GuardedBy("writerLock")
+    private static Writer out = null;
+    @GuardedBy("writerLock")
+    private static File file = null;
+    @GuardedBy("writerLock")
+    private static long fileSize = 0;
+    @GuardedBy("writerLock")
+    private static long flushedAt = 0;
+    @GuardedBy("writerLock")
+    private static Thread thread = null;
+
+    private LogFileWriter() {
+        // Empty
+    }
+
+    static void enqueue(int logLevel, String tag, String msg, Throwable tr) {
+        LogRecord record = new LogRecord(logLevel, tag, msg, tr);
+        if (logLevel >= MyLog.ERROR) {
+            synchronized (writerLock) {
+                writeRecords(record);
+            }
+            return;
+        }
+        if (!queue.offer(record)) {
+            dropped.incrementAndGet();
+            droppedTotal.incrementAndGet();
+            return;
+        }
+        queued.release();
+        startIfNeeded();
+    }
+
+    private static void startIfNeeded() {
+        synchronized (writerLock) {
+            if (thread != null) {
+                return;
+            }
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    writeLoop();
+                }
+            }, TAG);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+    }
+
+    /** The loop ends when the queue is empty and the file is closed, or when the thread is interrupted */
+    private static void writeLoop() {
+        while (true) {
+            boolean hasRecords;
+            try {
+                hasRecords = queued.tryAcquire(FLUSH_PERIOD_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Queued lines are written, and the next line will start a new thread
+                synchronized (writerLock) {
+                    writeRecords(null);
+                    flushOrClose();
+                    thread = null;
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queued.drainPermits();
+            // Records are taken from the queue under the lock only, so errors are written after the queued lines
+            synchronized (writerLock) {
+                writeRecords(null);
+                if (!hasRecords && queue.isEmpty()) {
+                    flushOrClose();
+                    if (out == null) {
+                        thread = null;
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Writes all queued lines to the file and flushes it. Closes the file, if logging to file is disabled */
+    static void flush() {
+        synchronized (writerLock) {
+            writeRecords(null);
+            flushOrClose();
+        }
+    }
+
+    /** @param last the record, which is newer than all queued ones */
+    @GuardedBy("writerLock")
+    private static void writeRecords(LogRecord last) {
+        List<LogRecord> records = new ArrayList<>();
+        queue.drainTo(records);
+        if (last != null) {
+            records.add(last);
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        boolean errorLogged = false;
+        StringBuilder builder = new StringBuilder();
+        long droppedNow = dropped.getAndSet(0);
+        if (droppedNow > 0) {
+            builder.append(MyLog.formatDateTime(System.currentTimeMillis()) + " W/" + TAG + ": "
+                    + droppedNow + " lines dropped\n");
+        }
+        for (LogRecord record : records) {
+            formatRecord(builder, record);
+            if (record.logLevel >= MyLog.ERROR) {
+                errorLogged = true;
+            }
+        }
+        write(builder.toString());
+        if (errorLogged || System.currentTimeMillis() - flushedAt >= FLUSH_PERIOD_MS) {
+            flushOrClose();
+        }
+    }
+
+    private static void formatRecord(StringBuilder builder, LogRecord record) {
+        builder.append(MyLog.formatDateTime(record.time));
+        builder.append(" ");
+        builder.append(MyLog.logLevelToString(record.logLevel));
+        builder.append("/");
+        builder.append(record.tag);
+        builder.append(":");
+        if (!TextUtils.isEmpty(record.msg)) {
+            builder.append(" ");
+            builder.append(record.msg);
+        }
+        if (record.tr != null) {
+            builder.append(" ");
+            builder.append(record.tr.toString());
+            builder.append("\n");
+            builder.append(MyLog.getStackTrace(record.tr));
+        }
+        builder.append("\n");
+    }
+
+    @GuardedBy("writerLock")
+    private static void write(String string) {
+        try {
+            if (!openFile()) {
+                return;
+            }
+            out.write(string);
+            fileSize += StringUtils.utf8Length(string);
+            if (fileSize > MAX_FILE_SIZE) {
+                closeFile();
+                MyLog.setNextLogFileName();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write to '" + file + "'", e);
+            closeFile();
+        }
+    }
+
+    /** @return true if the file is open */
+    @GuardedBy("writerLock")
+    private static boolean openFile() throws IOException {
+        String filename = MyLog.getLogFilename();
+        if (out != null && file != null && file.getName().equals(filename)) {
+            return true;
+        }
+        closeFile();
+        if (TextUtils.isEmpty(filename)) {
+            return false;
+        }
+        File newFile = MyLog.getFileInLogDir(filename, false);
+        if (newFile == null) {
+            return false;
+        }
+        out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(newFile, true), "UTF-8"),
+                BUFFER_SIZE);
+        file = newFile;
+        fileSize = newFile.length();
+        flushedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    @GuardedBy("writerLock")
+    private static void flushOrClose() {
+        if (out == null) {
+            return;
+        }
+        if (!MyLog.isLogToFileEnabled()) {
+            closeFile();
+            return;
+        }
+        try {
+            out.flush();
+            flushedAt = System.currentTimeMillis();
+            if (!file.exists()) {
+                // The file was deleted, e.g. by the DataPruner. Start a new one
+                closeFile();
+                MyLog.setNextLogFileName();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to flush '" + file + "'", e);
+            closeFile();
+        }
+    }
+
+    @GuardedBy("writerLock")
+    private static void closeFile() {
+        if (out != null) {
+            DbUtils.closeSilently(out, file == null ? "" : file.getName());
+        }
+        out = null;
+        file = null;
+        fileSize = 0;
+    }
+
+    /** @return number of lines, which were not written to the file because the queue was full */
+    static long getDroppedCount() {
+        return droppedTotal.get();
+    }
+}
@@ -21,7 +21,14 @@ import android.text.SpannableString;
 import android.text.TextUtils;
 import android.text.util.Linkify;
 
+import java.util.regex.Pattern;
+
 public class MyHtml {
+    private static final String NEWLINE = "\n";
+    private static final Pattern EMPTY_LINES = Pattern.compile(NEWLINE + "\\s*" + NEWLINE);
+    private static final Pattern PARAGRAPH_START = Pattern.compile("<p[^>]*>");
+    private static final Pattern PARAGRAPH_END = Pattern.compile("</p>");
+
     private MyHtml() {
         // Empty
     }
@@ -29,7 +36,7 @@ public class MyHtml {
     public static String prepareForView(String text) {
         String text2 = stripUnnecessaryNewlines(text);
         if (text2.endsWith("</p>") && StringUtils.countOfOccurrences(text2, "<p") == 1) {
-            text2 = text2.replaceAll("<p[^>]*>","").replaceAll("</p>","");
+            text2 = PARAGRAPH_END.matcher(PARAGRAPH_START.matcher(text2).replaceAll("")).replaceAll("");
         }
         return text2;
     }
@@ -66,11 +73,12 @@ public class MyHtml {
             return "";
         } else {
             String text2 = text.trim();
-            String NEWLINE_SEARCH = "\n";
-            String NEWLINE_REPLACE = "\n";
-            text2 = text2.replaceAll(NEWLINE_SEARCH + "\\s*" + NEWLINE_SEARCH, NEWLINE_REPLACE);
-            if (text2.endsWith(NEWLINE_REPLACE)) {
-                text2 = text2.substring(0, text2.length() - NEWLINE_REPLACE.length());
+            if (!text2.contains(NEWLINE)) {
+                return text2;
+            }
+            text2 = EMPTY_LINES.matcher(text2).replaceAll(NEWLINE);
+            if (text2.endsWith(NEWLINE)) {
+                text2 = text2.substring(0, text2.length() - NEWLINE.length());
             }
             return text2;
         }
@@ -464,14 +464,17 @@ public class MyLog {
         if (logEnabled) {
             setNextLogFileName(false);
         } else { 
+            LogFileWriter.flush();
             synchronized (logFileLock) {
                 logFileName = null;
             }
+            LogFileWriter.flush();
         }
     }
 
+    /** Files of a rotation may start within one second, so their names include milliseconds */
     private static void setNextLogFileName(boolean changeExisting) {
-        String filename = currentDateTimeFormatted() + "_log.txt";
+        String filename = (changeExisting ? uniqueDateTimeFormatted() : currentDateTimeFormatted()) + "_log.txt";
         synchronized (logFileLock) {
             if (logFileName == null || changeExisting) {
                 logFileName = filename; 
@@ -485,50 +488,18 @@ public class MyLog {
         }
     }
     
-    private static Object logFileWriterLock = new Object();
     static void logToFile(int logLevel, String tag, String msg, Throwable tr) {
         if(!isLogToFileEnabled()) {
             return;
         }
-        StringBuilder builder = new StringBuilder();
-        builder.append(currentDateTimeFormatted());
-        builder.append(" ");
-        builder.append(logLevelToString(logLevel));
-        builder.append("/");
-        builder.append(tag);
-        builder.append(":");
-        if (!TextUtils.isEmpty(msg)) {
-            builder.append(" ");
-            builder.append(msg);
-        }
-        if (tr != null) {
-            builder.append(" ");
-            builder.append(tr.toString());
-            builder.append("\n");
-            builder.append(getStackTrace(tr));
-        }
-        builder.append("\n");
-        writeRawStringToLogFile(builder);
+        LogFileWriter.enqueue(logLevel, tag, msg, tr);
     }
 
-    private static void writeRawStringToLogFile(StringBuilder builder)
-    {
-        synchronized (logFileWriterLock)
-        {
-            writeStringToFile(builder.toString(), getMostRecentLogFileName(),
-                              true, false);
-        }
-    }
-    
-    private static String getMostRecentLogFileName() {
-        String filename = getLogFilename();
-        if (!FileUtils.exists(getFileInLogDir(filename, false))) {
-            setNextLogFileName(true);
-            filename = getLogFilename();
-        }
-        return filename;
+    /** Writes lines, queued for the log file, without waiting for the log writer thread */
+    public static void flushLogFile() {
+        LogFileWriter.flush();
     }
-    
+
     public static String getLogFilename() {
         synchronized (logFileLock) {
             return logFileName;
@@ -551,10 +522,14 @@ public class MyLog {
     }
     
     public static String currentDateTimeFormatted() {
-        String strTime = DateFormat.format("yyyy-MM-dd-HH-mm-ss", new Date(System.currentTimeMillis())).toString();
+        return formatDateTime(System.currentTimeMillis());
+    }
+
+    static String formatDateTime(long time) {
+        String strTime = DateFormat.format("yyyy-MM-dd-HH-mm-ss", new Date(time)).toString();
         if (strTime.contains("HH")) {
             // see http://stackoverflow.com/questions/16763968/android-text-format-dateformat-hh-is-not-recognized-like-with-java-text-simple
-            strTime = DateFormat.format("yyyy-MM-dd-kk-mm-ss", new Date(System.currentTimeMillis())).toString();
+            strTime = DateFormat.format("yyyy-MM-dd-kk-mm-ss", new Date(time)).toString();
         }
         return strTime;
     }
@@ -93,7 +93,16 @@ public class MyUrlSpan extends URLSpan {
 
     public static void showText(TextView textView, String text, boolean linkify, boolean showIfEmpty) {
         if (textView == null) return;
-        if (TextUtils.isEmpty(text)) {
+        showSpanned(textView, TextUtils.isEmpty(text) ? null : toSpanned(text, linkify), linkify, showIfEmpty);
+    }
+
+    /**
+     * Shows a text, prepared by {@link #toSpanned(String, boolean)}.
+     * The spanned is copied, so it may be shared, e.g. cached
+     */
+    public static void showSpanned(TextView textView, Spanned spanned, boolean linkify, boolean showIfEmpty) {
+        if (textView == null) return;
+        if (TextUtils.isEmpty(spanned)) {
             textView.setText("");
             showView(textView, showIfEmpty);
         } else {
@@ -102,17 +111,7 @@ public class MyUrlSpan extends URLSpan {
                 textView.setFocusableInTouchMode(true);
                 textView.setLinksClickable(true);
             }
-            // Android 6 bug, see https://github.com/andstatus/andstatus/issues/334
-            // Setting setMovementMethod to not null causes a crash if text is SOFT_HYPHEN only:
-            if (text.contains(SOFT_HYPHEN)) {
-                text = text.replace(SOFT_HYPHEN, "-");
-            }
-            Spanned spanned = MyHtml.hasHtmlMarkup(text) ? Html.fromHtml(text) : new SpannableString(text);
-            textView.setText(spanned);
-            if (linkify && !hasUrlSpans(spanned)) {
-                Linkify.addLinks(textView, Linkify.WEB_URLS);
-            }
-            fixUrlSpans(textView);
+            textView.setText(spanned, TextView.BufferType.SPANNABLE);
             if (linkify) {
                 setOnTouchListener(textView);
             }
@@ -120,6 +119,26 @@ public class MyUrlSpan extends URLSpan {
         }
     }
 
+    /**
+     * Parses HTML, if any, and adds links. This doesn't need a View, so it may be done in a background
+     */
+    @NonNull
+    public static Spanned toSpanned(String text, boolean linkify) {
+        if (TextUtils.isEmpty(text)) {
+            return new SpannableString("");
+        }
+        // Android 6 bug, see https://github.com/andstatus/andstatus/issues/334
+        // Setting setMovementMethod to not null causes a crash if text is SOFT_HYPHEN only:
+        String text2 = text.contains(SOFT_HYPHEN) ? text.replace(SOFT_HYPHEN, "-") : text;
+        SpannableString spannable = SpannableString.valueOf(
+                MyHtml.hasHtmlMarkup(text2) ? Html.fromHtml(text2) : text2);
+        if (linkify && !hasUrlSpans(spannable)) {
+            Linkify.addLinks(spannable, Linkify.WEB_URLS);
+        }
+        fixUrlSpans(spannable);
+        return spannable;
+    }
+
     /**
      * Substitute for: textView.setMovementMethod(LinkMovementMethod.getInstance());
      * setMovementMethod intercepts click on a text part without links,
@@ -222,18 +241,17 @@ public class MyUrlSpan extends URLSpan {
         return has;
     }
 
-    private static void fixUrlSpans(TextView textView) {
-        CharSequence text = textView.getText();
-        SpannableString spannable = SpannableString.class.isAssignableFrom(text.getClass())
-                ? (SpannableString) text : SpannableString.valueOf(text);
+    private static void fixUrlSpans(Spannable spannable) {
         URLSpan[] spans = spannable.getSpans(0, spannable.length(), URLSpan.class);
         for (URLSpan span : spans) {
+            if (span instanceof MyUrlSpan) {
+                continue;
+            }
             int start = spannable.getSpanStart(span);
             int end = spannable.getSpanEnd(span);
             spannable.removeSpan(span);
             spannable.setSpan(new MyUrlSpan(span.getURL()), start, end, 0);
         }
-        textView.setText(spannable);
     }
 
     public static URLSpan[] getUrlSpans(View view) {
@@ -56,4 +56,26 @@ public class StringUtils {
         }
         return count;
     }
+
+    /** Number of bytes of the text in UTF-8, counted without encoding it */
+    public static long utf8Length(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        long length = 0;
+        for (int ind = 0; ind < text.length(); ind++) {
+            char ch = text.charAt(ind);
+            if (ch < 0x80) {
+                length += 1;
+            } else if (ch < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(ch)) {
+                length += 4;
+                ind++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
 }
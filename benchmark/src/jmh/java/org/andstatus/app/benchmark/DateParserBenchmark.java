@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.andstatus.app.benchmark;
+
+import org.andstatus.app.net.social.DateParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * Parsing of dates of all messages of the recorded timelines, the same as Connection.parseDate does
+ * @author yvolk@yurivolkov.com
+ */
+@State(Scope.Benchmark)
+public class DateParserBenchmark {
+    private String[] twitterDates;
+    private String[] isoDates;
+
+    @Setup
+    public void setup() throws IOException {
+        twitterDates = Fixtures.values("created_at", Fixtures.TWITTER_HOME, Fixtures.QUITTER_HOME)
+                .toArray(new String[0]);
+        isoDates = Fixtures.values("published", Fixtures.PUMPIO_TIMELINE, Fixtures.PUMPIO_INBOX)
+                .toArray(new String[0]);
+        if (twitterDates.length == 0 || isoDates.length == 0) {
+            throw new IllegalStateException("No dates in the fixtures");
+        }
+    }
+
+    @Benchmark
+    public long twitter() {
+        long sum = 0;
+        for (String date : twitterDates) {
+            sum += DateParser.TWITTER.parse(date);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long iso8601() {
+        long sum = 0;
+        for (String date : isoDates) {
+            sum += DateParser.ISO_8601.parse(date);
+        }
+        return sum;
+    }
+}
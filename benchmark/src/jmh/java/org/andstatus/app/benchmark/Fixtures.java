@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.andstatus.app.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Responses of Social networks, recorded for the instrumentation tests in androidTest/res/raw
+ * @author yvolk@yurivolkov.com
+ */
+class Fixtures {
+    static final String TWITTER_HOME = "twitter_home_timeline.json";
+    static final String QUITTER_HOME = "quitter_home.json";
+    static final String PUMPIO_TIMELINE = "pumpio_user_timeline.json";
+    static final String PUMPIO_INBOX = "user_t131t_inbox.json";
+
+    private Fixtures() {
+        // Empty
+    }
+
+    static String read(String name) throws IOException {
+        String dir = System.getProperty("fixtures.dir", "../app/src/androidTest/res/raw");
+        return new String(Files.readAllBytes(new File(dir, name).toPath()), Charset.forName("UTF-8"));
+    }
+
+    /** Values of all string properties with the name in the files */
+    static List<String> values(String property, String... names) throws IOException {
+        Pattern pattern = Pattern.compile("\"" + property + "\"\\s*:\\s*\"([^\"]+)\"");
+        List<String> values = new ArrayList<>();
+        for (String name : names) {
+            Matcher matcher = pattern.matcher(read(name));
+            while (matcher.find()) {
+                values.add(matcher.group(1));
+            }
+        }
+        return values;
+    }
+
+    /** Message bodies, as they are stored: text of tweets and html content of Pump.io notes */
+    static List<String> messageBodies() throws IOException {
+        List<String> bodies = new ArrayList<>();
+        for (String name : new String[]{TWITTER_HOME, QUITTER_HOME}) {
+            JSONArray items = new JSONObject(read(name)).getJSONArray("items");
+            for (int i = 0; i < items.length(); i++) {
+                bodies.add(items.getJSONObject(i).optString("text"));
+            }
+        }
+        for (String name : new String[]{PUMPIO_TIMELINE, PUMPIO_INBOX}) {
+            JSONArray items = new JSONObject(read(name)).getJSONArray("items");
+            for (int i = 0; i < items.length(); i++) {
+                JSONObject object = items.getJSONObject(i).optJSONObject("object");
+                if (object != null && object.has("content")) {
+                    bodies.add(object.optString("content"));
+                }
+            }
+        }
+        return bodies;
+    }
+}
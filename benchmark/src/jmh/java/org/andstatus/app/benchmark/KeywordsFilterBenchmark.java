@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.andstatus.app.benchmark;
+
+import org.andstatus.app.msg.KeywordsFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Filtering of message bodies of the recorded timelines, as the TimelineLoader does it
+ * @author yvolk@yurivolkov.com
+ */
+@State(Scope.Benchmark)
+public class KeywordsFilterBenchmark {
+    @Param({"android", "android, \"open source\", gnu social, #andstatus, linux, pump.io, twitter, java"})
+    public String keywords;
+
+    private KeywordsFilter filter;
+    private String[] bodies;
+
+    @Setup
+    public void setup() throws IOException {
+        filter = new KeywordsFilter(keywords);
+        List<String> list = Fixtures.messageBodies();
+        bodies = new String[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            bodies[i] = list.get(i).toLowerCase();
+        }
+    }
+
+    @Benchmark
+    public int matched() {
+        int count = 0;
+        for (String body : bodies) {
+            if (filter.matched(body)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.andstatus.app.benchmark;
+
+import org.andstatus.app.util.MyHtml;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Conversion of message bodies of the recorded timelines: to plain text, as it is done for each stored message,
+ * and for showing in a timeline
+ * @author yvolk@yurivolkov.com
+ */
+@State(Scope.Benchmark)
+public class MyHtmlBenchmark {
+    private String[] bodies;
+
+    @Setup
+    public void setup() throws IOException {
+        List<String> list = Fixtures.messageBodies();
+        bodies = list.toArray(new String[list.size()]);
+    }
+
+    @Benchmark
+    public int fromHtml() {
+        int length = 0;
+        for (String body : bodies) {
+            length += MyHtml.fromHtml(body).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int prepareForView() {
+        int length = 0;
+        for (String body : bodies) {
+            length += MyHtml.prepareForView(body).length();
+        }
+        return length;
+    }
+}
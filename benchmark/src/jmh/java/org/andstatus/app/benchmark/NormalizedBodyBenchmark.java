@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.andstatus.app.benchmark;
+
+import org.andstatus.app.data.NormalizedBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Normalization of message bodies of the recorded timelines, and the comparison of adjacent timeline items
+ * by their normalized bodies, which MessageViewItem.duplicates does while collapsing duplicates
+ * @author yvolk@yurivolkov.com
+ */
+@State(Scope.Benchmark)
+public class NormalizedBodyBenchmark {
+    /** See MessageViewItem.MIN_LENGTH_TO_COMPARE */
+    private static final int MIN_LENGTH_TO_COMPARE = 5;
+
+    private String[] bodies;
+    private NormalizedBody[] normalized;
+
+    @Setup
+    public void setup() throws IOException {
+        List<String> list = new ArrayList<>();
+        for (String body : Fixtures.messageBodies()) {
+            list.add(body);
+            // Reblogs and copies from other accounts, which are collapsed as duplicates
+            list.add(body);
+        }
+        bodies = list.toArray(new String[list.size()]);
+        normalized = new NormalizedBody[bodies.length];
+        for (int i = 0; i < bodies.length; i++) {
+            normalized[i] = NormalizedBody.fromBody(bodies[i]);
+        }
+    }
+
+    @Benchmark
+    public long fromBody() {
+        long hashes = 0;
+        for (String body : bodies) {
+            hashes += NormalizedBody.fromBody(body).hash;
+        }
+        return hashes;
+    }
+
+    @Benchmark
+    public int duplicates() {
+        int count = 0;
+        for (int i = 1; i < normalized.length; i++) {
+            NormalizedBody thisBody = normalized[i];
+            NormalizedBody otherBody = normalized[i - 1];
+            if (thisBody.length() < MIN_LENGTH_TO_COMPARE || otherBody.length() < MIN_LENGTH_TO_COMPARE) {
+                continue;
+            }
+            if (thisBody.isSameText(otherBody) || thisBody.text.contains(otherBody.text)
+                    || otherBody.text.contains(thisBody.text)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shim of the Android class for benchmarks on a desktop JVM, only the methods used by the benchmarked code
+ * @author yvolk@yurivolkov.com
+ */
+public final class ContentValues {
+    private final Map<String, Object> values = new HashMap<>();
+
+    public void put(String key, String value) {
+        values.put(key, value);
+    }
+
+    public void put(String key, Long value) {
+        values.put(key, value);
+    }
+}
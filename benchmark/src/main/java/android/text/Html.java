@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.text;
+
+import org.ccil.cowan.tagsoup.HTMLSchema;
+import org.ccil.cowan.tagsoup.Parser;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Shim of the Android class for benchmarks on a desktop JVM, only the methods used by the benchmarked code.
+ * Like the Android implementation, it parses the html with TagSoup, collapses whitespace
+ * and converts paragraphs and line breaks to newlines, but it doesn't create spans
+ * @author yvolk@yurivolkov.com
+ */
+public class Html {
+    private static final HTMLSchema SCHEMA = new HTMLSchema();
+
+    private Html() {
+        // Empty
+    }
+
+    public static Spanned fromHtml(String source) {
+        Parser parser = new Parser();
+        TextHandler handler = new TextHandler();
+        try {
+            parser.setProperty(Parser.schemaProperty, SCHEMA);
+            parser.setContentHandler(handler);
+            parser.parse(new InputSource(new StringReader(source)));
+        } catch (IOException | SAXException e) {
+            throw new RuntimeException(e);
+        }
+        return SpannableString.valueOf(handler.text);
+    }
+
+    public static String toHtml(Spanned text) {
+        throw new UnsupportedOperationException("Not used by the benchmarks");
+    }
+
+    private static class TextHandler extends DefaultHandler {
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (localName.equalsIgnoreCase("br")) {
+                text.append('\n');
+            } else if (localName.equalsIgnoreCase("p") || localName.equalsIgnoreCase("div")) {
+                paragraph();
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (localName.equalsIgnoreCase("p") || localName.equalsIgnoreCase("div")) {
+                paragraph();
+            }
+        }
+
+        private void paragraph() {
+            int length = text.length();
+            if (length > 0 && text.charAt(length - 1) == '\n') {
+                if (length > 1 && text.charAt(length - 2) != '\n') {
+                    text.append('\n');
+                }
+            } else if (length > 0) {
+                text.append("\n\n");
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            for (int i = start; i < start + length; i++) {
+                char c = ch[i];
+                if (c == ' ' || c == '\n') {
+                    int textLength = text.length();
+                    char previous = textLength == 0 ? '\n' : text.charAt(textLength - 1);
+                    if (previous != ' ' && previous != '\n') {
+                        text.append(' ');
+                    }
+                } else {
+                    text.append(c);
+                }
+            }
+        }
+    }
+}
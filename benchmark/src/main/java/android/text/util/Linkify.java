@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.text.util;
+
+import android.text.Spannable;
+
+/**
+ * Shim of the Android class for benchmarks on a desktop JVM, so that the benchmarked classes compile
+ * @author yvolk@yurivolkov.com
+ */
+public class Linkify {
+    public static final int WEB_URLS = 0x01;
+
+    private Linkify() {
+        // Empty
+    }
+
+    public static boolean addLinks(Spannable text, int mask) {
+        throw new UnsupportedOperationException("Not used by the benchmarks");
+    }
+}
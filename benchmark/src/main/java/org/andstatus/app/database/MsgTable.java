@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.database;
+
+/**
+ * Shim of the application's table definition for benchmarks on a desktop JVM:
+ * only the columns used by the benchmarked code, without the database schema
+ * @author yvolk@yurivolkov.com
+ */
+public final class MsgTable {
+    public static final String BODY_NORMALIZED = "body_normalized";
+    public static final String BODY_HASH = "body_hash";
+
+    private MsgTable() {
+        // Empty
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2016 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.util;
+
+/**
+ * Shim of the application's logger for benchmarks on a desktop JVM: logging is off,
+ * so the benchmarks measure the same work as the application does with the default log level
+ * @author yvolk@yurivolkov.com
+ */
+public class MyLog {
+    private MyLog() {
+        // Empty
+    }
+
+    public static int d(Object objTag, String msg) {
+        return 0;
+    }
+
+    public static int ignored(Object objTag, Throwable tr) {
+        return 0;
+    }
+
+    public static boolean isVerboseEnabled() {
+        return false;
+    }
+}